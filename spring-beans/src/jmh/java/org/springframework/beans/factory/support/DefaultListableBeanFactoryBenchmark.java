@@ -0,0 +1,130 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+
+/**
+ * Benchmarks for bean retrieval from a {@link DefaultListableBeanFactory}
+ * holding a configurable number of bean definitions.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class DefaultListableBeanFactoryBenchmark {
+
+	@Benchmark
+	public void getSingletonByName(BeanFactoryData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("singleton0"));
+	}
+
+	@Benchmark
+	public void getSingletonByType(BeanFactoryData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean(UniqueService.class));
+	}
+
+	@Benchmark
+	public void getPrototypeByName(BeanFactoryData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("prototype"));
+	}
+
+	@Benchmark
+	public void getPrototypeWithDependency(BeanFactoryData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBean("prototypeWithDependency"));
+	}
+
+	@Benchmark
+	public void getBeanNamesForType(BeanFactoryData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBeanNamesForType(Service.class));
+	}
+
+	@Benchmark
+	public void getBeanNamesForTypeUncached(BeanFactoryData data, Blackhole bh) {
+		data.beanFactory.clearMetadataCache();
+		bh.consume(data.beanFactory.getBeanNamesForType(Service.class));
+	}
+
+	@Benchmark
+	public void getBeansOfType(BeanFactoryData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBeansOfType(Service.class));
+	}
+
+	@Benchmark
+	public void getBeanProviderIfAvailable(BeanFactoryData data, Blackhole bh) {
+		bh.consume(data.beanFactory.getBeanProvider(UniqueService.class).getIfAvailable());
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BeanFactoryData {
+
+		@Param({"100", "1000"})
+		public int beanCount;
+
+		public DefaultListableBeanFactory beanFactory;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.beanFactory = new DefaultListableBeanFactory();
+			for (int i = 0; i < this.beanCount; i++) {
+				this.beanFactory.registerBeanDefinition("singleton" + i, new RootBeanDefinition(Service.class));
+			}
+			this.beanFactory.registerBeanDefinition("unique", new RootBeanDefinition(UniqueService.class));
+			RootBeanDefinition prototype = new RootBeanDefinition(Service.class);
+			prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			this.beanFactory.registerBeanDefinition("prototype", prototype);
+			RootBeanDefinition prototypeWithDependency = new RootBeanDefinition(Consumer.class);
+			prototypeWithDependency.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			prototypeWithDependency.setAutowireMode(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR);
+			this.beanFactory.registerBeanDefinition("prototypeWithDependency", prototypeWithDependency);
+			this.beanFactory.preInstantiateSingletons();
+		}
+	}
+
+
+	public static class Service {
+	}
+
+
+	public static class UniqueService {
+	}
+
+
+	public static class Consumer {
+
+		private final UniqueService service;
+
+		public Consumer(UniqueService service) {
+			this.service = service;
+		}
+
+		public UniqueService getService() {
+			return this.service;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.security.PrivilegedActionException;
 import java.security.PrivilegedExceptionAction;
 
 import org.springframework.core.ResolvableType;
+import org.springframework.core.SpringProperties;
 import org.springframework.core.convert.Property;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
@@ -62,6 +63,21 @@ import org.springframework.util.ReflectionUtils;
  */
 public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements BeanWrapper {
 
+	/**
+	 * System property that instructs Spring to access bean properties through
+	 * generated bytecode instead of reflection by default: "spring.beans.accessors.generate".
+	 * <p>The default is "false". Consider switching this flag to "true" for
+	 * applications that bind or read the properties of the same bean classes
+	 * over and over again, e.g. in data binding or row mapping.
+	 * @since 5.2
+	 * @see #setUseGeneratedAccessors
+	 */
+	public static final String GENERATE_ACCESSORS_PROPERTY_NAME = "spring.beans.accessors.generate";
+
+	private static final boolean shouldUseGeneratedAccessors =
+			SpringProperties.getFlag(GENERATE_ACCESSORS_PROPERTY_NAME);
+
+
 	/**
 	 * Cached introspections results for this object, to prevent encountering
 	 * the cost of JavaBeans introspection every time.
@@ -75,6 +91,11 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	@Nullable
 	private AccessControlContext acc;
 
+	/**
+	 * Whether to access properties through generated bytecode.
+	 */
+	private boolean useGeneratedAccessors = shouldUseGeneratedAccessors;
+
 
 	/**
 	 * Create a new empty BeanWrapperImpl. Wrapped instance needs to be set afterwards.
@@ -132,6 +153,7 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	private BeanWrapperImpl(Object object, String nestedPath, BeanWrapperImpl parent) {
 		super(object, nestedPath, parent);
 		setSecurityContext(parent.acc);
+		setUseGeneratedAccessors(parent.useGeneratedAccessors);
 	}
 
 
@@ -194,6 +216,38 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 	}
 
 
+	/**
+	 * Set whether to read and write bean properties through bytecode generated
+	 * once per bean class, invoking the accessor methods directly instead of
+	 * through reflection. Default is "false", unless the
+	 * {@link #GENERATE_ACCESSORS_PROPERTY_NAME "spring.beans.accessors.generate"}
+	 * system property has been set to "true".
+	 * <p>Only applies to public accessor methods of public bean classes,
+	 * and not while running with a SecurityManager; other properties keep
+	 * being accessed reflectively.
+	 * @since 5.2
+	 */
+	public void setUseGeneratedAccessors(boolean useGeneratedAccessors) {
+		this.useGeneratedAccessors = useGeneratedAccessors;
+	}
+
+	/**
+	 * Return whether to read and write bean properties through generated bytecode.
+	 * @since 5.2
+	 */
+	public boolean isUseGeneratedAccessors() {
+		return this.useGeneratedAccessors;
+	}
+
+	/**
+	 * Obtain the generated accessors for the wrapped object, if enabled.
+	 */
+	@Nullable
+	private GeneratedPropertyAccessors getGeneratedAccessors() {
+		return (this.useGeneratedAccessors ? getCachedIntrospectionResults().getGeneratedAccessors() : null);
+	}
+
+
 	/**
 	 * Convert the given value for the specified property to the latter's type.
 	 * <p>This method is only intended for optimizations in a BeanFactory.
@@ -304,6 +358,10 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 				}
 			}
 			else {
+				GeneratedPropertyAccessors accessors = getGeneratedAccessors();
+				if (accessors != null && accessors.isReadable(this.pd)) {
+					return accessors.getValue(getWrappedInstance(), this.pd);
+				}
 				ReflectionUtils.makeAccessible(readMethod);
 				return readMethod.invoke(getWrappedInstance(), (Object[]) null);
 			}
@@ -328,6 +386,11 @@ public class BeanWrapperImpl extends AbstractNestablePropertyAccessor implements
 				}
 			}
 			else {
+				GeneratedPropertyAccessors accessors = getGeneratedAccessors();
+				if (accessors != null && accessors.isWritable(this.pd, value)) {
+					accessors.setValue(getWrappedInstance(), this.pd, value);
+					return;
+				}
 				ReflectionUtils.makeAccessible(writeMethod);
 				writeMethod.invoke(getWrappedInstance(), value);
 			}
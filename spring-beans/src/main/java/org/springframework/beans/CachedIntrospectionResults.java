@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -259,6 +259,13 @@ public final class CachedIntrospectionResults {
 	/** TypeDescriptor objects keyed by PropertyDescriptor. */
 	private final ConcurrentMap<PropertyDescriptor, TypeDescriptor> typeDescriptorCache;
 
+	/** Generated accessors for the bean properties, if any. */
+	@Nullable
+	private volatile GeneratedPropertyAccessors generatedAccessors;
+
+	/** Whether accessor generation has been attempted already. */
+	private volatile boolean generatedAccessorsResolved;
+
 
 	/**
 	 * Create a new CachedIntrospectionResults instance for the given class.
@@ -382,4 +389,31 @@ public final class CachedIntrospectionResults {
 		return this.typeDescriptorCache.get(pd);
 	}
 
+	/**
+	 * Return generated bytecode accessors for the bean properties,
+	 * generating them on first access.
+	 * <p>Accessors are only generated for cached introspection results,
+	 * so that they get created once per bean class.
+	 * @return the generated accessors, or {@code null} if not available
+	 * for the bean class
+	 * @since 5.2
+	 * @see GeneratedPropertyAccessors#generate
+	 */
+	@Nullable
+	GeneratedPropertyAccessors getGeneratedAccessors() {
+		if (!this.generatedAccessorsResolved) {
+			synchronized (this) {
+				if (!this.generatedAccessorsResolved) {
+					Class<?> beanClass = getBeanClass();
+					if (strongClassCache.get(beanClass) == this || softClassCache.get(beanClass) == this) {
+						this.generatedAccessors =
+								GeneratedPropertyAccessors.generate(beanClass, this.propertyDescriptorCache.values());
+					}
+					this.generatedAccessorsResolved = true;
+				}
+			}
+		}
+		return this.generatedAccessors;
+	}
+
 }
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Base superclass for generated bean property accessors. Each generated accessor
+ * class invokes the read and write methods of a specific bean class directly,
+ * selecting the property by its index. It is not intended to be subclassed by
+ * user code: it is only public for access by the generated classes, which get
+ * defined in a child ClassLoader of the bean class.
+ *
+ * @author agent
+ * @since 5.2
+ * @see BeanWrapperImpl#setUseGeneratedAccessors
+ */
+public abstract class GeneratedPropertyAccessor {
+
+	/**
+	 * Invoke the read method of the property with the given index.
+	 * @param target the bean instance
+	 * @param index the index of the property
+	 * @return the property value
+	 * @throws Throwable as thrown by the read method
+	 */
+	@Nullable
+	public abstract Object getValue(Object target, int index) throws Throwable;
+
+	/**
+	 * Invoke the write method of the property with the given index.
+	 * @param target the bean instance
+	 * @param index the index of the property
+	 * @param value the value to set, matching the write method's parameter type
+	 * @throws Throwable as thrown by the write method
+	 */
+	public abstract void setValue(Object target, int index, @Nullable Object value) throws Throwable;
+
+}
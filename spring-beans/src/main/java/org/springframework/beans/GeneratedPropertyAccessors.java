@@ -0,0 +1,335 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import java.beans.PropertyDescriptor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Generated bytecode accessors for the properties of a specific bean class,
+ * invoking public read and write methods directly instead of through
+ * {@link Method#invoke reflection}.
+ *
+ * <p>Instances are created once per bean class and kept in the corresponding
+ * {@link CachedIntrospectionResults}. Properties whose methods or types are
+ * not publicly accessible are not covered and need to be accessed reflectively.
+ *
+ * @author agent
+ * @since 5.2
+ * @see GeneratedPropertyAccessor
+ * @see BeanWrapperImpl#setUseGeneratedAccessors
+ */
+final class GeneratedPropertyAccessors implements Opcodes {
+
+	private static final Log logger = LogFactory.getLog(GeneratedPropertyAccessors.class);
+
+	private static final String ACCESSOR_CLASS_SUFFIX = "$$PropertyAccessor";
+
+	private static final String SUPERCLASS_NAME = Type.getInternalName(GeneratedPropertyAccessor.class);
+
+
+	private final GeneratedPropertyAccessor accessor;
+
+	private final Map<PropertyDescriptor, Integer> readIndexes;
+
+	private final Map<PropertyDescriptor, Integer> writeIndexes;
+
+	private final Class<?>[] writeTypes;
+
+
+	private GeneratedPropertyAccessors(GeneratedPropertyAccessor accessor, Map<PropertyDescriptor, Integer> readIndexes,
+			Map<PropertyDescriptor, Integer> writeIndexes, Class<?>[] writeTypes) {
+
+		this.accessor = accessor;
+		this.readIndexes = readIndexes;
+		this.writeIndexes = writeIndexes;
+		this.writeTypes = writeTypes;
+	}
+
+
+	/**
+	 * Determine whether the given property can be read through the generated accessor.
+	 * @param pd the property (as obtained from the CachedIntrospectionResults)
+	 */
+	public boolean isReadable(PropertyDescriptor pd) {
+		return this.readIndexes.containsKey(pd);
+	}
+
+	/**
+	 * Determine whether the given value can be written to the given property
+	 * through the generated accessor, i.e. whether the write method is covered
+	 * and the value matches its parameter type. Otherwise the reflective
+	 * invocation is responsible for the corresponding error handling.
+	 * @param pd the property (as obtained from the CachedIntrospectionResults)
+	 * @param value the value to write
+	 */
+	public boolean isWritable(PropertyDescriptor pd, @Nullable Object value) {
+		Integer index = this.writeIndexes.get(pd);
+		if (index == null) {
+			return false;
+		}
+		Class<?> writeType = this.writeTypes[index];
+		return (value != null ? ClassUtils.isAssignableValue(writeType, value) : !writeType.isPrimitive());
+	}
+
+	/**
+	 * Read the given property of the given bean instance.
+	 * @param target the bean instance
+	 * @param pd the property (must be {@link #isReadable readable})
+	 * @return the property value
+	 * @throws InvocationTargetException if the read method threw an exception
+	 */
+	@Nullable
+	public Object getValue(Object target, PropertyDescriptor pd) throws InvocationTargetException {
+		try {
+			return this.accessor.getValue(target, this.readIndexes.get(pd));
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+	/**
+	 * Write the given property of the given bean instance.
+	 * @param target the bean instance
+	 * @param pd the property (must be {@link #isWritable writable} for the value)
+	 * @param value the value to write
+	 * @throws InvocationTargetException if the write method threw an exception
+	 */
+	public void setValue(Object target, PropertyDescriptor pd, @Nullable Object value)
+			throws InvocationTargetException {
+
+		try {
+			this.accessor.setValue(target, this.writeIndexes.get(pd), value);
+		}
+		catch (Throwable ex) {
+			throw new InvocationTargetException(ex);
+		}
+	}
+
+
+	/**
+	 * Generate accessors for the given properties of the given bean class.
+	 * @param beanClass the bean class
+	 * @param pds the properties of the bean class
+	 * @return the generated accessors, or {@code null} if none of the
+	 * properties can be accessed through generated bytecode
+	 */
+	@Nullable
+	static GeneratedPropertyAccessors generate(Class<?> beanClass, Collection<PropertyDescriptor> pds) {
+		ClassLoader classLoader = beanClass.getClassLoader();
+		if (classLoader == null || !isAccessible(beanClass) || beanClass.getName().startsWith("java.") ||
+				!ClassUtils.isVisible(GeneratedPropertyAccessor.class, classLoader)) {
+			return null;
+		}
+
+		List<Method> readMethods = new ArrayList<>(pds.size());
+		List<Method> writeMethods = new ArrayList<>(pds.size());
+		Map<PropertyDescriptor, Integer> readIndexes = new IdentityHashMap<>(pds.size());
+		Map<PropertyDescriptor, Integer> writeIndexes = new IdentityHashMap<>(pds.size());
+		List<Class<?>> writeTypes = new ArrayList<>(pds.size());
+		for (PropertyDescriptor pd : pds) {
+			Method readMethod = pd.getReadMethod();
+			if (readMethod != null && isAccessible(readMethod)) {
+				readIndexes.put(pd, readMethods.size());
+				readMethods.add(readMethod);
+			}
+			if (pd.getWriteMethod() != null) {
+				Method writeMethod = (pd instanceof GenericTypeAwarePropertyDescriptor ?
+						((GenericTypeAwarePropertyDescriptor) pd).getWriteMethodForActualAccess() : pd.getWriteMethod());
+				if (isAccessible(writeMethod) && isAccessible(writeMethod.getParameterTypes()[0])) {
+					writeIndexes.put(pd, writeMethods.size());
+					writeMethods.add(writeMethod);
+					writeTypes.add(writeMethod.getParameterTypes()[0]);
+				}
+			}
+		}
+		if (readMethods.isEmpty() && writeMethods.isEmpty()) {
+			return null;
+		}
+
+		try {
+			String className = beanClass.getName() + ACCESSOR_CLASS_SUFFIX;
+			byte[] bytes = generateAccessorClass(className.replace('.', '/'), beanClass, readMethods, writeMethods);
+			Class<?> accessorClass = new ChildClassLoader(classLoader).defineClass(className, bytes);
+			GeneratedPropertyAccessor accessor =
+					(GeneratedPropertyAccessor) accessorClass.getDeclaredConstructor().newInstance();
+			return new GeneratedPropertyAccessors(accessor, readIndexes, writeIndexes,
+					writeTypes.toArray(new Class<?>[0]));
+		}
+		catch (Throwable ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Failed to generate property accessors for " + beanClass + ": " + ex);
+			}
+			return null;
+		}
+	}
+
+	private static boolean isAccessible(Method method) {
+		return (Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers()));
+	}
+
+	private static boolean isAccessible(Class<?> type) {
+		while (type.isArray()) {
+			type = type.getComponentType();
+		}
+		return (type.isPrimitive() || Modifier.isPublic(type.getModifiers()));
+	}
+
+	private static byte[] generateAccessorClass(String className, Class<?> beanClass,
+			List<Method> readMethods, List<Method> writeMethods) {
+
+		ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		cw.visit(V1_5, ACC_PUBLIC | ACC_FINAL | ACC_SYNTHETIC, className, null, SUPERCLASS_NAME, null);
+
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitMethodInsn(INVOKESPECIAL, SUPERCLASS_NAME, "<init>", "()V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		String ownerName = Type.getInternalName(beanClass);
+		String[] exceptions = new String[] {"java/lang/Throwable"};
+
+		// Object getValue(Object target, int index)
+		mv = cw.visitMethod(ACC_PUBLIC, "getValue", "(Ljava/lang/Object;I)Ljava/lang/Object;", null, exceptions);
+		mv.visitCode();
+		Label[] labels = visitSwitch(mv, readMethods.size());
+		for (int i = 0; i < readMethods.size(); i++) {
+			Method readMethod = readMethods.get(i);
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, ownerName);
+			visitInvocation(mv, beanClass, ownerName, readMethod);
+			Class<?> returnType = readMethod.getReturnType();
+			if (returnType.isPrimitive()) {
+				Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+				mv.visitMethodInsn(INVOKESTATIC, Type.getInternalName(wrapperType), "valueOf",
+						"(" + Type.getDescriptor(returnType) + ")" + Type.getDescriptor(wrapperType), false);
+			}
+			mv.visitInsn(ARETURN);
+		}
+		visitNoSuchProperty(mv, labels[labels.length - 1]);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		// void setValue(Object target, int index, Object value)
+		mv = cw.visitMethod(ACC_PUBLIC, "setValue", "(Ljava/lang/Object;ILjava/lang/Object;)V", null, exceptions);
+		mv.visitCode();
+		labels = visitSwitch(mv, writeMethods.size());
+		for (int i = 0; i < writeMethods.size(); i++) {
+			Method writeMethod = writeMethods.get(i);
+			mv.visitLabel(labels[i]);
+			mv.visitVarInsn(ALOAD, 1);
+			mv.visitTypeInsn(CHECKCAST, ownerName);
+			mv.visitVarInsn(ALOAD, 3);
+			Class<?> paramType = writeMethod.getParameterTypes()[0];
+			if (paramType.isPrimitive()) {
+				Class<?> wrapperType = ClassUtils.resolvePrimitiveIfNecessary(paramType);
+				mv.visitTypeInsn(CHECKCAST, Type.getInternalName(wrapperType));
+				mv.visitMethodInsn(INVOKEVIRTUAL, Type.getInternalName(wrapperType), paramType.getName() + "Value",
+						"()" + Type.getDescriptor(paramType), false);
+			}
+			else if (paramType != Object.class) {
+				mv.visitTypeInsn(CHECKCAST, Type.getInternalName(paramType));
+			}
+			visitInvocation(mv, beanClass, ownerName, writeMethod);
+			Type returnType = Type.getReturnType(writeMethod);
+			if (returnType.getSort() != Type.VOID) {
+				// Write methods with a return value, e.g. for builder-style setters
+				mv.visitInsn(returnType.getSize() == 2 ? POP2 : POP);
+			}
+			mv.visitInsn(RETURN);
+		}
+		visitNoSuchProperty(mv, labels[labels.length - 1]);
+		mv.visitMaxs(0, 0);
+		mv.visitEnd();
+
+		cw.visitEnd();
+		return cw.toByteArray();
+	}
+
+	/**
+	 * Switch on the index argument: returns one label per case,
+	 * followed by the label for an unknown index.
+	 */
+	private static Label[] visitSwitch(MethodVisitor mv, int count) {
+		Label[] labels = new Label[count + 1];
+		for (int i = 0; i < labels.length; i++) {
+			labels[i] = new Label();
+		}
+		if (count > 0) {
+			Label[] cases = new Label[count];
+			System.arraycopy(labels, 0, cases, 0, count);
+			mv.visitVarInsn(ILOAD, 2);
+			mv.visitTableSwitchInsn(0, count - 1, labels[count], cases);
+		}
+		return labels;
+	}
+
+	private static void visitInvocation(MethodVisitor mv, Class<?> beanClass, String ownerName, Method method) {
+		boolean isInterface = beanClass.isInterface();
+		mv.visitMethodInsn(isInterface ? INVOKEINTERFACE : INVOKEVIRTUAL, ownerName,
+				method.getName(), Type.getMethodDescriptor(method), isInterface);
+	}
+
+	private static void visitNoSuchProperty(MethodVisitor mv, Label label) {
+		mv.visitLabel(label);
+		mv.visitTypeInsn(NEW, "java/lang/IllegalArgumentException");
+		mv.visitInsn(DUP);
+		mv.visitLdcInsn("No such property index");
+		mv.visitMethodInsn(INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V", false);
+		mv.visitInsn(ATHROW);
+	}
+
+
+	/**
+	 * ClassLoader for a generated accessor class, delegating to the
+	 * ClassLoader of the bean class.
+	 */
+	private static class ChildClassLoader extends ClassLoader {
+
+		public ChildClassLoader(ClassLoader parent) {
+			super(parent);
+		}
+
+		public Class<?> defineClass(String name, byte[] bytes) {
+			return super.defineClass(name, bytes, 0, bytes.length);
+		}
+	}
+
+}
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
@@ -40,6 +41,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.stream.Stream;
 import javax.inject.Provider;
 
@@ -136,6 +138,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private static final Map<String, Reference<DefaultListableBeanFactory>> serializableFactories =
 			new ConcurrentHashMap<>(8);
 
+	/** Maximum number of changed beans to keep track of for the by-type mappings. */
+	private static final int BY_TYPE_CHANGE_LOG_LIMIT = 256;
+
 	/** Optional id for this factory, for serialization purposes. */
 	@Nullable
 	private String serializationId;
@@ -150,6 +155,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	@Nullable
 	private Comparator<Object> dependencyComparator;
 
+	/** Optional Executor for pre-instantiating independent singletons in parallel. */
+	@Nullable
+	private Executor preInstantiationExecutor;
+
 	/** Resolver to use for checking if a bean definition is an autowire candidate. */
 	private AutowireCandidateResolver autowireCandidateResolver = new SimpleAutowireCandidateResolver();
 
@@ -160,10 +169,25 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	private final Map<String, BeanDefinition> beanDefinitionMap = new ConcurrentHashMap<>(256);
 
 	/** Map of singleton and non-singleton bean names, keyed by dependency type. */
-	private final Map<Class<?>, String[]> allBeanNamesByType = new ConcurrentHashMap<>(64);
+	private final Map<Class<?>, CachedBeanNames> allBeanNamesByType = new ConcurrentHashMap<>(64);
 
 	/** Map of singleton-only bean names, keyed by dependency type. */
-	private final Map<Class<?>, String[]> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
+	private final Map<Class<?>, CachedBeanNames> singletonBeanNamesByType = new ConcurrentHashMap<>(64);
+
+	/** Map from factory bean name to the names of beans created through a factory method on it. */
+	private final Map<String, Set<String>> factoryProductNames = new ConcurrentHashMap<>(16);
+
+	/** Names of beans changed since the by-type mappings were cached, in order of change. */
+	private final List<String> byTypeChangeLog = new ArrayList<>(16);
+
+	/** Version of the by-type mappings that the first change log entry leads to. */
+	private int byTypeChangeLogOffset = 1;
+
+	/** Current version of the by-type mappings, reflecting all logged changes. */
+	private volatile int byTypeVersion = 0;
+
+	/** Whether all singletons are being destroyed, with the by-type mappings to be cleared afterwards. */
+	private volatile boolean destroyingAllSingletons = false;
 
 	/** List of bean definition names, in registration order. */
 	private volatile List<String> beanDefinitionNames = new ArrayList<>(256);
@@ -281,6 +305,65 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		return this.dependencyComparator;
 	}
 
+	/**
+	 * Set an {@link Executor} for pre-instantiating singletons in parallel.
+	 * <p>Default is none, instantiating all non-lazy singletons one after the
+	 * other in registration order. If an executor is specified,
+	 * {@link #preInstantiateSingletons()} determines the dependencies between
+	 * the singletons from their bean definitions (depends-on declarations,
+	 * bean references and factory beans) and instantiates singletons on the
+	 * executor as soon as their known dependencies are available, so that
+	 * independent singletons get instantiated concurrently.
+	 * <p>Dependencies that are not known upfront (e.g. autowired ones) get
+	 * resolved at runtime: a thread needing a singleton that another thread is
+	 * creating waits for it, with circular references resolved as usual.
+	 * {@link SmartInitializingSingleton} callbacks are still invoked one after
+	 * the other in registration order, once all singletons are instantiated.
+	 * @since 5.2
+	 * @see #preInstantiateSingletons()
+	 */
+	public void setPreInstantiationExecutor(@Nullable Executor preInstantiationExecutor) {
+		this.preInstantiationExecutor = preInstantiationExecutor;
+	}
+
+	/**
+	 * Return the {@link Executor} for pre-instantiating singletons in parallel, if any.
+	 * @since 5.2
+	 */
+	@Nullable
+	public Executor getPreInstantiationExecutor() {
+		return this.preInstantiationExecutor;
+	}
+
+	/**
+	 * Specify the maximum time in milliseconds for a thread to wait for a singleton
+	 * that another thread is creating, when pre-instantiating singletons through a
+	 * {@link #setPreInstantiationExecutor pre-instantiation executor}.
+	 * <p>Default is {@link #DEFAULT_SINGLETON_CREATION_TIMEOUT 60 seconds}, failing
+	 * with a {@link org.springframework.beans.factory.BeanCurrentlyInCreationException}
+	 * when exceeded. Raise it for singletons that take longer to initialize, e.g.
+	 * warming up caches or connection pools, or specify 0 or a negative value for no
+	 * limit. Circular references across threads get resolved either way, but a
+	 * deadlock through a lock held outside of the bean factory goes undetected
+	 * without a limit.
+	 * @since 5.2
+	 * @see #setPreInstantiationExecutor
+	 */
+	@Override
+	public void setSingletonCreationTimeout(long singletonCreationTimeout) {
+		super.setSingletonCreationTimeout(singletonCreationTimeout);
+	}
+
+	/**
+	 * Return the maximum time in milliseconds to wait for a singleton in creation
+	 * by another thread, with 0 or a negative value indicating no limit.
+	 * @since 5.2
+	 */
+	@Override
+	public long getSingletonCreationTimeout() {
+		return super.getSingletonCreationTimeout();
+	}
+
 	/**
 	 * Set a custom autowire candidate resolver for this BeanFactory to use
 	 * when deciding whether a bean definition should be considered as a
@@ -318,6 +401,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.allowBeanDefinitionOverriding = otherListableFactory.allowBeanDefinitionOverriding;
 			this.allowEagerClassLoading = otherListableFactory.allowEagerClassLoading;
 			this.dependencyComparator = otherListableFactory.dependencyComparator;
+			this.preInstantiationExecutor = otherListableFactory.preInstantiationExecutor;
+			setSingletonCreationTimeout(otherListableFactory.getSingletonCreationTimeout());
 			// A clone of the AutowireCandidateResolver since it is potentially BeanFactoryAware...
 			setAutowireCandidateResolver(BeanUtils.instantiateClass(getAutowireCandidateResolver().getClass()));
 			// Make resolvable dependencies (e.g. ResourceLoader) available here as well...
@@ -461,6 +546,10 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (resolved != null && !type.hasGenerics()) {
 			return getBeanNamesForType(resolved, true, true);
 		}
+		else if (resolved != null && isConfigurationFrozen()) {
+			// Only check the beans that match the raw type, as cached.
+			return filterBeanNamesForType(getBeanNamesForType(resolved, true, true), type);
+		}
 		else {
 			return doGetBeanNamesForType(type, true, true);
 		}
@@ -476,15 +565,28 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		if (!isConfigurationFrozen() || type == null || !allowEagerInit) {
 			return doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, allowEagerInit);
 		}
-		Map<Class<?>, String[]> cache =
+		Map<Class<?>, CachedBeanNames> cache =
 				(includeNonSingletons ? this.allBeanNamesByType : this.singletonBeanNamesByType);
-		String[] resolvedBeanNames = cache.get(type);
-		if (resolvedBeanNames != null) {
-			return resolvedBeanNames;
+		int version = this.byTypeVersion;
+		CachedBeanNames cachedBeanNames = cache.get(type);
+		if (cachedBeanNames != null && cachedBeanNames.version == version) {
+			return cachedBeanNames.beanNames;
+		}
+		String[] resolvedBeanNames = null;
+		if (cachedBeanNames != null) {
+			resolvedBeanNames = updateBeanNamesForType(type, cachedBeanNames, includeNonSingletons);
+		}
+		if (resolvedBeanNames == null) {
+			resolvedBeanNames = doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, true);
 		}
-		resolvedBeanNames = doGetBeanNamesForType(ResolvableType.forRawClass(type), includeNonSingletons, true);
 		if (ClassUtils.isCacheSafe(type, getBeanClassLoader())) {
-			cache.put(type, resolvedBeanNames);
+			CachedBeanNames updatedBeanNames = new CachedBeanNames(resolvedBeanNames, version);
+			if (cachedBeanNames != null) {
+				cache.replace(type, cachedBeanNames, updatedBeanNames);
+			}
+			else {
+				cache.putIfAbsent(type, updatedBeanNames);
+			}
 		}
 		return resolvedBeanNames;
 	}
@@ -497,80 +599,201 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			// Only consider bean as eligible if the bean name
 			// is not defined as alias for some other bean.
 			if (!isAlias(beanName)) {
-				try {
-					RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
-					// Only check bean definition if it is complete.
-					if (!mbd.isAbstract() && (allowEagerInit ||
-							(mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) &&
-									!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
-						// In case of FactoryBean, match object created by FactoryBean.
-						boolean isFactoryBean = isFactoryBean(beanName, mbd);
-						BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
-						boolean matchFound =
-								(allowEagerInit || !isFactoryBean ||
-										(dbd != null && !mbd.isLazyInit()) || containsSingleton(beanName)) &&
-								(includeNonSingletons ||
-										(dbd != null ? mbd.isSingleton() : isSingleton(beanName))) &&
-								isTypeMatch(beanName, type);
-						if (!matchFound && isFactoryBean) {
-							// In case of FactoryBean, try to match FactoryBean instance itself next.
-							beanName = FACTORY_BEAN_PREFIX + beanName;
-							matchFound = (includeNonSingletons || mbd.isSingleton()) && isTypeMatch(beanName, type);
-						}
-						if (matchFound) {
-							result.add(beanName);
-						}
-					}
-				}
-				catch (CannotLoadBeanClassException ex) {
-					if (allowEagerInit) {
-						throw ex;
-					}
-					// Probably a class name with a placeholder: let's ignore it for type matching purposes.
-					if (logger.isTraceEnabled()) {
-						logger.trace("Ignoring bean class loading failure for bean '" + beanName + "'", ex);
-					}
-					onSuppressedException(ex);
-				}
-				catch (BeanDefinitionStoreException ex) {
-					if (allowEagerInit) {
-						throw ex;
-					}
-					// Probably some metadata with a placeholder: let's ignore it for type matching purposes.
-					if (logger.isTraceEnabled()) {
-						logger.trace("Ignoring unresolvable metadata in bean definition '" + beanName + "'", ex);
-					}
-					onSuppressedException(ex);
+				String matchingName = matchBeanDefinitionForType(beanName, type, includeNonSingletons, allowEagerInit);
+				if (matchingName != null) {
+					result.add(matchingName);
 				}
 			}
 		}
 
 		// Check manually registered singletons too.
 		for (String beanName : this.manualSingletonNames) {
-			try {
+			String matchingName = matchManualSingletonForType(beanName, type, includeNonSingletons);
+			if (matchingName != null) {
+				result.add(matchingName);
+			}
+		}
+
+		return StringUtils.toStringArray(result);
+	}
+
+	/**
+	 * Check whether the given bean definition matches the given type.
+	 * @return the bean name to expose for the match (possibly the
+	 * FactoryBean-dereferenced name), or {@code null} if no match
+	 */
+	@Nullable
+	private String matchBeanDefinitionForType(
+			String beanName, ResolvableType type, boolean includeNonSingletons, boolean allowEagerInit) {
+
+		try {
+			RootBeanDefinition mbd = getMergedLocalBeanDefinition(beanName);
+			// Only check bean definition if it is complete.
+			if (!mbd.isAbstract() && (allowEagerInit ||
+					(mbd.hasBeanClass() || !mbd.isLazyInit() || isAllowEagerClassLoading()) &&
+							!requiresEagerInitForType(mbd.getFactoryBeanName()))) {
 				// In case of FactoryBean, match object created by FactoryBean.
-				if (isFactoryBean(beanName)) {
-					if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
-						result.add(beanName);
-						// Match found for this bean: do not match FactoryBean itself anymore.
-						continue;
+				boolean isFactoryBean = isFactoryBean(beanName, mbd);
+				BeanDefinitionHolder dbd = mbd.getDecoratedDefinition();
+				boolean matchFound =
+						(allowEagerInit || !isFactoryBean ||
+								(dbd != null && !mbd.isLazyInit()) || containsSingleton(beanName)) &&
+						(includeNonSingletons ||
+								(dbd != null ? mbd.isSingleton() : isSingleton(beanName))) &&
+						isTypeMatch(beanName, type);
+				if (matchFound) {
+					return beanName;
+				}
+				if (isFactoryBean) {
+					// In case of FactoryBean, try to match FactoryBean instance itself next.
+					String factoryBeanName = FACTORY_BEAN_PREFIX + beanName;
+					if ((includeNonSingletons || mbd.isSingleton()) && isTypeMatch(factoryBeanName, type)) {
+						return factoryBeanName;
 					}
-					// In case of FactoryBean, try to match FactoryBean itself next.
-					beanName = FACTORY_BEAN_PREFIX + beanName;
 				}
-				// Match raw bean instance (might be raw FactoryBean).
-				if (isTypeMatch(beanName, type)) {
-					result.add(beanName);
+			}
+		}
+		catch (CannotLoadBeanClassException ex) {
+			if (allowEagerInit) {
+				throw ex;
+			}
+			// Probably a class name with a placeholder: let's ignore it for type matching purposes.
+			if (logger.isTraceEnabled()) {
+				logger.trace("Ignoring bean class loading failure for bean '" + beanName + "'", ex);
+			}
+			onSuppressedException(ex);
+		}
+		catch (BeanDefinitionStoreException ex) {
+			if (allowEagerInit) {
+				throw ex;
+			}
+			// Probably some metadata with a placeholder: let's ignore it for type matching purposes.
+			if (logger.isTraceEnabled()) {
+				logger.trace("Ignoring unresolvable metadata in bean definition '" + beanName + "'", ex);
+			}
+			onSuppressedException(ex);
+		}
+		return null;
+	}
+
+	/**
+	 * Check whether the given manually registered singleton matches the given type.
+	 * @return the bean name to expose for the match (possibly the
+	 * FactoryBean-dereferenced name), or {@code null} if no match
+	 */
+	@Nullable
+	private String matchManualSingletonForType(String beanName, ResolvableType type, boolean includeNonSingletons) {
+		try {
+			// In case of FactoryBean, match object created by FactoryBean.
+			if (isFactoryBean(beanName)) {
+				if ((includeNonSingletons || isSingleton(beanName)) && isTypeMatch(beanName, type)) {
+					// Match found for this bean: do not match FactoryBean itself anymore.
+					return beanName;
+				}
+				// In case of FactoryBean, try to match FactoryBean itself next.
+				beanName = FACTORY_BEAN_PREFIX + beanName;
+			}
+			// Match raw bean instance (might be raw FactoryBean).
+			if (isTypeMatch(beanName, type)) {
+				return beanName;
+			}
+		}
+		catch (NoSuchBeanDefinitionException ex) {
+			// Shouldn't happen - probably a result of circular reference resolution...
+			if (logger.isTraceEnabled()) {
+				logger.trace("Failed to check manually registered singleton with name '" + beanName + "'", ex);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Bring the given cached bean names for the given type up to date, re-checking
+	 * only the beans that changed since the names were determined.
+	 * @return the current bean names for the given type, or {@code null}
+	 * if the changes are not known anymore and a full check is required
+	 */
+	@Nullable
+	private String[] updateBeanNamesForType(
+			Class<?> type, CachedBeanNames cachedBeanNames, boolean includeNonSingletons) {
+
+		Set<String> changedBeanNames;
+		synchronized (this.byTypeChangeLog) {
+			int start = cachedBeanNames.version + 1 - this.byTypeChangeLogOffset;
+			if (start < 0 || start > this.byTypeChangeLog.size()) {
+				return null;
+			}
+			changedBeanNames = new HashSet<>(this.byTypeChangeLog.subList(start, this.byTypeChangeLog.size()));
+		}
+
+		Set<String> result = new LinkedHashSet<>(cachedBeanNames.beanNames.length + changedBeanNames.size());
+		for (String beanName : cachedBeanNames.beanNames) {
+			if (!changedBeanNames.contains(BeanFactoryUtils.transformedBeanName(beanName))) {
+				result.add(beanName);
+			}
+		}
+		ResolvableType resolvableType = ResolvableType.forRawClass(type);
+		boolean added = false;
+		for (String beanName : changedBeanNames) {
+			String matchingName = null;
+			if (this.beanDefinitionMap.containsKey(beanName)) {
+				if (!isAlias(beanName)) {
+					matchingName = matchBeanDefinitionForType(beanName, resolvableType, includeNonSingletons, true);
+				}
+			}
+			else if (this.manualSingletonNames.contains(beanName)) {
+				matchingName = matchManualSingletonForType(beanName, resolvableType, includeNonSingletons);
+			}
+			if (matchingName != null) {
+				result.add(matchingName);
+				added = true;
+			}
+		}
+		if (!added) {
+			return StringUtils.toStringArray(result);
+		}
+
+		// Restore registration order, as for a full check.
+		List<String> orderedResult = new ArrayList<>(result.size());
+		Iterator<String> beanNames = getBeanNamesIterator();
+		while (beanNames.hasNext() && orderedResult.size() < result.size()) {
+			String beanName = beanNames.next();
+			if (result.contains(beanName)) {
+				orderedResult.add(beanName);
+			}
+			else if (result.contains(FACTORY_BEAN_PREFIX + beanName)) {
+				orderedResult.add(FACTORY_BEAN_PREFIX + beanName);
+			}
+		}
+		return StringUtils.toStringArray(orderedResult);
+	}
+
+	/**
+	 * Narrow down the given bean names, as matching the raw class of the given
+	 * generic type, to the beans that match the full generic type.
+	 */
+	private String[] filterBeanNamesForType(String[] candidateNames, ResolvableType type) {
+		List<String> result = new ArrayList<>(candidateNames.length);
+		for (String candidateName : candidateNames) {
+			try {
+				if (isTypeMatch(candidateName, type)) {
+					result.add(candidateName);
+				}
+				else if (!BeanFactoryUtils.isFactoryDereference(candidateName) && isFactoryBean(candidateName)) {
+					// In case of FactoryBean, try to match FactoryBean instance itself next.
+					String factoryBeanName = FACTORY_BEAN_PREFIX + candidateName;
+					if (isTypeMatch(factoryBeanName, type)) {
+						result.add(factoryBeanName);
+					}
 				}
 			}
 			catch (NoSuchBeanDefinitionException ex) {
-				// Shouldn't happen - probably a result of circular reference resolution...
+				// Removed in the meantime - ignore.
 				if (logger.isTraceEnabled()) {
-					logger.trace("Failed to check manually registered singleton with name '" + beanName + "'", ex);
+					logger.trace("Failed to check bean with name '" + candidateName + "'", ex);
 				}
 			}
 		}
-
 		return StringUtils.toStringArray(result);
 	}
 
@@ -792,6 +1015,9 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	public void freezeConfiguration() {
 		this.configurationFrozen = true;
 		this.frozenBeanDefinitionNames = StringUtils.toStringArray(this.beanDefinitionNames);
+		// Pick up factory bean names that got changed on registered bean definitions.
+		this.factoryProductNames.clear();
+		this.beanDefinitionMap.forEach((beanName, bd) -> addFactoryProduct(beanName, bd));
 	}
 
 	@Override
@@ -820,31 +1046,19 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		List<String> beanNames = new ArrayList<>(this.beanDefinitionNames);
 
 		// Trigger initialization of all non-lazy singleton beans...
-		for (String beanName : beanNames) {
-			RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
-			if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
-				if (isFactoryBean(beanName)) {
-					Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
-					if (bean instanceof FactoryBean) {
-						final FactoryBean<?> factory = (FactoryBean<?>) bean;
-						boolean isEagerInit;
-						if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
-							isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
-											((SmartFactoryBean<?>) factory)::isEagerInit,
-									getAccessControlContext());
-						}
-						else {
-							isEagerInit = (factory instanceof SmartFactoryBean &&
-									((SmartFactoryBean<?>) factory).isEagerInit());
-						}
-						if (isEagerInit) {
-							getBean(beanName);
-						}
-					}
-				}
-				else {
-					getBean(beanName);
-				}
+		Executor executor = this.preInstantiationExecutor;
+		if (executor != null) {
+			setConcurrentSingletonCreation(true);
+			try {
+				new ParallelSingletonInstantiator(this, executor).instantiate(beanNames, this::preInstantiateSingleton);
+			}
+			finally {
+				setConcurrentSingletonCreation(false);
+			}
+		}
+		else {
+			for (String beanName : beanNames) {
+				preInstantiateSingleton(beanName);
 			}
 		}
 
@@ -867,6 +1081,40 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Instantiate the given bean if it is a non-lazy singleton,
+	 * as part of {@link #preInstantiateSingletons()}.
+	 * @param beanName the name of the bean
+	 */
+	private void preInstantiateSingleton(String beanName) {
+		RootBeanDefinition bd = getMergedLocalBeanDefinition(beanName);
+		if (!bd.isAbstract() && bd.isSingleton() && !bd.isLazyInit()) {
+			if (isFactoryBean(beanName)) {
+				Object bean = getBean(FACTORY_BEAN_PREFIX + beanName);
+				if (bean instanceof FactoryBean) {
+					final FactoryBean<?> factory = (FactoryBean<?>) bean;
+					boolean isEagerInit;
+					if (System.getSecurityManager() != null && factory instanceof SmartFactoryBean) {
+						isEagerInit = AccessController.doPrivileged((PrivilegedAction<Boolean>)
+										((SmartFactoryBean<?>) factory)::isEagerInit,
+								getAccessControlContext());
+					}
+					else {
+						isEagerInit = (factory instanceof SmartFactoryBean &&
+								((SmartFactoryBean<?>) factory).isEagerInit());
+					}
+					if (isEagerInit) {
+						getBean(beanName);
+					}
+				}
+			}
+			else {
+				getBean(beanName);
+			}
+		}
+	}
+
+
 	//---------------------------------------------------------------------
 	// Implementation of BeanDefinitionRegistry interface
 	//---------------------------------------------------------------------
@@ -942,9 +1190,17 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.frozenBeanDefinitionNames = null;
 		}
 
+		if (existingDefinition != null) {
+			removeFactoryProduct(beanName, existingDefinition);
+		}
+		addFactoryProduct(beanName, beanDefinition);
+
 		if (existingDefinition != null || containsSingleton(beanName)) {
 			resetBeanDefinition(beanName);
 		}
+		else {
+			updateByTypeCache(beanName);
+		}
 	}
 
 	@Override
@@ -972,6 +1228,7 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			this.beanDefinitionNames.remove(beanName);
 		}
 		this.frozenBeanDefinitionNames = null;
+		removeFactoryProduct(beanName, bd);
 
 		resetBeanDefinition(beanName);
 	}
@@ -983,6 +1240,8 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	 * triggering {@link #clearMergedBeanDefinition}, {@link #destroySingleton}
 	 * and {@link MergedBeanDefinitionPostProcessor#resetBeanDefinition} on the
 	 * given bean and on all bean definitions that have the given bean as parent.
+	 * The merged bean definitions of beans created through a factory method on
+	 * the given bean are cleared as well, since their type derives from it.
 	 * @param beanName the name of the bean to reset
 	 * @see #registerBeanDefinition
 	 * @see #removeBeanDefinition
@@ -991,6 +1250,15 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 		// Remove the merged bean definition for the given bean, if already created.
 		clearMergedBeanDefinition(beanName);
 
+		// Remove the merged bean definitions of its factory method products (recursively).
+		Set<String> factoryProducts = new LinkedHashSet<>();
+		collectFactoryProducts(beanName, factoryProducts);
+		for (String productName : factoryProducts) {
+			if (!beanName.equals(productName)) {
+				clearMergedBeanDefinition(productName);
+			}
+		}
+
 		// Remove corresponding bean from singleton cache, if any. Shouldn't usually
 		// be necessary, rather just meant for overriding a context's default beans
 		// (e.g. the default StaticMessageSource in a StaticApplicationContext).
@@ -1044,29 +1312,125 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 			}
 		}
 
-		clearByTypeCache();
+		updateByTypeCache(beanName);
 	}
 
 	@Override
 	public void destroySingleton(String beanName) {
 		super.destroySingleton(beanName);
 		this.manualSingletonNames.remove(beanName);
-		clearByTypeCache();
+		if (!this.destroyingAllSingletons) {
+			updateByTypeCache(beanName);
+		}
 	}
 
 	@Override
 	public void destroySingletons() {
-		super.destroySingletons();
-		this.manualSingletonNames.clear();
-		clearByTypeCache();
+		// No need to track individual beans when all of them get destroyed.
+		this.destroyingAllSingletons = true;
+		try {
+			super.destroySingletons();
+			this.manualSingletonNames.clear();
+		}
+		finally {
+			this.destroyingAllSingletons = false;
+			clearByTypeCache();
+		}
 	}
 
 	/**
-	 * Remove any assumptions about by-type mappings.
+	 * Record a change of the given bean for the by-type mappings: cached mappings
+	 * re-check just the changed beans on their next access, instead of being
+	 * dropped for every single change. Beans created through a factory method on
+	 * the given bean are recorded as changed as well, since their type derives
+	 * from the given bean.
+	 * @param beanName the name of the bean that got registered, replaced or removed
+	 */
+	private void updateByTypeCache(String beanName) {
+		if (!isConfigurationFrozen()) {
+			// By-type mappings are not cached before the configuration is frozen.
+			return;
+		}
+		Set<String> changedBeanNames = new LinkedHashSet<>();
+		collectFactoryProducts(beanName, changedBeanNames);
+		synchronized (this.byTypeChangeLog) {
+			if (this.byTypeChangeLog.size() >= BY_TYPE_CHANGE_LOG_LIMIT) {
+				// Re-checking would be about as expensive as a full check by now...
+				this.byTypeChangeLogOffset += this.byTypeChangeLog.size();
+				this.byTypeChangeLog.clear();
+				this.allBeanNamesByType.clear();
+				this.singletonBeanNamesByType.clear();
+			}
+			this.byTypeChangeLog.addAll(changedBeanNames);
+			this.byTypeVersion = this.byTypeChangeLogOffset + this.byTypeChangeLog.size() - 1;
+		}
+	}
+
+	/**
+	 * Collect the given bean along with all beans that are created through a
+	 * factory method on it, recursively.
+	 */
+	private void collectFactoryProducts(String beanName, Set<String> result) {
+		if (!result.add(beanName)) {
+			return;
+		}
+		collectFactoryProductsFor(beanName, result);
+		for (String alias : getAliases(beanName)) {
+			collectFactoryProductsFor(alias, result);
+		}
+	}
+
+	private void collectFactoryProductsFor(String factoryBeanName, Set<String> result) {
+		Set<String> productNames = this.factoryProductNames.get(factoryBeanName);
+		if (productNames != null) {
+			for (String productName : productNames) {
+				collectFactoryProducts(productName, result);
+			}
+		}
+	}
+
+	/**
+	 * Record the given bean as created through a factory method on the
+	 * factory bean specified by the given bean definition, if any.
+	 */
+	private void addFactoryProduct(String beanName, BeanDefinition bd) {
+		String factoryBeanName = bd.getFactoryBeanName();
+		if (factoryBeanName != null) {
+			this.factoryProductNames.compute(factoryBeanName, (key, productNames) -> {
+				Set<String> result = (productNames != null ? productNames : ConcurrentHashMap.newKeySet());
+				result.add(beanName);
+				return result;
+			});
+		}
+	}
+
+	/**
+	 * Remove the given bean from the products of the factory bean
+	 * specified by the given bean definition, if any.
+	 */
+	private void removeFactoryProduct(String beanName, BeanDefinition bd) {
+		String factoryBeanName = bd.getFactoryBeanName();
+		if (factoryBeanName != null) {
+			this.factoryProductNames.computeIfPresent(factoryBeanName, (key, productNames) -> {
+				productNames.remove(beanName);
+				return (productNames.isEmpty() ? null : productNames);
+			});
+		}
+	}
+
+	/**
+	 * Remove any assumptions about by-type mappings, along with the changes
+	 * recorded for them. Also moves on to a new version, so that mappings
+	 * still being determined against the previous state get re-checked in full.
 	 */
 	private void clearByTypeCache() {
-		this.allBeanNamesByType.clear();
-		this.singletonBeanNamesByType.clear();
+		synchronized (this.byTypeChangeLog) {
+			this.byTypeChangeLogOffset += this.byTypeChangeLog.size() + 1;
+			this.byTypeChangeLog.clear();
+			this.allBeanNamesByType.clear();
+			this.singletonBeanNamesByType.clear();
+			this.byTypeVersion = this.byTypeChangeLogOffset - 1;
+		}
 	}
 
 
@@ -1735,6 +2099,23 @@ public class DefaultListableBeanFactory extends AbstractAutowireCapableBeanFacto
 	}
 
 
+	/**
+	 * Bean names matching a specific type, along with the version of the
+	 * by-type mappings that they have been determined for.
+	 */
+	private static final class CachedBeanNames {
+
+		final String[] beanNames;
+
+		final int version;
+
+		CachedBeanNames(String[] beanNames, int version) {
+			this.beanNames = beanNames;
+			this.version = version;
+		}
+	}
+
+
 	/**
 	 * Minimal id reference to the factory.
 	 * Resolved to the actual factory instance on deserialization.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.BeanCreationException;
 import org.springframework.beans.factory.BeanCreationNotAllowedException;
@@ -32,6 +33,7 @@ import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.config.SingletonBeanRegistry;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.SimpleAliasRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -70,6 +72,10 @@ import org.springframework.util.StringUtils;
  */
 public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements SingletonBeanRegistry {
 
+	/** Default maximum time in milliseconds to wait for a singleton in creation by another thread: 60 seconds. */
+	public static final long DEFAULT_SINGLETON_CREATION_TIMEOUT = 60000;
+
+
 	/** Cache of singleton objects: bean name to bean instance. */
 	private final Map<String, Object> singletonObjects = new ConcurrentHashMap<>(256);
 
@@ -86,13 +92,28 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	private final Set<String> singletonsCurrentlyInCreation =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
+	/** Threads that currently create singletons: bean name to creating thread. */
+	private final Map<String, Thread> singletonCreationThreads = new HashMap<>(16);
+
+	/** Threads that wait for a singleton created by another thread: thread to bean name. */
+	private final Map<Thread, String> singletonWaitingThreads = new HashMap<>(4);
+
+	/** Whether singletons get created without holding the singleton lock. */
+	private volatile boolean concurrentSingletonCreation = false;
+
+	/** Maximum time in milliseconds to wait for a singleton in creation by another thread. */
+	private volatile long singletonCreationTimeout = DEFAULT_SINGLETON_CREATION_TIMEOUT;
+
 	/** Names of beans currently excluded from in creation checks. */
 	private final Set<String> inCreationCheckExclusions =
 			Collections.newSetFromMap(new ConcurrentHashMap<>(16));
 
-	/** List of suppressed Exceptions, available for associating related causes. */
-	@Nullable
-	private Set<Exception> suppressedExceptions;
+	/**
+	 * Suppressed Exceptions of the singleton creation in the current thread,
+	 * available for associating related causes.
+	 */
+	private final ThreadLocal<Set<Exception>> suppressedExceptions =
+			new NamedThreadLocal<>("Suppressed exceptions of singleton creation");
 
 	/** Flag that indicates whether we're currently within destroySingletons. */
 	private boolean singletonsCurrentlyInDestruction = false;
@@ -177,15 +198,30 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 		Object singletonObject = this.singletonObjects.get(beanName);
 		if (singletonObject == null && isSingletonCurrentlyInCreation(beanName)) {
 			synchronized (this.singletonObjects) {
-				singletonObject = this.earlySingletonObjects.get(beanName);
-				if (singletonObject == null && allowEarlyReference) {
-					ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
-					if (singletonFactory != null) {
-						singletonObject = singletonFactory.getObject();
-						this.earlySingletonObjects.put(beanName, singletonObject);
-						this.singletonFactories.remove(beanName);
-					}
+				Thread creatingThread = this.singletonCreationThreads.get(beanName);
+				if (creatingThread != null && creatingThread != Thread.currentThread()) {
+					// Not a circular reference: to be awaited instead of exposing an early reference.
+					return this.singletonObjects.get(beanName);
 				}
+				singletonObject = getEarlySingletonReference(beanName, allowEarlyReference);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Return an early reference to the specified singleton in creation,
+	 * if available. To be called while holding the singleton lock.
+	 */
+	@Nullable
+	private Object getEarlySingletonReference(String beanName, boolean allowEarlyReference) {
+		Object singletonObject = this.earlySingletonObjects.get(beanName);
+		if (singletonObject == null && allowEarlyReference) {
+			ObjectFactory<?> singletonFactory = this.singletonFactories.get(beanName);
+			if (singletonFactory != null) {
+				singletonObject = singletonFactory.getObject();
+				this.earlySingletonObjects.put(beanName, singletonObject);
+				this.singletonFactories.remove(beanName);
 			}
 		}
 		return singletonObject;
@@ -201,55 +237,201 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 */
 	public Object getSingleton(String beanName, ObjectFactory<?> singletonFactory) {
 		Assert.notNull(beanName, "Bean name must not be null");
+		boolean concurrentCreation = this.concurrentSingletonCreation;
 		synchronized (this.singletonObjects) {
 			Object singletonObject = this.singletonObjects.get(beanName);
 			if (singletonObject == null) {
-				if (this.singletonsCurrentlyInDestruction) {
-					throw new BeanCreationNotAllowedException(beanName,
-							"Singleton bean creation not allowed while singletons of this factory are in destruction " +
-							"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
-				}
-				if (logger.isDebugEnabled()) {
-					logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
-				}
-				beforeSingletonCreation(beanName);
-				boolean newSingleton = false;
-				boolean recordSuppressedExceptions = (this.suppressedExceptions == null);
-				if (recordSuppressedExceptions) {
-					this.suppressedExceptions = new LinkedHashSet<>();
+				singletonObject = awaitSingletonCreation(beanName);
+			}
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			if (this.singletonsCurrentlyInDestruction) {
+				throw new BeanCreationNotAllowedException(beanName,
+						"Singleton bean creation not allowed while singletons of this factory are in destruction " +
+						"(Do not request a bean from a BeanFactory in a destroy method implementation!)");
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Creating shared instance of singleton bean '" + beanName + "'");
+			}
+			beforeSingletonCreation(beanName);
+			this.singletonCreationThreads.put(beanName, Thread.currentThread());
+			if (!concurrentCreation) {
+				return createSingleton(beanName, singletonFactory);
+			}
+		}
+		// Let other threads create unrelated singletons in the meantime.
+		return createSingleton(beanName, singletonFactory);
+	}
+
+	/**
+	 * Create the specified singleton through the given factory and register it,
+	 * once {@link #beforeSingletonCreation} has been passed.
+	 */
+	private Object createSingleton(String beanName, ObjectFactory<?> singletonFactory) {
+		boolean recordSuppressedExceptions = (this.suppressedExceptions.get() == null);
+		if (recordSuppressedExceptions) {
+			this.suppressedExceptions.set(new LinkedHashSet<>());
+		}
+		Object singletonObject = null;
+		boolean newSingleton = false;
+		try {
+			singletonObject = singletonFactory.getObject();
+			newSingleton = true;
+		}
+		catch (IllegalStateException ex) {
+			// Has the singleton object implicitly appeared in the meantime ->
+			// if yes, proceed with it since the exception indicates that state.
+			singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject == null) {
+				throw ex;
+			}
+		}
+		catch (BeanCreationException ex) {
+			if (recordSuppressedExceptions) {
+				for (Exception suppressedException : this.suppressedExceptions.get()) {
+					ex.addRelatedCause(suppressedException);
 				}
-				try {
-					singletonObject = singletonFactory.getObject();
-					newSingleton = true;
+			}
+			throw ex;
+		}
+		finally {
+			if (recordSuppressedExceptions) {
+				this.suppressedExceptions.remove();
+			}
+			synchronized (this.singletonObjects) {
+				if (newSingleton) {
+					addSingleton(beanName, singletonObject);
 				}
-				catch (IllegalStateException ex) {
-					// Has the singleton object implicitly appeared in the meantime ->
-					// if yes, proceed with it since the exception indicates that state.
-					singletonObject = this.singletonObjects.get(beanName);
-					if (singletonObject == null) {
-						throw ex;
-					}
+				this.singletonCreationThreads.remove(beanName);
+				this.singletonObjects.notifyAll();
+				afterSingletonCreation(beanName);
+			}
+		}
+		return singletonObject;
+	}
+
+	/**
+	 * Wait for the specified singleton if it is currently in creation by another
+	 * thread. To be called while holding the singleton lock.
+	 * <p>If the other thread waits for a singleton in creation by the current thread
+	 * in turn, the circular reference gets resolved through an early reference to
+	 * the specified singleton, just like within a single thread. The other thread
+	 * may also wait for a lock held by the current thread outside of this registry,
+	 * which cannot be detected: the wait is therefore limited to the
+	 * {@linkplain #setSingletonCreationTimeout singleton creation timeout}, if any.
+	 * @param beanName the name of the bean
+	 * @return the singleton object (or an early reference to it), or {@code null}
+	 * if the singleton is not in creation by another thread (anymore)
+	 * @throws BeanCurrentlyInCreationException in case of an unresolvable
+	 * circular reference across threads, or when the timeout has been exceeded
+	 */
+	@Nullable
+	private Object awaitSingletonCreation(String beanName) {
+		Thread currentThread = Thread.currentThread();
+		Thread creatingThread = this.singletonCreationThreads.get(beanName);
+		long deadline = 0;
+		while (creatingThread != null && creatingThread != currentThread) {
+			if (isWaitingFor(creatingThread, currentThread)) {
+				Object earlyReference = getEarlySingletonReference(beanName, true);
+				if (earlyReference == null) {
+					throw new BeanCurrentlyInCreationException(beanName);
 				}
-				catch (BeanCreationException ex) {
-					if (recordSuppressedExceptions) {
-						for (Exception suppressedException : this.suppressedExceptions) {
-							ex.addRelatedCause(suppressedException);
-						}
-					}
-					throw ex;
+				return earlyReference;
+			}
+			long timeout = this.singletonCreationTimeout;
+			// A wait time of 0 means no limit.
+			long waitTime = Math.max(timeout, 0);
+			if (timeout > 0) {
+				if (deadline == 0) {
+					deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
 				}
-				finally {
-					if (recordSuppressedExceptions) {
-						this.suppressedExceptions = null;
+				else {
+					waitTime = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+					if (waitTime <= 0) {
+						throw new BeanCurrentlyInCreationException(beanName, "Requested bean is still in creation " +
+								"by another thread after " + timeout + " ms: Is there an unresolvable circular " +
+								"reference, possibly through a lock held outside of the bean factory?");
 					}
-					afterSingletonCreation(beanName);
-				}
-				if (newSingleton) {
-					addSingleton(beanName, singletonObject);
 				}
 			}
-			return singletonObject;
+			this.singletonWaitingThreads.put(currentThread, beanName);
+			try {
+				this.singletonObjects.wait(waitTime);
+			}
+			catch (InterruptedException ex) {
+				currentThread.interrupt();
+				throw new BeanCreationException(beanName,
+						"Interrupted while waiting for singleton creation in another thread", ex);
+			}
+			finally {
+				this.singletonWaitingThreads.remove(currentThread);
+			}
+			Object singletonObject = this.singletonObjects.get(beanName);
+			if (singletonObject != null) {
+				return singletonObject;
+			}
+			creatingThread = this.singletonCreationThreads.get(beanName);
+		}
+		return null;
+	}
+
+	/**
+	 * Determine whether the given thread (transitively) waits for a singleton
+	 * in creation by the target thread.
+	 */
+	private boolean isWaitingFor(Thread thread, Thread targetThread) {
+		Thread waitingThread = thread;
+		for (int i = 0; i < this.singletonWaitingThreads.size(); i++) {
+			String awaitedBeanName = this.singletonWaitingThreads.get(waitingThread);
+			Thread creatingThread = (awaitedBeanName != null ? this.singletonCreationThreads.get(awaitedBeanName) : null);
+			if (creatingThread == null) {
+				return false;
+			}
+			if (creatingThread == targetThread) {
+				return true;
+			}
+			waitingThread = creatingThread;
 		}
+		return false;
+	}
+
+	/**
+	 * Specify whether singletons may get created concurrently by multiple threads,
+	 * i.e. whether the singleton lock should be released while creating a singleton.
+	 * <p>Default is "false": A singleton gets created while holding the singleton lock,
+	 * with other threads waiting for the entire creation. When switched to "true",
+	 * threads only wait for the specific singletons in creation by other threads.
+	 * @since 5.2
+	 * @see #getSingletonMutex()
+	 */
+	protected void setConcurrentSingletonCreation(boolean concurrentSingletonCreation) {
+		this.concurrentSingletonCreation = concurrentSingletonCreation;
+	}
+
+	/**
+	 * Specify the maximum time in milliseconds to wait for a singleton in creation
+	 * by another thread, with {@link #setConcurrentSingletonCreation concurrent
+	 * singleton creation}, before giving up with a {@link BeanCurrentlyInCreationException}.
+	 * <p>Default is 60 seconds. This mainly serves as a guard against deadlocks
+	 * through locks held outside of this registry, e.g. by a bean's initialization.
+	 * Specify 0 or a negative value for no limit, e.g. for singletons that take
+	 * longer to initialize; circular references between singletons in creation
+	 * by different threads still get resolved in that case.
+	 * @since 5.2
+	 * @see #DEFAULT_SINGLETON_CREATION_TIMEOUT
+	 */
+	protected void setSingletonCreationTimeout(long singletonCreationTimeout) {
+		this.singletonCreationTimeout = singletonCreationTimeout;
+	}
+
+	/**
+	 * Return the maximum time in milliseconds to wait for a singleton in creation
+	 * by another thread, with 0 or a negative value indicating no limit.
+	 * @since 5.2
+	 */
+	protected long getSingletonCreationTimeout() {
+		return this.singletonCreationTimeout;
 	}
 
 	/**
@@ -258,10 +440,9 @@ public class DefaultSingletonBeanRegistry extends SimpleAliasRegistry implements
 	 * @param ex the Exception to register
 	 */
 	protected void onSuppressedException(Exception ex) {
-		synchronized (this.singletonObjects) {
-			if (this.suppressedExceptions != null) {
-				this.suppressedExceptions.add(ex);
-			}
+		Set<Exception> suppressedExceptions = this.suppressedExceptions.get();
+		if (suppressedExceptions != null) {
+			suppressedExceptions.add(ex);
 		}
 	}
 
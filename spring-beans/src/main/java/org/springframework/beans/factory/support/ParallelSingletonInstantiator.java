@@ -0,0 +1,286 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.BeanFactoryUtils;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+import org.springframework.lang.Nullable;
+
+/**
+ * Delegate for pre-instantiating the non-lazy singletons of a
+ * {@link DefaultListableBeanFactory} on an {@link Executor}.
+ *
+ * <p>Builds a dependency graph from the merged bean definitions, based on
+ * depends-on declarations, bean references in property values and constructor
+ * arguments (including inner beans) as well as factory bean references, and
+ * hands each singleton to the executor once all of its dependencies within the
+ * graph have been instantiated. Dependency cycles in the graph get broken in
+ * registration order. All scheduling happens on the calling thread, which
+ * waits for all instantiations to complete.
+ *
+ * @author agent
+ * @since 5.2
+ * @see DefaultListableBeanFactory#setPreInstantiationExecutor
+ */
+class ParallelSingletonInstantiator {
+
+	private final DefaultListableBeanFactory beanFactory;
+
+	private final Executor executor;
+
+
+	/**
+	 * Create a new ParallelSingletonInstantiator for the given factory and executor.
+	 * @param beanFactory the BeanFactory to work with
+	 * @param executor the Executor to instantiate singletons on
+	 */
+	public ParallelSingletonInstantiator(DefaultListableBeanFactory beanFactory, Executor executor) {
+		this.beanFactory = beanFactory;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Instantiate the non-lazy singletons among the given beans.
+	 * @param beanNames the names of the beans, in registration order
+	 * @param instantiation the callback for instantiating a specific singleton
+	 * @throws org.springframework.beans.BeansException if a singleton could not be instantiated
+	 * (the first failure encountered, after all other running instantiations completed)
+	 */
+	public void instantiate(List<String> beanNames, Consumer<String> instantiation) {
+		Map<String, Node> nodes = buildGraph(beanNames);
+		Deque<Node> ready = new ArrayDeque<>();
+		for (Node node : nodes.values()) {
+			if (node.pendingDependencies == 0) {
+				ready.add(node);
+			}
+		}
+
+		BlockingQueue<Node> completed = new LinkedBlockingQueue<>();
+		List<Node> allNodes = new ArrayList<>(nodes.values());
+		int remaining = nodes.size();
+		int running = 0;
+		Throwable failure = null;
+		while (remaining > 0) {
+			if (failure == null) {
+				while (!ready.isEmpty()) {
+					submit(ready.poll(), instantiation, completed);
+					running++;
+				}
+				if (running == 0) {
+					// Only cyclic dependencies left: start with the first bean in registration order.
+					for (Node node : allNodes) {
+						if (!node.started) {
+							submit(node, instantiation, completed);
+							running++;
+							break;
+						}
+					}
+				}
+			}
+			if (running == 0) {
+				break;
+			}
+
+			Node node;
+			try {
+				node = completed.take();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new FatalBeanException("Interrupted while pre-instantiating singletons", ex);
+			}
+			running--;
+			remaining--;
+			if (node.failure != null) {
+				if (failure == null) {
+					failure = node.failure;
+				}
+			}
+			else {
+				for (Node dependent : node.dependents) {
+					dependent.pendingDependencies--;
+					if (dependent.pendingDependencies == 0 && !dependent.started) {
+						ready.add(dependent);
+					}
+				}
+			}
+		}
+
+		if (failure instanceof RuntimeException) {
+			throw (RuntimeException) failure;
+		}
+		if (failure instanceof Error) {
+			throw (Error) failure;
+		}
+		if (failure != null) {
+			throw new FatalBeanException("Failed to pre-instantiate singletons", failure);
+		}
+	}
+
+	private void submit(Node node, Consumer<String> instantiation, BlockingQueue<Node> completed) {
+		node.started = true;
+		ClassLoader beanClassLoader = this.beanFactory.getBeanClassLoader();
+		Runnable task = () -> {
+			Thread currentThread = Thread.currentThread();
+			ClassLoader previousClassLoader = currentThread.getContextClassLoader();
+			currentThread.setContextClassLoader(beanClassLoader);
+			try {
+				instantiation.accept(node.beanName);
+			}
+			catch (Throwable ex) {
+				node.failure = ex;
+			}
+			finally {
+				currentThread.setContextClassLoader(previousClassLoader);
+				completed.add(node);
+			}
+		};
+		try {
+			this.executor.execute(task);
+		}
+		catch (RejectedExecutionException ex) {
+			// Executor saturated or shut down: instantiate on the calling thread.
+			task.run();
+		}
+	}
+
+	private Map<String, Node> buildGraph(List<String> beanNames) {
+		Map<String, Node> nodes = new LinkedHashMap<>(beanNames.size());
+		Map<Node, Set<String>> dependencyNames = new LinkedHashMap<>(beanNames.size());
+		for (String beanName : beanNames) {
+			RootBeanDefinition mbd = this.beanFactory.getMergedLocalBeanDefinition(beanName);
+			if (!mbd.isAbstract() && mbd.isSingleton() && !mbd.isLazyInit()) {
+				Node node = new Node(beanName);
+				nodes.put(beanName, node);
+				Set<String> names = new LinkedHashSet<>();
+				addDependencies(mbd, names);
+				dependencyNames.put(node, names);
+			}
+		}
+		dependencyNames.forEach((node, names) -> {
+			Set<Node> dependencies = new LinkedHashSet<>(names.size());
+			for (String name : names) {
+				Node dependency = nodes.get(this.beanFactory.canonicalName(BeanFactoryUtils.transformedBeanName(name)));
+				if (dependency != null && dependency != node && dependencies.add(dependency)) {
+					dependency.dependents.add(node);
+				}
+			}
+			node.pendingDependencies = dependencies.size();
+		});
+		return nodes;
+	}
+
+	private void addDependencies(BeanDefinition bd, Set<String> result) {
+		String[] dependsOn = bd.getDependsOn();
+		if (dependsOn != null) {
+			for (String dependency : dependsOn) {
+				result.add(dependency);
+			}
+		}
+		String factoryBeanName = bd.getFactoryBeanName();
+		if (factoryBeanName != null) {
+			result.add(factoryBeanName);
+		}
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			addReferences(pv.getValue(), result);
+		}
+		ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getIndexedArgumentValues().values()) {
+			addReferences(valueHolder.getValue(), result);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+			addReferences(valueHolder.getValue(), result);
+		}
+	}
+
+	private void addReferences(@Nullable Object value, Set<String> result) {
+		if (value instanceof RuntimeBeanReference) {
+			RuntimeBeanReference ref = (RuntimeBeanReference) value;
+			if (!ref.isToParent()) {
+				result.add(ref.getBeanName());
+			}
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			addDependencies(((BeanDefinitionHolder) value).getBeanDefinition(), result);
+		}
+		else if (value instanceof BeanDefinition) {
+			addDependencies((BeanDefinition) value, result);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				addReferences(element, result);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				addReferences(entry.getKey(), result);
+				addReferences(entry.getValue(), result);
+			}
+		}
+		else if (value instanceof Object[]) {
+			for (Object element : (Object[]) value) {
+				addReferences(element, result);
+			}
+		}
+	}
+
+
+	/**
+	 * A singleton in the dependency graph. Only accessed by the scheduling
+	 * thread, except for the failure which is published through the queue
+	 * of completed nodes.
+	 */
+	private static class Node {
+
+		final String beanName;
+
+		final List<Node> dependents = new ArrayList<>(2);
+
+		int pendingDependencies;
+
+		boolean started;
+
+		@Nullable
+		Throwable failure;
+
+		Node(String beanName) {
+			this.beanName = beanName;
+		}
+	}
+
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans;
+
+import org.junit.Test;
+
+import org.springframework.tests.sample.beans.TestBean;
+
+import static org.junit.Assert.*;
+
+/**
+ * {@link BeanWrapperImpl} tests with generated property accessors,
+ * running all {@link BeanWrapperTests} against them as well.
+ *
+ * @author agent
+ */
+public class GeneratedAccessorsBeanWrapperTests extends BeanWrapperTests {
+
+	@Override
+	protected BeanWrapperImpl createAccessor(Object target) {
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setUseGeneratedAccessors(true);
+		return accessor;
+	}
+
+
+	@Test
+	public void accessorsGeneratedOncePerClass() {
+		createAccessor(new TestBean()).getPropertyValue("name");
+		GeneratedPropertyAccessors accessors = CachedIntrospectionResults.forClass(TestBean.class).getGeneratedAccessors();
+		assertNotNull(accessors);
+		assertSame(accessors, CachedIntrospectionResults.forClass(TestBean.class).getGeneratedAccessors());
+	}
+
+	@Test
+	public void propertiesAccessedWithoutReflection() {
+		DirectBean target = new DirectBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("count", "5");
+		accessor.setPropertyValue("name", "tom");
+		assertFalse(target.reflectiveWrite);
+		assertEquals(5, accessor.getPropertyValue("count"));
+		assertEquals("tom", accessor.getPropertyValue("name"));
+		assertEquals(Boolean.FALSE, accessor.getPropertyValue("reflectiveRead"));
+		assertTrue(accessor.isUseGeneratedAccessors());
+	}
+
+	@Test
+	public void nestedAccessorsInheritSetting() {
+		DirectBean target = new DirectBean();
+		target.setNested(new DirectBean());
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("nested.name", "tom");
+		assertFalse(target.getNested().reflectiveWrite);
+		assertEquals(Boolean.FALSE, accessor.getPropertyValue("nested.reflectiveRead"));
+	}
+
+	@Test
+	public void reflectionUsedWhenDisabled() {
+		DirectBean target = new DirectBean();
+		BeanWrapperImpl accessor = new BeanWrapperImpl(target);
+		accessor.setPropertyValue("name", "tom");
+		assertTrue(target.reflectiveWrite);
+		assertEquals(Boolean.TRUE, accessor.getPropertyValue("reflectiveRead"));
+	}
+
+	@Test
+	public void nullForPrimitiveProperty() {
+		BeanWrapperImpl accessor = createAccessor(new DirectBean());
+		try {
+			accessor.setPropertyValue("count", null);
+			fail("Should have thrown TypeMismatchException");
+		}
+		catch (TypeMismatchException ex) {
+			// expected, as with reflective access
+		}
+	}
+
+	@Test
+	public void exceptionFromWriteMethod() {
+		BeanWrapperImpl accessor = createAccessor(new DirectBean());
+		try {
+			accessor.setPropertyValue("failing", "value");
+			fail("Should have thrown MethodInvocationException");
+		}
+		catch (MethodInvocationException ex) {
+			assertTrue(ex.getCause() instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void nonPublicBeanClassAccessedReflectively() {
+		NonPublicBean target = new NonPublicBean();
+		BeanWrapperImpl accessor = createAccessor(target);
+		accessor.setPropertyValue("name", "tom");
+		assertEquals("tom", accessor.getPropertyValue("name"));
+		assertNull(CachedIntrospectionResults.forClass(NonPublicBean.class).getGeneratedAccessors());
+	}
+
+
+	private static boolean isReflectiveCall() {
+		// Only look at the frames up to the property handler of the BeanWrapper
+		for (StackTraceElement element : new Throwable().getStackTrace()) {
+			if (element.getClassName().startsWith(BeanWrapperImpl.class.getName())) {
+				return false;
+			}
+			if (element.getClassName().startsWith("java.lang.reflect.") ||
+					element.getClassName().startsWith("sun.reflect.") ||
+					element.getClassName().startsWith("jdk.internal.reflect.")) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+
+	public static class DirectBean {
+
+		private String name;
+
+		private int count;
+
+		private DirectBean nested;
+
+		boolean reflectiveWrite;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+			this.reflectiveWrite = isReflectiveCall();
+		}
+
+		public int getCount() {
+			return this.count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+			this.reflectiveWrite = isReflectiveCall();
+		}
+
+		public DirectBean getNested() {
+			return this.nested;
+		}
+
+		public void setNested(DirectBean nested) {
+			this.nested = nested;
+		}
+
+		public boolean isReflectiveRead() {
+			return isReflectiveCall();
+		}
+
+		public void setFailing(String value) {
+			throw new IllegalStateException(value);
+		}
+	}
+
+
+	static class NonPublicBean {
+
+		private String name;
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+	}
+
+}
@@ -26,6 +26,7 @@ import java.security.Principal;
 import java.security.PrivilegedAction;
 import java.text.NumberFormat;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -49,6 +50,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.ArgumentMatchers;
 
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeansException;
 import org.springframework.beans.MutablePropertyValues;
 import org.springframework.beans.NotWritablePropertyException;
@@ -1924,6 +1926,144 @@ public class DefaultListableBeanFactoryTests {
 		assertEquals("&factoryBean", beanNames[0]);
 	}
 
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAfterRegistration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("tb1", new RootBeanDefinition(TestBean.class));
+		lbf.registerSingleton("tb2", new TestBean());
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"tb1", "tb2"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb1", "tb2"}, lbf.getBeanNamesForType(ITestBean.class, false, true));
+
+		lbf.registerBeanDefinition("tb3", new RootBeanDefinition(DerivedTestBean.class));
+		lbf.registerSingleton("tb4", new NestedTestBean());
+		lbf.registerSingleton("tb5", new TestBean());
+		assertArrayEquals(new String[] {"tb1", "tb3", "tb2", "tb5"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb1", "tb3", "tb2", "tb5"},
+				lbf.getBeanNamesForType(ITestBean.class, false, true));
+		assertArrayEquals(new String[] {"tb4"}, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		lbf.destroySingleton("tb2");
+		lbf.removeBeanDefinition("tb1");
+		assertArrayEquals(new String[] {"tb3", "tb5"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb3", "tb5"}, lbf.getBeanNamesForType(ITestBean.class, false, true));
+
+		RootBeanDefinition prototype = new RootBeanDefinition(NestedTestBean.class);
+		prototype.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		lbf.registerBeanDefinition("tb3", prototype);
+		assertArrayEquals(new String[] {"tb5"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"tb3", "tb4"}, lbf.getBeanNamesForType(NestedTestBean.class));
+		assertArrayEquals(new String[] {"tb4"}, lbf.getBeanNamesForType(NestedTestBean.class, false, true));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAfterManyRegistrations() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.freezeConfiguration();
+		assertEquals(0, lbf.getBeanNamesForType(TestBean.class).length);
+		for (int i = 0; i < 1000; i++) {
+			lbf.registerBeanDefinition("tb" + i, new RootBeanDefinition(TestBean.class));
+			assertEquals(i + 1, lbf.getBeanNamesForType(TestBean.class).length);
+			assertEquals("tb" + i, lbf.getBeanNamesForType(TestBean.class)[i]);
+		}
+		assertEquals(1000, lbf.getBeanNamesForType(ITestBean.class).length);
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndFactoryBean() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("factoryBean", new RootBeanDefinition(FactoryBeanThatShouldntBeCalled.class));
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"&factoryBean"}, lbf.getBeanNamesForType(Runnable.class));
+		assertArrayEquals(new String[] {"&factoryBean"}, lbf.getBeanNamesForType(FactoryBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(TestBean.class).length);
+
+		lbf.registerSingleton("testFactory", new DummyFactory());
+		assertArrayEquals(new String[] {"testFactory"}, lbf.getBeanNamesForType(TestBean.class));
+		assertArrayEquals(new String[] {"&factoryBean", "&testFactory"}, lbf.getBeanNamesForType(FactoryBean.class));
+
+		lbf.registerBeanDefinition("factoryBean", new RootBeanDefinition(DummyFactory.class));
+		assertEquals(0, lbf.getBeanNamesForType(Runnable.class).length);
+		assertArrayEquals(new String[] {"factoryBean", "testFactory"}, lbf.getBeanNamesForType(TestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndReplacedFactoryMethodBean() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(BeanWithFactoryMethod.class));
+		RootBeanDefinition product = new RootBeanDefinition();
+		product.setFactoryBeanName("factory");
+		product.setFactoryMethodName("create");
+		lbf.registerBeanDefinition("product", product);
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"product"}, lbf.getBeanNamesForType(TestBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(NestedTestBean.class).length);
+
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(NestedTestBeanFactory.class));
+		assertEquals(0, lbf.getBeanNamesForType(TestBean.class).length);
+		assertArrayEquals(new String[] {"product"}, lbf.getBeanNamesForType(NestedTestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAfterClearMetadataCache() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("factoryBean", new RootBeanDefinition(TypeSwitchingFactoryBean.class));
+		lbf.freezeConfiguration();
+		TypeSwitchingFactoryBean factoryBean = lbf.getBean("&factoryBean", TypeSwitchingFactoryBean.class);
+		assertArrayEquals(new String[] {"factoryBean"}, lbf.getBeanNamesForType(TestBean.class));
+		assertEquals(0, lbf.getBeanNamesForType(NestedTestBean.class).length);
+
+		factoryBean.objectType = NestedTestBean.class;
+		lbf.clearMetadataCache();
+		assertEquals(0, lbf.getBeanNamesForType(TestBean.class).length);
+		assertArrayEquals(new String[] {"factoryBean"}, lbf.getBeanNamesForType(NestedTestBean.class));
+	}
+
+	@Test
+	public void testGetBeanNamesForTypeWithFrozenConfigurationAndReplacedFactoryMethodBeanAlias() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(BeanWithFactoryMethod.class));
+		lbf.registerAlias("factory", "factoryAlias");
+		RootBeanDefinition product = new RootBeanDefinition();
+		product.setFactoryBeanName("factoryAlias");
+		product.setFactoryMethodName("create");
+		lbf.registerBeanDefinition("product", product);
+		lbf.freezeConfiguration();
+		assertArrayEquals(new String[] {"product"}, lbf.getBeanNamesForType(TestBean.class));
+
+		lbf.registerBeanDefinition("factory", new RootBeanDefinition(NestedTestBeanFactory.class));
+		assertEquals(0, lbf.getBeanNamesForType(TestBean.class).length);
+		assertArrayEquals(new String[] {"product"}, lbf.getBeanNamesForType(NestedTestBean.class));
+
+		lbf.removeBeanDefinition("product");
+		assertEquals(0, lbf.getBeanNamesForType(NestedTestBean.class).length);
+	}
+
+	@Test
+	public void testGetBeanNamesForGenericTypeWithFrozenConfiguration() {
+		DefaultListableBeanFactory lbf = new DefaultListableBeanFactory();
+		lbf.registerBeanDefinition("strings", new RootBeanDefinition(StringList.class));
+		lbf.registerBeanDefinition("integers", new RootBeanDefinition(IntegerList.class));
+		lbf.registerSingleton("moreStrings", new StringList());
+		RootBeanDefinition factoryBean = new RootBeanDefinition(ConstructorDependencyFactoryBean.class);
+		factoryBean.getConstructorArgumentValues().addGenericArgumentValue("dependency");
+		lbf.registerBeanDefinition("factoryBean", factoryBean);
+		lbf.freezeConfiguration();
+
+		assertArrayEquals(new String[] {"strings", "moreStrings"},
+				lbf.getBeanNamesForType(ResolvableType.forClassWithGenerics(List.class, String.class)));
+		assertArrayEquals(new String[] {"integers"},
+				lbf.getBeanNamesForType(ResolvableType.forClassWithGenerics(List.class, Integer.class)));
+		assertArrayEquals(new String[] {"&factoryBean"},
+				lbf.getBeanNamesForType(ResolvableType.forClassWithGenerics(FactoryBean.class, Object.class)));
+		assertEquals(0,
+				lbf.getBeanNamesForType(ResolvableType.forClassWithGenerics(FactoryBean.class, String.class)).length);
+
+		lbf.registerBeanDefinition("evenMoreStrings", new RootBeanDefinition(StringList.class));
+		assertArrayEquals(new String[] {"strings", "evenMoreStrings", "moreStrings"},
+				lbf.getBeanNamesForType(ResolvableType.forClassWithGenerics(List.class, String.class)));
+	}
+
 	/**
 	 * Verifies that a dependency on a {@link FactoryBean} can <strong>not</strong>
 	 * be autowired <em>by name</em>, as &amp; is an illegal character in
@@ -3279,6 +3419,30 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	public static class TypeSwitchingFactoryBean implements FactoryBean<Object> {
+
+		Class<?> objectType = TestBean.class;
+
+		@Override
+		public Object getObject() {
+			return BeanUtils.instantiateClass(this.objectType);
+		}
+
+		@Override
+		public Class<?> getObjectType() {
+			return this.objectType;
+		}
+	}
+
+
+	public static class NestedTestBeanFactory {
+
+		public NestedTestBean create() {
+			return new NestedTestBean();
+		}
+	}
+
+
 	public static class TestBeanFactory {
 
 		public static boolean initialized = false;
@@ -3329,6 +3493,16 @@ public class DefaultListableBeanFactoryTests {
 	}
 
 
+	@SuppressWarnings("serial")
+	public static class StringList extends ArrayList<String> {
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class IntegerList extends ArrayList<Integer> {
+	}
+
+
 	/**
 	 * Bean with a dependency on a {@link FactoryBean}.
 	 */
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,18 @@
 
 package org.springframework.beans.factory.support;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.junit.Test;
 
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
 import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.tests.sample.beans.DerivedTestBean;
 import org.springframework.tests.sample.beans.TestBean;
@@ -101,4 +110,128 @@ public class DefaultSingletonBeanRegistryTests {
 		assertTrue(beanRegistry.isDependent("c", "c"));
 	}
 
+	@Test
+	public void testSuppressedExceptionsKeptPerThreadWithConcurrentCreation() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> other = executor.submit(() -> beanRegistry.getSingleton("a", () -> {
+				started.countDown();
+				try {
+					proceed.await(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				throw new BeanCreationException("a", "failed");
+			}));
+			assertTrue(started.await(10, TimeUnit.SECONDS));
+
+			Object b = beanRegistry.getSingleton("b", () -> {
+				beanRegistry.onSuppressedException(new IllegalStateException("b"));
+				return new TestBean();
+			});
+			assertTrue(b instanceof TestBean);
+			proceed.countDown();
+
+			try {
+				other.get(10, TimeUnit.SECONDS);
+				fail("Should have thrown ExecutionException");
+			}
+			catch (ExecutionException ex) {
+				BeanCreationException bce = (BeanCreationException) ex.getCause();
+				assertNull(bce.getRelatedCauses());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSingletonCreationTimeoutWithLockHeldAcrossThreads() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+		beanRegistry.setSingletonCreationTimeout(100);
+		Object lock = new Object();
+		CountDownLatch aInCreation = new CountDownLatch(1);
+		CountDownLatch lockHeld = new CountDownLatch(1);
+		ObjectFactory<Object> aFactory = () -> {
+			aInCreation.countDown();
+			await(lockHeld);
+			synchronized (lock) {
+				return new TestBean("a");
+			}
+		};
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> a = executor.submit(() -> beanRegistry.getSingleton("a", aFactory));
+			assertTrue(aInCreation.await(10, TimeUnit.SECONDS));
+
+			try {
+				// "b" depends on "a" while holding the lock that the creation of "a" needs
+				beanRegistry.getSingleton("b", () -> {
+					synchronized (lock) {
+						lockHeld.countDown();
+						TestBean b = new TestBean("b");
+						b.setSpouse((TestBean) beanRegistry.getSingleton("a", aFactory));
+						return b;
+					}
+				});
+				fail("Should have thrown BeanCurrentlyInCreationException");
+			}
+			catch (BeanCurrentlyInCreationException ex) {
+				assertEquals("a", ex.getBeanName());
+			}
+			assertEquals("a", ((TestBean) a.get(10, TimeUnit.SECONDS)).getName());
+			assertSame(a.get(), beanRegistry.getSingleton("a"));
+			assertNull(beanRegistry.getSingleton("b"));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testSingletonCreationWithoutTimeout() throws Exception {
+		DefaultSingletonBeanRegistry beanRegistry = new DefaultSingletonBeanRegistry();
+		beanRegistry.setConcurrentSingletonCreation(true);
+		beanRegistry.setSingletonCreationTimeout(0);
+		CountDownLatch aInCreation = new CountDownLatch(1);
+		ObjectFactory<Object> aFactory = () -> {
+			aInCreation.countDown();
+			try {
+				Thread.sleep(200);
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return new TestBean("a");
+		};
+
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> a = executor.submit(() -> beanRegistry.getSingleton("a", aFactory));
+			assertTrue(aInCreation.await(10, TimeUnit.SECONDS));
+			assertSame(a.get(10, TimeUnit.SECONDS), beanRegistry.getSingleton("a", aFactory));
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
 }
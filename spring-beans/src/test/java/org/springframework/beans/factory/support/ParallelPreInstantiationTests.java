@@ -0,0 +1,302 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.beans.factory.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.beans.factory.BeanCreationException;
+import org.springframework.beans.factory.BeanCurrentlyInCreationException;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.beans.factory.config.RuntimeBeanReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for parallel singleton pre-instantiation through
+ * {@link DefaultListableBeanFactory#setPreInstantiationExecutor}.
+ *
+ * @author agent
+ * @since 5.2
+ */
+public class ParallelPreInstantiationTests {
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+	private final DefaultListableBeanFactory bf = new DefaultListableBeanFactory();
+
+
+	public ParallelPreInstantiationTests() {
+		this.bf.setPreInstantiationExecutor(this.executor);
+	}
+
+
+	@After
+	public void shutdownExecutor() {
+		this.executor.shutdownNow();
+	}
+
+
+	@Test(timeout = 10000)
+	public void independentSingletonsInstantiatedConcurrently() {
+		CyclicBarrier barrier = new CyclicBarrier(3);
+		for (int i = 0; i < 3; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(BarrierBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue(barrier);
+			this.bf.registerBeanDefinition("bean" + i, bd);
+		}
+		this.bf.preInstantiateSingletons();
+
+		assertEquals(3, this.bf.getBeansOfType(BarrierBean.class).size());
+		for (BarrierBean bean : this.bf.getBeansOfType(BarrierBean.class).values()) {
+			assertNotSame(Thread.currentThread(), bean.thread);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void dependenciesInstantiatedFirst() {
+		Recorder instantiated = new Recorder();
+		RootBeanDefinition bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(instantiated);
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("b"));
+		this.bf.registerBeanDefinition("c", bd);
+		bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(instantiated);
+		bd.setDependsOn("a");
+		this.bf.registerBeanDefinition("b", bd);
+		bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(instantiated);
+		this.bf.registerBeanDefinition("a", bd);
+		this.bf.preInstantiateSingletons();
+
+		assertEquals(Arrays.asList("a", "b", "c"), instantiated.entries);
+		assertSame(this.bf.getBean("b"), this.bf.getBean("c", RecordingBean.class).getDependency());
+	}
+
+	@Test(timeout = 10000)
+	public void circularReferenceWithinGraph() {
+		RootBeanDefinition bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(new Recorder());
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("b"));
+		this.bf.registerBeanDefinition("a", bd);
+		bd = new RootBeanDefinition(RecordingBean.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(new Recorder());
+		bd.getPropertyValues().add("dependency", new RuntimeBeanReference("a"));
+		this.bf.registerBeanDefinition("b", bd);
+		this.bf.preInstantiateSingletons();
+
+		RecordingBean a = this.bf.getBean("a", RecordingBean.class);
+		RecordingBean b = this.bf.getBean("b", RecordingBean.class);
+		assertSame(b, a.getDependency());
+		assertSame(a, b.getDependency());
+	}
+
+	@Test(timeout = 10000)
+	public void circularReferenceAcrossThreads() {
+		CyclicBarrier barrier = new CyclicBarrier(2);
+		RootBeanDefinition bd = new RootBeanDefinition(CircularA.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(barrier);
+		bd.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE);
+		this.bf.registerBeanDefinition("a", bd);
+		bd = new RootBeanDefinition(CircularB.class);
+		bd.getConstructorArgumentValues().addGenericArgumentValue(barrier);
+		bd.setAutowireMode(AutowireCapableBeanFactory.AUTOWIRE_BY_TYPE);
+		this.bf.registerBeanDefinition("b", bd);
+		this.bf.preInstantiateSingletons();
+
+		CircularA a = this.bf.getBean(CircularA.class);
+		CircularB b = this.bf.getBean(CircularB.class);
+		assertSame(b, a.b);
+		assertSame(a, b.a);
+		assertNotSame(a.thread, b.thread);
+	}
+
+	@Test(timeout = 10000)
+	public void unresolvableCircularReferenceAcrossThreads() {
+		this.bf.registerBeanDefinition("a", new RootBeanDefinition(
+				ConstructorCircularA.class, AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR, false));
+		this.bf.registerBeanDefinition("b", new RootBeanDefinition(
+				ConstructorCircularB.class, AutowireCapableBeanFactory.AUTOWIRE_CONSTRUCTOR, false));
+		try {
+			this.bf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertTrue(ex.contains(BeanCurrentlyInCreationException.class));
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void smartInitializingSingletonCallbacksInRegistrationOrder() {
+		Recorder callbacks = new Recorder();
+		for (int i = 0; i < 10; i++) {
+			RootBeanDefinition bd = new RootBeanDefinition(RecordingBean.class);
+			bd.getConstructorArgumentValues().addGenericArgumentValue(callbacks);
+			bd.getPropertyValues().add("recordCallback", true);
+			this.bf.registerBeanDefinition("bean" + i, bd);
+		}
+		this.bf.preInstantiateSingletons();
+
+		List<String> expected = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			expected.add("callback:bean" + i);
+		}
+		callbacks.entries.removeIf(entry -> !entry.startsWith("callback:"));
+		assertEquals(expected, callbacks.entries);
+	}
+
+	@Test(timeout = 10000)
+	public void failurePropagated() {
+		this.bf.registerBeanDefinition("a", new RootBeanDefinition(RecordingBean.class));
+		this.bf.registerBeanDefinition("b", new RootBeanDefinition(FailingBean.class));
+		try {
+			this.bf.preInstantiateSingletons();
+			fail("Should have thrown BeanCreationException");
+		}
+		catch (BeanCreationException ex) {
+			assertEquals("b", ex.getBeanName());
+			assertTrue(ex.contains(IllegalStateException.class));
+		}
+	}
+
+
+	public static class BarrierBean {
+
+		final Thread thread = Thread.currentThread();
+
+		public BarrierBean(CyclicBarrier barrier) throws Exception {
+			barrier.await(5, TimeUnit.SECONDS);
+		}
+	}
+
+
+	public static class Recorder {
+
+		final List<String> entries = Collections.synchronizedList(new ArrayList<>());
+	}
+
+
+	public static class RecordingBean implements BeanNameAware, SmartInitializingSingleton {
+
+		private final Recorder record;
+
+		private String beanName;
+
+		private RecordingBean dependency;
+
+		private boolean recordCallback;
+
+		public RecordingBean() {
+			this(new Recorder());
+		}
+
+		public RecordingBean(Recorder record) {
+			this.record = record;
+		}
+
+		@Override
+		public void setBeanName(String beanName) {
+			this.beanName = beanName;
+			this.record.entries.add(beanName);
+		}
+
+		public void setDependency(RecordingBean dependency) {
+			this.dependency = dependency;
+		}
+
+		public RecordingBean getDependency() {
+			return this.dependency;
+		}
+
+		public void setRecordCallback(boolean recordCallback) {
+			this.recordCallback = recordCallback;
+		}
+
+		@Override
+		public void afterSingletonsInstantiated() {
+			if (this.recordCallback) {
+				this.record.entries.add("callback:" + this.beanName);
+			}
+		}
+	}
+
+
+	public static class CircularA {
+
+		final Thread thread = Thread.currentThread();
+
+		CircularB b;
+
+		public CircularA(CyclicBarrier barrier) throws Exception {
+			barrier.await(5, TimeUnit.SECONDS);
+		}
+
+		public void setB(CircularB b) {
+			this.b = b;
+		}
+	}
+
+
+	public static class CircularB {
+
+		final Thread thread = Thread.currentThread();
+
+		CircularA a;
+
+		public CircularB(CyclicBarrier barrier) throws Exception {
+			barrier.await(5, TimeUnit.SECONDS);
+		}
+
+		public void setA(CircularA a) {
+			this.a = a;
+		}
+	}
+
+
+	public static class ConstructorCircularA {
+
+		public ConstructorCircularA(ConstructorCircularB b) {
+		}
+	}
+
+
+	public static class ConstructorCircularB {
+
+		public ConstructorCircularB(ConstructorCircularA a) {
+		}
+	}
+
+
+	public static class FailingBean {
+
+		public FailingBean() {
+			throw new IllegalStateException("Expected failure");
+		}
+	}
+
+}
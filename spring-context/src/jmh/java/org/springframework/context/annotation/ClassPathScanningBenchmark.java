@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.context.index.ClassMetadataIndexLoader;
+import org.springframework.context.index.ClassMetadataIndexWriter;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+
+/**
+ * Benchmarks for a cold classpath scan for components, reading class files
+ * sequentially, in parallel, or from a pre-built class metadata index.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+public class ClassPathScanningBenchmark {
+
+	@Benchmark
+	public void findCandidateComponents(ScanningData data, Blackhole bh) {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(data.classLoader));
+		provider.setParallelScanning("parallel".equals(data.mode));
+		bh.consume(provider.findCandidateComponents(data.basePackage));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ScanningData {
+
+		@Param({"sequential", "parallel", "index"})
+		public String mode;
+
+		@Param({"org.springframework"})
+		public String basePackage;
+
+		public ClassLoader classLoader;
+
+		@Setup(Level.Trial)
+		public void setup() throws IOException {
+			ClassLoader parent = getClass().getClassLoader();
+			URL indexUrl = ("index".equals(this.mode) ? writeIndex(parent) : null);
+			this.classLoader = new ClassLoader(parent) {
+				@Override
+				public Enumeration<URL> getResources(String name) throws IOException {
+					if (CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION.equals(name)) {
+						return Collections.emptyEnumeration();
+					}
+					if (ClassMetadataIndexLoader.METADATA_RESOURCE_LOCATION.equals(name)) {
+						return (indexUrl != null ? Collections.enumeration(Collections.singletonList(indexUrl)) :
+								Collections.emptyEnumeration());
+					}
+					return super.getResources(name);
+				}
+			};
+		}
+
+		private URL writeIndex(ClassLoader classLoader) throws IOException {
+			SimpleMetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory(classLoader);
+			List<MetadataReader> metadataReaders = new ArrayList<>();
+			for (Resource resource : new PathMatchingResourcePatternResolver(classLoader).getResources(
+					"classpath*:" + this.basePackage.replace('.', '/') + "/**/*.class")) {
+				metadataReaders.add(metadataReaderFactory.getMetadataReader(resource));
+			}
+			File indexFile = File.createTempFile("spring", ".metadata");
+			indexFile.deleteOnExit();
+			try (OutputStream out = new FileOutputStream(indexFile)) {
+				ClassMetadataIndexWriter.writeIndex(metadataReaders, out);
+			}
+			return indexFile.toURI().toURL();
+		}
+	}
+
+}
@@ -18,11 +18,15 @@ package org.springframework.context.annotation;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.net.URL;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -36,6 +40,8 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.ResourceLoaderAware;
 import org.springframework.context.index.CandidateComponentsIndex;
 import org.springframework.context.index.CandidateComponentsIndexLoader;
+import org.springframework.context.index.ClassMetadataIndex;
+import org.springframework.context.index.ClassMetadataIndexLoader;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.core.env.Environment;
 import org.springframework.core.env.EnvironmentCapable;
@@ -58,8 +64,10 @@ import org.springframework.stereotype.Controller;
 import org.springframework.stereotype.Indexed;
 import org.springframework.stereotype.Repository;
 import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.PathMatcher;
 
 /**
  * A component provider that provides candidate components from a base package. Can
@@ -68,7 +76,11 @@ import org.springframework.util.ClassUtils;
  * include filters. {@link AnnotationTypeFilter}, {@link AssignableTypeFilter} include
  * filters on an annotation/superclass that are annotated with {@link Indexed} are
  * supported: if any other include filter is specified, the index is ignored and
- * classpath scanning is used instead.
+ * classpath scanning is used instead. A {@link ClassMetadataIndex} holding the full
+ * class metadata supports any filter and takes precedence over classpath scanning
+ * as well, for the classpath roots that come with such an index; any other roots
+ * are still scanned. Classpath scanning itself can read class files in parallel: see
+ * {@link #setParallelScanning}.
  *
  * <p>This implementation is based on Spring's
  * {@link org.springframework.core.type.classreading.MetadataReader MetadataReader}
@@ -84,11 +96,14 @@ import org.springframework.util.ClassUtils;
  * @see org.springframework.core.type.AnnotationMetadata
  * @see ScannedGenericBeanDefinition
  * @see CandidateComponentsIndex
+ * @see ClassMetadataIndex
  */
 public class ClassPathScanningCandidateComponentProvider implements EnvironmentCapable, ResourceLoaderAware {
 
 	static final String DEFAULT_RESOURCE_PATTERN = "**/*.class";
 
+	private static final PathMatcher pathMatcher = new AntPathMatcher();
+
 
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -113,6 +128,11 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 	@Nullable
 	private CandidateComponentsIndex componentsIndex;
 
+	@Nullable
+	private ClassMetadataIndex metadataIndex;
+
+	private boolean parallelScanning = false;
+
 
 	/**
 	 * Protected constructor for flexible subclass initialization.
@@ -265,6 +285,7 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
 		this.metadataReaderFactory = new CachingMetadataReaderFactory(resourceLoader);
 		this.componentsIndex = CandidateComponentsIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
+		this.metadataIndex = ClassMetadataIndexLoader.loadIndex(this.resourcePatternResolver.getClassLoader());
 	}
 
 	/**
@@ -302,6 +323,29 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return this.metadataReaderFactory;
 	}
 
+	/**
+	 * Specify whether to read the class files found during classpath scanning
+	 * in parallel, using the common {@link ForkJoinPool}.
+	 * <p>Default is "false". Filters, conditions and the creation of bean definitions
+	 * are still applied sequentially, in resource order, so the resulting candidates
+	 * are the same as with sequential scanning. Requires a thread-safe
+	 * {@link #setMetadataReaderFactory MetadataReaderFactory}, as the default
+	 * {@link CachingMetadataReaderFactory} is.
+	 * @since 5.2
+	 * @see ForkJoinPool#commonPool()
+	 */
+	public void setParallelScanning(boolean parallelScanning) {
+		this.parallelScanning = parallelScanning;
+	}
+
+	/**
+	 * Return whether class files are read in parallel during classpath scanning.
+	 * @since 5.2
+	 */
+	public boolean isParallelScanning() {
+		return this.parallelScanning;
+	}
+
 
 	/**
 	 * Scan the class path for candidate components.
@@ -312,6 +356,9 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		if (this.componentsIndex != null && indexSupportsIncludeFilters()) {
 			return addCandidateComponentsFromIndex(this.componentsIndex, basePackage);
 		}
+		else if (this.metadataIndex != null && DEFAULT_RESOURCE_PATTERN.equals(this.resourcePattern)) {
+			return addCandidateComponentsFromMetadataIndex(this.metadataIndex, basePackage);
+		}
 		else {
 			return scanCandidateComponents(basePackage);
 		}
@@ -413,59 +460,166 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		return candidates;
 	}
 
+	private Set<BeanDefinition> addCandidateComponentsFromMetadataIndex(ClassMetadataIndex index, String basePackage) {
+		Set<BeanDefinition> candidates = new LinkedHashSet<>();
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		for (String type : index.getTypes(getEnvironment().resolveRequiredPlaceholders(basePackage))) {
+			try {
+				MetadataReader metadataReader = index.getMetadataReader(type);
+				Assert.state(metadataReader != null, "No indexed metadata");
+				addCandidateComponent(candidates, metadataReader, metadataReader.getResource(),
+						traceEnabled, debugEnabled);
+			}
+			catch (Throwable ex) {
+				throw new BeanDefinitionStoreException(
+						"Failed to read candidate component class from metadata index: " + type, ex);
+			}
+		}
+		try {
+			addCandidateComponents(candidates, findResourcesNotCoveredByIndex(index, basePackage), index);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Find the class files in the specified package that lie within classpath roots
+	 * not covered by the given metadata index, e.g. in a jar built without an index.
+	 * @param index the metadata index
+	 * @param basePackage the package to check for annotated classes
+	 * @return the class file resources to scan
+	 */
+	private Resource[] findResourcesNotCoveredByIndex(ClassMetadataIndex index, String basePackage)
+			throws IOException {
+
+		String path = resolveBasePackage(basePackage) + '/' + this.resourcePattern;
+		int rootDirEnd = path.length();
+		while (rootDirEnd > 0 && pathMatcher.isPattern(path.substring(0, rootDirEnd))) {
+			rootDirEnd = path.lastIndexOf('/', rootDirEnd - 2) + 1;
+		}
+		ResourcePatternResolver resolver = getResourcePatternResolver();
+		Resource[] rootDirs = resolver.getResources(
+				ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + path.substring(0, rootDirEnd));
+		List<Resource> resources = new ArrayList<>();
+		for (Resource rootDir : rootDirs) {
+			URL rootDirUrl = rootDir.getURL();
+			if (!index.isIndexed(rootDirUrl)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Scanning classpath location not covered by metadata index: " + rootDirUrl);
+				}
+				for (Resource resource : resolver.getResources(rootDirUrl + path.substring(rootDirEnd))) {
+					resources.add(resource);
+				}
+			}
+		}
+		return resources.toArray(new Resource[0]);
+	}
+
 	private Set<BeanDefinition> scanCandidateComponents(String basePackage) {
 		Set<BeanDefinition> candidates = new LinkedHashSet<>();
 		try {
 			String packageSearchPath = ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX +
 					resolveBasePackage(basePackage) + '/' + this.resourcePattern;
 			Resource[] resources = getResourcePatternResolver().getResources(packageSearchPath);
-			boolean traceEnabled = logger.isTraceEnabled();
-			boolean debugEnabled = logger.isDebugEnabled();
-			for (Resource resource : resources) {
-				if (traceEnabled) {
-					logger.trace("Scanning " + resource);
-				}
-				if (resource.isReadable()) {
-					try {
-						MetadataReader metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
-						if (isCandidateComponent(metadataReader)) {
-							ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
-							sbd.setResource(resource);
-							sbd.setSource(resource);
-							if (isCandidateComponent(sbd)) {
-								if (debugEnabled) {
-									logger.debug("Identified candidate component class: " + resource);
-								}
-								candidates.add(sbd);
-							}
-							else {
-								if (debugEnabled) {
-									logger.debug("Ignored because not a concrete top-level class: " + resource);
-								}
-							}
+			addCandidateComponents(candidates, resources, null);
+		}
+		catch (IOException ex) {
+			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+		}
+		return candidates;
+	}
+
+	/**
+	 * Read the given class file resources and add the candidate components among them.
+	 * @param candidates the candidates to add to
+	 * @param resources the class file resources to check
+	 * @param index the metadata index whose types to skip, if any
+	 */
+	private void addCandidateComponents(Set<BeanDefinition> candidates, Resource[] resources,
+			@Nullable ClassMetadataIndex index) {
+
+		Object[] readResults = (this.parallelScanning ? readMetadataInParallel(resources) : null);
+		boolean traceEnabled = logger.isTraceEnabled();
+		boolean debugEnabled = logger.isDebugEnabled();
+		for (int i = 0; i < resources.length; i++) {
+			Resource resource = resources[i];
+			if (traceEnabled) {
+				logger.trace("Scanning " + resource);
+			}
+			if (readResults != null ? readResults[i] != null : resource.isReadable()) {
+				try {
+					MetadataReader metadataReader;
+					if (readResults != null) {
+						if (readResults[i] instanceof Throwable) {
+							throw (Throwable) readResults[i];
 						}
-						else {
-							if (traceEnabled) {
-								logger.trace("Ignored because not matching any filter: " + resource);
-							}
+						metadataReader = (MetadataReader) readResults[i];
+					}
+					else {
+						metadataReader = getMetadataReaderFactory().getMetadataReader(resource);
+					}
+					if (index != null && index.contains(metadataReader.getClassMetadata().getClassName())) {
+						if (traceEnabled) {
+							logger.trace("Ignored because already covered by metadata index: " + resource);
 						}
 					}
-					catch (Throwable ex) {
-						throw new BeanDefinitionStoreException(
-								"Failed to read candidate component class: " + resource, ex);
+					else {
+						addCandidateComponent(candidates, metadataReader, resource, traceEnabled, debugEnabled);
 					}
 				}
-				else {
-					if (traceEnabled) {
-						logger.trace("Ignored because not readable: " + resource);
-					}
+				catch (Throwable ex) {
+					throw new BeanDefinitionStoreException(
+							"Failed to read candidate component class: " + resource, ex);
+				}
+			}
+			else {
+				if (traceEnabled) {
+					logger.trace("Ignored because not readable: " + resource);
 				}
 			}
 		}
-		catch (IOException ex) {
-			throw new BeanDefinitionStoreException("I/O failure during classpath scanning", ex);
+	}
+
+	private void addCandidateComponent(Set<BeanDefinition> candidates, MetadataReader metadataReader,
+			Resource resource, boolean traceEnabled, boolean debugEnabled) throws IOException {
+
+		if (isCandidateComponent(metadataReader)) {
+			ScannedGenericBeanDefinition sbd = new ScannedGenericBeanDefinition(metadataReader);
+			sbd.setResource(resource);
+			sbd.setSource(resource);
+			if (isCandidateComponent(sbd)) {
+				if (debugEnabled) {
+					logger.debug("Identified candidate component class: " + resource);
+				}
+				candidates.add(sbd);
+			}
+			else {
+				if (debugEnabled) {
+					logger.debug("Ignored because not a concrete top-level class: " + resource);
+				}
+			}
+		}
+		else {
+			if (traceEnabled) {
+				logger.trace("Ignored because not matching any filter: " + resource);
+			}
 		}
-		return candidates;
+	}
+
+	/**
+	 * Read the metadata of the given resources on the common {@link ForkJoinPool}.
+	 * @return an array aligned with the given resources, holding either the
+	 * {@link MetadataReader} or the failure for each readable resource
+	 * and {@code null} for any resource that is not readable
+	 */
+	private Object[] readMetadataInParallel(Resource[] resources) {
+		Object[] results = new Object[resources.length];
+		ForkJoinPool.commonPool().invoke(
+				new MetadataReadingTask(resources, getMetadataReaderFactory(), results, 0, resources.length));
+		return results;
 	}
 
 
@@ -541,4 +695,59 @@ public class ClassPathScanningCandidateComponentProvider implements EnvironmentC
 		}
 	}
 
+
+	/**
+	 * Fork/join task reading the metadata of a range of resources,
+	 * storing each result at the position of its resource.
+	 */
+	@SuppressWarnings("serial")
+	private static class MetadataReadingTask extends RecursiveAction {
+
+		private static final int THRESHOLD = 16;
+
+		private final Resource[] resources;
+
+		private final MetadataReaderFactory metadataReaderFactory;
+
+		private final Object[] results;
+
+		private final int start;
+
+		private final int end;
+
+		MetadataReadingTask(Resource[] resources, MetadataReaderFactory metadataReaderFactory,
+				Object[] results, int start, int end) {
+
+			this.resources = resources;
+			this.metadataReaderFactory = metadataReaderFactory;
+			this.results = results;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.end - this.start <= THRESHOLD) {
+				for (int i = this.start; i < this.end; i++) {
+					Resource resource = this.resources[i];
+					if (resource.isReadable()) {
+						try {
+							this.results[i] = this.metadataReaderFactory.getMetadataReader(resource);
+						}
+						catch (Throwable ex) {
+							this.results[i] = ex;
+						}
+					}
+				}
+			}
+			else {
+				int middle = (this.start + this.end) >>> 1;
+				invokeAll(new MetadataReadingTask(this.resources, this.metadataReaderFactory, this.results,
+								this.start, middle),
+						new MetadataReadingTask(this.resources, this.metadataReaderFactory, this.results,
+								middle, this.end));
+			}
+		}
+	}
+
 }
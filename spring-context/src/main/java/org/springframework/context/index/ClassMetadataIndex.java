@@ -0,0 +1,139 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderSerializer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Provide access to the class metadata that is defined in
+ * {@code META-INF/spring.metadata}, as written at build time by
+ * {@link ClassMetadataIndexWriter}.
+ *
+ * <p>In contrast to the {@link CandidateComponentsIndex}, this index holds the full
+ * ASM-derived class and annotation metadata of every indexed class. It can therefore
+ * serve arbitrary type filters and conditions, exposing each class through a regular
+ * {@link MetadataReader} without reading and parsing the class file itself.
+ *
+ * <p>Each index covers the class path root that it has been found in: it is
+ * authoritative for the classes within that root, while any other class path
+ * roots still need to be scanned. See {@link #isIndexed(URL)}.
+ *
+ * @author agent
+ * @since 5.2
+ * @see ClassMetadataIndexLoader
+ */
+public class ClassMetadataIndex {
+
+	/** Marker at the start of every index file. */
+	static final int MAGIC = 0x53504D44;
+
+	/** Version of the binary index format. */
+	static final int VERSION = 1;
+
+	private static final AntPathMatcher pathMatcher = new AntPathMatcher(".");
+
+	private final Map<String, byte[]> index;
+
+	private final Set<String> rootLocations;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+
+	ClassMetadataIndex(Map<String, byte[]> index, Set<String> rootLocations, @Nullable ClassLoader classLoader) {
+		this.index = index;
+		this.rootLocations = rootLocations;
+		this.classLoader = classLoader;
+	}
+
+
+	/**
+	 * Return the indexed types in the specified package (and its sub-packages),
+	 * in index order.
+	 * @param basePackage the package to check, possibly an Ant-style pattern
+	 * @return the fully qualified names of the matching types
+	 */
+	public Set<String> getTypes(String basePackage) {
+		String pattern = basePackage + ".**";
+		Set<String> types = new LinkedHashSet<>();
+		for (String type : this.index.keySet()) {
+			if (pathMatcher.match(pattern, ClassUtils.getPackageName(type))) {
+				types.add(type);
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * Determine whether the specified type is indexed.
+	 * @param type the fully qualified name of the type
+	 * @return {@code true} if metadata for that type is available
+	 */
+	public boolean contains(String type) {
+		return this.index.containsKey(type);
+	}
+
+	/**
+	 * Determine whether the given location lies within a class path root that
+	 * comes with its own index, i.e. whether the classes in that location are
+	 * covered by this index rather than having to be scanned.
+	 * @param location the URL of a class path resource or directory
+	 * @return {@code true} if the location is covered by this index
+	 */
+	public boolean isIndexed(URL location) {
+		String path = location.toString();
+		for (String rootLocation : this.rootLocations) {
+			if (path.startsWith(rootLocation)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return a {@link MetadataReader} for the specified type, as restored
+	 * from the index.
+	 * @param type the fully qualified name of the type
+	 * @return the corresponding reader, or {@code null} if the type is not indexed
+	 * @throws IOException if the indexed metadata cannot be read
+	 */
+	@Nullable
+	public MetadataReader getMetadataReader(String type) throws IOException {
+		byte[] metadata = this.index.get(type);
+		if (metadata == null) {
+			return null;
+		}
+		ClassPathResource resource = new ClassPathResource(
+				ClassUtils.convertClassNameToResourcePath(type) + ClassUtils.CLASS_FILE_SUFFIX, this.classLoader);
+		return MetadataReaderSerializer.deserialize(
+				new DataInputStream(new ByteArrayInputStream(metadata)), resource, this.classLoader);
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.SpringProperties;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Class metadata index loading mechanism for internal use within the framework.
+ *
+ * @author agent
+ * @since 5.2
+ * @see CandidateComponentsIndexLoader
+ */
+public final class ClassMetadataIndexLoader {
+
+	/**
+	 * The location to look for class metadata.
+	 * <p>Can be present in multiple JAR files.
+	 */
+	public static final String METADATA_RESOURCE_LOCATION = "META-INF/spring.metadata";
+
+
+	private static final boolean shouldIgnoreIndex =
+			SpringProperties.getFlag(CandidateComponentsIndexLoader.IGNORE_INDEX);
+
+	private static final Log logger = LogFactory.getLog(ClassMetadataIndexLoader.class);
+
+	private static final ConcurrentMap<ClassLoader, ClassMetadataIndex> cache =
+			new ConcurrentReferenceHashMap<>();
+
+
+	private ClassMetadataIndexLoader() {
+	}
+
+
+	/**
+	 * Load and instantiate the {@link ClassMetadataIndex} from
+	 * {@value #METADATA_RESOURCE_LOCATION}, using the given class loader. If no
+	 * index is available, return {@code null}.
+	 * <p>Each index file only covers the class path root that it is found in,
+	 * so the returned index is to be complemented by scanning any other roots.
+	 * Like the candidate components index, this index is ignored if the
+	 * {@value CandidateComponentsIndexLoader#IGNORE_INDEX} flag is set.
+	 * @param classLoader the ClassLoader to use for loading (can be {@code null} to use the default)
+	 * @return the index to use or {@code null} if no index was found
+	 * @throws IllegalStateException if any module index cannot be read
+	 */
+	@Nullable
+	public static ClassMetadataIndex loadIndex(@Nullable ClassLoader classLoader) {
+		ClassLoader classLoaderToUse = classLoader;
+		if (classLoaderToUse == null) {
+			classLoaderToUse = ClassMetadataIndexLoader.class.getClassLoader();
+		}
+		return cache.computeIfAbsent(classLoaderToUse, ClassMetadataIndexLoader::doLoadIndex);
+	}
+
+	@Nullable
+	private static ClassMetadataIndex doLoadIndex(ClassLoader classLoader) {
+		if (shouldIgnoreIndex) {
+			return null;
+		}
+
+		try {
+			Enumeration<URL> urls = classLoader.getResources(METADATA_RESOURCE_LOCATION);
+			if (!urls.hasMoreElements()) {
+				return null;
+			}
+			Map<String, byte[]> result = new LinkedHashMap<>();
+			Set<String> rootLocations = new LinkedHashSet<>();
+			while (urls.hasMoreElements()) {
+				URL url = urls.nextElement();
+				try (DataInputStream in = new DataInputStream(new BufferedInputStream(url.openStream()))) {
+					readIndex(in, url, result);
+				}
+				String location = url.toString();
+				if (location.endsWith(METADATA_RESOURCE_LOCATION)) {
+					rootLocations.add(location.substring(0, location.length() - METADATA_RESOURCE_LOCATION.length()));
+				}
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("Loaded " + result.size() + " class metadata entries for class path roots " +
+						rootLocations + "; any other roots will be scanned");
+			}
+			return new ClassMetadataIndex(result, rootLocations, classLoader);
+		}
+		catch (IOException ex) {
+			throw new IllegalStateException("Unable to load indexes from location [" +
+					METADATA_RESOURCE_LOCATION + "]", ex);
+		}
+	}
+
+	private static void readIndex(DataInputStream in, URL url, Map<String, byte[]> result) throws IOException {
+		if (in.readInt() != ClassMetadataIndex.MAGIC) {
+			throw new IOException("Not a class metadata index: " + url);
+		}
+		int version = in.readInt();
+		if (version != ClassMetadataIndex.VERSION) {
+			throw new IOException("Unsupported class metadata index version " + version + ": " + url);
+		}
+		int count = in.readInt();
+		for (int i = 0; i < count; i++) {
+			String type = in.readUTF();
+			byte[] metadata = new byte[in.readInt()];
+			in.readFully(metadata);
+			// First index on the class path wins, in line with regular class loading
+			result.putIfAbsent(type, metadata);
+		}
+	}
+
+}
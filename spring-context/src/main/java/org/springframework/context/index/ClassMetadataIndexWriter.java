@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.MetadataReaderSerializer;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Build-time writer for the {@link ClassMetadataIndex}: reads every class file
+ * in a compiled classes directory once and stores its metadata in
+ * {@value ClassMetadataIndexLoader#METADATA_RESOURCE_LOCATION}, so that later
+ * application starts can skip reading and parsing those class files.
+ *
+ * <p>Typically invoked as a build step right after compilation:
+ * <pre class="code">
+ * java -cp ... org.springframework.context.index.ClassMetadataIndexWriter build/classes/java/main
+ * </pre>
+ * The class path needs to contain the annotation types used by the indexed classes,
+ * in order to capture their meta-annotations. Like for {@code META-INF/spring.components},
+ * the index needs to be regenerated whenever the indexed classes change.
+ *
+ * @author agent
+ * @since 5.2
+ */
+public final class ClassMetadataIndexWriter {
+
+	private static final Log logger = LogFactory.getLog(ClassMetadataIndexWriter.class);
+
+
+	private ClassMetadataIndexWriter() {
+	}
+
+
+	/**
+	 * Write an index for the given metadata readers to the given stream,
+	 * ordered by class name.
+	 * @param metadataReaders the readers to index, as obtained from a
+	 * {@link SimpleMetadataReaderFactory}
+	 * @param out the stream to write to (not closed by this method)
+	 * @throws IOException in case of I/O failure
+	 */
+	public static void writeIndex(Collection<MetadataReader> metadataReaders, OutputStream out) throws IOException {
+		List<MetadataReader> sorted = new ArrayList<>(metadataReaders);
+		sorted.sort(Comparator.comparing(reader -> reader.getClassMetadata().getClassName()));
+
+		DataOutputStream dos = new DataOutputStream(out);
+		dos.writeInt(ClassMetadataIndex.MAGIC);
+		dos.writeInt(ClassMetadataIndex.VERSION);
+		dos.writeInt(sorted.size());
+		ByteArrayOutputStream entry = new ByteArrayOutputStream(1024);
+		for (MetadataReader metadataReader : sorted) {
+			entry.reset();
+			MetadataReaderSerializer.serialize(metadataReader, new DataOutputStream(entry));
+			dos.writeUTF(metadataReader.getClassMetadata().getClassName());
+			dos.writeInt(entry.size());
+			entry.writeTo(dos);
+		}
+		dos.flush();
+	}
+
+	/**
+	 * Write an index for all class files in the given directory to
+	 * {@value ClassMetadataIndexLoader#METADATA_RESOURCE_LOCATION} within that directory.
+	 * @param classesDirectory the root directory of the compiled classes
+	 * @param classLoader the ClassLoader to introspect annotation types with
+	 * (can be {@code null} to use the default)
+	 * @return the index file written
+	 * @throws IOException in case of I/O failure
+	 */
+	public static File writeIndex(File classesDirectory, @Nullable ClassLoader classLoader) throws IOException {
+		SimpleMetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory(classLoader);
+		List<MetadataReader> metadataReaders = new ArrayList<>();
+		try (Stream<Path> paths = Files.walk(classesDirectory.toPath())) {
+			for (Path path : paths.filter(ClassMetadataIndexWriter::isIndexable).collect(Collectors.toList())) {
+				metadataReaders.add(metadataReaderFactory.getMetadataReader(new FileSystemResource(path.toFile())));
+			}
+		}
+		File indexFile = new File(classesDirectory, ClassMetadataIndexLoader.METADATA_RESOURCE_LOCATION);
+		Files.createDirectories(indexFile.getParentFile().toPath());
+		try (OutputStream out = new BufferedOutputStream(new FileOutputStream(indexFile))) {
+			writeIndex(metadataReaders, out);
+		}
+		return indexFile;
+	}
+
+	private static boolean isIndexable(Path path) {
+		String fileName = path.getFileName().toString();
+		return (fileName.endsWith(ClassUtils.CLASS_FILE_SUFFIX) &&
+				!fileName.equals("package-info.class") && !fileName.equals("module-info.class"));
+	}
+
+
+	/**
+	 * Write an index for each of the given classes directories, using the
+	 * current class path for introspecting annotation types.
+	 * @param args the classes directories to index
+	 * @throws IOException in case of I/O failure
+	 */
+	public static void main(String[] args) throws IOException {
+		Assert.notEmpty(args, "Usage: ClassMetadataIndexWriter <classes-directory>...");
+		for (String directory : args) {
+			File indexFile = writeIndex(new File(directory), ClassUtils.getDefaultClassLoader());
+			if (logger.isInfoEnabled()) {
+				logger.info("Written class metadata index: " + indexFile);
+			}
+		}
+	}
+
+}
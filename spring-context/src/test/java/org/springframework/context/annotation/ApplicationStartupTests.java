@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.annotation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import org.springframework.beans.FatalBeanException;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.parsing.BeanDefinitionParsingException;
+import org.springframework.core.metrics.BufferingApplicationStartup;
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the startup steps recorded during an application context refresh.
+ *
+ * @author agent
+ */
+public class ApplicationStartupTests {
+
+	@Test
+	public void refreshStepsRecorded() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(Config.class);
+		context.refresh();
+
+		List<BufferedStartupStep> steps = startup.getBufferedSteps();
+		Map<Long, BufferedStartupStep> stepsById = steps.stream()
+				.collect(Collectors.toMap(BufferedStartupStep::getId, Function.identity()));
+		BufferedStartupStep refresh = findStep(steps, "spring.context.refresh", null);
+		assertNull(refresh.getParentId());
+		assertSame(refresh, steps.get(steps.size() - 1));
+
+		BufferedStartupStep postProcess = findStep(steps, "spring.context.beans.post-process", null);
+		assertEquals(Long.valueOf(refresh.getId()), postProcess.getParentId());
+		BufferedStartupStep parse = findStep(steps, "spring.context.config-classes.parse", null);
+		assertEquals("1", parse.getTag("classCount"));
+		assertEquals("beandef-registry post-process",
+				"spring.context.beandef-registry.post-process", stepsById.get(parse.getParentId()).getName());
+		BufferedStartupStep custom = findStep(steps, "spring.context.bean-factory.post-process",
+				TestBeanFactoryPostProcessor.class.getName());
+		assertEquals(Long.valueOf(postProcess.getId()), custom.getParentId());
+		findStep(steps, "spring.context.config-classes.enhance", null);
+
+		BufferedStartupStep service = findBeanStep(steps, "service");
+		BufferedStartupStep repository = findBeanStep(steps, "repository");
+		assertEquals(Long.valueOf(service.getId()), repository.getParentId());
+		assertSame(context.getBeanFactory().getApplicationStartup(), startup);
+		context.close();
+	}
+
+	@Test
+	public void postProcessStepEndedOnFailure() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(FailingConfig.class);
+		try {
+			context.refresh();
+			fail("Should have thrown FatalBeanException");
+		}
+		catch (FatalBeanException ex) {
+			// expected
+		}
+
+		List<BufferedStartupStep> steps = startup.getBufferedSteps();
+		BufferedStartupStep refresh = findStep(steps, "spring.context.refresh", null);
+		BufferedStartupStep postProcess = findStep(steps, "spring.context.beans.post-process", null);
+		assertEquals(Long.valueOf(refresh.getId()), postProcess.getParentId());
+		BufferedStartupStep failing = findStep(steps, "spring.context.bean-factory.post-process",
+				FailingConfig.class.getName());
+		assertEquals(Long.valueOf(postProcess.getId()), failing.getParentId());
+	}
+
+	@Test
+	public void configClassesParseStepEndedOnFailure() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(1000);
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+		context.setApplicationStartup(startup);
+		context.register(FinalConfig.class);
+		try {
+			context.refresh();
+			fail("Should have thrown BeanDefinitionParsingException");
+		}
+		catch (BeanDefinitionParsingException ex) {
+			// expected
+		}
+
+		List<BufferedStartupStep> steps = startup.getBufferedSteps();
+		BufferedStartupStep registryPostProcess = findStep(steps, "spring.context.beandef-registry.post-process",
+				ConfigurationClassPostProcessor.class.getName());
+		BufferedStartupStep parse = findStep(steps, "spring.context.config-classes.parse", null);
+		assertEquals(Long.valueOf(registryPostProcess.getId()), parse.getParentId());
+	}
+
+	private static BufferedStartupStep findStep(List<BufferedStartupStep> steps, String name, String postProcessor) {
+		for (BufferedStartupStep step : steps) {
+			if (step.getName().equals(name) && (postProcessor == null ||
+					String.valueOf(step.getTag("postProcessor")).startsWith(postProcessor))) {
+				return step;
+			}
+		}
+		throw new AssertionError("No step named '" + name + "' recorded: " + steps);
+	}
+
+	private static BufferedStartupStep findBeanStep(List<BufferedStartupStep> steps, String beanName) {
+		for (BufferedStartupStep step : steps) {
+			if (step.getName().equals("spring.beans.instantiate") && beanName.equals(step.getTag("beanName"))) {
+				return step;
+			}
+		}
+		throw new AssertionError("No instantiation step for bean '" + beanName + "' recorded: " + steps);
+	}
+
+
+	@Configuration
+	static class Config {
+
+		@Bean
+		public static TestBeanFactoryPostProcessor testBeanFactoryPostProcessor() {
+			return new TestBeanFactoryPostProcessor();
+		}
+
+		@Bean
+		public Service service(Repository repository) {
+			return new Service(repository);
+		}
+
+		@Bean
+		public Repository repository() {
+			return new Repository();
+		}
+	}
+
+
+	@Configuration
+	static final class FinalConfig {
+
+		@Bean
+		public Object bean() {
+			return new Object();
+		}
+	}
+
+
+	@Configuration
+	static class FailingConfig {
+
+		@Bean
+		public static BeanFactoryPostProcessor failingBeanFactoryPostProcessor() {
+			return beanFactory -> {
+				throw new FatalBeanException("Post-processing failed");
+			};
+		}
+	}
+
+
+	static class TestBeanFactoryPostProcessor implements BeanFactoryPostProcessor {
+
+		@Override
+		public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) {
+		}
+	}
+
+
+	static class Repository {
+	}
+
+
+	static class Service {
+
+		Service(Repository repository) {
+		}
+	}
+
+}
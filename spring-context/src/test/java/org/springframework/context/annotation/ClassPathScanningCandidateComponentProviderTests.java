@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,10 +16,14 @@
 
 package org.springframework.context.annotation;
 
+import java.io.IOException;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
+import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import example.profilescan.DevComponent;
 import example.profilescan.ProfileAnnotatedComponent;
@@ -43,6 +47,7 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.AnnotatedGenericBeanDefinition;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.index.CandidateComponentsTestClassLoader;
+import org.springframework.context.index.ClassMetadataIndexTestClassLoader;
 import org.springframework.core.env.ConfigurableEnvironment;
 import org.springframework.core.env.StandardEnvironment;
 import org.springframework.core.io.ClassPathResource;
@@ -90,6 +95,69 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		testDefault(provider, AnnotatedGenericBeanDefinition.class);
 	}
 
+	@Test
+	public void defaultsWithParallelScan() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		provider.setParallelScanning(true);
+		testDefault(provider, ScannedGenericBeanDefinition.class);
+	}
+
+	@Test
+	public void defaultsWithMetadataIndex() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				ClassMetadataIndexTestClassLoader.index(getClass().getClassLoader(), TEST_BASE_PACKAGE)));
+		testDefault(provider, ScannedGenericBeanDefinition.class);
+	}
+
+	@Test
+	public void parallelScanKeepsResourceOrder() {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				CandidateComponentsTestClassLoader.disableIndex(getClass().getClassLoader())));
+		provider.addIncludeFilter(new RegexPatternTypeFilter(Pattern.compile(".*")));
+		List<String> sequential = getBeanClassNames(provider.findCandidateComponents(TEST_BASE_PACKAGE));
+		provider.setParallelScanning(true);
+		List<String> parallel = getBeanClassNames(provider.findCandidateComponents(TEST_BASE_PACKAGE));
+		assertFalse(sequential.isEmpty());
+		assertEquals(sequential, parallel);
+	}
+
+	@Test
+	public void customFiltersWithMetadataIndex() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(false);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				ClassMetadataIndexTestClassLoader.index(getClass().getClassLoader(), TEST_BASE_PACKAGE)));
+		provider.addIncludeFilter(new AssignableTypeFilter(FooDao.class));
+		provider.addIncludeFilter(new RegexPatternTypeFilter(Pattern.compile(".*Named.*")));
+		provider.addExcludeFilter(new AnnotationTypeFilter(Component.class, false));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertTrue(containsBeanClass(candidates, StubFooDao.class));
+		assertTrue(containsBeanClass(candidates, NamedStubDao.class));
+		assertTrue(containsBeanClass(candidates, DefaultNamedComponent.class));
+		assertFalse(containsBeanClass(candidates, NamedComponent.class));
+		assertEquals(3, candidates.size());
+	}
+
+	@Test
+	public void metadataIndexCoversItsClassPathRootOnly() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				ClassMetadataIndexTestClassLoader.index(getClass().getClassLoader(), TEST_BASE_PACKAGE + ".sub")));
+		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
+		assertEquals(Collections.singletonList(BarComponent.class.getName()), getBeanClassNames(candidates));
+
+		provider.setResourceLoader(new DefaultResourceLoader(
+				ClassMetadataIndexTestClassLoader.detachedIndex(getClass().getClassLoader(), TEST_BASE_PACKAGE + ".sub")));
+		testDefault(provider, ScannedGenericBeanDefinition.class);
+	}
+
+	private List<String> getBeanClassNames(Set<BeanDefinition> candidates) {
+		return candidates.stream().map(BeanDefinition::getBeanClassName).collect(Collectors.toList());
+	}
+
 	private void testDefault(ClassPathScanningCandidateComponentProvider provider,
 			Class<? extends BeanDefinition> expectedBeanDefinitionType) {
 		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE);
@@ -119,6 +187,14 @@ public class ClassPathScanningCandidateComponentProviderTests {
 		testAntStyle(provider, AnnotatedGenericBeanDefinition.class);
 	}
 
+	@Test
+	public void antStylePackageWithDetachedMetadataIndex() throws IOException {
+		ClassPathScanningCandidateComponentProvider provider = new ClassPathScanningCandidateComponentProvider(true);
+		provider.setResourceLoader(new DefaultResourceLoader(
+				ClassMetadataIndexTestClassLoader.detachedIndex(getClass().getClassLoader(), TEST_BASE_PACKAGE)));
+		testAntStyle(provider, ScannedGenericBeanDefinition.class);
+	}
+
 	private void testAntStyle(ClassPathScanningCandidateComponentProvider provider,
 			Class<? extends BeanDefinition> expectedBeanDefinitionType) {
 		Set<BeanDefinition> candidates = provider.findCandidateComponents(TEST_BASE_PACKAGE + ".**.sub");
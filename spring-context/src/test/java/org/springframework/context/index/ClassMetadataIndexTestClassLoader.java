@@ -0,0 +1,117 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
+import org.springframework.util.ClassUtils;
+
+/**
+ * A test {@link ClassLoader} exposing a {@code spring.metadata} class metadata
+ * index written for the classes of a given package, while hiding any
+ * {@code spring.components} index. The index is either exposed within the class
+ * path root of that package, covering all classes in that root, or detached
+ * from any class path root, covering none.
+ *
+ * @author agent
+ */
+public class ClassMetadataIndexTestClassLoader extends ClassLoader {
+
+	/**
+	 * Create a test {@link ClassLoader} with a class metadata index for all
+	 * classes in the given package and its sub-packages, exposed within the
+	 * class path root of that package.
+	 * @param classLoader the classloader to use for all other operations
+	 * @param basePackage the package to index
+	 * @return a test {@link ClassLoader} with the corresponding index
+	 */
+	public static ClassLoader index(ClassLoader classLoader, String basePackage) throws IOException {
+		File indexFile = writeIndex(classLoader, basePackage);
+		String packagePath = ClassUtils.convertClassNameToResourcePath(basePackage) + "/";
+		String packageLocation = classLoader.getResource(packagePath).toString();
+		URL rootUrl = new URL(packageLocation.substring(0, packageLocation.length() - packagePath.length()));
+		URL indexUrl = new URL(rootUrl, ClassMetadataIndexLoader.METADATA_RESOURCE_LOCATION, new URLStreamHandler() {
+			@Override
+			protected URLConnection openConnection(URL url) throws IOException {
+				return indexFile.toURI().toURL().openConnection();
+			}
+		});
+		return new ClassMetadataIndexTestClassLoader(classLoader, indexUrl);
+	}
+
+	/**
+	 * Create a test {@link ClassLoader} with a class metadata index for all
+	 * classes in the given package and its sub-packages, exposed outside of
+	 * any class path root.
+	 * @param classLoader the classloader to use for all other operations
+	 * @param basePackage the package to index
+	 * @return a test {@link ClassLoader} with the corresponding index
+	 */
+	public static ClassLoader detachedIndex(ClassLoader classLoader, String basePackage) throws IOException {
+		return new ClassMetadataIndexTestClassLoader(classLoader, writeIndex(classLoader, basePackage).toURI().toURL());
+	}
+
+	private static File writeIndex(ClassLoader classLoader, String basePackage) throws IOException {
+		SimpleMetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory(classLoader);
+		List<MetadataReader> metadataReaders = new ArrayList<>();
+		Resource[] resources = new PathMatchingResourcePatternResolver(classLoader).getResources(
+				"classpath*:" + ClassUtils.convertClassNameToResourcePath(basePackage) + "/**/*.class");
+		for (Resource resource : resources) {
+			metadataReaders.add(metadataReaderFactory.getMetadataReader(resource));
+		}
+		File indexFile = File.createTempFile("spring", ".metadata");
+		indexFile.deleteOnExit();
+		try (OutputStream out = new FileOutputStream(indexFile)) {
+			ClassMetadataIndexWriter.writeIndex(metadataReaders, out);
+		}
+		return indexFile;
+	}
+
+
+	private final URL indexUrl;
+
+	public ClassMetadataIndexTestClassLoader(ClassLoader classLoader, URL indexUrl) {
+		super(classLoader);
+		this.indexUrl = indexUrl;
+	}
+
+	@Override
+	public Enumeration<URL> getResources(String name) throws IOException {
+		if (ClassMetadataIndexLoader.METADATA_RESOURCE_LOCATION.equals(name)) {
+			return Collections.enumeration(Collections.singletonList(this.indexUrl));
+		}
+		if (CandidateComponentsIndexLoader.COMPONENTS_RESOURCE_LOCATION.equals(name)) {
+			return Collections.emptyEnumeration();
+		}
+		return super.getResources(name);
+	}
+
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Set;
+
+import example.scannable.FooServiceImpl;
+import example.scannable.sub.BarComponent;
+import org.junit.Test;
+
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.classreading.MetadataReader;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Service;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ClassMetadataIndex}, as written by {@link ClassMetadataIndexWriter}
+ * and loaded by {@link ClassMetadataIndexLoader}.
+ *
+ * @author agent
+ */
+public class ClassMetadataIndexTests {
+
+	@Test
+	public void validateIndexIsDisabledByDefault() {
+		assertThat("No spring.metadata should be available at the default location",
+				ClassMetadataIndexLoader.loadIndex(null), is(nullValue()));
+	}
+
+	@Test
+	public void loadIndexIsCachedPerClassLoader() throws IOException {
+		ClassLoader classLoader = ClassMetadataIndexTestClassLoader.index(getClass().getClassLoader(), "example.scannable");
+		ClassMetadataIndex index = ClassMetadataIndexLoader.loadIndex(classLoader);
+		assertThat(index, is(notNullValue()));
+		assertThat(ClassMetadataIndexLoader.loadIndex(classLoader), is(sameInstance(index)));
+	}
+
+	@Test
+	public void getTypesInPackageAndSubPackages() throws IOException {
+		ClassMetadataIndex index = loadIndex();
+		Set<String> types = index.getTypes("example.scannable");
+		assertThat(types, hasItems(FooServiceImpl.class.getName(), BarComponent.class.getName()));
+		assertThat(new ArrayList<>(types).indexOf(FooServiceImpl.class.getName()),
+				is(lessThan(new ArrayList<>(types).indexOf(BarComponent.class.getName()))));
+		assertThat(index.getTypes("example.scannable.sub"), contains(BarComponent.class.getName()));
+		assertThat(index.getTypes("example.scannable.su"), is(empty()));
+		assertThat(index.getTypes("example.*.sub"), contains(BarComponent.class.getName()));
+		assertThat(index.getTypes("org.springframework"), is(empty()));
+	}
+
+	@Test
+	public void getMetadataReader() throws IOException {
+		MetadataReader metadataReader = loadIndex().getMetadataReader(FooServiceImpl.class.getName());
+		assertThat(metadataReader, is(notNullValue()));
+		AnnotationMetadata metadata = metadataReader.getAnnotationMetadata();
+		assertThat(metadata.getClassName(), is(FooServiceImpl.class.getName()));
+		assertThat(metadata.hasAnnotation(Service.class.getName()), is(true));
+		assertThat(metadata.hasMetaAnnotation(Component.class.getName()), is(true));
+		assertThat(metadata.getAnnotationAttributes(DependsOn.class.getName()).get("value"),
+				is((Object) new String[] {"myNamedComponent"}));
+		assertThat(metadataReader.getResource().getFilename(), is("FooServiceImpl.class"));
+		assertThat(metadataReader.getResource().exists(), is(true));
+	}
+
+	@Test
+	public void getMetadataReaderForUnknownType() throws IOException {
+		assertThat(loadIndex().getMetadataReader("example.scannable.DoesNotExist"), is(nullValue()));
+	}
+
+
+	private ClassMetadataIndex loadIndex() throws IOException {
+		return ClassMetadataIndexLoader.loadIndex(
+				ClassMetadataIndexTestClassLoader.index(getClass().getClassLoader(), "example.scannable"));
+	}
+
+}
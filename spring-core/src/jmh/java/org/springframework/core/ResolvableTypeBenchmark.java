@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ResolvableType}, covering the generic type resolution
+ * and assignability checks performed during dependency injection.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class ResolvableTypeBenchmark {
+
+	@Benchmark
+	public void forFieldResolveGeneric(GenericMembers members, Blackhole bh) {
+		bh.consume(ResolvableType.forField(members.field).resolveGeneric(1, 0));
+	}
+
+	@Benchmark
+	public void forMethodReturnTypeResolveGeneric(GenericMembers members, Blackhole bh) {
+		bh.consume(ResolvableType.forMethodReturnType(members.method, members.owner).resolveGeneric(0));
+	}
+
+	@Benchmark
+	public void forClassWithGenerics(Blackhole bh) {
+		bh.consume(ResolvableType.forClassWithGenerics(Map.class, String.class, Integer.class));
+	}
+
+	@Benchmark
+	public void isAssignableFromGenericType(GenericMembers members, Blackhole bh) {
+		bh.consume(members.collectionType.isAssignableFrom(members.listType));
+	}
+
+	@Benchmark
+	public void asSuperType(GenericMembers members, Blackhole bh) {
+		bh.consume(members.listType.as(Collection.class).resolveGeneric());
+	}
+
+	@Benchmark
+	public void forFieldUncached(GenericMembers members, Blackhole bh) {
+		ResolvableType.clearCache();
+		bh.consume(ResolvableType.forField(members.field).resolveGeneric(1, 0));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class GenericMembers {
+
+		public Field field;
+
+		public Method method;
+
+		public Class<?> owner;
+
+		public ResolvableType collectionType;
+
+		public ResolvableType listType;
+
+		@Setup(Level.Trial)
+		public void setup() throws Exception {
+			this.field = GenericHolder.class.getDeclaredField("repositories");
+			this.method = GenericHolder.class.getMethod("getItems");
+			this.owner = StringHolder.class;
+			this.collectionType = ResolvableType.forClassWithGenerics(Collection.class, CharSequence.class);
+			this.listType = ResolvableType.forField(StringHolder.class.getDeclaredField("names"));
+		}
+	}
+
+
+	public static class GenericHolder<T> {
+
+		public Map<String, List<T>> repositories = new HashMap<>();
+
+		public List<T> getItems() {
+			return new ArrayList<>();
+		}
+	}
+
+
+	public static class StringHolder extends GenericHolder<String> {
+
+		public ArrayList<String> names = new ArrayList<>();
+	}
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for annotation lookups through {@link AnnotationUtils} and
+ * {@link AnnotatedElementUtils}, with warm caches as well as with caches
+ * cleared before each lookup (the typical situation at startup).
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AnnotationUtilsBenchmark {
+
+	@Benchmark
+	public void findAnnotationOnClass(AnnotatedElements elements, Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(elements.type, Order.class));
+	}
+
+	@Benchmark
+	public void findAnnotationOnClassUncached(AnnotatedElements elements, Blackhole bh) {
+		AnnotationUtils.clearCache();
+		bh.consume(AnnotationUtils.findAnnotation(elements.type, Order.class));
+	}
+
+	@Benchmark
+	public void findAnnotationOnInterfaceMethod(AnnotatedElements elements, Blackhole bh) {
+		bh.consume(AnnotationUtils.findAnnotation(elements.method, Mapping.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotation(AnnotatedElements elements, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(elements.method, Mapping.class));
+	}
+
+	@Benchmark
+	public void findMergedAnnotationUncached(AnnotatedElements elements, Blackhole bh) {
+		AnnotationUtils.clearCache();
+		bh.consume(AnnotatedElementUtils.findMergedAnnotation(elements.method, Mapping.class));
+	}
+
+	@Benchmark
+	public void getMergedAnnotationAttributes(AnnotatedElements elements, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.getMergedAnnotationAttributes(elements.type, Mapping.class));
+	}
+
+	@Benchmark
+	public void hasMetaAnnotationTypes(AnnotatedElements elements, Blackhole bh) {
+		bh.consume(AnnotatedElementUtils.hasMetaAnnotationTypes(elements.type, Mapping.class));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class AnnotatedElements {
+
+		public Class<?> type;
+
+		public Method method;
+
+		@Setup(Level.Trial)
+		public void setup() throws NoSuchMethodException {
+			this.type = AnnotatedController.class;
+			this.method = AnnotatedController.class.getMethod("handle", String.class);
+		}
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	public @interface Mapping {
+
+		@AliasFor("path")
+		String[] value() default {};
+
+		@AliasFor("value")
+		String[] path() default {};
+
+		String[] produces() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({ElementType.TYPE, ElementType.METHOD})
+	@Mapping(produces = "application/json")
+	public @interface GetJson {
+
+		@AliasFor(annotation = Mapping.class)
+		String[] path() default {};
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target(ElementType.TYPE)
+	@Mapping
+	@Order(1)
+	public @interface Controller {
+
+		@AliasFor(annotation = Mapping.class, attribute = "path")
+		String[] basePath() default {};
+	}
+
+
+	public interface ControllerApi {
+
+		@GetJson(path = "/resource/{id}")
+		String handle(String id);
+	}
+
+
+	@Controller(basePath = "/api")
+	public static class AnnotatedController implements ControllerApi {
+
+		@Override
+		public String handle(String id) {
+			return id;
+		}
+	}
+
+}
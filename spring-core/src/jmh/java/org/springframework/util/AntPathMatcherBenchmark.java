@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link AntPathMatcher}, using request mapping style patterns.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class AntPathMatcherBenchmark {
+
+	@Benchmark
+	public void matchPatterns(PatternsData data, Blackhole bh) {
+		for (String path : data.paths) {
+			for (String pattern : data.patterns) {
+				bh.consume(data.matcher.match(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void extractUriTemplateVariables(PatternsData data, Blackhole bh) {
+		for (int i = 0; i < data.paths.size(); i++) {
+			String pattern = data.patterns.get(i % data.patterns.size());
+			String path = data.paths.get(i);
+			if (data.matcher.match(pattern, path)) {
+				bh.consume(data.matcher.extractUriTemplateVariables(pattern, path));
+			}
+		}
+	}
+
+	@Benchmark
+	public void sortMatchingPatterns(PatternsData data, Blackhole bh) {
+		for (String path : data.paths) {
+			List<String> matches = new ArrayList<>();
+			for (String pattern : data.patterns) {
+				if (data.matcher.match(pattern, path)) {
+					matches.add(pattern);
+				}
+			}
+			matches.sort(data.matcher.getPatternComparator(path));
+			bh.consume(matches);
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class PatternsData {
+
+		@Param({"true", "false"})
+		public boolean cachePatterns;
+
+		@Param({"100"})
+		public int patternCount;
+
+		public AntPathMatcher matcher;
+
+		public List<String> patterns;
+
+		public List<String> paths;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.matcher = new AntPathMatcher();
+			this.matcher.setCachePatterns(this.cachePatterns);
+			this.patterns = new ArrayList<>(this.patternCount);
+			this.paths = new ArrayList<>(this.patternCount);
+			for (int i = 0; i < this.patternCount; i++) {
+				switch (i % 4) {
+					case 0:
+						this.patterns.add("/api/resource" + i + "/{id}");
+						this.paths.add("/api/resource" + i + "/42");
+						break;
+					case 1:
+						this.patterns.add("/api/resource" + i + "/{id}/items/{item}");
+						this.paths.add("/api/resource" + i + "/42/items/spring");
+						break;
+					case 2:
+						this.patterns.add("/static/resource" + i + "/**");
+						this.paths.add("/static/resource" + i + "/css/main.css");
+						break;
+					default:
+						this.patterns.add("/files/resource" + i + "/*.{extension:[a-z]+}");
+						this.paths.add("/files/resource" + i + "/document.pdf");
+				}
+			}
+			Collections.shuffle(this.paths, new Random(42));
+		}
+	}
+
+}
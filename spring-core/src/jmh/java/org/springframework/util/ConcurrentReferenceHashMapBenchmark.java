@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks for {@link ConcurrentReferenceHashMap}, compared to a synchronized
+ * {@link WeakHashMap} as the typical alternative for reference-based caches.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(4)
+public class ConcurrentReferenceHashMapBenchmark {
+
+	@Benchmark
+	public void concurrentMapGet(ConcurrentMapData data, Blackhole bh) {
+		for (String element : data.elements) {
+			bh.consume(data.map.get(element));
+		}
+	}
+
+	@Benchmark
+	public void concurrentMapPutIfAbsent(ConcurrentMapData data, Blackhole bh) {
+		for (String element : data.elements) {
+			bh.consume(data.map.putIfAbsent(element, element));
+		}
+	}
+
+	@Benchmark
+	public void synchronizedMapGet(SynchronizedMapData data, Blackhole bh) {
+		for (String element : data.elements) {
+			bh.consume(data.map.get(element));
+		}
+	}
+
+	@Benchmark
+	public void synchronizedMapPutIfAbsent(SynchronizedMapData data, Blackhole bh) {
+		for (String element : data.elements) {
+			bh.consume(data.map.putIfAbsent(element, element));
+		}
+	}
+
+	private static List<String> createElements(int capacity) {
+		List<String> elements = new ArrayList<>(capacity);
+		for (int i = 0; i < capacity; i++) {
+			elements.add("element" + i);
+		}
+		return elements;
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class ConcurrentMapData {
+
+		@Param({"500"})
+		public int capacity;
+
+		@Param({"SOFT", "WEAK"})
+		public ConcurrentReferenceHashMap.ReferenceType referenceType;
+
+		public List<String> elements;
+
+		public Map<String, String> map;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.elements = createElements(this.capacity);
+			this.map = new ConcurrentReferenceHashMap<>(this.capacity, this.referenceType);
+			this.elements.forEach(element -> this.map.put(element, element));
+		}
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class SynchronizedMapData {
+
+		@Param({"500"})
+		public int capacity;
+
+		public List<String> elements;
+
+		public Map<String, String> map;
+
+		@Setup(Level.Iteration)
+		public void setup() {
+			this.elements = createElements(this.capacity);
+			this.map = Collections.synchronizedMap(new WeakHashMap<>(this.capacity));
+			this.elements.forEach(element -> this.map.put(element, element));
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.springframework.core.BridgeMethodResolver;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
 import org.springframework.lang.Nullable;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.LinkedMultiValueMap;
@@ -97,16 +98,8 @@ import org.springframework.util.MultiValueMap;
  */
 public abstract class AnnotatedElementUtils {
 
-	/**
-	 * {@code null} constant used to denote that the search algorithm should continue.
-	 */
-	@Nullable
-	private static final Boolean CONTINUE = null;
-
 	private static final Annotation[] EMPTY_ANNOTATION_ARRAY = new Annotation[0];
 
-	private static final Processor<Boolean> alwaysTrueAnnotationProcessor = new AlwaysTrueBooleanAnnotationProcessor();
-
 
 	/**
 	 * Build an adapted {@link AnnotatedElement} for the given annotations,
@@ -179,22 +172,8 @@ public abstract class AnnotatedElementUtils {
 			return Collections.emptySet();
 		}
 
-		try {
-			final Set<String> types = new LinkedHashSet<>();
-			searchWithGetSemantics(composed.annotationType(), Collections.emptySet(), null, null, new SimpleAnnotationProcessor<Object>(true) {
-					@Override
-					@Nullable
-					public Object process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-						types.add(annotation.annotationType().getName());
-						return CONTINUE;
-					}
-				}, new HashSet<>(), 1);
-			return types;
-		}
-		catch (Throwable ex) {
-			AnnotationUtils.rethrowAnnotationConfigurationException(ex);
-			throw new IllegalStateException("Failed to introspect annotations on " + element, ex);
-		}
+		return MergedAnnotations.from(composed.annotationType(), SearchStrategy.INHERITED_ANNOTATIONS)
+				.getAnnotationTypeNames();
 	}
 
 	/**
@@ -210,7 +189,7 @@ public abstract class AnnotatedElementUtils {
 	 * @see #getMetaAnnotationTypes
 	 */
 	public static boolean hasMetaAnnotationTypes(AnnotatedElement element, Class<? extends Annotation> annotationType) {
-		return hasMetaAnnotationTypes(element, annotationType, null);
+		return MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS).isMetaPresent(annotationType);
 	}
 
 	/**
@@ -226,20 +205,7 @@ public abstract class AnnotatedElementUtils {
 	 * @see #getMetaAnnotationTypes
 	 */
 	public static boolean hasMetaAnnotationTypes(AnnotatedElement element, String annotationName) {
-		return hasMetaAnnotationTypes(element, null, annotationName);
-	}
-
-	private static boolean hasMetaAnnotationTypes(
-			AnnotatedElement element, @Nullable Class<? extends Annotation> annotationType, @Nullable String annotationName) {
-
-		return Boolean.TRUE.equals(
-			searchWithGetSemantics(element, annotationType, annotationName, new SimpleAnnotationProcessor<Boolean>() {
-				@Override
-				@Nullable
-				public Boolean process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-					return (metaDepth > 0 ? Boolean.TRUE : CONTINUE);
-				}
-			}));
+		return MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS).isMetaPresent(annotationName);
 	}
 
 	/**
@@ -261,7 +227,7 @@ public abstract class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS).isPresent(annotationType);
 	}
 
 	/**
@@ -277,7 +243,7 @@ public abstract class AnnotatedElementUtils {
 	 * @return {@code true} if a matching annotation is present
 	 */
 	public static boolean isAnnotated(AnnotatedElement element, String annotationName) {
-		return Boolean.TRUE.equals(searchWithGetSemantics(element, null, annotationName, alwaysTrueAnnotationProcessor));
+		return MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS).isPresent(annotationName);
 	}
 
 	/**
@@ -301,10 +267,9 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(
 			AnnotatedElement element, Class<? extends Annotation> annotationType) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor());
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, false, false);
-		return attributes;
+		MergedAnnotation<?> mergedAnnotation =
+				MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS).get(annotationType);
+		return (mergedAnnotation != null ? mergedAnnotation.asAnnotationAttributes(false, false) : null);
 	}
 
 	/**
@@ -360,10 +325,10 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes getMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithGetSemantics(element, null, annotationName,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		MergedAnnotation<?> mergedAnnotation =
+				MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS).get(annotationName);
+		return (mergedAnnotation != null ?
+				mergedAnnotation.asAnnotationAttributes(classValuesAsString, nestedAnnotationsAsMap) : null);
 	}
 
 	/**
@@ -386,20 +351,18 @@ public abstract class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A getMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
-		// Shortcut: directly present on the element, with no merging needed?
-		A annotation = element.getDeclaredAnnotation(annotationType);
-		if (annotation != null) {
-			return AnnotationUtils.synthesizeAnnotation(annotation, element);
+		// Shortcut: no searchable annotations to be found on plain Java classes and org.springframework.lang types,
+		// and java.lang.annotation types only ever found when directly present on the element...
+		if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element) ||
+				AnnotationUtils.isInJavaLangAnnotationPackage(annotationType)) {
+			A annotation = element.getDeclaredAnnotation(annotationType);
+			return (annotation != null ? AnnotationUtils.synthesizeAnnotation(annotation, element) : null);
 		}
 
-		// Shortcut: no searchable annotations to be found on plain Java classes and org.springframework.lang types...
-		if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element)) {
-			return null;
-		}
-
-		// Exhaustive retrieval of merged annotation attributes...
-		AnnotationAttributes attributes = getMergedAnnotationAttributes(element, annotationType);
-		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+		// Merged annotation from the (cached) annotation index...
+		MergedAnnotation<A> mergedAnnotation =
+				MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS).get(annotationType);
+		return (mergedAnnotation != null ? mergedAnnotation.synthesize() : null);
 	}
 
 	/**
@@ -562,20 +525,23 @@ public abstract class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static MultiValueMap<String, Object> getAllAnnotationAttributes(AnnotatedElement element,
-			String annotationName, final boolean classValuesAsString, final boolean nestedAnnotationsAsMap) {
+			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		final MultiValueMap<String, Object> attributesMap = new LinkedMultiValueMap<>();
+		MultiValueMap<String, Object> attributesMap = new LinkedMultiValueMap<>();
 
-		searchWithGetSemantics(element, null, annotationName, new SimpleAnnotationProcessor<Object>() {
-			@Override
-			@Nullable
-			public Object process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-				AnnotationAttributes annotationAttributes = AnnotationUtils.getAnnotationAttributes(
-						annotation, classValuesAsString, nestedAnnotationsAsMap);
-				annotationAttributes.forEach(attributesMap::add);
-				return CONTINUE;
+		for (MergedAnnotation<Annotation> mergedAnnotation :
+				MergedAnnotations.from(element, SearchStrategy.INHERITED_ANNOTATIONS)) {
+			if (mergedAnnotation.getType().getName().equals(annotationName)) {
+				try {
+					AnnotationAttributes annotationAttributes = AnnotationUtils.getAnnotationAttributes(
+							mergedAnnotation.getAnnotation(), classValuesAsString, nestedAnnotationsAsMap);
+					annotationAttributes.forEach(attributesMap::add);
+				}
+				catch (Throwable ex) {
+					AnnotationUtils.handleIntrospectionFailure(mergedAnnotation.getDeclaringElement(), ex);
+				}
 			}
-		});
+		}
 
 		return (!attributesMap.isEmpty() ? attributesMap : null);
 	}
@@ -599,7 +565,7 @@ public abstract class AnnotatedElementUtils {
 		if (element.isAnnotationPresent(annotationType)) {
 			return true;
 		}
-		return Boolean.TRUE.equals(searchWithFindSemantics(element, annotationType, null, alwaysTrueAnnotationProcessor));
+		return MergedAnnotations.from(element, SearchStrategy.TYPE_HIERARCHY).isPresent(annotationType);
 	}
 
 	/**
@@ -633,10 +599,10 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			Class<? extends Annotation> annotationType, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithFindSemantics(element, annotationType, null,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		MergedAnnotation<?> mergedAnnotation =
+				MergedAnnotations.from(element, SearchStrategy.TYPE_HIERARCHY).get(annotationType);
+		return (mergedAnnotation != null ?
+				mergedAnnotation.asAnnotationAttributes(classValuesAsString, nestedAnnotationsAsMap) : null);
 	}
 
 	/**
@@ -670,10 +636,10 @@ public abstract class AnnotatedElementUtils {
 	public static AnnotationAttributes findMergedAnnotationAttributes(AnnotatedElement element,
 			String annotationName, boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
 
-		AnnotationAttributes attributes = searchWithFindSemantics(element, null, annotationName,
-				new MergedAnnotationAttributesProcessor(classValuesAsString, nestedAnnotationsAsMap));
-		AnnotationUtils.postProcessAnnotationAttributes(element, attributes, classValuesAsString, nestedAnnotationsAsMap);
-		return attributes;
+		MergedAnnotation<?> mergedAnnotation =
+				MergedAnnotations.from(element, SearchStrategy.TYPE_HIERARCHY).get(annotationName);
+		return (mergedAnnotation != null ?
+				mergedAnnotation.asAnnotationAttributes(classValuesAsString, nestedAnnotationsAsMap) : null);
 	}
 
 	/**
@@ -696,20 +662,18 @@ public abstract class AnnotatedElementUtils {
 	 */
 	@Nullable
 	public static <A extends Annotation> A findMergedAnnotation(AnnotatedElement element, Class<A> annotationType) {
-		// Shortcut: directly present on the element, with no merging needed?
-		A annotation = element.getDeclaredAnnotation(annotationType);
-		if (annotation != null) {
-			return AnnotationUtils.synthesizeAnnotation(annotation, element);
+		// Shortcut: no searchable annotations to be found on plain Java classes and org.springframework.lang types,
+		// and java.lang.annotation types only ever found when directly present on the element...
+		if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element) ||
+				AnnotationUtils.isInJavaLangAnnotationPackage(annotationType)) {
+			A annotation = element.getDeclaredAnnotation(annotationType);
+			return (annotation != null ? AnnotationUtils.synthesizeAnnotation(annotation, element) : null);
 		}
 
-		// Shortcut: no searchable annotations to be found on plain Java classes and org.springframework.lang types...
-		if (AnnotationUtils.hasPlainJavaAnnotationsOnly(element)) {
-			return null;
-		}
-
-		// Exhaustive retrieval of merged annotation attributes...
-		AnnotationAttributes attributes = findMergedAnnotationAttributes(element, annotationType, false, false);
-		return (attributes != null ? AnnotationUtils.synthesizeAnnotation(attributes, annotationType, element) : null);
+		// Merged annotation from the (cached) annotation index...
+		MergedAnnotation<A> mergedAnnotation =
+				MergedAnnotations.from(element, SearchStrategy.TYPE_HIERARCHY).get(annotationType);
+		return (mergedAnnotation != null ? mergedAnnotation.synthesize() : null);
 	}
 
 	/**
@@ -1458,61 +1422,6 @@ public abstract class AnnotatedElementUtils {
 	}
 
 
-	/**
-	 * {@link Processor} that {@linkplain #process(AnnotatedElement, Annotation, int)
-	 * processes} annotations but does not {@linkplain #postProcess post-process} or
-	 * {@linkplain #aggregates aggregate} results.
-	 * @since 4.2
-	 */
-	private abstract static class SimpleAnnotationProcessor<T> implements Processor<T> {
-
-		private final boolean alwaysProcesses;
-
-		public SimpleAnnotationProcessor() {
-			this(false);
-		}
-
-		public SimpleAnnotationProcessor(boolean alwaysProcesses) {
-			this.alwaysProcesses = alwaysProcesses;
-		}
-
-		@Override
-		public final boolean alwaysProcesses() {
-			return this.alwaysProcesses;
-		}
-
-		@Override
-		public final void postProcess(@Nullable AnnotatedElement annotatedElement, Annotation annotation, T result) {
-			// no-op
-		}
-
-		@Override
-		public final boolean aggregates() {
-			return false;
-		}
-
-		@Override
-		public final List<T> getAggregatedResults() {
-			throw new UnsupportedOperationException("SimpleAnnotationProcessor does not support aggregated results");
-		}
-	}
-
-
-	/**
-	 * {@link SimpleAnnotationProcessor} that always returns {@link Boolean#TRUE} when
-	 * asked to {@linkplain #process(AnnotatedElement, Annotation, int) process} an
-	 * annotation.
-	 * @since 4.3
-	 */
-	static class AlwaysTrueBooleanAnnotationProcessor extends SimpleAnnotationProcessor<Boolean> {
-
-		@Override
-		public final Boolean process(@Nullable AnnotatedElement annotatedElement, Annotation annotation, int metaDepth) {
-			return Boolean.TRUE;
-		}
-	}
-
-
 	/**
 	 * {@link Processor} that gets the {@code AnnotationAttributes} for the
 	 * target annotation during the {@link #process} phase and then merges
@@ -1534,14 +1443,6 @@ public abstract class AnnotatedElementUtils {
 
 		private final List<AnnotationAttributes> aggregatedResults;
 
-		MergedAnnotationAttributesProcessor() {
-			this(false, false, false);
-		}
-
-		MergedAnnotationAttributesProcessor(boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
-			this(classValuesAsString, nestedAnnotationsAsMap, false);
-		}
-
 		MergedAnnotationAttributesProcessor(boolean classValuesAsString, boolean nestedAnnotationsAsMap,
 				boolean aggregates) {
 
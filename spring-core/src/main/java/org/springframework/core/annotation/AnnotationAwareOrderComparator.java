@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,6 +23,7 @@ import java.util.List;
 
 import org.springframework.core.DecoratingProxy;
 import org.springframework.core.OrderComparator;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
 import org.springframework.lang.Nullable;
 
 /**
@@ -72,16 +73,10 @@ public class AnnotationAwareOrderComparator extends OrderComparator {
 			return OrderUtils.getOrder((Class<?>) obj);
 		}
 		else if (obj instanceof Method) {
-			Order ann = AnnotationUtils.findAnnotation((Method) obj, Order.class);
-			if (ann != null) {
-				return ann.value();
-			}
+			return getOrderValue(MergedAnnotations.from((Method) obj, SearchStrategy.TYPE_HIERARCHY));
 		}
 		else if (obj instanceof AnnotatedElement) {
-			Order ann = AnnotationUtils.getAnnotation((AnnotatedElement) obj, Order.class);
-			if (ann != null) {
-				return ann.value();
-			}
+			return getOrderValue(MergedAnnotations.from((AnnotatedElement) obj, SearchStrategy.INHERITED_ANNOTATIONS));
 		}
 		else {
 			order = OrderUtils.getOrder(obj.getClass());
@@ -93,6 +88,12 @@ public class AnnotationAwareOrderComparator extends OrderComparator {
 		return order;
 	}
 
+	@Nullable
+	private Integer getOrderValue(MergedAnnotations annotations) {
+		MergedAnnotation<Order> order = annotations.get(Order.class);
+		return (order != null ? (Integer) order.getValue(AnnotationUtils.VALUE) : null);
+	}
+
 	/**
 	 * This implementation retrieves an @{@link javax.annotation.Priority}
 	 * value, allowing for additional semantics over the regular @{@link Order}
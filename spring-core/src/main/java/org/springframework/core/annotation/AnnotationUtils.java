@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -1274,6 +1274,17 @@ public abstract class AnnotationUtils {
 		}
 	}
 
+	/**
+	 * Determine whether the given attribute value is a placeholder for an
+	 * annotation-declared default value, as registered by
+	 * {@link #registerDefaultValues} and not post-processed yet.
+	 * @param value the attribute value to check
+	 * @since 5.2
+	 */
+	public static boolean isDefaultValuePlaceholder(@Nullable Object value) {
+		return (value instanceof DefaultValueHolder);
+	}
+
 	/**
 	 * Post-process the supplied {@link AnnotationAttributes}, preserving nested
 	 * annotations as {@code Annotation} instances.
@@ -1981,6 +1992,7 @@ public abstract class AnnotationUtils {
 		attributeAliasesCache.clear();
 		attributeMethodsCache.clear();
 		aliasDescriptorCache.clear();
+		MergedAnnotations.clearCache();
 	}
 
 
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * A single annotation within a {@link MergedAnnotations} index, together
+ * with the path of composed annotations through which it has been found.
+ *
+ * <p>Provides access to the <em>merged</em> attributes of the annotation,
+ * i.e. with attribute overrides declared via {@link AliasFor @AliasFor} (or
+ * by convention) in lower levels of the annotation hierarchy applied, as well
+ * as to the corresponding synthesized annotation. Both are computed on first
+ * access and cached; the attribute override mappings between any two
+ * annotation types are resolved once and shared across all elements.
+ *
+ * @author agent
+ * @since 5.2
+ * @param <A> the annotation type
+ * @see MergedAnnotations
+ */
+public final class MergedAnnotation<A extends Annotation> {
+
+	private static final Map<OverrideKey, List<AttributeOverride>> attributeOverridesCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
+	private final A annotation;
+
+	private final AnnotatedElement declaringElement;
+
+	private final AnnotatedElement rootElement;
+
+	@Nullable
+	private final MergedAnnotation<?> source;
+
+	private final int distance;
+
+	private final MergedAnnotations.SearchStrategy searchStrategy;
+
+	/** Merged attributes per combination of classValuesAsString / nestedAnnotationsAsMap. */
+	private final AtomicReferenceArray<AnnotationAttributes> mergedAttributes = new AtomicReferenceArray<>(4);
+
+	@Nullable
+	private volatile Boolean resolvable;
+
+	@Nullable
+	private volatile A synthesizedAnnotation;
+
+	@Nullable
+	private volatile Annotation synthesizedSourceAnnotation;
+
+
+	MergedAnnotation(A annotation, AnnotatedElement declaringElement, AnnotatedElement rootElement,
+			@Nullable MergedAnnotation<?> source, MergedAnnotations.SearchStrategy searchStrategy) {
+
+		this.annotation = annotation;
+		this.declaringElement = declaringElement;
+		this.rootElement = rootElement;
+		this.source = source;
+		this.distance = (source != null ? source.distance + 1 : 0);
+		this.searchStrategy = searchStrategy;
+	}
+
+
+	/**
+	 * Return the type of the annotation.
+	 */
+	@SuppressWarnings("unchecked")
+	public Class<A> getType() {
+		return (Class<A>) this.annotation.annotationType();
+	}
+
+	/**
+	 * Return the distance of the annotation from the element it has been
+	 * searched on: {@code 0} for an annotation declared on an element of the
+	 * searched hierarchy, {@code 1} for a meta-annotation on such an annotation,
+	 * and so forth.
+	 */
+	public int getDistance() {
+		return this.distance;
+	}
+
+	/**
+	 * Return the composed annotation that this annotation is
+	 * <em>meta-present</em> on, or {@code null} if the annotation is
+	 * declared on an element of the searched hierarchy.
+	 */
+	@Nullable
+	public MergedAnnotation<?> getSource() {
+		return this.source;
+	}
+
+	/**
+	 * Return the element that the annotation is declared on, i.e. an element
+	 * of the searched hierarchy or the type of a composed annotation.
+	 */
+	public AnnotatedElement getDeclaringElement() {
+		return this.declaringElement;
+	}
+
+	/**
+	 * Return the raw annotation as declared, without any attribute overrides applied.
+	 */
+	A getAnnotation() {
+		return this.annotation;
+	}
+
+	/**
+	 * Return the merged value of the specified attribute.
+	 * <p>Class references and nested annotations are returned as such;
+	 * array values are returned as a copy.
+	 * @param attributeName the name of the attribute
+	 * @return the attribute value, or {@code null} if there is no such attribute
+	 */
+	@Nullable
+	public Object getValue(String attributeName) {
+		Object value = getMergedAttributes(false, false).get(attributeName);
+		return (value != null && value.getClass().isArray() ? copyArray(value) : value);
+	}
+
+	/**
+	 * Return the merged attributes of the annotation as {@link AnnotationAttributes}.
+	 * <p>The returned map is a copy which may be freely modified by the caller.
+	 * @param classValuesAsString whether to convert Class references into Strings
+	 * or to preserve them as Class references
+	 * @param nestedAnnotationsAsMap whether to convert nested Annotation instances into
+	 * {@code AnnotationAttributes} maps or to preserve them as Annotation instances
+	 * @return the merged annotation attributes
+	 * @throws AnnotationConfigurationException in case of an invalid attribute override
+	 * @throws IllegalStateException if the annotation attributes could not be introspected
+	 */
+	public AnnotationAttributes asAnnotationAttributes(boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+		return copyAttributes(getMergedAttributes(classValuesAsString, nestedAnnotationsAsMap));
+	}
+
+	/**
+	 * Synthesize the merged annotation attributes back into an annotation of
+	 * the {@linkplain #getType() annotation type}.
+	 * <p>The synthesized annotation is cached and therefore shared between callers.
+	 * @return the merged, synthesized annotation
+	 * @throws AnnotationConfigurationException in case of an invalid attribute override
+	 * @throws IllegalStateException if the annotation attributes could not be introspected
+	 * @see AnnotationUtils#synthesizeAnnotation(Map, Class, AnnotatedElement)
+	 */
+	public A synthesize() {
+		A synthesized = this.synthesizedAnnotation;
+		if (synthesized == null) {
+			if (this.distance == 0 && this.declaringElement == this.rootElement) {
+				// Directly present on the element, with no merging needed
+				synthesized = AnnotationUtils.synthesizeAnnotation(this.annotation, this.rootElement);
+			}
+			else {
+				synthesized = AnnotationUtils.synthesizeAnnotation(
+						getMergedAttributes(false, false), getType(), this.rootElement);
+			}
+			this.synthesizedAnnotation = synthesized;
+		}
+		return synthesized;
+	}
+
+	/**
+	 * Determine whether the merged attributes of this annotation can be
+	 * introspected, logging the cause if they cannot. Callers that search for
+	 * an annotation are expected to skip unresolvable ones, just like
+	 * the search algorithms in {@link AnnotatedElementUtils} do.
+	 * @throws AnnotationConfigurationException in case of an invalid attribute override
+	 */
+	boolean isResolvable() {
+		Boolean resolvable = this.resolvable;
+		if (resolvable == null) {
+			try {
+				getMergedAttributes(false, false);
+				resolvable = Boolean.TRUE;
+			}
+			catch (IllegalStateException ex) {
+				AnnotationUtils.handleIntrospectionFailure(
+						this.declaringElement, (ex.getCause() != null ? ex.getCause() : ex));
+				resolvable = Boolean.FALSE;
+			}
+			this.resolvable = resolvable;
+		}
+		return resolvable;
+	}
+
+	private AnnotationAttributes getMergedAttributes(boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+		int index = (classValuesAsString ? 2 : 0) + (nestedAnnotationsAsMap ? 1 : 0);
+		AnnotationAttributes attributes = this.mergedAttributes.get(index);
+		if (attributes == null) {
+			attributes = mergeAttributes(classValuesAsString, nestedAnnotationsAsMap);
+			this.mergedAttributes.set(index, attributes);
+		}
+		return attributes;
+	}
+
+	private AnnotationAttributes mergeAttributes(boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+		AnnotationAttributes attributes;
+		try {
+			attributes = AnnotationUtils.retrieveAnnotationAttributes(
+					this.declaringElement, this.annotation, classValuesAsString, nestedAnnotationsAsMap);
+			// Apply overrides from lower levels, walking down to the element itself
+			for (MergedAnnotation<?> composed = this.source; composed != null; composed = composed.source) {
+				composed.applyAttributeOverrides(attributes, getType(), classValuesAsString, nestedAnnotationsAsMap);
+			}
+		}
+		catch (Throwable ex) {
+			AnnotationUtils.rethrowAnnotationConfigurationException(ex);
+			throw new IllegalStateException("Failed to introspect annotations on " + this.rootElement, ex);
+		}
+		AnnotationUtils.postProcessAnnotationAttributes(
+				this.rootElement, attributes, classValuesAsString, nestedAnnotationsAsMap);
+		return attributes;
+	}
+
+	/**
+	 * Override attributes of the given target annotation with the values of
+	 * this (composed) annotation, as per the precomputed override mappings.
+	 */
+	private void applyAttributeOverrides(AnnotationAttributes attributes, Class<? extends Annotation> targetType,
+			boolean classValuesAsString, boolean nestedAnnotationsAsMap) {
+
+		List<AttributeOverride> overrides = getAttributeOverrides(getType(), targetType);
+		if (overrides.isEmpty()) {
+			return;
+		}
+		// Element used for contextual logging, as per AnnotatedElementUtils processing
+		AnnotatedElement element = (this.searchStrategy == MergedAnnotations.SearchStrategy.TYPE_HIERARCHY ?
+				getType() : this.declaringElement);
+		Annotation synthesized = this.synthesizedSourceAnnotation;
+		if (synthesized == null) {
+			synthesized = AnnotationUtils.synthesizeAnnotation(this.annotation, element);
+			this.synthesizedSourceAnnotation = synthesized;
+		}
+		for (AttributeOverride override : overrides) {
+			Object value = AnnotationUtils.getValue(synthesized, override.sourceAttributeName);
+			value = AnnotationUtils.adaptValue(element, value, classValuesAsString, nestedAnnotationsAsMap);
+			for (String targetAttributeName : override.targetAttributeNames) {
+				attributes.put(targetAttributeName, value);
+			}
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.annotation + " (distance " + this.distance + ")";
+	}
+
+
+	/**
+	 * Return the attribute overrides that the given composed annotation type
+	 * declares for the given target annotation type, either explicitly via
+	 * {@link AliasFor @AliasFor} or implicitly by convention.
+	 */
+	private static List<AttributeOverride> getAttributeOverrides(Class<? extends Annotation> composedType,
+			Class<? extends Annotation> targetType) {
+
+		OverrideKey key = new OverrideKey(composedType, targetType);
+		List<AttributeOverride> overrides = attributeOverridesCache.get(key);
+		if (overrides == null) {
+			overrides = resolveAttributeOverrides(composedType, targetType);
+			attributeOverridesCache.put(key, overrides);
+		}
+		return overrides;
+	}
+
+	private static List<AttributeOverride> resolveAttributeOverrides(Class<? extends Annotation> composedType,
+			Class<? extends Annotation> targetType) {
+
+		List<Method> targetAttributeMethods = AnnotationUtils.getAttributeMethods(targetType);
+		Set<String> targetAttributeNames = new HashSet<>(targetAttributeMethods.size());
+		for (Method targetAttributeMethod : targetAttributeMethods) {
+			targetAttributeNames.add(targetAttributeMethod.getName());
+		}
+
+		List<AttributeOverride> overrides = new ArrayList<>();
+		// Track which attribute values have already been replaced
+		Set<String> valuesAlreadyReplaced = new HashSet<>();
+
+		for (Method attributeMethod : AnnotationUtils.getAttributeMethods(composedType)) {
+			String attributeName = attributeMethod.getName();
+			String attributeOverrideName = AnnotationUtils.getAttributeOverrideName(attributeMethod, targetType);
+
+			// Explicit annotation attribute override declared via @AliasFor
+			if (attributeOverrideName != null) {
+				if (valuesAlreadyReplaced.contains(attributeOverrideName)) {
+					continue;
+				}
+
+				List<String> overriddenAttributeNames = new ArrayList<>();
+				overriddenAttributeNames.add(attributeOverrideName);
+				valuesAlreadyReplaced.add(attributeOverrideName);
+
+				// Ensure all aliased attributes in the target annotation are overridden. (SPR-14069)
+				List<String> aliases = AnnotationUtils.getAttributeAliasMap(targetType).get(attributeOverrideName);
+				if (aliases != null) {
+					for (String alias : aliases) {
+						if (!valuesAlreadyReplaced.contains(alias)) {
+							overriddenAttributeNames.add(alias);
+							valuesAlreadyReplaced.add(alias);
+						}
+					}
+				}
+
+				overrides.add(new AttributeOverride(attributeName, overriddenAttributeNames));
+			}
+			// Implicit annotation attribute override based on convention
+			else if (!AnnotationUtils.VALUE.equals(attributeName) && targetAttributeNames.contains(attributeName)) {
+				overrides.add(new AttributeOverride(attributeName, Collections.singletonList(attributeName)));
+			}
+		}
+
+		return (overrides.isEmpty() ? Collections.emptyList() : overrides);
+	}
+
+	private static AnnotationAttributes copyAttributes(AnnotationAttributes attributes) {
+		AnnotationAttributes copy = new AnnotationAttributes(attributes);
+		for (Map.Entry<String, Object> entry : copy.entrySet()) {
+			Object value = entry.getValue();
+			if (value instanceof AnnotationAttributes) {
+				entry.setValue(copyAttributes((AnnotationAttributes) value));
+			}
+			else if (value instanceof AnnotationAttributes[]) {
+				AnnotationAttributes[] nested = (AnnotationAttributes[]) value;
+				AnnotationAttributes[] nestedCopy = new AnnotationAttributes[nested.length];
+				for (int i = 0; i < nested.length; i++) {
+					nestedCopy[i] = copyAttributes(nested[i]);
+				}
+				entry.setValue(nestedCopy);
+			}
+			else if (value != null && value.getClass().isArray()) {
+				entry.setValue(copyArray(value));
+			}
+		}
+		return copy;
+	}
+
+	private static Object copyArray(Object array) {
+		int length = Array.getLength(array);
+		if (length == 0) {
+			return array;
+		}
+		Object copy = Array.newInstance(array.getClass().getComponentType(), length);
+		System.arraycopy(array, 0, copy, 0, length);
+		return copy;
+	}
+
+	/**
+	 * Clear the internal attribute override cache.
+	 */
+	static void clearCache() {
+		attributeOverridesCache.clear();
+	}
+
+
+	/**
+	 * Cache key for attribute overrides between two annotation types.
+	 */
+	private static final class OverrideKey {
+
+		private final Class<? extends Annotation> composedType;
+
+		private final Class<? extends Annotation> targetType;
+
+		OverrideKey(Class<? extends Annotation> composedType, Class<? extends Annotation> targetType) {
+			this.composedType = composedType;
+			this.targetType = targetType;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof OverrideKey)) {
+				return false;
+			}
+			OverrideKey otherKey = (OverrideKey) other;
+			return (this.composedType == otherKey.composedType && this.targetType == otherKey.targetType);
+		}
+
+		@Override
+		public int hashCode() {
+			return (this.composedType.hashCode() * 29 + this.targetType.hashCode());
+		}
+
+		@Override
+		public String toString() {
+			return this.composedType.getName() + " -> " + this.targetType.getName();
+		}
+	}
+
+
+	/**
+	 * Mapping of one attribute of a composed annotation onto one or more
+	 * attributes of a meta-annotation.
+	 */
+	private static final class AttributeOverride {
+
+		final String sourceAttributeName;
+
+		final List<String> targetAttributeNames;
+
+		AttributeOverride(String sourceAttributeName, List<String> targetAttributeNames) {
+			this.sourceAttributeName = sourceAttributeName;
+			this.targetAttributeNames = targetAttributeNames;
+		}
+
+		@Override
+		public String toString() {
+			return this.sourceAttributeName + " -> " + this.targetAttributeNames;
+		}
+	}
+
+}
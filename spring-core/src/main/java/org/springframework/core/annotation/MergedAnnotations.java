@@ -0,0 +1,438 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.core.BridgeMethodResolver;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
+
+/**
+ * Index of all annotations <em>present</em> on an {@link AnnotatedElement},
+ * including the annotation hierarchy <em>above</em> the element, built in a
+ * single pass over the element and cached for subsequent lookups.
+ *
+ * <p>Each entry in the index is a {@link MergedAnnotation} which remembers
+ * the path of composed annotations through which it was found. Merged
+ * attributes (with attribute overrides from lower levels of the annotation
+ * hierarchy applied) and synthesized annotations are computed lazily on first
+ * access and then cached within the {@code MergedAnnotation} as well, so that
+ * repeated lookups for the same element do not walk the annotation hierarchy
+ * again.
+ *
+ * <p>The {@link SearchStrategy} determines whether the index follows the
+ * <em>get</em> or the <em>find</em> semantics described in
+ * {@link AnnotatedElementUtils}. For any given search strategy, the first
+ * entry of a particular annotation type corresponds to the annotation which
+ * the respective {@code AnnotatedElementUtils} search would have stopped at.
+ *
+ * @author agent
+ * @since 5.2
+ * @see MergedAnnotation
+ * @see AnnotatedElementUtils
+ */
+public final class MergedAnnotations implements Iterable<MergedAnnotation<Annotation>> {
+
+	private static final Map<AnnotatedElement, MergedAnnotations> inheritedAnnotationsCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	private static final Map<AnnotatedElement, MergedAnnotations> typeHierarchyCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+
+	private final AnnotatedElement element;
+
+	private final SearchStrategy searchStrategy;
+
+	private final List<MergedAnnotation<Annotation>> annotations;
+
+
+	private MergedAnnotations(AnnotatedElement element, SearchStrategy searchStrategy,
+			List<MergedAnnotation<Annotation>> annotations) {
+
+		this.element = element;
+		this.searchStrategy = searchStrategy;
+		this.annotations = annotations;
+	}
+
+
+	/**
+	 * Return the element that this index has been built for.
+	 */
+	public AnnotatedElement getElement() {
+		return this.element;
+	}
+
+	/**
+	 * Return the search strategy that this index has been built with.
+	 */
+	public SearchStrategy getSearchStrategy() {
+		return this.searchStrategy;
+	}
+
+	/**
+	 * Determine whether an annotation of the specified type is present,
+	 * either directly on the element or within its annotation hierarchy.
+	 * @param annotationType the annotation type to check
+	 */
+	public boolean isPresent(Class<? extends Annotation> annotationType) {
+		for (MergedAnnotation<?> annotation : this.annotations) {
+			if (annotation.getType() == annotationType) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether an annotation of the specified type is present,
+	 * either directly on the element or within its annotation hierarchy.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 */
+	public boolean isPresent(String annotationName) {
+		for (MergedAnnotation<?> annotation : this.annotations) {
+			if (annotation.getType().getName().equals(annotationName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether an annotation of the specified type is present as a
+	 * <em>meta-annotation</em>, i.e. on a composed annotation (at any depth)
+	 * rather than directly on an element of the searched hierarchy.
+	 * @param annotationType the annotation type to check
+	 */
+	public boolean isMetaPresent(Class<? extends Annotation> annotationType) {
+		for (MergedAnnotation<?> annotation : this.annotations) {
+			if (annotation.getDistance() > 0 && annotation.getType() == annotationType) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Determine whether an annotation of the specified type is present as a
+	 * <em>meta-annotation</em>, i.e. on a composed annotation (at any depth)
+	 * rather than directly on an element of the searched hierarchy.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 */
+	public boolean isMetaPresent(String annotationName) {
+		for (MergedAnnotation<?> annotation : this.annotations) {
+			if (annotation.getDistance() > 0 && annotation.getType().getName().equals(annotationName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get the first annotation of the specified type, as encountered by the
+	 * search algorithm, with attribute overrides from lower levels of the
+	 * annotation hierarchy applied.
+	 * @param annotationType the annotation type to look for
+	 * @return the merged annotation, or {@code null} if not found
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <A extends Annotation> MergedAnnotation<A> get(Class<A> annotationType) {
+		for (MergedAnnotation<?> annotation : this.annotations) {
+			if (annotation.getType() == annotationType && annotation.isResolvable()) {
+				return (MergedAnnotation<A>) annotation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Get the first annotation of the specified type, as encountered by the
+	 * search algorithm, with attribute overrides from lower levels of the
+	 * annotation hierarchy applied.
+	 * @param annotationName the fully qualified class name of the annotation type
+	 * @return the merged annotation, or {@code null} if not found
+	 */
+	@Nullable
+	public MergedAnnotation<Annotation> get(String annotationName) {
+		for (MergedAnnotation<Annotation> annotation : this.annotations) {
+			if (annotation.getType().getName().equals(annotationName) && annotation.isResolvable()) {
+				return annotation;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Return the fully qualified class names of all annotation types in this
+	 * index, in the order in which they have been encountered.
+	 */
+	public Set<String> getAnnotationTypeNames() {
+		Set<String> names = new LinkedHashSet<>();
+		for (MergedAnnotation<?> annotation : this.annotations) {
+			names.add(annotation.getType().getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Iterate over all annotations in this index, in the order in which they
+	 * have been encountered by the search algorithm. Annotations that are
+	 * declared on several levels of the annotation hierarchy are included for
+	 * each level, with the closest one returned first.
+	 */
+	@Override
+	public Iterator<MergedAnnotation<Annotation>> iterator() {
+		return Collections.unmodifiableList(this.annotations).iterator();
+	}
+
+	@Override
+	public String toString() {
+		return "MergedAnnotations on [" + this.element + "] with " + this.searchStrategy +
+				" search strategy: " + this.annotations;
+	}
+
+
+	/**
+	 * Obtain the (cached) index of annotations for the given element.
+	 * @param element the annotated element
+	 * @param searchStrategy the search strategy to apply
+	 * @return the corresponding {@code MergedAnnotations} (never {@code null})
+	 * @throws AnnotationConfigurationException in case of an invalid annotation declaration
+	 * @throws IllegalStateException if the annotations could not be introspected
+	 */
+	public static MergedAnnotations from(AnnotatedElement element, SearchStrategy searchStrategy) {
+		Map<AnnotatedElement, MergedAnnotations> cache = (searchStrategy == SearchStrategy.TYPE_HIERARCHY ?
+				typeHierarchyCache : inheritedAnnotationsCache);
+		boolean cacheable = (element instanceof Class || element instanceof Member);
+		MergedAnnotations annotations = (cacheable ? cache.get(element) : null);
+		if (annotations == null) {
+			try {
+				annotations = new MergedAnnotations(element, searchStrategy,
+						new Collector(element, searchStrategy).collect());
+			}
+			catch (Throwable ex) {
+				AnnotationUtils.rethrowAnnotationConfigurationException(ex);
+				throw new IllegalStateException("Failed to introspect annotations on " + element, ex);
+			}
+			if (cacheable) {
+				cache.put(element, annotations);
+			}
+		}
+		return annotations;
+	}
+
+	/**
+	 * Clear the internal annotation index caches.
+	 */
+	public static void clearCache() {
+		inheritedAnnotationsCache.clear();
+		typeHierarchyCache.clear();
+		MergedAnnotation.clearCache();
+	}
+
+
+	/**
+	 * Search strategies supported by {@link MergedAnnotations#from}.
+	 */
+	public enum SearchStrategy {
+
+		/**
+		 * Follow <em>get semantics</em>: find annotations declared locally or
+		 * {@linkplain java.lang.annotation.Inherited inherited}, plus the
+		 * annotation hierarchy above those.
+		 */
+		INHERITED_ANNOTATIONS,
+
+		/**
+		 * Follow <em>find semantics</em>: search the full type hierarchy
+		 * (superclasses and interfaces, respectively overridden methods in
+		 * those), plus the annotation hierarchy above each element found.
+		 */
+		TYPE_HIERARCHY
+	}
+
+
+	/**
+	 * Walks the element and annotation hierarchies once, in the same order as
+	 * the corresponding search algorithm in {@link AnnotatedElementUtils},
+	 * recording every annotation encountered along the way.
+	 */
+	private static class Collector {
+
+		private final AnnotatedElement rootElement;
+
+		private final SearchStrategy searchStrategy;
+
+		private final Set<AnnotatedElement> visited = new HashSet<>();
+
+		private final List<MergedAnnotation<Annotation>> annotations = new ArrayList<>();
+
+		Collector(AnnotatedElement rootElement, SearchStrategy searchStrategy) {
+			this.rootElement = rootElement;
+			this.searchStrategy = searchStrategy;
+		}
+
+		public List<MergedAnnotation<Annotation>> collect() {
+			if (this.searchStrategy == SearchStrategy.TYPE_HIERARCHY) {
+				collectWithFindSemantics(this.rootElement, null);
+			}
+			else {
+				collectWithGetSemantics(this.rootElement, null);
+			}
+			return (this.annotations.isEmpty() ? Collections.emptyList() : this.annotations);
+		}
+
+		private void collectWithGetSemantics(AnnotatedElement element, @Nullable MergedAnnotation<?> source) {
+			if (this.visited.add(element)) {
+				try {
+					// Start with locally declared annotations
+					List<Annotation> declaredAnnotations = Arrays.asList(AnnotationUtils.getDeclaredAnnotations(element));
+					collectFromAnnotations(element, declaredAnnotations, source);
+
+					if (element instanceof Class) {  // otherwise getAnnotations doesn't return anything new
+						Class<?> superclass = ((Class<?>) element).getSuperclass();
+						if (superclass != null && superclass != Object.class) {
+							List<Annotation> inheritedAnnotations = new ArrayList<>();
+							for (Annotation annotation : element.getAnnotations()) {
+								if (!declaredAnnotations.contains(annotation)) {
+									inheritedAnnotations.add(annotation);
+								}
+							}
+							// Continue with inherited annotations
+							collectFromAnnotations(element, inheritedAnnotations, source);
+						}
+					}
+				}
+				catch (Throwable ex) {
+					AnnotationUtils.handleIntrospectionFailure(element, ex);
+				}
+			}
+		}
+
+		private void collectWithFindSemantics(AnnotatedElement element, @Nullable MergedAnnotation<?> source) {
+			if (this.visited.add(element)) {
+				try {
+					// Locally declared annotations (ignoring @Inherited)
+					collectFromAnnotations(element, Arrays.asList(AnnotationUtils.getDeclaredAnnotations(element)), source);
+
+					if (element instanceof Method) {
+						Method method = (Method) element;
+
+						// Search on possibly bridged method
+						Method resolvedMethod = BridgeMethodResolver.findBridgedMethod(method);
+						if (resolvedMethod != method) {
+							collectWithFindSemantics(resolvedMethod, source);
+						}
+
+						// Search on methods in interfaces declared locally
+						collectFromInterfaces(method, source, method.getDeclaringClass().getInterfaces());
+
+						// Search on methods in class hierarchy and interface hierarchy
+						Class<?> clazz = method.getDeclaringClass();
+						while (true) {
+							clazz = clazz.getSuperclass();
+							if (clazz == null || clazz == Object.class) {
+								break;
+							}
+							for (Method annotatedMethod : AnnotationUtils.getAnnotatedMethodsInBaseType(clazz)) {
+								if (AnnotationUtils.isOverride(method, annotatedMethod)) {
+									collectWithFindSemantics(BridgeMethodResolver.findBridgedMethod(annotatedMethod), source);
+								}
+							}
+							// Search on interfaces declared on superclass
+							collectFromInterfaces(method, source, clazz.getInterfaces());
+						}
+					}
+					else if (element instanceof Class) {
+						Class<?> clazz = (Class<?>) element;
+						if (!Annotation.class.isAssignableFrom(clazz)) {
+							// Search on interfaces
+							for (Class<?> ifc : clazz.getInterfaces()) {
+								collectWithFindSemantics(ifc, source);
+							}
+							// Search on superclass
+							Class<?> superclass = clazz.getSuperclass();
+							if (superclass != null && superclass != Object.class) {
+								collectWithFindSemantics(superclass, source);
+							}
+						}
+					}
+				}
+				catch (Throwable ex) {
+					AnnotationUtils.handleIntrospectionFailure(element, ex);
+				}
+			}
+		}
+
+		private void collectFromInterfaces(Method method, @Nullable MergedAnnotation<?> source, Class<?>[] ifcs) {
+			for (Class<?> ifc : ifcs) {
+				for (Method annotatedMethod : AnnotationUtils.getAnnotatedMethodsInBaseType(ifc)) {
+					if (AnnotationUtils.isOverride(method, annotatedMethod)) {
+						collectWithFindSemantics(annotatedMethod, source);
+					}
+				}
+			}
+		}
+
+		private void collectFromAnnotations(AnnotatedElement element, List<Annotation> annotations,
+				@Nullable MergedAnnotation<?> source) {
+
+			if (annotations.isEmpty()) {
+				return;
+			}
+
+			// Record annotations on the current level first...
+			List<MergedAnnotation<Annotation>> current = new ArrayList<>(annotations.size());
+			for (Annotation annotation : annotations) {
+				if (!AnnotationUtils.isInJavaLangAnnotationPackage(annotation.annotationType())) {
+					MergedAnnotation<Annotation> mergedAnnotation = new MergedAnnotation<>(
+							annotation, element, this.rootElement, source, this.searchStrategy);
+					this.annotations.add(mergedAnnotation);
+					current.add(mergedAnnotation);
+				}
+			}
+
+			// ... then recursively descend into their meta-annotations
+			for (MergedAnnotation<Annotation> mergedAnnotation : current) {
+				Class<? extends Annotation> annotationType = mergedAnnotation.getType();
+				if (!AnnotationUtils.hasPlainJavaAnnotationsOnly(annotationType)) {
+					if (this.searchStrategy == SearchStrategy.TYPE_HIERARCHY) {
+						collectWithFindSemantics(annotationType, mergedAnnotation);
+					}
+					else {
+						collectWithGetSemantics(annotationType, mergedAnnotation);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -103,10 +103,11 @@ public abstract class OrderUtils {
 		if (cached != null) {
 			return (cached instanceof Integer ? (Integer) cached : null);
 		}
-		Order order = AnnotationUtils.findAnnotation(type, Order.class);
+		MergedAnnotation<Order> order =
+				MergedAnnotations.from(type, MergedAnnotations.SearchStrategy.TYPE_HIERARCHY).get(Order.class);
 		Integer result;
 		if (order != null) {
-			result = order.value();
+			result = (Integer) order.getValue(AnnotationUtils.VALUE);
 		}
 		else {
 			result = getPriority(type);
@@ -130,10 +131,11 @@ public abstract class OrderUtils {
 		if (cached != null) {
 			return (cached instanceof Integer ? (Integer) cached : null);
 		}
-		Annotation priority = AnnotationUtils.findAnnotation(type, priorityAnnotationType);
+		MergedAnnotation<? extends Annotation> priority =
+				MergedAnnotations.from(type, MergedAnnotations.SearchStrategy.TYPE_HIERARCHY).get(priorityAnnotationType);
 		Integer result = null;
 		if (priority != null) {
-			result = (Integer) AnnotationUtils.getValue(priority);
+			result = (Integer) priority.getValue(AnnotationUtils.VALUE);
 		}
 		priorityCache.put(type, (result != null ? result : NOT_ANNOTATED));
 		return result;
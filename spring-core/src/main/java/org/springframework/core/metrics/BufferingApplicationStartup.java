@@ -0,0 +1,279 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link ApplicationStartup} implementation that buffers {@link StartupStep steps}
+ * and records their start time as well as their processing time.
+ *
+ * <p>Steps are buffered once they {@link StartupStep#end() end}, up to the given
+ * capacity; further steps are dropped and only counted. Buffered steps can be
+ * retrieved with {@link #getBufferedSteps()} or {@link #drainBufferedSteps()}.
+ *
+ * <p>Nesting is tracked per thread: a step started while another step is in
+ * progress on the same thread gets the latter as its parent.
+ *
+ * @author agent
+ * @since 5.2
+ */
+public class BufferingApplicationStartup implements ApplicationStartup {
+
+	private final int capacity;
+
+	private final AtomicLong idSeq = new AtomicLong();
+
+	private final ThreadLocal<BufferedStartupStep> currentStep = new ThreadLocal<>();
+
+	private final ConcurrentLinkedQueue<BufferedStartupStep> bufferedSteps = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger bufferedCount = new AtomicInteger();
+
+	private final AtomicLong droppedCount = new AtomicLong();
+
+
+	/**
+	 * Create a new buffered {@link ApplicationStartup} with a limited capacity.
+	 * @param capacity the maximum number of steps to buffer
+	 */
+	public BufferingApplicationStartup(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.capacity = capacity;
+	}
+
+
+	@Override
+	public StartupStep start(String name) {
+		BufferedStartupStep parent = this.currentStep.get();
+		BufferedStartupStep step = new BufferedStartupStep(this, name, this.idSeq.getAndIncrement(), parent);
+		this.currentStep.set(step);
+		return step;
+	}
+
+	/**
+	 * Return a snapshot of the buffered steps, in the order they ended.
+	 */
+	public List<BufferedStartupStep> getBufferedSteps() {
+		return Collections.unmodifiableList(new ArrayList<>(this.bufferedSteps));
+	}
+
+	/**
+	 * Return the buffered steps, in the order they ended, and remove them
+	 * from the buffer.
+	 */
+	public List<BufferedStartupStep> drainBufferedSteps() {
+		List<BufferedStartupStep> steps = new ArrayList<>();
+		BufferedStartupStep step;
+		while ((step = this.bufferedSteps.poll()) != null) {
+			this.bufferedCount.decrementAndGet();
+			steps.add(step);
+		}
+		return steps;
+	}
+
+	/**
+	 * Return the number of steps that were dropped since the buffer was full.
+	 */
+	public long getDroppedStepCount() {
+		return this.droppedCount.get();
+	}
+
+	private void record(BufferedStartupStep step) {
+		if (this.currentStep.get() == step) {
+			BufferedStartupStep parent = step.parent;
+			if (parent != null) {
+				this.currentStep.set(parent);
+			}
+			else {
+				this.currentStep.remove();
+			}
+		}
+		if (this.bufferedCount.incrementAndGet() <= this.capacity) {
+			this.bufferedSteps.add(step);
+		}
+		else {
+			this.bufferedCount.decrementAndGet();
+			this.droppedCount.incrementAndGet();
+		}
+	}
+
+
+	/**
+	 * {@link StartupStep} recorded by a {@link BufferingApplicationStartup}.
+	 */
+	public static final class BufferedStartupStep implements StartupStep {
+
+		private final BufferingApplicationStartup startup;
+
+		private final String name;
+
+		private final long id;
+
+		@Nullable
+		private final BufferedStartupStep parent;
+
+		private final List<Tag> tags = new ArrayList<>(2);
+
+		private final Instant startTime;
+
+		private final long startNanos;
+
+		private volatile long endNanos = -1;
+
+		BufferedStartupStep(BufferingApplicationStartup startup, String name, long id,
+				@Nullable BufferedStartupStep parent) {
+
+			this.startup = startup;
+			this.name = name;
+			this.id = id;
+			this.parent = parent;
+			this.startTime = Instant.now();
+			this.startNanos = System.nanoTime();
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		@Override
+		public long getId() {
+			return this.id;
+		}
+
+		@Override
+		@Nullable
+		public Long getParentId() {
+			return (this.parent != null ? this.parent.getId() : null);
+		}
+
+		@Override
+		public StartupStep tag(String key, String value) {
+			Assert.state(!isEnded(), "StartupStep has already ended");
+			this.tags.add(new DefaultTag(key, value));
+			return this;
+		}
+
+		@Override
+		public StartupStep tag(String key, Supplier<String> value) {
+			return tag(key, value.get());
+		}
+
+		@Override
+		public Tags getTags() {
+			List<Tag> tags = Collections.unmodifiableList(this.tags);
+			return tags::iterator;
+		}
+
+		@Override
+		public void end() {
+			Assert.state(!isEnded(), "StartupStep has already ended");
+			this.endNanos = System.nanoTime();
+			this.startup.record(this);
+		}
+
+		/**
+		 * Return whether this step has ended.
+		 */
+		public boolean isEnded() {
+			return (this.endNanos != -1);
+		}
+
+		/**
+		 * Return the time at which this step started.
+		 */
+		public Instant getStartTime() {
+			return this.startTime;
+		}
+
+		/**
+		 * Return the processing time of this step.
+		 * @throws IllegalStateException if the step has not ended yet
+		 */
+		public Duration getDuration() {
+			long endNanos = this.endNanos;
+			Assert.state(endNanos != -1, "StartupStep has not ended yet");
+			return Duration.ofNanos(endNanos - this.startNanos);
+		}
+
+		/**
+		 * Return the value of the tag with the given key, if any.
+		 * @param key the tag key
+		 */
+		@Nullable
+		public String getTag(String key) {
+			for (Tag tag : this.tags) {
+				if (tag.getKey().equals(key)) {
+					return tag.getValue();
+				}
+			}
+			return null;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder(this.name);
+			sb.append(" [id=").append(this.id);
+			if (this.parent != null) {
+				sb.append(", parentId=").append(this.parent.getId());
+			}
+			for (Tag tag : this.tags) {
+				sb.append(", ").append(tag.getKey()).append('=').append(tag.getValue());
+			}
+			if (isEnded()) {
+				sb.append(", duration=").append(getDuration().toMillis()).append("ms");
+			}
+			return sb.append(']').toString();
+		}
+	}
+
+
+	private static class DefaultTag implements StartupStep.Tag {
+
+		private final String key;
+
+		private final String value;
+
+		DefaultTag(String key, String value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public String getKey() {
+			return this.key;
+		}
+
+		@Override
+		public String getValue() {
+			return this.value;
+		}
+	}
+
+}
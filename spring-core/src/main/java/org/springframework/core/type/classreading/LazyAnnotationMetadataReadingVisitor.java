@@ -0,0 +1,284 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.asm.AnnotationVisitor;
+import org.springframework.asm.ClassReader;
+import org.springframework.asm.FieldVisitor;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Type;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MultiValueMap;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * ASM class visitor which only records the class header and the names of the
+ * annotation types declared on the class, exposing them through the
+ * {@link org.springframework.core.type.AnnotationMetadata} interface.
+ *
+ * <p>Meta-annotation types are introspected on first access, based on the recorded
+ * annotation type names. Annotation attributes and annotated methods are materialized
+ * on demand by reading the class file once more through a regular
+ * {@link AnnotationMetadataReadingVisitor}, so classes which never get past a
+ * stereotype check do not retain any attribute graph.
+ *
+ * @author agent
+ * @since 5.2
+ * @see SimpleMetadataReaderFactory#setLazyAnnotationMetadata
+ */
+final class LazyAnnotationMetadataReadingVisitor extends ClassMetadataReadingVisitor implements AnnotationMetadata {
+
+	private static final Log logger = LogFactory.getLog(LazyAnnotationMetadataReadingVisitor.class);
+
+	private final Resource resource;
+
+	@Nullable
+	private final ClassLoader classLoader;
+
+	private final Set<String> annotationSet = new LinkedHashSet<>(4);
+
+	@Nullable
+	private volatile MetaAnnotations metaAnnotations;
+
+	@Nullable
+	private volatile AnnotationMetadataReadingVisitor fullMetadata;
+
+
+	public LazyAnnotationMetadataReadingVisitor(Resource resource, @Nullable ClassLoader classLoader) {
+		this.resource = resource;
+		this.classLoader = classLoader;
+	}
+
+
+	@Override
+	@Nullable
+	public AnnotationVisitor visitAnnotation(String desc, boolean visible) {
+		this.annotationSet.add(Type.getType(desc).getClassName());
+		// Attribute values are only read on demand
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public FieldVisitor visitField(int access, String name, String desc, String signature, Object value) {
+		return null;
+	}
+
+	@Override
+	@Nullable
+	public MethodVisitor visitMethod(int access, String name, String desc, String signature, String[] exceptions) {
+		return null;
+	}
+
+
+	@Override
+	public Set<String> getAnnotationTypes() {
+		return this.annotationSet;
+	}
+
+	@Override
+	public Set<String> getMetaAnnotationTypes(String annotationName) {
+		if (this.annotationSet.isEmpty()) {
+			return Collections.emptySet();
+		}
+		Set<String> metaAnnotationTypes = getMetaAnnotations().metaAnnotationMap.get(annotationName);
+		return (metaAnnotationTypes != null ? metaAnnotationTypes : Collections.emptySet());
+	}
+
+	@Override
+	public boolean hasAnnotation(String annotationName) {
+		return this.annotationSet.contains(annotationName);
+	}
+
+	@Override
+	public boolean hasMetaAnnotation(String metaAnnotationType) {
+		if (this.annotationSet.isEmpty()) {
+			return false;
+		}
+		for (Set<String> metaTypes : getMetaAnnotations().metaAnnotationMap.values()) {
+			if (metaTypes.contains(metaAnnotationType)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public boolean isAnnotated(String annotationName) {
+		return (!this.annotationSet.isEmpty() && !AnnotationUtils.isInJavaLangAnnotationPackage(annotationName) &&
+				getMetaAnnotations().attributedTypes.contains(annotationName));
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName) {
+		return getAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public AnnotationAttributes getAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		if (!isAnnotated(annotationName)) {
+			return null;
+		}
+		return getFullMetadata().getAnnotationAttributes(annotationName, classValuesAsString);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName) {
+		return getAllAnnotationAttributes(annotationName, false);
+	}
+
+	@Override
+	@Nullable
+	public MultiValueMap<String, Object> getAllAnnotationAttributes(String annotationName, boolean classValuesAsString) {
+		if (this.annotationSet.isEmpty() || !getMetaAnnotations().attributedTypes.contains(annotationName)) {
+			return null;
+		}
+		return getFullMetadata().getAllAnnotationAttributes(annotationName, classValuesAsString);
+	}
+
+	@Override
+	public boolean hasAnnotatedMethods(String annotationName) {
+		return getFullMetadata().hasAnnotatedMethods(annotationName);
+	}
+
+	@Override
+	public Set<MethodMetadata> getAnnotatedMethods(String annotationName) {
+		return getFullMetadata().getAnnotatedMethods(annotationName);
+	}
+
+
+	/**
+	 * Return the fully populated metadata for the class, reading the class file
+	 * once more on first access.
+	 */
+	AnnotationMetadataReadingVisitor getFullMetadata() {
+		AnnotationMetadataReadingVisitor fullMetadata = this.fullMetadata;
+		if (fullMetadata == null) {
+			try {
+				fullMetadata = new AnnotationMetadataReadingVisitor(this.classLoader);
+				SimpleMetadataReader.getClassReader(this.resource).accept(fullMetadata, ClassReader.SKIP_DEBUG);
+			}
+			catch (IOException ex) {
+				throw new IllegalStateException("Failed to read annotation metadata from " + this.resource, ex);
+			}
+			this.fullMetadata = fullMetadata;
+		}
+		return fullMetadata;
+	}
+
+	private MetaAnnotations getMetaAnnotations() {
+		MetaAnnotations metaAnnotations = this.metaAnnotations;
+		if (metaAnnotations == null) {
+			metaAnnotations = new MetaAnnotations(this.annotationSet, this.classLoader);
+			this.metaAnnotations = metaAnnotations;
+		}
+		return metaAnnotations;
+	}
+
+
+	/**
+	 * Meta-annotation types of the declared annotations, introspected the same
+	 * way as by {@link AnnotationAttributesReadingVisitor} but without collecting
+	 * any attribute values.
+	 */
+	private static class MetaAnnotations {
+
+		/** Keyed by declared annotation type. */
+		final Map<String, Set<String>> metaAnnotationMap = new LinkedHashMap<>(4);
+
+		/** The types that attributes are available for (see {@link #isAnnotated}). */
+		final Set<String> attributedTypes = new LinkedHashSet<>(8);
+
+		MetaAnnotations(Set<String> annotationTypes, @Nullable ClassLoader classLoader) {
+			for (String annotationType : annotationTypes) {
+				Class<? extends Annotation> annotationClass =
+						new AnnotationAttributes(annotationType, classLoader).annotationType();
+				if (annotationClass != null) {
+					this.attributedTypes.add(annotationType);
+					if (!AnnotationUtils.isInJavaLangAnnotationPackage(annotationClass.getName())) {
+						introspect(annotationClass);
+					}
+				}
+			}
+		}
+
+		private void introspect(Class<? extends Annotation> annotationClass) {
+			try {
+				Annotation[] metaAnnotations = annotationClass.getAnnotations();
+				if (!ObjectUtils.isEmpty(metaAnnotations)) {
+					Set<Annotation> visited = new LinkedHashSet<>();
+					for (Annotation metaAnnotation : metaAnnotations) {
+						recursivelyCollectMetaAnnotations(visited, metaAnnotation);
+					}
+					if (!visited.isEmpty()) {
+						Set<String> metaAnnotationTypeNames = new LinkedHashSet<>(visited.size());
+						for (Annotation ann : visited) {
+							metaAnnotationTypeNames.add(ann.annotationType().getName());
+						}
+						this.metaAnnotationMap.put(annotationClass.getName(), metaAnnotationTypeNames);
+					}
+				}
+			}
+			catch (Throwable ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to introspect meta-annotations on " + annotationClass + ": " + ex);
+				}
+			}
+		}
+
+		private void recursivelyCollectMetaAnnotations(Set<Annotation> visited, Annotation annotation) {
+			Class<? extends Annotation> annotationType = annotation.annotationType();
+			String annotationName = annotationType.getName();
+			if (!AnnotationUtils.isInJavaLangAnnotationPackage(annotationName) && visited.add(annotation)) {
+				try {
+					if (Modifier.isPublic(annotationType.getModifiers())) {
+						this.attributedTypes.add(annotationName);
+					}
+					for (Annotation metaMetaAnnotation : annotationType.getAnnotations()) {
+						recursivelyCollectMetaAnnotations(visited, metaMetaAnnotation);
+					}
+				}
+				catch (Throwable ex) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Failed to introspect meta-annotations on " + annotation + ": " + ex);
+					}
+				}
+			}
+		}
+	}
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+
+import org.springframework.asm.ClassReader;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.ClassMetadata;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link MetadataReader} implementation based on an ASM
+ * {@link org.springframework.asm.ClassReader}, only reading the class header
+ * and the declared annotation types upfront.
+ *
+ * <p>Annotation attributes and method metadata are read from the underlying
+ * {@link Resource} again when first requested.
+ *
+ * @author agent
+ * @since 5.2
+ * @see LazyAnnotationMetadataReadingVisitor
+ */
+final class LazyMetadataReader implements MetadataReader {
+
+	private static final int PARSING_OPTIONS =
+			ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+	private final Resource resource;
+
+	private final LazyAnnotationMetadataReadingVisitor metadata;
+
+
+	LazyMetadataReader(Resource resource, @Nullable ClassLoader classLoader) throws IOException {
+		LazyAnnotationMetadataReadingVisitor visitor = new LazyAnnotationMetadataReadingVisitor(resource, classLoader);
+		SimpleMetadataReader.getClassReader(resource).accept(visitor, PARSING_OPTIONS);
+		this.metadata = visitor;
+		this.resource = resource;
+	}
+
+
+	@Override
+	public Resource getResource() {
+		return this.resource;
+	}
+
+	@Override
+	public ClassMetadata getClassMetadata() {
+		return this.metadata;
+	}
+
+	@Override
+	public AnnotationMetadata getAnnotationMetadata() {
+		return this.metadata;
+	}
+
+}
@@ -0,0 +1,426 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.security.AccessControlException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.core.annotation.AnnotationAttributes;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.io.Resource;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.MethodMetadata;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Binary serialization of the class and annotation metadata exposed by an ASM-based
+ * {@link MetadataReader}, as obtained from a {@link SimpleMetadataReaderFactory}.
+ *
+ * <p>A deserialized reader exposes exactly the same state as the reader it has been
+ * written from, without having to read and parse the underlying class file again.
+ * This allows for build-time indexes of class metadata which can be consulted instead
+ * of scanning the class path on startup.
+ *
+ * @author agent
+ * @since 5.2
+ */
+public final class MetadataReaderSerializer {
+
+	private static final int ABSTRACT_FLAG = 1;
+
+	private static final int FINAL_FLAG = 2;
+
+	private static final int INTERFACE_FLAG = 4;
+
+	private static final int ANNOTATION_FLAG = 8;
+
+
+	private MetadataReaderSerializer() {
+	}
+
+
+	/**
+	 * Write the metadata of the given reader to the given output.
+	 * @param metadataReader the reader to serialize, as obtained from a
+	 * {@link SimpleMetadataReaderFactory}
+	 * @param out the output to write to
+	 * @throws IOException in case of I/O failure
+	 * @throws IllegalArgumentException if the given reader does not expose ASM-based metadata
+	 */
+	public static void serialize(MetadataReader metadataReader, DataOutput out) throws IOException {
+		AnnotationMetadata annotationMetadata = metadataReader.getAnnotationMetadata();
+		if (annotationMetadata instanceof LazyAnnotationMetadataReadingVisitor) {
+			annotationMetadata = ((LazyAnnotationMetadataReadingVisitor) annotationMetadata).getFullMetadata();
+		}
+		if (!(annotationMetadata instanceof AnnotationMetadataReadingVisitor)) {
+			throw new IllegalArgumentException("Only ASM-based metadata can be serialized: " + metadataReader);
+		}
+		AnnotationMetadataReadingVisitor metadata = (AnnotationMetadataReadingVisitor) annotationMetadata;
+
+		out.writeUTF(metadata.getClassName());
+		int flags = (metadata.isAbstract() ? ABSTRACT_FLAG : 0) | (metadata.isFinal() ? FINAL_FLAG : 0) |
+				(metadata.isInterface() ? INTERFACE_FLAG : 0) | (metadata.isAnnotation() ? ANNOTATION_FLAG : 0);
+		out.writeByte(flags);
+		writeNullableString(metadata.getSuperClassName(), out);
+		writeStrings(metadata.getInterfaceNames(), out);
+		writeNullableString(metadata.getEnclosingClassName(), out);
+		out.writeBoolean(metadata.isIndependent());
+		writeStrings(metadata.getMemberClassNames(), out);
+
+		writeStrings(metadata.annotationSet.toArray(new String[0]), out);
+		writeMetaAnnotationMap(metadata.metaAnnotationMap, out);
+		writeAttributesMap(metadata.attributesMap, out);
+
+		out.writeInt(metadata.methodMetadataSet.size());
+		for (MethodMetadata methodMetadata : metadata.methodMetadataSet) {
+			MethodMetadataReadingVisitor method = (MethodMetadataReadingVisitor) methodMetadata;
+			out.writeUTF(method.methodName);
+			out.writeInt(method.access);
+			out.writeUTF(method.declaringClassName);
+			out.writeUTF(method.returnTypeName);
+			writeMetaAnnotationMap(method.metaAnnotationMap, out);
+			writeAttributesMap(method.attributesMap, out);
+		}
+	}
+
+	/**
+	 * Read a {@link MetadataReader} previously written via {@link #serialize}.
+	 * @param in the input to read from
+	 * @param resource the resource to expose for the class file
+	 * @param classLoader the ClassLoader to resolve annotation types, enums
+	 * and class values against
+	 * @return the deserialized reader
+	 * @throws IOException in case of I/O failure or a corrupt input
+	 */
+	public static MetadataReader deserialize(DataInput in, Resource resource, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		AnnotationMetadataReadingVisitor metadata = new AnnotationMetadataReadingVisitor(classLoader);
+
+		String className = ClassUtils.convertClassNameToResourcePath(in.readUTF());
+		int flags = in.readByte();
+		int access = ((flags & ABSTRACT_FLAG) != 0 ? Opcodes.ACC_ABSTRACT : 0) |
+				((flags & FINAL_FLAG) != 0 ? Opcodes.ACC_FINAL : 0) |
+				((flags & INTERFACE_FLAG) != 0 ? Opcodes.ACC_INTERFACE : 0) |
+				((flags & ANNOTATION_FLAG) != 0 ? Opcodes.ACC_ANNOTATION : 0);
+		String superClassName = readNullableString(in);
+		String[] interfaces = readStrings(in);
+		for (int i = 0; i < interfaces.length; i++) {
+			interfaces[i] = ClassUtils.convertClassNameToResourcePath(interfaces[i]);
+		}
+		metadata.visit(Opcodes.V1_8, access, className, null,
+				(superClassName != null ? ClassUtils.convertClassNameToResourcePath(superClassName) : null),
+				interfaces);
+		String enclosingClassName = readNullableString(in);
+		boolean independent = in.readBoolean();
+		if (enclosingClassName != null) {
+			metadata.visitInnerClass(className, ClassUtils.convertClassNameToResourcePath(enclosingClassName),
+					"", (independent ? Opcodes.ACC_STATIC : 0));
+		}
+		for (String memberClassName : readStrings(in)) {
+			metadata.visitInnerClass(ClassUtils.convertClassNameToResourcePath(memberClassName), className, "", 0);
+		}
+
+		for (String annotationType : readStrings(in)) {
+			metadata.annotationSet.add(annotationType);
+		}
+		readMetaAnnotationMap(metadata.metaAnnotationMap, in);
+		readAttributesMap(metadata.attributesMap, in, classLoader);
+
+		int methodCount = in.readInt();
+		for (int i = 0; i < methodCount; i++) {
+			MethodMetadataReadingVisitor method = new MethodMetadataReadingVisitor(in.readUTF(), in.readInt(),
+					in.readUTF(), in.readUTF(), classLoader, metadata.methodMetadataSet);
+			readMetaAnnotationMap(method.metaAnnotationMap, in);
+			readAttributesMap(method.attributesMap, in, classLoader);
+			metadata.methodMetadataSet.add(method);
+		}
+		return new SimpleMetadataReader(resource, metadata);
+	}
+
+
+	private static void writeNullableString(@Nullable String value, DataOutput out) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	@Nullable
+	private static String readNullableString(DataInput in) throws IOException {
+		return (in.readBoolean() ? in.readUTF() : null);
+	}
+
+	private static void writeStrings(String[] values, DataOutput out) throws IOException {
+		out.writeInt(values.length);
+		for (String value : values) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String[] readStrings(DataInput in) throws IOException {
+		String[] values = new String[in.readInt()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = in.readUTF();
+		}
+		return values;
+	}
+
+	private static void writeMetaAnnotationMap(Map<String, Set<String>> metaAnnotationMap, DataOutput out)
+			throws IOException {
+
+		out.writeInt(metaAnnotationMap.size());
+		for (Map.Entry<String, Set<String>> entry : metaAnnotationMap.entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeStrings(entry.getValue().toArray(new String[0]), out);
+		}
+	}
+
+	private static void readMetaAnnotationMap(Map<String, Set<String>> metaAnnotationMap, DataInput in)
+			throws IOException {
+
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String annotationType = in.readUTF();
+			String[] metaAnnotationTypes = readStrings(in);
+			Set<String> types = new LinkedHashSet<>(metaAnnotationTypes.length);
+			for (String metaAnnotationType : metaAnnotationTypes) {
+				types.add(metaAnnotationType);
+			}
+			metaAnnotationMap.put(annotationType, types);
+		}
+	}
+
+	private static void writeAttributesMap(LinkedMultiValueMap<String, AnnotationAttributes> attributesMap,
+			DataOutput out) throws IOException {
+
+		out.writeInt(attributesMap.size());
+		for (Map.Entry<String, List<AnnotationAttributes>> entry : attributesMap.entrySet()) {
+			out.writeUTF(entry.getKey());
+			out.writeInt(entry.getValue().size());
+			for (AnnotationAttributes attributes : entry.getValue()) {
+				writeAttributes(attributes, out);
+			}
+		}
+	}
+
+	private static void readAttributesMap(LinkedMultiValueMap<String, AnnotationAttributes> attributesMap,
+			DataInput in, @Nullable ClassLoader classLoader) throws IOException {
+
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			String annotationType = in.readUTF();
+			int count = in.readInt();
+			for (int j = 0; j < count; j++) {
+				attributesMap.add(annotationType, readAttributes(in, classLoader));
+			}
+		}
+	}
+
+	private static void writeAttributes(AnnotationAttributes attributes, DataOutput out) throws IOException {
+		writeNullableString(attributes.annotationType() != null ? attributes.annotationType().getName() : null, out);
+		Map<String, Object> values = new LinkedHashMap<>(attributes.size());
+		attributes.forEach((name, value) -> {
+			// Default value placeholders get re-registered against the annotation type on read
+			if (!AnnotationUtils.isDefaultValuePlaceholder(value)) {
+				values.put(name, value);
+			}
+		});
+		out.writeInt(values.size());
+		for (Map.Entry<String, Object> entry : values.entrySet()) {
+			out.writeUTF(entry.getKey());
+			writeValue(entry.getValue(), out);
+		}
+	}
+
+	private static AnnotationAttributes readAttributes(DataInput in, @Nullable ClassLoader classLoader)
+			throws IOException {
+
+		String annotationType = readNullableString(in);
+		AnnotationAttributes attributes = (annotationType != null ?
+				new AnnotationAttributes(annotationType, classLoader) : new AnnotationAttributes());
+		int size = in.readInt();
+		for (int i = 0; i < size; i++) {
+			attributes.put(in.readUTF(), readValue(in, classLoader));
+		}
+		AnnotationUtils.registerDefaultValues(attributes);
+		return attributes;
+	}
+
+	private static void writeValue(Object value, DataOutput out) throws IOException {
+		if (value instanceof String) {
+			out.writeByte('s');
+			out.writeUTF((String) value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte('Z');
+			out.writeBoolean((Boolean) value);
+		}
+		else if (value instanceof Byte) {
+			out.writeByte('B');
+			out.writeByte((Byte) value);
+		}
+		else if (value instanceof Character) {
+			out.writeByte('C');
+			out.writeChar((Character) value);
+		}
+		else if (value instanceof Short) {
+			out.writeByte('S');
+			out.writeShort((Short) value);
+		}
+		else if (value instanceof Integer) {
+			out.writeByte('I');
+			out.writeInt((Integer) value);
+		}
+		else if (value instanceof Long) {
+			out.writeByte('J');
+			out.writeLong((Long) value);
+		}
+		else if (value instanceof Float) {
+			out.writeByte('F');
+			out.writeFloat((Float) value);
+		}
+		else if (value instanceof Double) {
+			out.writeByte('D');
+			out.writeDouble((Double) value);
+		}
+		else if (value instanceof Type) {
+			out.writeByte('T');
+			out.writeUTF(((Type) value).getDescriptor());
+		}
+		else if (value instanceof Class) {
+			out.writeByte('L');
+			out.writeUTF(((Class<?>) value).getName());
+		}
+		else if (value instanceof Enum) {
+			out.writeByte('E');
+			out.writeUTF(((Enum<?>) value).getDeclaringClass().getName());
+			out.writeUTF(((Enum<?>) value).name());
+		}
+		else if (value instanceof AnnotationAttributes) {
+			out.writeByte('@');
+			writeAttributes((AnnotationAttributes) value, out);
+		}
+		else if (value.getClass().isArray()) {
+			out.writeByte('[');
+			out.writeUTF(value.getClass().getComponentType().getName());
+			int length = Array.getLength(value);
+			out.writeInt(length);
+			for (int i = 0; i < length; i++) {
+				writeValue(Array.get(value, i), out);
+			}
+		}
+		else {
+			throw new IllegalArgumentException("Unsupported annotation attribute value: " + value);
+		}
+	}
+
+	private static Object readValue(DataInput in, @Nullable ClassLoader classLoader) throws IOException {
+		byte tag = in.readByte();
+		switch (tag) {
+			case 's':
+				return in.readUTF();
+			case 'Z':
+				return in.readBoolean();
+			case 'B':
+				return in.readByte();
+			case 'C':
+				return in.readChar();
+			case 'S':
+				return in.readShort();
+			case 'I':
+				return in.readInt();
+			case 'J':
+				return in.readLong();
+			case 'F':
+				return in.readFloat();
+			case 'D':
+				return in.readDouble();
+			case 'T':
+				return Type.getType(in.readUTF());
+			case 'L':
+				return resolveClass(in.readUTF(), classLoader);
+			case 'E':
+				return readEnumValue(in.readUTF(), in.readUTF(), classLoader);
+			case '@':
+				return readAttributes(in, classLoader);
+			case '[':
+				Class<?> componentType = resolveComponentType(in.readUTF(), classLoader);
+				Object array = Array.newInstance(componentType, in.readInt());
+				for (int i = 0; i < Array.getLength(array); i++) {
+					Array.set(array, i, readValue(in, classLoader));
+				}
+				return array;
+			default:
+				throw new IOException("Corrupt metadata: unexpected attribute value tag '" + (char) tag + "'");
+		}
+	}
+
+	private static Class<?> resolveClass(String className, @Nullable ClassLoader classLoader) throws IOException {
+		try {
+			return ClassUtils.forName(className, classLoader);
+		}
+		catch (ClassNotFoundException | LinkageError ex) {
+			throw new IOException("Failed to resolve class value [" + className + "]", ex);
+		}
+	}
+
+	private static Class<?> resolveComponentType(String className, @Nullable ClassLoader classLoader) {
+		try {
+			return ClassUtils.forName(className, classLoader);
+		}
+		catch (ClassNotFoundException | LinkageError ex) {
+			// Element type (e.g. an enum) not available anymore - elements will be exposed as-is.
+			return Object.class;
+		}
+	}
+
+	/**
+	 * Resolve the given enum constant the same way as
+	 * {@link AbstractRecursiveAnnotationVisitor} does for an actual class file,
+	 * falling back to the constant name if the enum type cannot be loaded.
+	 */
+	private static Object readEnumValue(String enumTypeName, String name, @Nullable ClassLoader classLoader) {
+		try {
+			Class<?> enumType = ClassUtils.forName(enumTypeName, classLoader);
+			Field enumConstant = ReflectionUtils.findField(enumType, name);
+			if (enumConstant != null) {
+				ReflectionUtils.makeAccessible(enumConstant);
+				return enumConstant.get(null);
+			}
+		}
+		catch (ClassNotFoundException | NoClassDefFoundError | IllegalAccessException | AccessControlException ex) {
+			// Fall back to the plain constant name, as for a class file read via ASM
+		}
+		return name;
+	}
+
+}
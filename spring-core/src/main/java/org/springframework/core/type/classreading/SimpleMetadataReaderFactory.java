@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -36,6 +36,8 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
 	private final ResourceLoader resourceLoader;
 
+	private boolean lazyAnnotationMetadata = false;
+
 
 	/**
 	 * Create a new SimpleMetadataReaderFactory for the default class loader.
@@ -71,6 +73,30 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 		return this.resourceLoader;
 	}
 
+	/**
+	 * Specify whether to create {@link MetadataReader MetadataReaders} which only
+	 * read the class header and the names of the declared annotations upfront.
+	 * <p>Default is "false", reading all annotation attributes and annotated methods
+	 * of a class right away. Switch this flag to "true" in order to materialize
+	 * annotation attributes and method metadata on demand instead, reading the class
+	 * file again at that point: this reduces the work and the retained memory for
+	 * classes which are merely checked for certain (meta-)annotations, e.g. during
+	 * component scanning. Resources which cannot be read more than once are
+	 * always read right away.
+	 * @since 5.2
+	 */
+	public void setLazyAnnotationMetadata(boolean lazyAnnotationMetadata) {
+		this.lazyAnnotationMetadata = lazyAnnotationMetadata;
+	}
+
+	/**
+	 * Return whether annotation metadata is materialized on demand.
+	 * @since 5.2
+	 */
+	public boolean isLazyAnnotationMetadata() {
+		return this.lazyAnnotationMetadata;
+	}
+
 
 	@Override
 	public MetadataReader getMetadataReader(String className) throws IOException {
@@ -100,6 +126,9 @@ public class SimpleMetadataReaderFactory implements MetadataReaderFactory {
 
 	@Override
 	public MetadataReader getMetadataReader(Resource resource) throws IOException {
+		if (this.lazyAnnotationMetadata && !resource.isOpen()) {
+			return new LazyMetadataReader(resource, this.resourceLoader.getClassLoader());
+		}
 		return new SimpleMetadataReader(resource, this.resourceLoader.getClassLoader());
 	}
 
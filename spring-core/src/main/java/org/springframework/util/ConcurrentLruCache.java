@@ -0,0 +1,228 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Simple bounded cache with approximate Least Recently Used eviction,
+ * computing values for absent keys through a generator function.
+ *
+ * <p>This implementation is backed by a {@code ConcurrentHashMap} for storing
+ * the cached values and a {@code ConcurrentLinkedQueue} for ordering the keys
+ * in insertion order. Cache hits do not take any lock: they just mark the entry
+ * as recently used. When the cache exceeds its size limit, entries get evicted
+ * from the head of the queue, giving recently used entries a second chance
+ * (as in a CLOCK algorithm) instead of reordering the queue on every access.
+ *
+ * <p>Values for the same key may occasionally get generated concurrently by
+ * multiple threads, with the first one being cached; the generator function
+ * is therefore expected to be side-effect free.
+ *
+ * @author agent
+ * @since 5.2
+ * @param <K> the type of the key used for caching
+ * @param <V> the type of the cached values
+ */
+public class ConcurrentLruCache<K, V> {
+
+	private final int sizeLimit;
+
+	private final Function<K, V> generator;
+
+	private final ConcurrentHashMap<K, CacheEntry<K, V>> cache;
+
+	private final ConcurrentLinkedQueue<CacheEntry<K, V>> queue = new ConcurrentLinkedQueue<>();
+
+	private final AtomicInteger size = new AtomicInteger();
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+
+	/**
+	 * Create a new cache instance with the given limit and generator function.
+	 * @param sizeLimit the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value)
+	 * @param generator a function to generate a new value for a given key
+	 */
+	public ConcurrentLruCache(int sizeLimit, Function<K, V> generator) {
+		Assert.isTrue(sizeLimit >= 0, "Cache size limit must not be negative");
+		Assert.notNull(generator, "Generator function must not be null");
+		this.sizeLimit = sizeLimit;
+		this.generator = generator;
+		this.cache = new ConcurrentHashMap<>(Math.max(16, (int) (sizeLimit / 0.75f) + 1));
+	}
+
+
+	/**
+	 * Retrieve an entry from the cache, potentially triggering generation
+	 * of the value.
+	 * @param key the key to retrieve the entry for
+	 * @return the cached or newly generated value
+	 */
+	public V get(K key) {
+		if (this.sizeLimit == 0) {
+			this.missCount.increment();
+			return this.generator.apply(key);
+		}
+
+		CacheEntry<K, V> entry = this.cache.get(key);
+		if (entry != null) {
+			this.hitCount.increment();
+			entry.markUsed();
+			return entry.value;
+		}
+
+		this.missCount.increment();
+		V value = this.generator.apply(key);
+		CacheEntry<K, V> newEntry = new CacheEntry<>(key, value);
+		CacheEntry<K, V> existing = this.cache.putIfAbsent(key, newEntry);
+		if (existing != null) {
+			existing.markUsed();
+			return existing.value;
+		}
+		this.queue.add(newEntry);
+		if (this.size.incrementAndGet() > this.sizeLimit) {
+			evict();
+		}
+		return value;
+	}
+
+	private void evict() {
+		// Each entry gets at most one second chance per eviction run,
+		// even in case of concurrent access marking it as used again.
+		int secondChances = this.sizeLimit;
+		while (this.size.get() > this.sizeLimit) {
+			CacheEntry<K, V> candidate = this.queue.poll();
+			if (candidate == null) {
+				return;
+			}
+			if (this.cache.get(candidate.key) != candidate) {
+				// Stale entry, already removed from the cache
+				continue;
+			}
+			if (candidate.used && secondChances > 0) {
+				secondChances--;
+				candidate.used = false;
+				this.queue.add(candidate);
+			}
+			else if (this.cache.remove(candidate.key, candidate)) {
+				this.size.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Determine whether the given key is present in this cache.
+	 * @param key the key to check for
+	 * @return {@code true} if the key is present,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean contains(K key) {
+		return this.cache.containsKey(key);
+	}
+
+	/**
+	 * Immediately remove the given key and any associated value.
+	 * @param key the key to evict the entry for
+	 * @return {@code true} if the key was present before,
+	 * {@code false} if there was no matching key
+	 */
+	public boolean remove(K key) {
+		CacheEntry<K, V> entry = this.cache.remove(key);
+		if (entry != null) {
+			this.size.decrementAndGet();
+			this.queue.remove(entry);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Immediately remove all entries from this cache.
+	 */
+	public void clear() {
+		CacheEntry<K, V> entry;
+		while ((entry = this.queue.poll()) != null) {
+			if (this.cache.remove(entry.key, entry)) {
+				this.size.decrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Return the current size of the cache.
+	 * @see #sizeLimit()
+	 */
+	public int size() {
+		return this.size.get();
+	}
+
+	/**
+	 * Return the maximum number of entries in the cache
+	 * (0 indicates no caching, always generating a new value).
+	 * @see #size()
+	 */
+	public int sizeLimit() {
+		return this.sizeLimit;
+	}
+
+	/**
+	 * Return the number of lookups that were served from the cache.
+	 * @see #missCount()
+	 */
+	public long hitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of lookups that required the generation of a value.
+	 * @see #hitCount()
+	 */
+	public long missCount() {
+		return this.missCount.sum();
+	}
+
+
+	private static final class CacheEntry<K, V> {
+
+		final K key;
+
+		final V value;
+
+		volatile boolean used;
+
+		CacheEntry(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		void markUsed() {
+			// Avoid a volatile write (and cache line contention) when already marked
+			if (!this.used) {
+				this.used = true;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,254 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.annotation;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link MergedAnnotations} and {@link MergedAnnotation}.
+ *
+ * @author agent
+ * @since 5.2
+ * @see AnnotatedElementUtilsTests
+ */
+public class MergedAnnotationsTests {
+
+	@Test
+	public void fromIsCachedPerElementAndSearchStrategy() {
+		MergedAnnotations annotations = MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS);
+		assertSame(annotations, MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS));
+		assertNotSame(annotations, MergedAnnotations.from(ComposedClass.class, SearchStrategy.TYPE_HIERARCHY));
+		assertSame(ComposedClass.class, annotations.getElement());
+		assertSame(SearchStrategy.INHERITED_ANNOTATIONS, annotations.getSearchStrategy());
+
+		AnnotationUtils.clearCache();
+		assertNotSame(annotations, MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS));
+	}
+
+	@Test
+	public void nonAnnotatedClass() {
+		MergedAnnotations annotations = MergedAnnotations.from(Object.class, SearchStrategy.TYPE_HIERARCHY);
+		assertFalse(annotations.isPresent(Base.class));
+		assertNull(annotations.get(Base.class));
+		assertNull(annotations.get(Base.class.getName()));
+		assertTrue(annotations.getAnnotationTypeNames().isEmpty());
+		assertFalse(annotations.iterator().hasNext());
+	}
+
+	@Test
+	public void annotationsInSearchOrder() {
+		MergedAnnotations annotations = MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS);
+		List<String> types = new ArrayList<>();
+		List<Integer> distances = new ArrayList<>();
+		for (MergedAnnotation<Annotation> annotation : annotations) {
+			types.add(annotation.getType().getSimpleName());
+			distances.add(annotation.getDistance());
+		}
+		assertEquals(Arrays.asList("Composed", "Mid", "Base"), types);
+		assertEquals(Arrays.asList(0, 1, 2), distances);
+	}
+
+	@Test
+	public void metaPresence() {
+		MergedAnnotations annotations = MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS);
+		assertTrue(annotations.isPresent(Composed.class));
+		assertFalse(annotations.isMetaPresent(Composed.class));
+		assertTrue(annotations.isPresent(Base.class.getName()));
+		assertTrue(annotations.isMetaPresent(Base.class));
+		assertTrue(annotations.isMetaPresent(Mid.class.getName()));
+		assertFalse(annotations.isPresent(Inherited.class));
+	}
+
+	@Test
+	public void mergedAttributesWithOverridesAcrossLevels() {
+		MergedAnnotation<Base> base =
+				MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS).get(Base.class);
+		assertNotNull(base);
+		assertEquals(2, base.getDistance());
+		assertSame(Mid.class, base.getSource().getType());
+		assertSame(Mid.class, base.getDeclaringElement());
+
+		AnnotationAttributes attributes = base.asAnnotationAttributes(false, false);
+		assertEquals("composed", attributes.getString("name"));
+		assertEquals("composed", attributes.getString("value"));
+		assertArrayEquals(new String[] {"a", "b"}, attributes.getStringArray("tags"));
+		assertEquals(3, attributes.getNumber("level").intValue());
+		assertEquals(Base.class, attributes.annotationType());
+
+		Base synthesized = base.synthesize();
+		assertEquals("composed", synthesized.name());
+		assertEquals("composed", synthesized.value());
+		assertEquals(3, synthesized.level());
+		assertSame(synthesized, base.synthesize());
+	}
+
+	@Test
+	public void mergedAttributesAreCopiedForEachCaller() {
+		MergedAnnotation<Base> base =
+				MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS).get(Base.class);
+		AnnotationAttributes attributes = base.asAnnotationAttributes(false, false);
+		attributes.put("name", "changed");
+		attributes.getStringArray("tags")[0] = "changed";
+		((String[]) base.getValue("tags"))[1] = "changed";
+
+		AnnotationAttributes other = base.asAnnotationAttributes(false, false);
+		assertEquals("composed", other.getString("name"));
+		assertArrayEquals(new String[] {"a", "b"}, other.getStringArray("tags"));
+		assertNotSame(attributes, other);
+	}
+
+	@Test
+	public void mergedAttributesWithClassValuesAsString() {
+		MergedAnnotation<Base> base =
+				MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS).get(Base.class);
+		assertEquals(String.class, base.getValue("type"));
+		assertEquals(String.class.getName(), base.asAnnotationAttributes(true, false).getString("type"));
+	}
+
+	@Test
+	public void directlyDeclaredAnnotationWithoutOverrides() {
+		MergedAnnotation<Base> base =
+				MergedAnnotations.from(BaseClass.class, SearchStrategy.INHERITED_ANNOTATIONS).get(Base.class);
+		assertEquals(0, base.getDistance());
+		assertNull(base.getSource());
+		assertEquals("direct", base.getValue("name"));
+		assertEquals("direct", base.synthesize().value());
+	}
+
+	@Test
+	public void localDeclarationFavoredOverInheritedWithGetSemantics() {
+		MergedAnnotations annotations = MergedAnnotations.from(SubBaseClass.class, SearchStrategy.INHERITED_ANNOTATIONS);
+		assertEquals("sub", annotations.get(Base.class).getValue("name"));
+	}
+
+	@Test
+	public void interfacesAreOnlySearchedWithTypeHierarchyStrategy() {
+		assertNull(MergedAnnotations.from(ImplementingClass.class, SearchStrategy.INHERITED_ANNOTATIONS).get(Mid.class));
+
+		MergedAnnotation<Base> base =
+				MergedAnnotations.from(ImplementingClass.class, SearchStrategy.TYPE_HIERARCHY).get(Base.class);
+		assertNotNull(base);
+		assertEquals("interface", base.getValue("name"));
+		assertSame(MidInterface.class, base.getSource().getDeclaringElement());
+	}
+
+	@Test
+	public void overriddenMethodsAreSearchedWithTypeHierarchyStrategy() throws Exception {
+		Method method = ImplementingClass.class.getMethod("handle");
+		assertFalse(MergedAnnotations.from(method, SearchStrategy.INHERITED_ANNOTATIONS).isPresent(Composed.class));
+
+		MergedAnnotation<Composed> composed =
+				MergedAnnotations.from(method, SearchStrategy.TYPE_HIERARCHY).get(Composed.class);
+		assertNotNull(composed);
+		assertEquals("method", composed.synthesize().name());
+		assertEquals("method", composed.asAnnotationAttributes(false, false).getString("name"));
+	}
+
+	@Test
+	public void mergedAnnotationsConsistentWithAnnotatedElementUtils() {
+		assertEquals(AnnotatedElementUtils.getMergedAnnotation(ComposedClass.class, Base.class),
+				MergedAnnotations.from(ComposedClass.class, SearchStrategy.INHERITED_ANNOTATIONS)
+						.get(Base.class).synthesize());
+		assertEquals(AnnotatedElementUtils.findMergedAnnotation(ImplementingClass.class, Base.class),
+				MergedAnnotations.from(ImplementingClass.class, SearchStrategy.TYPE_HIERARCHY)
+						.get(Base.class).synthesize());
+	}
+
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Inherited
+	@interface Base {
+
+		@AliasFor("name")
+		String value() default "";
+
+		@AliasFor("value")
+		String name() default "";
+
+		String[] tags() default {};
+
+		int level() default 0;
+
+		Class<?> type() default Object.class;
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Base(tags = "mid", level = 2, type = String.class)
+	@interface Mid {
+
+		@AliasFor(annotation = Base.class, attribute = "name")
+		String label() default "";
+
+		String[] tags() default {};
+	}
+
+	@Retention(RetentionPolicy.RUNTIME)
+	@Mid
+	@interface Composed {
+
+		@AliasFor(annotation = Mid.class)
+		String label() default "";
+
+		@AliasFor(annotation = Base.class, attribute = "name")
+		String name() default "";
+
+		@AliasFor(annotation = Mid.class, attribute = "tags")
+		String[] tags() default {};
+
+		int level() default 3;
+	}
+
+	@Composed(name = "composed", tags = {"a", "b"})
+	static class ComposedClass {
+	}
+
+	@Base("direct")
+	static class BaseClass {
+	}
+
+	@Base("sub")
+	static class SubBaseClass extends BaseClass {
+	}
+
+	@Mid(label = "interface")
+	interface MidInterface {
+
+		@Composed(name = "method")
+		void handle();
+	}
+
+	static class ImplementingClass implements MidInterface {
+
+		@Override
+		public void handle() {
+		}
+	}
+
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.metrics;
+
+import java.util.List;
+
+import org.junit.Test;
+
+import org.springframework.core.metrics.BufferingApplicationStartup.BufferedStartupStep;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link BufferingApplicationStartup}.
+ *
+ * @author agent
+ */
+public class BufferingApplicationStartupTests {
+
+	@Test
+	public void recordNestedSteps() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("test.outer");
+		StartupStep inner = startup.start("test.inner").tag("key", "value");
+		inner.end();
+		StartupStep sibling = startup.start("test.sibling").tag("key", () -> "supplied");
+		sibling.end();
+		outer.end();
+
+		List<BufferedStartupStep> steps = startup.getBufferedSteps();
+		assertEquals(3, steps.size());
+		BufferedStartupStep recordedInner = steps.get(0);
+		assertEquals("test.inner", recordedInner.getName());
+		assertEquals(Long.valueOf(outer.getId()), recordedInner.getParentId());
+		assertEquals("value", recordedInner.getTag("key"));
+		assertTrue(recordedInner.getTags().iterator().hasNext());
+		assertEquals("supplied", steps.get(1).getTag("key"));
+		assertEquals(Long.valueOf(outer.getId()), steps.get(1).getParentId());
+		BufferedStartupStep recordedOuter = steps.get(2);
+		assertNull(recordedOuter.getParentId());
+		assertTrue(recordedOuter.getDuration().compareTo(recordedInner.getDuration()) >= 0);
+		assertFalse(recordedOuter.getStartTime().isAfter(recordedInner.getStartTime()));
+	}
+
+	@Test
+	public void nextStepIsTopLevelAfterEnd() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		startup.start("test.first").end();
+		StartupStep second = startup.start("test.second");
+		assertNull(second.getParentId());
+		assertNotEquals(0L, second.getId());
+	}
+
+	@Test
+	public void stepsOfOtherThreadsAreNotNested() throws Exception {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(10);
+		StartupStep outer = startup.start("test.outer");
+		Thread thread = new Thread(() -> startup.start("test.other").end());
+		thread.start();
+		thread.join();
+		outer.end();
+
+		List<BufferedStartupStep> steps = startup.getBufferedSteps();
+		assertEquals("test.other", steps.get(0).getName());
+		assertNull(steps.get(0).getParentId());
+	}
+
+	@Test
+	public void dropStepsBeyondCapacity() {
+		BufferingApplicationStartup startup = new BufferingApplicationStartup(2);
+		for (int i = 0; i < 5; i++) {
+			startup.start("test.step").end();
+		}
+		assertEquals(2, startup.getBufferedSteps().size());
+		assertEquals(3, startup.getDroppedStepCount());
+
+		assertEquals(2, startup.drainBufferedSteps().size());
+		assertTrue(startup.getBufferedSteps().isEmpty());
+		startup.start("test.step").end();
+		assertEquals(1, startup.getBufferedSteps().size());
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void tagAfterEnd() {
+		StartupStep step = new BufferingApplicationStartup(1).start("test.step");
+		step.end();
+		step.tag("key", "value");
+	}
+
+	@Test
+	public void defaultStartupDoesNotRecord() {
+		StartupStep step = ApplicationStartup.DEFAULT.start("test.step").tag("key", () -> {
+			throw new IllegalStateException("Should not be called");
+		});
+		assertSame(step, ApplicationStartup.DEFAULT.start("test.other"));
+		assertFalse(step.getTags().iterator().hasNext());
+		step.end();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,10 @@
 
 package org.springframework.core.type;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Documented;
@@ -34,6 +38,7 @@ import org.springframework.core.annotation.AliasFor;
 import org.springframework.core.annotation.AnnotationAttributes;
 import org.springframework.core.type.classreading.MetadataReader;
 import org.springframework.core.type.classreading.MetadataReaderFactory;
+import org.springframework.core.type.classreading.MetadataReaderSerializer;
 import org.springframework.core.type.classreading.SimpleMetadataReaderFactory;
 import org.springframework.stereotype.Component;
 
@@ -246,6 +251,96 @@ public class AnnotationMetadataTests {
 	}
 
 
+	@Test
+	public void deserializedAnnotationMetadata() throws Exception {
+		AnnotationMetadata metadata = serializedMetadataReader(AnnotatedComponent.class).getAnnotationMetadata();
+		doTestAnnotationInfo(metadata);
+		doTestMethodAnnotationInfo(metadata);
+	}
+
+	@Test
+	public void deserializedAnnotationMetadataForSubclass() throws Exception {
+		doTestSubClassAnnotationInfo(serializedMetadataReader(AnnotatedComponentSubClass.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void deserializedAnnotationMetadataForInterface() throws Exception {
+		doTestMetadataForInterfaceClass(serializedMetadataReader(AnnotationMetadata.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void deserializedAnnotationMetadataForAnnotation() throws Exception {
+		doTestMetadataForAnnotationClass(serializedMetadataReader(Component.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void metaAnnotationOverridesUsingDeserializedAnnotationMetadata() throws Exception {
+		assertMetaAnnotationOverrides(serializedMetadataReader(
+				ComposedConfigurationWithAttributeOverridesClass.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void deserializedClassMetadataForMemberClass() throws Exception {
+		MetadataReader metadataReader = serializedMetadataReader(AnnotatedComponentSubClass.class);
+		ClassMetadata metadata = metadataReader.getClassMetadata();
+		assertThat(metadata.getEnclosingClassName(), is(AnnotationMetadataTests.class.getName()));
+		assertThat(metadata.isIndependent(), is(true));
+		assertThat(metadataReader.getResource().getFilename(), is("AnnotationMetadataTests$AnnotatedComponentSubClass.class"));
+
+		metadata = serializedMetadataReader(AnnotationMetadataTests.class).getClassMetadata();
+		assertThat(Arrays.asList(metadata.getMemberClassNames()), hasItem(AnnotatedComponentSubClass.class.getName()));
+	}
+
+	@Test
+	public void lazyAsmAnnotationMetadata() throws Exception {
+		AnnotationMetadata metadata = lazyMetadataReader(AnnotatedComponent.class).getAnnotationMetadata();
+		doTestAnnotationInfo(metadata);
+		doTestMethodAnnotationInfo(metadata);
+	}
+
+	@Test
+	public void lazyAsmAnnotationMetadataForSubclass() throws Exception {
+		doTestSubClassAnnotationInfo(lazyMetadataReader(AnnotatedComponentSubClass.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void lazyAsmAnnotationMetadataForInterface() throws Exception {
+		doTestMetadataForInterfaceClass(lazyMetadataReader(AnnotationMetadata.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void lazyAsmAnnotationMetadataForAnnotation() throws Exception {
+		doTestMetadataForAnnotationClass(lazyMetadataReader(Component.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void metaAnnotationOverridesUsingLazyAsmAnnotationMetadata() throws Exception {
+		assertMetaAnnotationOverrides(lazyMetadataReader(
+				ComposedConfigurationWithAttributeOverridesClass.class).getAnnotationMetadata());
+	}
+
+	@Test
+	public void composedAnnotationWithMetaAnnotationsWithIdenticalAttributeNamesUsingLazyAsmAnnotationMetadata()
+			throws Exception {
+
+		assertMultipleAnnotationsWithIdenticalAttributeNames(
+				lazyMetadataReader(NamedComposedAnnotationClass.class).getAnnotationMetadata());
+	}
+
+	private MetadataReader lazyMetadataReader(Class<?> clazz) throws Exception {
+		SimpleMetadataReaderFactory metadataReaderFactory = new SimpleMetadataReaderFactory();
+		metadataReaderFactory.setLazyAnnotationMetadata(true);
+		return metadataReaderFactory.getMetadataReader(clazz.getName());
+	}
+
+	private MetadataReader serializedMetadataReader(Class<?> clazz) throws Exception {
+		MetadataReader metadataReader = new SimpleMetadataReaderFactory().getMetadataReader(clazz.getName());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		MetadataReaderSerializer.serialize(metadataReader, new DataOutputStream(out));
+		return MetadataReaderSerializer.deserialize(new DataInputStream(new ByteArrayInputStream(out.toByteArray())),
+				metadataReader.getResource(), getClass().getClassLoader());
+	}
+
 	private void assertMultipleAnnotationsWithIdenticalAttributeNames(AnnotationMetadata metadata) {
 		AnnotationAttributes attributes1 = (AnnotationAttributes) metadata.getAnnotationAttributes(
 				NamedAnnotation1.class.getName(), false);
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.core.type.classreading;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.stereotype.Component;
+import org.springframework.stereotype.Indexed;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for {@link LazyMetadataReader}, as created by a
+ * {@link SimpleMetadataReaderFactory} with lazy annotation metadata.
+ *
+ * @author agent
+ * @since 5.2
+ */
+public class LazyMetadataReaderTests {
+
+	private final SimpleMetadataReaderFactory lazyFactory = new SimpleMetadataReaderFactory();
+
+	private final SimpleMetadataReaderFactory eagerFactory = new SimpleMetadataReaderFactory();
+
+
+	public LazyMetadataReaderTests() {
+		this.lazyFactory.setLazyAnnotationMetadata(true);
+	}
+
+
+	@Test
+	public void stereotypeChecksDoNotReadClassFileAgain() throws Exception {
+		CountingResource resource = new CountingResource(StereotypedClass.class);
+		AnnotationMetadata metadata = this.lazyFactory.getMetadataReader(resource).getAnnotationMetadata();
+		assertEquals(1, resource.reads.get());
+
+		assertTrue(metadata.hasAnnotation(Stereotype.class.getName()));
+		assertTrue(metadata.hasMetaAnnotation(Component.class.getName()));
+		assertTrue(metadata.hasMetaAnnotation(Indexed.class.getName()));
+		assertTrue(metadata.isAnnotated(Component.class.getName()));
+		assertFalse(metadata.hasAnnotatedMethods(Deprecated.class.getName()));
+		assertEquals(2, resource.reads.get());
+
+		assertEquals("stereotyped", metadata.getAnnotationAttributes(Stereotype.class.getName()).get("value"));
+		assertEquals("", metadata.getAnnotationAttributes(Component.class.getName()).get("value"));
+		assertEquals(2, resource.reads.get());
+	}
+
+	@Test
+	public void unannotatedClassDoesNotReadClassFileAgain() throws Exception {
+		CountingResource resource = new CountingResource(PlainClass.class);
+		AnnotationMetadata metadata = this.lazyFactory.getMetadataReader(resource).getAnnotationMetadata();
+		assertFalse(metadata.hasMetaAnnotation(Component.class.getName()));
+		assertFalse(metadata.isAnnotated(Component.class.getName()));
+		assertNull(metadata.getAnnotationAttributes(Component.class.getName()));
+		assertNull(metadata.getAllAnnotationAttributes(Component.class.getName()));
+		assertTrue(metadata.getMetaAnnotationTypes(Component.class.getName()).isEmpty());
+		assertEquals(1, resource.reads.get());
+	}
+
+	@Test
+	public void resourceThatCannotBeReadAgainIsReadEagerly() throws Exception {
+		Resource resource = new InputStreamResource(new ClassPathResource(
+				"LazyMetadataReaderTests$PlainClass.class", getClass()).getInputStream());
+		assertTrue(this.lazyFactory.getMetadataReader(resource) instanceof SimpleMetadataReader);
+	}
+
+	@Test
+	public void consistentWithEagerMetadataForAnnotationTests() throws IOException {
+		Resource[] resources = new PathMatchingResourcePatternResolver().getResources(
+				"classpath*:org/springframework/core/annotation/**/*.class");
+		assertTrue(resources.length > 0);
+		String[] candidateTypes = {Component.class.getName(), Indexed.class.getName(),
+				"org.springframework.core.annotation.AliasFor",
+				"org.springframework.core.annotation.AnnotatedElementUtilsTests$TransactionalComponent",
+				"org.springframework.core.annotation.AnnotatedElementUtilsTests$Transactional"};
+		for (Resource resource : resources) {
+			AnnotationMetadata lazy = this.lazyFactory.getMetadataReader(resource).getAnnotationMetadata();
+			AnnotationMetadata eager = this.eagerFactory.getMetadataReader(resource).getAnnotationMetadata();
+			String className = eager.getClassName();
+			assertEquals(className, lazy.getClassName());
+			assertEquals(className, eager.getAnnotationTypes(), lazy.getAnnotationTypes());
+			assertEquals(className, eager.isIndependent(), lazy.isIndependent());
+			for (String annotationType : eager.getAnnotationTypes()) {
+				assertEquals(className, eager.getMetaAnnotationTypes(annotationType),
+						lazy.getMetaAnnotationTypes(annotationType));
+				assertEquals(className, eager.isAnnotated(annotationType), lazy.isAnnotated(annotationType));
+			}
+			for (String candidateType : candidateTypes) {
+				assertEquals(className, eager.hasMetaAnnotation(candidateType), lazy.hasMetaAnnotation(candidateType));
+				assertEquals(className, eager.isAnnotated(candidateType), lazy.isAnnotated(candidateType));
+				assertEquals(className, eager.getAllAnnotationAttributes(candidateType, true),
+						lazy.getAllAnnotationAttributes(candidateType, true));
+			}
+		}
+	}
+
+
+	@Component
+	@java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME)
+	public @interface Stereotype {
+
+		String value() default "";
+	}
+
+	@Stereotype("stereotyped")
+	static class StereotypedClass {
+	}
+
+	static class PlainClass {
+	}
+
+
+	private static class CountingResource extends ClassPathResource {
+
+		final AtomicInteger reads = new AtomicInteger();
+
+		CountingResource(Class<?> clazz) {
+			super(clazz.getName().replace('.', '/') + ".class", clazz.getClassLoader());
+		}
+
+		@Override
+		public InputStream getInputStream() throws IOException {
+			this.reads.incrementAndGet();
+			return super.getInputStream();
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,25 +16,41 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.beans.BeanInstantiationException;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
+import org.springframework.beans.MethodInvocationException;
 import org.springframework.beans.NotWritablePropertyException;
-import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.SimpleTypeConverter;
+import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.convert.ConversionException;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -42,6 +58,7 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -68,15 +85,21 @@ import org.springframework.util.StringUtils;
  * will have been set to the primitive's default value instead of null.
  *
  * <p>Please note that this class is designed to provide convenience rather than high performance.
- * For best performance, consider using a custom {@link RowMapper} implementation.
+ * For best performance, consider using a custom {@link RowMapper} implementation, or switch on
+ * {@link #setCompiledMapping compiled mapping}: this resolves the mapping for a given column
+ * layout once and reuses it for subsequent rows and queries, without BeanWrapper involvement.
  *
  * @author Thomas Risberg
  * @author Juergen Hoeller
  * @since 2.5
  * @param <T> the result type
+ * @see DataClassRowMapper
  */
 public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
+	private static final int COMPILED_MAPPING_CACHE_LIMIT = 32;
+
+
 	/** Logger available to subclasses. */
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -102,6 +125,15 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Nullable
 	private Set<String> mappedProperties;
 
+	/** Whether we're mapping through compiled mappings. */
+	private boolean compiledMapping = false;
+
+	/** Compiled mappings, keyed by column layout. */
+	private final Map<List<String>, CompiledMapping> compiledMappings = new ConcurrentHashMap<>(4);
+
+	/** Whether {@link #mapRow} is not overridden, allowing for per-ResultSet row mappers. */
+	private final boolean standardMapRow = isStandardMapRow(getClass());
+
 
 	/**
 	 * Create a new {@code BeanPropertyRowMapper} for bean-style configuration.
@@ -191,6 +223,32 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return this.primitivesDefaultedForNullValue;
 	}
 
+	/**
+	 * Set whether to map rows through a mapping compiled once per column layout.
+	 * <p>Default is {@code false}, looking up the column names from the result set
+	 * meta-data and binding them through a {@link BeanWrapper} for every row.
+	 * Switch this flag to {@code true} in order to resolve the columns once per query
+	 * and reuse the resulting mapping for queries with the same column layout: values
+	 * are read by column index and handed to pre-resolved write methods directly,
+	 * applying the {@link #setConversionService ConversionService} where necessary.
+	 * <p>The column layout is resolved once per ResultSet when mapping through
+	 * {@link RowMapperResultSetExtractor} or {@code JdbcTemplate.queryForStream};
+	 * direct {@link #mapRow} calls look up the mapping for every row.
+	 * <p>Note that {@link #initBeanWrapper} is not called for compiled mappings.
+	 * @since 5.2
+	 */
+	public void setCompiledMapping(boolean compiledMapping) {
+		this.compiledMapping = compiledMapping;
+	}
+
+	/**
+	 * Return whether we're mapping through compiled mappings.
+	 * @since 5.2
+	 */
+	public boolean isCompiledMapping() {
+		return this.compiledMapping;
+	}
+
 	/**
 	 * Set a {@link ConversionService} for binding JDBC values to bean properties,
 	 * or {@code null} for none.
@@ -222,6 +280,7 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		this.mappedClass = mappedClass;
 		this.mappedFields = new HashMap<>();
 		this.mappedProperties = new HashSet<>();
+		this.compiledMappings.clear();
 		PropertyDescriptor[] pds = BeanUtils.getPropertyDescriptors(mappedClass);
 		for (PropertyDescriptor pd : pds) {
 			if (pd.getWriteMethod() != null) {
@@ -235,6 +294,21 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		}
 	}
 
+	/**
+	 * Remove the specified property from the mapped fields.
+	 * @param propertyName the property name (as used by property descriptors)
+	 * @since 5.2
+	 */
+	protected void suppressProperty(String propertyName) {
+		if (this.mappedFields != null) {
+			this.mappedFields.remove(lowerCaseName(propertyName));
+			this.mappedFields.remove(underscoreName(propertyName));
+		}
+		if (this.mappedProperties != null) {
+			this.mappedProperties.remove(propertyName);
+		}
+	}
+
 	/**
 	 * Convert a name in camelCase to an underscored name in lower case.
 	 * Any upper case letters are converted to lower case with a preceding underscore.
@@ -282,9 +356,14 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
 		Assert.state(this.mappedClass != null, "Mapped class was not specified");
-		T mappedObject = BeanUtils.instantiateClass(this.mappedClass);
-		BeanWrapper bw = PropertyAccessorFactory.forBeanPropertyAccess(mappedObject);
+		if (this.compiledMapping) {
+			return new ResultSetMapping().mapRow(rs, rowNumber);
+		}
+
+		BeanWrapperImpl bw = new BeanWrapperImpl();
 		initBeanWrapper(bw);
+		T mappedObject = constructMappedInstance(rs, bw);
+		bw.setBeanInstance(mappedObject);
 
 		ResultSetMetaData rsmd = rs.getMetaData();
 		int columnCount = rsmd.getColumnCount();
@@ -344,6 +423,21 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return mappedObject;
 	}
 
+	/**
+	 * Construct an instance of the mapped class for the current row.
+	 * <p>The default implementation instantiates the mapped class through
+	 * its default constructor.
+	 * @param rs the ResultSet to map (pre-initialized for the current row)
+	 * @param tc a TypeConverter with this RowMapper's conversion service
+	 * @return a corresponding instance of the mapped class
+	 * @throws SQLException if an SQLException is encountered
+	 * @since 5.2
+	 */
+	protected T constructMappedInstance(ResultSet rs, TypeConverter tc) throws SQLException {
+		Assert.state(this.mappedClass != null, "Mapped class was not specified");
+		return BeanUtils.instantiateClass(this.mappedClass);
+	}
+
 	/**
 	 * Initialize the given BeanWrapper to be used for row mapping.
 	 * To be called for each row.
@@ -378,6 +472,100 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return JdbcUtils.getResultSetValue(rs, index, pd.getPropertyType());
 	}
 
+	/**
+	 * Retrieve a JDBC object value for the specified column.
+	 * <p>The default implementation calls
+	 * {@link JdbcUtils#getResultSetValue(java.sql.ResultSet, int, Class)}.
+	 * Subclasses may override this to check specific value types upfront,
+	 * or to post-process values return from {@code getResultSetValue}.
+	 * @param rs is the ResultSet holding the data
+	 * @param index is the column index
+	 * @param paramType the target parameter type
+	 * @return the Object value
+	 * @throws SQLException in case of extraction failure
+	 * @since 5.2
+	 * @see org.springframework.jdbc.support.JdbcUtils#getResultSetValue(java.sql.ResultSet, int, Class)
+	 */
+	@Nullable
+	protected Object getColumnValue(ResultSet rs, int index, Class<?> paramType) throws SQLException {
+		return JdbcUtils.getResultSetValue(rs, index, paramType);
+	}
+
+
+	/**
+	 * Return a RowMapper for the rows of a single ResultSet: resolving the
+	 * compiled mapping for its column layout on the first row and reusing it
+	 * for subsequent rows, or this mapper itself if not in compiled mode.
+	 * @see RowMapperResultSetExtractor#resultSetRowMapper
+	 */
+	RowMapper<T> resultSetRowMapper() {
+		return (this.compiledMapping && this.standardMapRow ? new ResultSetMapping() : this);
+	}
+
+	/**
+	 * Obtain the compiled mapping for the column layout of the given ResultSet.
+	 */
+	private CompiledMapping getCompiledMapping(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		String[] columns = new String[rsmd.getColumnCount()];
+		for (int i = 0; i < columns.length; i++) {
+			columns[i] = JdbcUtils.lookupColumnName(rsmd, i + 1);
+		}
+		List<String> layout = Arrays.asList(columns);
+		CompiledMapping mapping = this.compiledMappings.get(layout);
+		if (mapping == null) {
+			mapping = new CompiledMapping(columns);
+			if (this.compiledMappings.size() < COMPILED_MAPPING_CACHE_LIMIT) {
+				CompiledMapping existing = this.compiledMappings.putIfAbsent(layout, mapping);
+				if (existing != null) {
+					mapping = existing;
+				}
+			}
+		}
+		return mapping;
+	}
+
+	/**
+	 * Create the instantiation strategy for a compiled mapping.
+	 * <p>The default implementation invokes the default constructor
+	 * of the mapped class.
+	 * @param fields the normalized field names of the columns, by column index - 1
+	 */
+	Instantiator<T> compileInstantiator(String[] fields) {
+		Assert.state(this.mappedClass != null, "Mapped class was not specified");
+		Class<T> mappedClass = this.mappedClass;
+		Constructor<T> ctor;
+		MethodHandle constructor;
+		try {
+			ctor = ReflectionUtils.accessibleConstructor(mappedClass);
+			constructor = MethodHandles.lookup().unreflectConstructor(ctor).asType(MethodType.methodType(Object.class));
+		}
+		catch (NoSuchMethodException | IllegalAccessException ex) {
+			// No default constructor to invoke directly: e.g. Kotlin class with default arguments
+			return (rs, rsm) -> BeanUtils.instantiateClass(mappedClass);
+		}
+		return (rs, rsm) -> {
+			try {
+				return mappedClass.cast(constructor.invokeExact());
+			}
+			catch (Error ex) {
+				throw ex;
+			}
+			catch (Throwable ex) {
+				throw new BeanInstantiationException(ctor, "Constructor threw exception", ex);
+			}
+		};
+	}
+
+	/**
+	 * Determine whether a value needs to be checked for conversion even if it
+	 * is an instance of the given target type, e.g. for collection elements.
+	 */
+	static boolean requiresConversionCheck(TypeDescriptor targetType) {
+		return (targetType.isCollection() || targetType.isMap() ||
+				(targetType.isArray() && !targetType.getType().getComponentType().isPrimitive()));
+	}
+
 
 	/**
 	 * Static factory method to create a new {@code BeanPropertyRowMapper}
@@ -388,4 +576,183 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return new BeanPropertyRowMapper<>(mappedClass);
 	}
 
+	private static boolean isStandardMapRow(Class<?> mapperClass) {
+		Method mapRow = ReflectionUtils.findMethod(mapperClass, "mapRow", ResultSet.class, int.class);
+		return (mapRow != null && mapRow.getDeclaringClass() == BeanPropertyRowMapper.class);
+	}
+
+
+	/**
+	 * Strategy for instantiating the mapped class within a compiled mapping.
+	 * @param <T> the result type
+	 */
+	@FunctionalInterface
+	interface Instantiator<T> {
+
+		T instantiate(ResultSet rs, BeanPropertyRowMapper<T>.ResultSetMapping rsm) throws SQLException;
+	}
+
+
+	/**
+	 * Column bindings for a specific column layout: the columns are resolved
+	 * to write methods once, which are then invoked by column index.
+	 */
+	private final class CompiledMapping {
+
+		private final Instantiator<T> instantiator;
+
+		private final int[] columnIndexes;
+
+		private final PropertyDescriptor[] properties;
+
+		private final TypeDescriptor[] propertyTypes;
+
+		private final boolean[] conversionChecks;
+
+		private final MethodHandle[] writeMethods;
+
+		@Nullable
+		private final String populationError;
+
+		CompiledMapping(String[] columns) {
+			Assert.state(mappedClass != null, "Mapped class was not specified");
+			String[] fields = new String[columns.length];
+			List<Integer> columnIndexes = new ArrayList<>(columns.length);
+			List<PropertyDescriptor> properties = new ArrayList<>(columns.length);
+			for (int i = 0; i < columns.length; i++) {
+				String field = lowerCaseName(StringUtils.delete(columns[i], " "));
+				fields[i] = field;
+				PropertyDescriptor pd = (mappedFields != null ? mappedFields.get(field) : null);
+				if (pd != null) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Mapping column '" + columns[i] + "' to property '" + pd.getName() +
+								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+					}
+					columnIndexes.add(i + 1);
+					properties.add(pd);
+				}
+				else if (logger.isDebugEnabled()) {
+					logger.debug("No property found for column '" + columns[i] + "' mapped to field '" + field + "'");
+				}
+			}
+
+			this.instantiator = compileInstantiator(fields);
+			this.columnIndexes = new int[properties.size()];
+			this.properties = properties.toArray(new PropertyDescriptor[0]);
+			this.propertyTypes = new TypeDescriptor[properties.size()];
+			this.conversionChecks = new boolean[properties.size()];
+			this.writeMethods = new MethodHandle[properties.size()];
+			Set<String> populatedProperties = new HashSet<>();
+			for (int i = 0; i < this.properties.length; i++) {
+				PropertyDescriptor pd = this.properties[i];
+				this.columnIndexes[i] = columnIndexes.get(i);
+				this.propertyTypes[i] = new TypeDescriptor(BeanUtils.getWriteMethodParameter(pd));
+				this.conversionChecks[i] = requiresConversionCheck(this.propertyTypes[i]);
+				try {
+					Method writeMethod = pd.getWriteMethod();
+					Assert.state(writeMethod != null, "No write method");
+					ReflectionUtils.makeAccessible(writeMethod);
+					this.writeMethods[i] = MethodHandles.lookup().unreflect(writeMethod)
+							.asType(MethodType.methodType(void.class, Object.class, Object.class));
+				}
+				catch (IllegalAccessException ex) {
+					throw new DataRetrievalFailureException(
+							"Unable to map column '" + columns[this.columnIndexes[i] - 1] +
+							"' to property '" + pd.getName() + "'", ex);
+				}
+				populatedProperties.add(pd.getName());
+			}
+			this.populationError = (isCheckFullyPopulated() && !populatedProperties.equals(mappedProperties) ?
+					"Given ResultSet does not contain all fields necessary to populate object of class [" +
+					mappedClass.getName() + "]: " + mappedProperties : null);
+		}
+
+		public T mapRow(ResultSet rs, ResultSetMapping rsm) throws SQLException {
+			if (this.populationError != null) {
+				throw new InvalidDataAccessApiUsageException(this.populationError);
+			}
+			T mappedObject = this.instantiator.instantiate(rs, rsm);
+			for (int i = 0; i < this.properties.length; i++) {
+				PropertyDescriptor pd = this.properties[i];
+				Object value = getColumnValue(rs, this.columnIndexes[i], pd);
+				TypeDescriptor propertyType = this.propertyTypes[i];
+				if (value == null) {
+					if (propertyType.isPrimitive()) {
+						if (isPrimitivesDefaultedForNullValue()) {
+							continue;
+						}
+						throw new TypeMismatchException(new PropertyChangeEvent(mappedObject, pd.getName(), null, null),
+								propertyType.getType());
+					}
+				}
+				else if (this.conversionChecks[i] || !ClassUtils.isAssignableValue(propertyType.getType(), value)) {
+					value = rsm.convertValue(value, propertyType);
+				}
+				try {
+					this.writeMethods[i].invokeExact((Object) mappedObject, value);
+				}
+				catch (Error ex) {
+					throw ex;
+				}
+				catch (Throwable ex) {
+					throw new MethodInvocationException(
+							new PropertyChangeEvent(mappedObject, pd.getName(), null, value), ex);
+				}
+			}
+			return mappedObject;
+		}
+	}
+
+
+	/**
+	 * Compiled mapping of the rows of a single ResultSet, holding on to the
+	 * mapping for its column layout once resolved on the first row, as well as
+	 * to a type converter for values not convertible by the ConversionService.
+	 */
+	final class ResultSetMapping implements RowMapper<T> {
+
+		@Nullable
+		private CompiledMapping mapping;
+
+		@Nullable
+		private SimpleTypeConverter typeConverter;
+
+		@Override
+		public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+			CompiledMapping mapping = this.mapping;
+			if (mapping == null) {
+				mapping = getCompiledMapping(rs);
+				this.mapping = mapping;
+			}
+			return mapping.mapRow(rs, this);
+		}
+
+		/**
+		 * Convert the given value to the given target type, applying the
+		 * {@link #getConversionService() ConversionService} if possible
+		 * and falling back to default property editors otherwise.
+		 */
+		@Nullable
+		Object convertValue(Object value, TypeDescriptor targetType) {
+			ConversionService cs = getConversionService();
+			if (cs != null) {
+				TypeDescriptor sourceType = TypeDescriptor.forObject(value);
+				if (cs.canConvert(sourceType, targetType)) {
+					try {
+						return cs.convert(value, sourceType, targetType);
+					}
+					catch (ConversionException ex) {
+						throw new TypeMismatchException(value, targetType.getType(), ex);
+					}
+				}
+			}
+			SimpleTypeConverter typeConverter = this.typeConverter;
+			if (typeConverter == null) {
+				typeConverter = new SimpleTypeConverter();
+				this.typeConverter = typeConverter;
+			}
+			return typeConverter.convertIfNecessary(value, targetType.getType(), targetType);
+		}
+	}
+
 }
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.beans.ConstructorProperties;
+import java.lang.reflect.Constructor;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.TypeConverter;
+import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.MethodParameter;
+import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.core.convert.TypeDescriptor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link RowMapper} implementation that converts a row into a new instance
+ * of the specified mapped target class. The mapped target class must be a
+ * top-level class and may either expose a data class constructor with named
+ * parameters corresponding to column names or classic bean property setters
+ * (or even a combination of both).
+ *
+ * <p>Note that this class extends {@link BeanPropertyRowMapper} and can
+ * therefore serve as a common choice for any mapped target class, flexibly
+ * adapting to constructor style versus setter methods in the mapped class.
+ * With {@link #setCompiledMapping compiled mapping}, the columns for the
+ * constructor parameters get resolved once per column layout as well.
+ *
+ * @author agent
+ * @since 5.2
+ * @param <T> the result type
+ */
+public class DataClassRowMapper<T> extends BeanPropertyRowMapper<T> {
+
+	private static final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
+
+
+	@Nullable
+	private Constructor<T> mappedConstructor;
+
+	@Nullable
+	private String[] constructorParameterNames;
+
+	@Nullable
+	private TypeDescriptor[] constructorParameterTypes;
+
+
+	/**
+	 * Create a new {@code DataClassRowMapper} for bean-style configuration.
+	 * @see #setMappedClass
+	 * @see #setConversionService
+	 */
+	public DataClassRowMapper() {
+	}
+
+	/**
+	 * Create a new {@code DataClassRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public DataClassRowMapper(Class<T> mappedClass) {
+		super(mappedClass);
+	}
+
+
+	@Override
+	protected void initialize(Class<T> mappedClass) {
+		super.initialize(mappedClass);
+
+		this.mappedConstructor = determineConstructor(mappedClass);
+		int paramCount = this.mappedConstructor.getParameterCount();
+		if (paramCount > 0) {
+			this.constructorParameterNames = determineParameterNames(this.mappedConstructor);
+			for (String name : this.constructorParameterNames) {
+				suppressProperty(name);
+			}
+			this.constructorParameterTypes = new TypeDescriptor[paramCount];
+			for (int i = 0; i < paramCount; i++) {
+				this.constructorParameterTypes[i] = new TypeDescriptor(new MethodParameter(this.mappedConstructor, i));
+			}
+		}
+	}
+
+	@Override
+	protected T constructMappedInstance(ResultSet rs, TypeConverter tc) throws SQLException {
+		Assert.state(this.mappedConstructor != null, "Mapped constructor was not initialized");
+
+		Object[] args;
+		if (this.constructorParameterNames != null && this.constructorParameterTypes != null) {
+			args = new Object[this.constructorParameterNames.length];
+			for (int i = 0; i < args.length; i++) {
+				String name = underscoreName(this.constructorParameterNames[i]);
+				TypeDescriptor td = this.constructorParameterTypes[i];
+				Object value = getColumnValue(rs, rs.findColumn(name), td.getType());
+				args[i] = tc.convertIfNecessary(value, td.getType(), td);
+			}
+		}
+		else {
+			args = new Object[0];
+		}
+
+		return BeanUtils.instantiateClass(this.mappedConstructor, args);
+	}
+
+	@Override
+	Instantiator<T> compileInstantiator(String[] fields) {
+		Assert.state(this.mappedConstructor != null, "Mapped constructor was not initialized");
+		Constructor<T> ctor = this.mappedConstructor;
+		String[] parameterNames = this.constructorParameterNames;
+		TypeDescriptor[] parameterTypes = this.constructorParameterTypes;
+		if (parameterNames == null || parameterTypes == null) {
+			return super.compileInstantiator(fields);
+		}
+
+		int[] columnIndexes = new int[parameterNames.length];
+		boolean[] conversionChecks = new boolean[parameterNames.length];
+		for (int i = 0; i < parameterNames.length; i++) {
+			columnIndexes[i] = findField(fields, parameterNames[i]);
+			conversionChecks[i] = requiresConversionCheck(parameterTypes[i]);
+		}
+		return (rs, rsm) -> {
+			Object[] args = new Object[columnIndexes.length];
+			for (int i = 0; i < args.length; i++) {
+				// Let the driver report a missing column, as for regular mapping
+				int index = (columnIndexes[i] > 0 ? columnIndexes[i] : rs.findColumn(underscoreName(parameterNames[i])));
+				TypeDescriptor td = parameterTypes[i];
+				Object value = getColumnValue(rs, index, td.getType());
+				if (value != null && (conversionChecks[i] || !td.getObjectType().isInstance(value))) {
+					value = rsm.convertValue(value, td);
+				}
+				args[i] = value;
+			}
+			return BeanUtils.instantiateClass(ctor, args);
+		};
+	}
+
+	private int findField(String[] fields, String parameterName) {
+		String underscoredName = underscoreName(parameterName);
+		String lowerCaseName = lowerCaseName(parameterName);
+		for (int i = 0; i < fields.length; i++) {
+			if (fields[i].equals(underscoredName) || fields[i].equals(lowerCaseName)) {
+				return i + 1;
+			}
+		}
+		return 0;
+	}
+
+
+	/**
+	 * Determine the constructor to use for the given data class: its primary
+	 * constructor (for Kotlin), its single public or declared constructor,
+	 * or its default constructor.
+	 */
+	@SuppressWarnings("unchecked")
+	private static <T> Constructor<T> determineConstructor(Class<T> clazz) {
+		Constructor<T> ctor = BeanUtils.findPrimaryConstructor(clazz);
+		if (ctor != null) {
+			return ctor;
+		}
+		Constructor<?>[] ctors = clazz.getConstructors();
+		if (ctors.length == 1) {
+			return (Constructor<T>) ctors[0];
+		}
+		ctors = clazz.getDeclaredConstructors();
+		if (ctors.length == 1) {
+			return (Constructor<T>) ctors[0];
+		}
+		try {
+			return clazz.getDeclaredConstructor();
+		}
+		catch (NoSuchMethodException ex) {
+			throw new IllegalStateException("No primary or single unique constructor found for " + clazz);
+		}
+	}
+
+	private static String[] determineParameterNames(Constructor<?> ctor) {
+		ConstructorProperties cp = ctor.getAnnotation(ConstructorProperties.class);
+		String[] paramNames = (cp != null ? cp.value() : parameterNameDiscoverer.getParameterNames(ctor));
+		Assert.state(paramNames != null, () -> "Cannot resolve parameter names for constructor " + ctor);
+		Assert.state(paramNames.length == ctor.getParameterCount(),
+				() -> "Invalid number of parameter names: " + paramNames.length + " for constructor " + ctor);
+		return paramNames;
+	}
+
+
+	/**
+	 * Static factory method to create a new {@code DataClassRowMapper}.
+	 * @param mappedClass the class that each row should be mapped to
+	 */
+	public static <T> DataClassRowMapper<T> newInstance(Class<T> mappedClass) {
+		return new DataClassRowMapper<>(mappedClass);
+	}
+
+}
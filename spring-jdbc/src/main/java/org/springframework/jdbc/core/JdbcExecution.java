@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Information about a single operation executed by a {@link JdbcTemplate},
+ * as exposed to {@link JdbcExecutionListener JdbcExecutionListeners}.
+ *
+ * <p>Times are measured in nanoseconds via {@link System#nanoTime()}. Counts
+ * which could not be determined for a specific operation are exposed as -1.
+ *
+ * @author agent
+ * @since 5.2
+ * @see JdbcExecutionListener
+ */
+public class JdbcExecution {
+
+	private final Operation operation;
+
+	@Nullable
+	private final String sql;
+
+	private final long startTime = System.nanoTime();
+
+	private int parameterCount = -1;
+
+	private int batchSize;
+
+	private int rowCount = -1;
+
+	private long connectionAcquisitionTime;
+
+	private boolean connectionAcquired;
+
+	private long executionStartTime;
+
+	private long executionTime;
+
+	@Nullable
+	private Throwable failure;
+
+
+	JdbcExecution(Operation operation, @Nullable String sql, int parameterCount) {
+		this.operation = operation;
+		this.sql = sql;
+		this.parameterCount = parameterCount;
+	}
+
+
+	/**
+	 * Return the type of operation executed.
+	 */
+	public Operation getOperation() {
+		return this.operation;
+	}
+
+	/**
+	 * Return the SQL executed, if known. For a batch of static statements,
+	 * this is the concatenation of all statements, separated by "; ".
+	 */
+	@Nullable
+	public String getSql() {
+		return this.sql;
+	}
+
+	/**
+	 * Return the number of bind parameters set for the statement,
+	 * or -1 if not known (e.g. for batch updates and custom callbacks).
+	 */
+	public int getParameterCount() {
+		return this.parameterCount;
+	}
+
+	/**
+	 * Return the number of statements executed as a batch,
+	 * or 0 if the operation has not been a batch update.
+	 */
+	public int getBatchSize() {
+		return this.batchSize;
+	}
+
+	/**
+	 * Return the number of rows affected by an update or read by a query,
+	 * or -1 if not known (e.g. for custom ResultSetExtractors, custom callbacks,
+	 * Stream results or in case of a failure).
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Return the time spent obtaining the JDBC Connection from the DataSource,
+	 * in nanoseconds.
+	 * @see java.util.concurrent.TimeUnit#NANOSECONDS
+	 */
+	public long getConnectionAcquisitionTime() {
+		return this.connectionAcquisitionTime;
+	}
+
+	/**
+	 * Return the time spent executing the operation on the acquired Connection,
+	 * including processing of the results and release of the JDBC resources,
+	 * in nanoseconds.
+	 * @see java.util.concurrent.TimeUnit#NANOSECONDS
+	 */
+	public long getExecutionTime() {
+		return this.executionTime;
+	}
+
+	/**
+	 * Return the exception that the operation failed with, if any
+	 * (typically a translated {@link org.springframework.dao.DataAccessException}).
+	 */
+	@Nullable
+	public Throwable getFailure() {
+		return this.failure;
+	}
+
+
+	void connectionAcquired() {
+		this.connectionAcquired = true;
+		this.executionStartTime = System.nanoTime();
+		this.connectionAcquisitionTime = this.executionStartTime - this.startTime;
+	}
+
+	void completed() {
+		if (this.connectionAcquired) {
+			this.executionTime = System.nanoTime() - this.executionStartTime;
+		}
+	}
+
+	void setRowCount(int rowCount) {
+		this.rowCount = rowCount;
+	}
+
+	void addUpdateCounts(int[] updateCounts) {
+		this.batchSize += updateCounts.length;
+		for (int updateCount : updateCounts) {
+			if (updateCount >= 0) {
+				this.rowCount = Math.max(this.rowCount, 0) + updateCount;
+			}
+		}
+	}
+
+	void setFailure(Throwable failure) {
+		this.failure = failure;
+	}
+
+
+	@Override
+	public String toString() {
+		return "JdbcExecution: operation=" + this.operation + "; sql=[" + this.sql + "]; parameterCount=" +
+				this.parameterCount + "; batchSize=" + this.batchSize + "; rowCount=" + this.rowCount +
+				"; connectionAcquisitionTime=" + this.connectionAcquisitionTime + "ns; executionTime=" +
+				this.executionTime + "ns" + (this.failure != null ? "; failure=" + this.failure : "");
+	}
+
+
+	/**
+	 * The types of operations executed by a {@link JdbcTemplate}.
+	 */
+	public enum Operation {
+
+		/** Execution of a static or custom statement, or of a custom callback. */
+		EXECUTE,
+
+		/** A query, reading rows from a ResultSet. */
+		QUERY,
+
+		/** A single update statement. */
+		UPDATE,
+
+		/** A batch of update statements. */
+		BATCH_UPDATE,
+
+		/** A call of a stored procedure through a CallableStatement. */
+		CALL
+	}
+
+}
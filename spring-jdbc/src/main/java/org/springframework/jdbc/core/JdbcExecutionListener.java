@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+/**
+ * Callback interface for observing the operations executed by a {@link JdbcTemplate},
+ * e.g. for recording statement timings and row counts in a metrics system.
+ *
+ * <p>Listeners are invoked on the executing thread once an operation has completed,
+ * successfully or not, with the connection already released (or, in case of a
+ * {@code queryForStream} result, handed over to the Stream). No execution
+ * information gets collected at all when no listener is registered.
+ *
+ * @author agent
+ * @since 5.2
+ * @see JdbcTemplate#addExecutionListener
+ * @see JdbcExecution
+ */
+@FunctionalInterface
+public interface JdbcExecutionListener {
+
+	/**
+	 * Called after the given JDBC operation has been executed.
+	 * <p>An exception thrown from this method will be logged but
+	 * not propagated to the caller of the operation.
+	 * @param execution the execution information
+	 * (only valid for the duration of this call)
+	 */
+	void executionCompleted(JdbcExecution execution);
+
+}
@@ -34,6 +34,12 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
@@ -146,6 +152,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/** Listeners to notify of executed operations. */
+	private final List<JdbcExecutionListener> executionListeners = new CopyOnWriteArrayList<>();
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -310,6 +319,37 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Specify the listeners to notify of each operation executed by this template,
+	 * replacing any listeners registered before.
+	 * <p>Execution information such as timings and row counts is only collected
+	 * if at least one listener has been registered.
+	 * @since 5.2
+	 * @see JdbcExecution
+	 */
+	public void setExecutionListeners(List<JdbcExecutionListener> executionListeners) {
+		this.executionListeners.clear();
+		this.executionListeners.addAll(executionListeners);
+	}
+
+	/**
+	 * Add a listener to notify of each operation executed by this template.
+	 * @since 5.2
+	 * @see #setExecutionListeners
+	 */
+	public void addExecutionListener(JdbcExecutionListener executionListener) {
+		Assert.notNull(executionListener, "JdbcExecutionListener must not be null");
+		this.executionListeners.add(executionListener);
+	}
+
+	/**
+	 * Return the listeners to notify of each operation executed by this template.
+	 * @since 5.2
+	 */
+	public List<JdbcExecutionListener> getExecutionListeners() {
+		return Collections.unmodifiableList(this.executionListeners);
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -320,7 +360,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(ConnectionCallback<T> action) throws DataAccessException {
 		Assert.notNull(action, "Callback object must not be null");
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.EXECUTE, action);
+		Connection con = getConnection(execution);
 		try {
 			// Create close-suppressing Connection proxy, also preparing returned Statements.
 			Connection conToUse = createConnectionProxy(con);
@@ -332,10 +373,15 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			String sql = getSql(action);
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("ConnectionCallback", sql, ex);
+			throw failed(execution, translateException("ConnectionCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			failed(execution, ex);
+			throw ex;
 		}
 		finally {
 			DataSourceUtils.releaseConnection(con, getDataSource());
+			completed(execution);
 		}
 	}
 
@@ -365,15 +411,37 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	@Override
 	@Nullable
 	public <T> T execute(StatementCallback<T> action) throws DataAccessException {
+		return execute(action, null, startExecution(JdbcExecution.Operation.EXECUTE, action));
+	}
+
+	/**
+	 * Execute the given JDBC Statement callback, optionally leaving the
+	 * Statement and Connection open for a result that keeps using them.
+	 * @param action the callback to execute
+	 * @param openResultHandler if not {@code null}, the Statement and Connection
+	 * are left open on completion, and the handler receives the Connection along
+	 * with the result of the callback, being responsible for releasing the
+	 * Connection (except for the case of an exception thrown by the callback)
+	 * @param execution the execution information to record, if observed
+	 * @see #queryForStream(String, RowMapper)
+	 */
+	@Nullable
+	private <T> T execute(StatementCallback<T> action, @Nullable BiFunction<Connection, T, T> openResultHandler,
+			@Nullable JdbcExecution execution) throws DataAccessException {
+
 		Assert.notNull(action, "Callback object must not be null");
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		boolean closeResources = (openResultHandler == null);
+		Connection con = getConnection(execution);
 		Statement stmt = null;
 		try {
 			stmt = con.createStatement();
 			applyStatementSettings(stmt);
 			T result = action.doInStatement(stmt);
 			handleWarnings(stmt);
+			if (openResultHandler != null && result != null) {
+				result = openResultHandler.apply(con, result);
+			}
 			return result;
 		}
 		catch (SQLException ex) {
@@ -384,11 +452,19 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			stmt = null;
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("StatementCallback", sql, ex);
+			throw failed(execution, translateException("StatementCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			closeResources = true;
+			failed(execution, ex);
+			throw ex;
 		}
 		finally {
-			JdbcUtils.closeStatement(stmt);
-			DataSourceUtils.releaseConnection(con, getDataSource());
+			if (closeResources) {
+				JdbcUtils.closeStatement(stmt);
+				DataSourceUtils.releaseConnection(con, getDataSource());
+			}
+			completed(execution);
 		}
 	}
 
@@ -414,7 +490,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 		}
 
-		execute(new ExecuteStatementCallback());
+		execute(new ExecuteStatementCallback(), null, startExecution(JdbcExecution.Operation.EXECUTE, sql, 0));
 	}
 
 	@Override
@@ -425,6 +501,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing SQL query [" + sql + "]");
 		}
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.QUERY, sql, 0);
 
 		/**
 		 * Callback to execute the query.
@@ -436,7 +513,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				ResultSet rs = null;
 				try {
 					rs = stmt.executeQuery(sql);
-					return rse.extractData(rs);
+					T result = rse.extractData(rs);
+					recordRowCount(execution, rse, result);
+					return result;
 				}
 				finally {
 					JdbcUtils.closeResultSet(rs);
@@ -448,7 +527,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 		}
 
-		return execute(new QueryStatementCallback());
+		return execute(new QueryStatementCallback(), null, execution);
 	}
 
 	@Override
@@ -461,6 +540,36 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper) throws DataAccessException {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing SQL query [" + sql + "]");
+		}
+
+		/**
+		 * Callback to execute the query, leaving the Statement open for the Stream.
+		 */
+		class StreamStatementCallback implements StatementCallback<Stream<T>>, SqlProvider {
+			@Override
+			public Stream<T> doInStatement(Statement stmt) throws SQLException {
+				ResultSet rs = stmt.executeQuery(sql);
+				return new ResultSetSpliterator<>(rs, rowMapper, sql).stream().onClose(() -> {
+					JdbcUtils.closeResultSet(rs);
+					JdbcUtils.closeStatement(stmt);
+				});
+			}
+			@Override
+			public String getSql() {
+				return sql;
+			}
+		}
+
+		return result(execute(new StreamStatementCallback(), releaseConnectionOnClose(),
+				startExecution(JdbcExecution.Operation.QUERY, sql, 0)));
+	}
+
 	@Override
 	public Map<String, Object> queryForMap(String sql) throws DataAccessException {
 		return result(queryForObject(sql, getColumnMapRowMapper()));
@@ -500,6 +609,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing SQL update [" + sql + "]");
 		}
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.UPDATE, sql, 0);
 
 		/**
 		 * Callback to execute the update statement.
@@ -511,6 +621,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				if (logger.isTraceEnabled()) {
 					logger.trace("SQL update affected " + rows + " rows");
 				}
+				if (execution != null) {
+					execution.setRowCount(rows);
+				}
 				return rows;
 			}
 			@Override
@@ -519,7 +632,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 		}
 
-		return updateCount(execute(new UpdateStatementCallback()));
+		return updateCount(execute(new UpdateStatementCallback(), null, execution));
 	}
 
 	@Override
@@ -528,6 +641,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing SQL batch update of " + sql.length + " statements");
 		}
+		JdbcExecution execution = (this.executionListeners.isEmpty() ? null : startExecution(
+				JdbcExecution.Operation.BATCH_UPDATE, StringUtils.arrayToDelimitedString(sql, "; "), 0));
 
 		/**
 		 * Callback to execute the batch update.
@@ -572,6 +687,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 						}
 					}
 				}
+				if (execution != null) {
+					execution.addUpdateCounts(rowsAffected);
+				}
 				return rowsAffected;
 			}
 
@@ -586,7 +704,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 		}
 
-		int[] result = execute(new BatchUpdateStatementCallback());
+		int[] result = execute(new BatchUpdateStatementCallback(), null, execution);
 		Assert.state(result != null, "No update counts");
 		return result;
 	}
@@ -601,6 +719,26 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	public <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action)
 			throws DataAccessException {
 
+		return execute(psc, action, null, startExecution(JdbcExecution.Operation.EXECUTE, psc, null));
+	}
+
+	/**
+	 * Execute the given JDBC PreparedStatement callback, optionally leaving the
+	 * PreparedStatement and Connection open for a result that keeps using them.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param action the callback to execute
+	 * @param openResultHandler if not {@code null}, the PreparedStatement and
+	 * Connection are left open on completion, and the handler receives the Connection
+	 * along with the result of the callback, being responsible for releasing the
+	 * Connection (except for the case of an exception thrown by the callback)
+	 * @param execution the execution information to record, if observed
+	 * @see #queryForStream(PreparedStatementCreator, PreparedStatementSetter, RowMapper)
+	 */
+	@Nullable
+	private <T> T execute(PreparedStatementCreator psc, PreparedStatementCallback<T> action,
+			@Nullable BiFunction<Connection, T, T> openResultHandler, @Nullable JdbcExecution execution)
+			throws DataAccessException {
+
 		Assert.notNull(psc, "PreparedStatementCreator must not be null");
 		Assert.notNull(action, "Callback object must not be null");
 		if (logger.isDebugEnabled()) {
@@ -608,13 +746,17 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing prepared SQL statement" + (sql != null ? " [" + sql + "]" : ""));
 		}
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		boolean closeResources = (openResultHandler == null);
+		Connection con = getConnection(execution);
 		PreparedStatement ps = null;
 		try {
 			ps = psc.createPreparedStatement(con);
 			applyStatementSettings(ps);
 			T result = action.doInPreparedStatement(ps);
 			handleWarnings(ps);
+			if (openResultHandler != null && result != null) {
+				result = openResultHandler.apply(con, result);
+			}
 			return result;
 		}
 		catch (SQLException ex) {
@@ -629,14 +771,22 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			ps = null;
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("PreparedStatementCallback", sql, ex);
+			throw failed(execution, translateException("PreparedStatementCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			closeResources = true;
+			failed(execution, ex);
+			throw ex;
 		}
 		finally {
-			if (psc instanceof ParameterDisposer) {
-				((ParameterDisposer) psc).cleanupParameters();
+			if (closeResources) {
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+				DataSourceUtils.releaseConnection(con, getDataSource());
 			}
-			JdbcUtils.closeStatement(ps);
-			DataSourceUtils.releaseConnection(con, getDataSource());
+			completed(execution);
 		}
 	}
 
@@ -665,6 +815,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		Assert.notNull(rse, "ResultSetExtractor must not be null");
 		logger.debug("Executing prepared SQL query");
 
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.QUERY, psc, pss);
 		return execute(psc, new PreparedStatementCallback<T>() {
 			@Override
 			@Nullable
@@ -675,7 +826,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 						pss.setValues(ps);
 					}
 					rs = ps.executeQuery();
-					return rse.extractData(rs);
+					T result = rse.extractData(rs);
+					recordRowCount(execution, rse, result);
+					return result;
 				}
 				finally {
 					JdbcUtils.closeResultSet(rs);
@@ -684,7 +837,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					}
 				}
 			}
-		});
+		}, null, execution);
 	}
 
 	@Override
@@ -767,6 +920,64 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new RowMapperResultSetExtractor<>(rowMapper)));
 	}
 
+	/**
+	 * Query using a prepared statement, allowing for a PreparedStatementCreator
+	 * and a PreparedStatementSetter, mapping each row to a result object via a
+	 * RowMapper, and turning it into an iterable and closeable Stream.
+	 * Most other {@code queryForStream} methods use this method.
+	 * @param psc a callback that creates a PreparedStatement given a Connection
+	 * @param pss a callback that knows how to set values on the prepared statement.
+	 * If this is {@code null}, the SQL will be assumed to contain no bind parameters.
+	 * @param rowMapper a callback that will map one object per row
+	 * @return the result Stream, containing mapped objects, needing to be
+	 * closed once fully processed (e.g. through a try-with-resources clause)
+	 * @throws DataAccessException if the query fails
+	 * @since 5.2
+	 */
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss,
+			RowMapper<T> rowMapper) throws DataAccessException {
+
+		Assert.notNull(rowMapper, "RowMapper must not be null");
+		logger.debug("Executing prepared SQL query");
+
+		String sql = getSql(psc);
+		return result(execute(psc, ps -> {
+			if (pss != null) {
+				pss.setValues(ps);
+			}
+			ResultSet rs = ps.executeQuery();
+			return new ResultSetSpliterator<>(rs, rowMapper, sql).stream().onClose(() -> {
+				JdbcUtils.closeResultSet(rs);
+				if (pss instanceof ParameterDisposer) {
+					((ParameterDisposer) pss).cleanupParameters();
+				}
+				if (psc instanceof ParameterDisposer) {
+					((ParameterDisposer) psc).cleanupParameters();
+				}
+				JdbcUtils.closeStatement(ps);
+			});
+		}, releaseConnectionOnClose(), startExecution(JdbcExecution.Operation.QUERY, psc, pss)));
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(PreparedStatementCreator psc, RowMapper<T> rowMapper) throws DataAccessException {
+		return queryForStream(psc, null, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, @Nullable PreparedStatementSetter pss, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), pss, rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, RowMapper<T> rowMapper, @Nullable Object... args)
+			throws DataAccessException {
+
+		return queryForStream(new SimplePreparedStatementCreator(sql), newArgPreparedStatementSetter(args), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, Object[] args, int[] argTypes, RowMapper<T> rowMapper)
@@ -858,6 +1069,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 		logger.debug("Executing prepared SQL update");
 
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.UPDATE, psc, pss);
 		return updateCount(execute(psc, ps -> {
 			try {
 				if (pss != null) {
@@ -867,6 +1079,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				if (logger.isTraceEnabled()) {
 					logger.trace("SQL update affected " + rows + " rows");
 				}
+				if (execution != null) {
+					execution.setRowCount(rows);
+				}
 				return rows;
 			}
 			finally {
@@ -874,7 +1089,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
 			}
-		}));
+		}, null, execution));
 	}
 
 	@Override
@@ -889,6 +1104,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		Assert.notNull(generatedKeyHolder, "KeyHolder must not be null");
 		logger.debug("Executing SQL update and returning generated keys");
 
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.UPDATE, psc, null);
 		return updateCount(execute(psc, ps -> {
 			int rows = ps.executeUpdate();
 			List<Map<String, Object>> generatedKeys = generatedKeyHolder.getKeyList();
@@ -907,8 +1123,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			if (logger.isTraceEnabled()) {
 				logger.trace("SQL update affected " + rows + " rows and returned " + generatedKeys.size() + " keys");
 			}
+			if (execution != null) {
+				execution.setRowCount(rows);
+			}
 			return rows;
-		}));
+		}, null, execution));
 	}
 
 	@Override
@@ -932,7 +1151,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing SQL batch update [" + sql + "]");
 		}
 
-		int[] result = execute(sql, (PreparedStatementCallback<int[]>) ps -> {
+		PreparedStatementCreator psc = new SimplePreparedStatementCreator(sql);
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.BATCH_UPDATE, psc, null);
+		int[] result = execute(psc, (PreparedStatementCallback<int[]>) ps -> {
 			try {
 				int batchSize = pss.getBatchSize();
 				InterruptibleBatchPreparedStatementSetter ipss =
@@ -946,7 +1167,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 						}
 						ps.addBatch();
 					}
-					return ps.executeBatch();
+					int[] rowsAffected = ps.executeBatch();
+					if (execution != null) {
+						execution.addUpdateCounts(rowsAffected);
+					}
+					return rowsAffected;
 				}
 				else {
 					List<Integer> rowsAffected = new ArrayList<>();
@@ -961,6 +1186,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					for (int i = 0; i < rowsAffectedArray.length; i++) {
 						rowsAffectedArray[i] = rowsAffected.get(i);
 					}
+					if (execution != null) {
+						execution.addUpdateCounts(rowsAffectedArray);
+					}
 					return rowsAffectedArray;
 				}
 			}
@@ -969,7 +1197,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
 			}
-		});
+		}, null, execution);
 
 		Assert.state(result != null, "No result array");
 		return result;
@@ -1025,7 +1253,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing SQL batch update [" + sql + "] with a batch size of " + batchSize);
 		}
-		int[][] result = execute(sql, (PreparedStatementCallback<int[][]>) ps -> {
+		PreparedStatementCreator psc = new SimplePreparedStatementCreator(sql);
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.BATCH_UPDATE, psc, null);
+		int[][] result = execute(psc, (PreparedStatementCallback<int[][]>) ps -> {
 			List<int[]> rowsAffected = new ArrayList<>();
 			try {
 				boolean batchSupported = JdbcUtils.supportsBatchUpdates(ps.getConnection());
@@ -1052,6 +1282,9 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 				int[][] result1 = new int[rowsAffected.size()][];
 				for (int i = 0; i < result1.length; i++) {
 					result1[i] = rowsAffected.get(i);
+					if (execution != null) {
+						execution.addUpdateCounts(result1[i]);
+					}
 				}
 				return result1;
 			}
@@ -1060,7 +1293,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 					((ParameterDisposer) pss).cleanupParameters();
 				}
 			}
-		});
+		}, null, execution);
 
 		Assert.state(result != null, "No result array");
 		return result;
@@ -1083,7 +1316,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Calling stored procedure" + (sql != null ? " [" + sql  + "]" : ""));
 		}
 
-		Connection con = DataSourceUtils.getConnection(obtainDataSource());
+		JdbcExecution execution = startExecution(JdbcExecution.Operation.CALL, csc);
+		Connection con = getConnection(execution);
 		CallableStatement cs = null;
 		try {
 			cs = csc.createCallableStatement(con);
@@ -1104,7 +1338,11 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			cs = null;
 			DataSourceUtils.releaseConnection(con, getDataSource());
 			con = null;
-			throw translateException("CallableStatementCallback", sql, ex);
+			throw failed(execution, translateException("CallableStatementCallback", sql, ex));
+		}
+		catch (RuntimeException | Error ex) {
+			failed(execution, ex);
+			throw ex;
 		}
 		finally {
 			if (csc instanceof ParameterDisposer) {
@@ -1112,6 +1350,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			}
 			JdbcUtils.closeStatement(cs);
 			DataSourceUtils.releaseConnection(con, getDataSource());
+			completed(execution);
 		}
 	}
 
@@ -1444,6 +1683,104 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * Obtain a JDBC Connection from the DataSource, recording the time spent
+	 * (or the failure to obtain it) for the given execution.
+	 * @param execution the execution information to record, if observed
+	 */
+	private Connection getConnection(@Nullable JdbcExecution execution) {
+		if (execution == null) {
+			return DataSourceUtils.getConnection(obtainDataSource());
+		}
+		try {
+			Connection con = DataSourceUtils.getConnection(obtainDataSource());
+			execution.connectionAcquired();
+			return con;
+		}
+		catch (RuntimeException | Error ex) {
+			execution.setFailure(ex);
+			completed(execution);
+			throw ex;
+		}
+	}
+
+	/**
+	 * Start recording an execution of the given operation,
+	 * if any {@link JdbcExecutionListener} has been registered.
+	 * @return the execution information, or {@code null} if not observed
+	 */
+	@Nullable
+	private JdbcExecution startExecution(JdbcExecution.Operation operation, @Nullable String sql, int parameterCount) {
+		return (this.executionListeners.isEmpty() ? null : new JdbcExecution(operation, sql, parameterCount));
+	}
+
+	@Nullable
+	private JdbcExecution startExecution(JdbcExecution.Operation operation, Object sqlProvider) {
+		return (this.executionListeners.isEmpty() ? null : new JdbcExecution(operation, getSql(sqlProvider), -1));
+	}
+
+	@Nullable
+	private JdbcExecution startExecution(JdbcExecution.Operation operation,
+			PreparedStatementCreator psc, @Nullable PreparedStatementSetter pss) {
+
+		if (this.executionListeners.isEmpty()) {
+			return null;
+		}
+		Object parameterSource = (pss != null ? pss : psc);
+		int parameterCount = -1;
+		if (parameterSource instanceof ArgumentPreparedStatementSetter) {
+			parameterCount = ((ArgumentPreparedStatementSetter) parameterSource).getParameterCount();
+		}
+		else if (parameterSource instanceof ArgumentTypePreparedStatementSetter) {
+			parameterCount = ((ArgumentTypePreparedStatementSetter) parameterSource).getParameterCount();
+		}
+		else if (parameterSource instanceof PreparedStatementCreatorFactory.PreparedStatementCreatorImpl) {
+			parameterCount = ((PreparedStatementCreatorFactory.PreparedStatementCreatorImpl) parameterSource).getParameterCount();
+		}
+		else if (parameterSource instanceof SimplePreparedStatementCreator) {
+			parameterCount = 0;
+		}
+		return new JdbcExecution(operation, getSql(psc), parameterCount);
+	}
+
+	private static void recordRowCount(
+			@Nullable JdbcExecution execution, ResultSetExtractor<?> rse, @Nullable Object result) {
+
+		if (execution != null) {
+			if (rse instanceof RowCallbackHandlerResultSetExtractor) {
+				execution.setRowCount(((RowCallbackHandlerResultSetExtractor) rse).rowCount);
+			}
+			else if (rse instanceof RowMapperResultSetExtractor && result instanceof List) {
+				execution.setRowCount(((List<?>) result).size());
+			}
+		}
+	}
+
+	private static <E extends Throwable> E failed(@Nullable JdbcExecution execution, E ex) {
+		if (execution != null) {
+			execution.setFailure(ex);
+		}
+		return ex;
+	}
+
+	/**
+	 * Complete the given execution and notify all registered listeners.
+	 * @param execution the execution information, if observed
+	 */
+	private void completed(@Nullable JdbcExecution execution) {
+		if (execution != null) {
+			execution.completed();
+			for (JdbcExecutionListener listener : this.executionListeners) {
+				try {
+					listener.executionCompleted(execution);
+				}
+				catch (Throwable ex) {
+					logger.warn("JdbcExecutionListener threw exception", ex);
+				}
+			}
+		}
+	}
+
 	/**
 	 * Determine SQL from potential provider object.
 	 * @param sqlProvider object which is potentially a SqlProvider
@@ -1460,6 +1797,16 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		}
 	}
 
+	/**
+	 * Return a handler for {@code execute} that leaves the Connection open for
+	 * the returned Stream, releasing it once the Stream gets closed. This is
+	 * the Connection obtained from the DataSource, not the underlying one that
+	 * the Statement may expose, so that wrapping DataSources get it back.
+	 */
+	private <T> BiFunction<Connection, Stream<T>, Stream<T>> releaseConnectionOnClose() {
+		return (con, stream) -> stream.onClose(() -> DataSourceUtils.releaseConnection(con, getDataSource()));
+	}
+
 	private static <T> T result(@Nullable T result) {
 		Assert.state(result != null, "No result");
 		return result;
@@ -1586,6 +1933,64 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * Spliterator for queryForStream adaptation of a ResultSet to a Stream,
+	 * fetching and mapping one row per advance call.
+	 * @since 5.2
+	 */
+	private class ResultSetSpliterator<T> implements Spliterator<T> {
+
+		private final ResultSet rs;
+
+		private final RowMapper<T> rowMapper;
+
+		@Nullable
+		private final String sql;
+
+		private int rowNum = 0;
+
+		public ResultSetSpliterator(ResultSet rs, RowMapper<T> rowMapper, @Nullable String sql) {
+			this.rs = rs;
+			this.rowMapper = RowMapperResultSetExtractor.resultSetRowMapper(rowMapper);
+			this.sql = sql;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			try {
+				if (this.rs.next()) {
+					action.accept(this.rowMapper.mapRow(this.rs, this.rowNum++));
+					return true;
+				}
+				return false;
+			}
+			catch (SQLException ex) {
+				throw translateException("ResultSetSpliterator", this.sql, ex);
+			}
+		}
+
+		@Override
+		@Nullable
+		public Spliterator<T> trySplit() {
+			return null;
+		}
+
+		@Override
+		public long estimateSize() {
+			return Long.MAX_VALUE;
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.ORDERED;
+		}
+
+		public Stream<T> stream() {
+			return StreamSupport.stream(this, false);
+		}
+	}
+
+
 	/**
 	 * Adapter to enable use of a RowCallbackHandler inside a ResultSetExtractor.
 	 * <p>Uses a regular ResultSet, so we have to be careful when using it:
@@ -1595,6 +2000,8 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 
 		private final RowCallbackHandler rch;
 
+		int rowCount;
+
 		public RowCallbackHandlerResultSetExtractor(RowCallbackHandler rch) {
 			this.rch = rch;
 		}
@@ -1604,6 +2011,7 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		public Object extractData(ResultSet rs) throws SQLException {
 			while (rs.next()) {
 				this.rch.processRow(rs);
+				this.rowCount++;
 			}
 			return null;
 		}
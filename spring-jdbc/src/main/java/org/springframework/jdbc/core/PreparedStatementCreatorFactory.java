@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -188,7 +188,7 @@ public class PreparedStatementCreatorFactory {
 	/**
 	 * PreparedStatementCreator implementation returned by this class.
 	 */
-	private class PreparedStatementCreatorImpl
+	class PreparedStatementCreatorImpl
 			implements PreparedStatementCreator, PreparedStatementSetter, SqlProvider, ParameterDisposer {
 
 		private final String actualSql;
@@ -298,6 +298,10 @@ public class PreparedStatementCreatorFactory {
 			StatementCreatorUtils.cleanupParameters(this.parameters);
 		}
 
+		int getParameterCount() {
+			return this.parameters.size();
+		}
+
 		@Override
 		public String toString() {
 			return "PreparedStatementCreator: sql=[" + sql + "]; parameters=" + this.parameters;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -89,11 +89,25 @@ public class RowMapperResultSetExtractor<T> implements ResultSetExtractor<List<T
 	@Override
 	public List<T> extractData(ResultSet rs) throws SQLException {
 		List<T> results = (this.rowsExpected > 0 ? new ArrayList<>(this.rowsExpected) : new ArrayList<>());
+		RowMapper<T> rowMapper = resultSetRowMapper(this.rowMapper);
 		int rowNum = 0;
 		while (rs.next()) {
-			results.add(this.rowMapper.mapRow(rs, rowNum++));
+			results.add(rowMapper.mapRow(rs, rowNum++));
 		}
 		return results;
 	}
 
+
+	/**
+	 * Return the RowMapper to use for the rows of a single ResultSet:
+	 * a dedicated one in case of a compiled {@link BeanPropertyRowMapper},
+	 * resolving its mapping once per ResultSet, or the given RowMapper itself.
+	 * @param rowMapper the RowMapper specified for the query
+	 * @see BeanPropertyRowMapper#setCompiledMapping
+	 */
+	static <T> RowMapper<T> resultSetRowMapper(RowMapper<T> rowMapper) {
+		return (rowMapper instanceof BeanPropertyRowMapper ?
+				((BeanPropertyRowMapper<T>) rowMapper).resultSetRowMapper() : rowMapper);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -73,6 +73,12 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 	private List<String> productsNotSupportingGeneratedKeysColumnNameArray =
 			Arrays.asList("Apache Derby", "HSQL Database Engine");
 
+	/** maximum number of bind parameters per multi-row insert, 0 if not supported. */
+	private int multiRowInsertParameterLimit = 0;
+
+	/** maximum number of rows per multi-row insert. */
+	private int multiRowInsertRowLimit = Integer.MAX_VALUE;
+
 	/** Collection of TableParameterMetaData objects. */
 	private List<TableParameterMetaData> tableParameterMetaData = new ArrayList<>();
 
@@ -142,6 +148,24 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 		return this.generatedKeysColumnNameArraySupported;
 	}
 
+	public void setMultiRowInsertParameterLimit(int multiRowInsertParameterLimit) {
+		this.multiRowInsertParameterLimit = multiRowInsertParameterLimit;
+	}
+
+	@Override
+	public int getMultiRowInsertParameterLimit() {
+		return this.multiRowInsertParameterLimit;
+	}
+
+	public void setMultiRowInsertRowLimit(int multiRowInsertRowLimit) {
+		this.multiRowInsertRowLimit = multiRowInsertRowLimit;
+	}
+
+	@Override
+	public int getMultiRowInsertRowLimit() {
+		return this.multiRowInsertRowLimit;
+	}
+
 
 	@Override
 	public void initializeWithMetaData(DatabaseMetaData databaseMetaData) throws SQLException {
@@ -179,6 +203,7 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 					setGeneratedKeysColumnNameArraySupported(false);
 				}
 			}
+			initializeMultiRowInsertLimits(JdbcUtils.commonDatabaseName(databaseProductName));
 		}
 		catch (SQLException ex) {
 			if (logger.isWarnEnabled()) {
@@ -214,6 +239,50 @@ public class GenericTableMetaDataProvider implements TableMetaDataProvider {
 		}
 	}
 
+	/**
+	 * Initialize the multi-row insert limits for the given database product,
+	 * for the databases known to support multi-row {@code VALUES} lists.
+	 * @param databaseProductName the common name of the database product
+	 * @see #setMultiRowInsertParameterLimit
+	 * @see #setMultiRowInsertRowLimit
+	 */
+	protected void initializeMultiRowInsertLimits(@Nullable String databaseProductName) {
+		if (databaseProductName == null) {
+			return;
+		}
+		switch (databaseProductName) {
+			case "PostgreSQL":
+				setMultiRowInsertParameterLimit(32767);
+				break;
+			case "MySQL":
+				setMultiRowInsertParameterLimit(65535);
+				break;
+			case "Microsoft SQL Server":
+				// Fewer than 2100 parameters per request, leaving room for driver-added ones
+				setMultiRowInsertParameterLimit(2098);
+				setMultiRowInsertRowLimit(1000);
+				break;
+			case "H2":
+			case "HSQL Database Engine":
+				setMultiRowInsertParameterLimit(32767);
+				break;
+			case "Apache Derby":
+				// Derby's statement compiler overflows the stack for long VALUES lists
+				setMultiRowInsertParameterLimit(32767);
+				setMultiRowInsertRowLimit(1000);
+				break;
+			case "SQLite":
+				setMultiRowInsertParameterLimit(999);
+				break;
+			default:
+				// Multi-row inserts not known to be supported
+		}
+		if (this.multiRowInsertParameterLimit > 0 && logger.isDebugEnabled()) {
+			logger.debug("Multi-row inserts are supported for " + databaseProductName +
+					" with up to " + this.multiRowInsertParameterLimit + " parameters per statement");
+		}
+	}
+
 	@Override
 	public void initializeWithTableColumnMetaData(DatabaseMetaData databaseMetaData, @Nullable String catalogName,
 			@Nullable String schemaName, @Nullable String tableName) throws SQLException {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -270,6 +270,20 @@ public class TableMetaDataContext {
 	 * @return the insert string to be used
 	 */
 	public String createInsertString(String... generatedKeyNames) {
+		return createMultiRowInsertString(1, generatedKeyNames);
+	}
+
+	/**
+	 * Build an insert string with a {@code VALUES} list for the given number of rows,
+	 * based on configuration and meta-data information.
+	 * @param rowCount the number of rows to insert with a single statement
+	 * @param generatedKeyNames the names of the generated key columns to leave out
+	 * @return the insert string to be used
+	 * @since 5.2
+	 * @see #getMultiRowInsertParameterLimit()
+	 */
+	public String createMultiRowInsertString(int rowCount, String... generatedKeyNames) {
+		Assert.isTrue(rowCount > 0, "Row count must be greater than 0");
 		Set<String> keys = new LinkedHashSet<>(generatedKeyNames.length);
 		for (String key : generatedKeyNames) {
 			keys.add(key.toUpperCase());
@@ -308,6 +322,9 @@ public class TableMetaDataContext {
 		String params = String.join(", ", Collections.nCopies(columnCount, "?"));
 		insertStatement.append(params);
 		insertStatement.append(")");
+		for (int i = 1; i < rowCount; i++) {
+			insertStatement.append(", (").append(params).append(")");
+		}
 		return insertStatement.toString();
 	}
 
@@ -389,4 +406,23 @@ public class TableMetaDataContext {
 		return obtainMetaDataProvider().isGeneratedKeysColumnNameArraySupported();
 	}
 
+	/**
+	 * Get the maximum number of bind parameters for a single INSERT statement
+	 * with a multi-row {@code VALUES} list, or 0 if not known to be supported.
+	 * @since 5.2
+	 * @see TableMetaDataProvider#getMultiRowInsertParameterLimit()
+	 */
+	public int getMultiRowInsertParameterLimit() {
+		return obtainMetaDataProvider().getMultiRowInsertParameterLimit();
+	}
+
+	/**
+	 * Get the maximum number of rows in a single multi-row {@code VALUES} list.
+	 * @since 5.2
+	 * @see TableMetaDataProvider#getMultiRowInsertRowLimit()
+	 */
+	public int getMultiRowInsertRowLimit() {
+		return obtainMetaDataProvider().getMultiRowInsertRowLimit();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -117,6 +117,28 @@ public interface TableMetaDataProvider {
 	 */
 	boolean isGeneratedKeysColumnNameArraySupported();
 
+	/**
+	 * Get the maximum number of bind parameters for a single INSERT statement
+	 * with a multi-row {@code VALUES} list.
+	 * <p>The default implementation returns 0, indicating that multi-row
+	 * inserts are not known to be supported by the database.
+	 * @since 5.2
+	 * @see #getMultiRowInsertRowLimit()
+	 */
+	default int getMultiRowInsertParameterLimit() {
+		return 0;
+	}
+
+	/**
+	 * Get the maximum number of rows in a single multi-row {@code VALUES} list.
+	 * <p>The default implementation returns {@link Integer#MAX_VALUE}, leaving
+	 * it to the {@link #getMultiRowInsertParameterLimit() parameter limit}.
+	 * @since 5.2
+	 */
+	default int getMultiRowInsertRowLimit() {
+		return Integer.MAX_VALUE;
+	}
+
 	/**
 	 * Get the table parameter meta-data that is currently used.
 	 * @return a List of {@link TableParameterMetaData}
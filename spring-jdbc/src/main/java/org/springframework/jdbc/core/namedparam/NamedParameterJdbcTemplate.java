@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,16 +18,18 @@ package org.springframework.jdbc.core.namedparam;
 
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.support.DataAccessUtils;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcExecutionListener;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.PreparedStatementCallback;
@@ -43,6 +45,7 @@ import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 
 /**
  * Template class with a basic set of JDBC operations, allowing the use
@@ -74,17 +77,13 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	/** The JdbcTemplate we are wrapping. */
 	private final JdbcOperations classicJdbcTemplate;
 
-	private volatile int cacheLimit = DEFAULT_CACHE_LIMIT;
-
 	/** Cache of original SQL String to ParsedSql representation. */
-	@SuppressWarnings("serial")
-	private final Map<String, ParsedSql> parsedSqlCache =
-			new LinkedHashMap<String, ParsedSql>(DEFAULT_CACHE_LIMIT, 0.75f, true) {
-				@Override
-				protected boolean removeEldestEntry(Map.Entry<String, ParsedSql> eldest) {
-					return size() > getCacheLimit();
-				}
-			};
+	private volatile ConcurrentLruCache<String, ParsedSql> parsedSqlCache =
+			new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, NamedParameterUtils::parseSqlStatement);
+
+	/** Cache of original SQL String and placeholder layout to substituted SQL String. */
+	private volatile ConcurrentLruCache<ExpandedSqlKey, String> expandedSqlCache =
+			new ConcurrentLruCache<>(DEFAULT_CACHE_LIMIT, ExpandedSqlKey::expandSql);
 
 
 	/**
@@ -130,18 +129,78 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	}
 
 	/**
-	 * Specify the maximum number of entries for this template's SQL cache.
-	 * Default is 256.
+	 * Add a listener to notify of each operation executed through this template,
+	 * as a shortcut for {@code getJdbcTemplate().addExecutionListener(listener)}.
+	 * <p>Note that the SQL exposed to the listener is the statement as sent to
+	 * the JDBC driver, i.e. with named parameters replaced by placeholders.
+	 * @since 5.2
+	 * @see JdbcTemplate#addExecutionListener
+	 */
+	public void addExecutionListener(JdbcExecutionListener executionListener) {
+		getJdbcTemplate().addExecutionListener(executionListener);
+	}
+
+	/**
+	 * Specify the maximum number of entries for this template's SQL cache,
+	 * applying to parsed as well as to substituted SQL statements.
+	 * Default is 256. 0 indicates no caching, always parsing each statement.
+	 * <p>Note that this replaces the current caches, including their statistics.
 	 */
 	public void setCacheLimit(int cacheLimit) {
-		this.cacheLimit = cacheLimit;
+		int sizeLimit = Math.max(cacheLimit, 0);
+		this.parsedSqlCache = new ConcurrentLruCache<>(sizeLimit, NamedParameterUtils::parseSqlStatement);
+		this.expandedSqlCache = new ConcurrentLruCache<>(sizeLimit, ExpandedSqlKey::expandSql);
 	}
 
 	/**
 	 * Return the maximum number of entries for this template's SQL cache.
 	 */
 	public int getCacheLimit() {
-		return this.cacheLimit;
+		return this.parsedSqlCache.sizeLimit();
+	}
+
+	/**
+	 * Return the number of SQL statements that were served from this
+	 * template's SQL cache, since the cache limit was last specified.
+	 * @since 5.2
+	 * @see #getCacheMissCount()
+	 * @see #getExpandedSqlCacheHitCount()
+	 */
+	public long getCacheHitCount() {
+		return this.parsedSqlCache.hitCount();
+	}
+
+	/**
+	 * Return the number of SQL statements that had to be parsed for this
+	 * template's SQL cache, since the cache limit was last specified.
+	 * @since 5.2
+	 * @see #getCacheHitCount()
+	 * @see #getExpandedSqlCacheMissCount()
+	 */
+	public long getCacheMissCount() {
+		return this.parsedSqlCache.missCount();
+	}
+
+	/**
+	 * Return the number of substituted SQL statements that were served from
+	 * this template's SQL cache, i.e. for a statement whose placeholder layout
+	 * (as determined by collection parameter values) had been expanded before,
+	 * since the cache limit was last specified.
+	 * @since 5.2
+	 * @see #getExpandedSqlCacheMissCount()
+	 */
+	public long getExpandedSqlCacheHitCount() {
+		return this.expandedSqlCache.hitCount();
+	}
+
+	/**
+	 * Return the number of substituted SQL statements that had to be expanded
+	 * for a new placeholder layout, since the cache limit was last specified.
+	 * @since 5.2
+	 * @see #getExpandedSqlCacheHitCount()
+	 */
+	public long getExpandedSqlCacheMissCount() {
+		return this.expandedSqlCache.missCount();
 	}
 
 
@@ -227,6 +286,20 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 		return query(sql, EmptySqlParameterSource.INSTANCE, rowMapper);
 	}
 
+	@Override
+	public <T> Stream<T> queryForStream(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return getJdbcOperations().queryForStream(getPreparedStatementCreator(sql, paramSource), rowMapper);
+	}
+
+	@Override
+	public <T> Stream<T> queryForStream(String sql, Map<String, ?> paramMap, RowMapper<T> rowMapper)
+			throws DataAccessException {
+
+		return queryForStream(sql, new MapSqlParameterSource(paramMap), rowMapper);
+	}
+
 	@Override
 	@Nullable
 	public <T> T queryForObject(String sql, SqlParameterSource paramSource, RowMapper<T> rowMapper)
@@ -425,17 +498,7 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	 * @return a representation of the parsed SQL statement
 	 */
 	protected ParsedSql getParsedSql(String sql) {
-		if (getCacheLimit() <= 0) {
-			return NamedParameterUtils.parseSqlStatement(sql);
-		}
-		synchronized (this.parsedSqlCache) {
-			ParsedSql parsedSql = this.parsedSqlCache.get(sql);
-			if (parsedSql == null) {
-				parsedSql = NamedParameterUtils.parseSqlStatement(sql);
-				this.parsedSqlCache.put(sql, parsedSql);
-			}
-			return parsedSql;
-		}
+		return this.parsedSqlCache.get(sql);
 	}
 
 	/**
@@ -450,9 +513,65 @@ public class NamedParameterJdbcTemplate implements NamedParameterJdbcOperations
 	protected PreparedStatementCreatorFactory getPreparedStatementCreatorFactory(
 			ParsedSql parsedSql, SqlParameterSource paramSource) {
 
-		String sqlToUse = NamedParameterUtils.substituteNamedParameters(parsedSql, paramSource);
+		String sqlToUse = substituteNamedParameters(parsedSql, paramSource);
 		List<SqlParameter> declaredParameters = NamedParameterUtils.buildSqlParameterList(parsedSql, paramSource);
 		return new PreparedStatementCreatorFactory(sqlToUse, declaredParameters);
 	}
 
+	/**
+	 * Substitute JDBC placeholders for the named parameters in the given SQL
+	 * statement, reusing the result for the same placeholder layout.
+	 * @see NamedParameterUtils#substituteNamedParameters(ParsedSql, SqlParameterSource)
+	 */
+	private String substituteNamedParameters(ParsedSql parsedSql, SqlParameterSource paramSource) {
+		if (parsedSql.getParameterNames().isEmpty()) {
+			return parsedSql.getOriginalSql();
+		}
+		int[] expansion = NamedParameterUtils.determineExpansion(parsedSql, paramSource);
+		return this.expandedSqlCache.get(new ExpandedSqlKey(parsedSql, expansion));
+	}
+
+
+	/**
+	 * Cache key for a substituted SQL statement: the original SQL statement
+	 * (keeping a reference to its parsed representation for the substitution)
+	 * and the placeholder layout.
+	 */
+	private static final class ExpandedSqlKey {
+
+		private final ParsedSql parsedSql;
+
+		private final int[] expansion;
+
+		private final int hashCode;
+
+		public ExpandedSqlKey(ParsedSql parsedSql, int[] expansion) {
+			this.parsedSql = parsedSql;
+			this.expansion = expansion;
+			this.hashCode = parsedSql.getOriginalSql().hashCode() * 31 + Arrays.hashCode(expansion);
+		}
+
+		public String expandSql() {
+			return NamedParameterUtils.expandSql(this.parsedSql, this.expansion);
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof ExpandedSqlKey)) {
+				return false;
+			}
+			ExpandedSqlKey otherKey = (ExpandedSqlKey) other;
+			return (this.parsedSql.getOriginalSql().equals(otherKey.parsedSql.getOriginalSql()) &&
+					Arrays.equals(this.expansion, otherKey.expansion));
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,9 +17,9 @@
 package org.springframework.jdbc.core.namedparam;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -267,55 +267,91 @@ public abstract class NamedParameterUtils {
 	 */
 	public static String substituteNamedParameters(ParsedSql parsedSql, @Nullable SqlParameterSource paramSource) {
 		String originalSql = parsedSql.getOriginalSql();
-		List<String> paramNames = parsedSql.getParameterNames();
-		if (paramNames.isEmpty()) {
+		if (parsedSql.getParameterNames().isEmpty()) {
 			return originalSql;
 		}
-		StringBuilder actualSql = new StringBuilder(originalSql.length());
-		int lastIndex = 0;
+		return expandSql(parsedSql, determineExpansion(parsedSql, paramSource));
+	}
+
+	/**
+	 * Determine the placeholder layout for the given parameter values: {@code -1}
+	 * for a single placeholder, or the number of entries for a collection value,
+	 * followed by {@code -1} or the expression list length for each entry.
+	 * <p>Statements with the same layout share the same substituted SQL, so the
+	 * layout can serve as part of a cache key, as in {@link NamedParameterJdbcTemplate}.
+	 */
+	static int[] determineExpansion(ParsedSql parsedSql, @Nullable SqlParameterSource paramSource) {
+		List<String> paramNames = parsedSql.getParameterNames();
+		int[] expansion = new int[paramNames.size()];
+		int length = 0;
 		for (int i = 0; i < paramNames.size(); i++) {
 			String paramName = paramNames.get(i);
-			int[] indexes = parsedSql.getParameterIndexes(i);
-			int startIndex = indexes[0];
-			int endIndex = indexes[1];
-			actualSql.append(originalSql, lastIndex, startIndex);
+			Object value = null;
 			if (paramSource != null && paramSource.hasValue(paramName)) {
-				Object value = paramSource.getValue(paramName);
+				value = paramSource.getValue(paramName);
 				if (value instanceof SqlParameterValue) {
 					value = ((SqlParameterValue) value).getValue();
 				}
-				if (value instanceof Collection) {
-					Iterator<?> entryIter = ((Collection<?>) value).iterator();
-					int k = 0;
-					while (entryIter.hasNext()) {
-						if (k > 0) {
-							actualSql.append(", ");
-						}
-						k++;
-						Object entryItem = entryIter.next();
-						if (entryItem instanceof Object[]) {
-							Object[] expressionList = (Object[]) entryItem;
-							actualSql.append('(');
-							for (int m = 0; m < expressionList.length; m++) {
-								if (m > 0) {
-									actualSql.append(", ");
-								}
-								actualSql.append('?');
-							}
-							actualSql.append(')');
-						}
-						else {
-							actualSql.append('?');
-						}
-					}
+			}
+			if (value instanceof Collection) {
+				Collection<?> entries = (Collection<?>) value;
+				int required = length + 1 + entries.size() + (paramNames.size() - i - 1);
+				if (required > expansion.length) {
+					expansion = Arrays.copyOf(expansion, required);
 				}
-				else {
-					actualSql.append('?');
+				expansion[length++] = entries.size();
+				for (Object entryItem : entries) {
+					expansion[length++] = (entryItem instanceof Object[] ? ((Object[]) entryItem).length : -1);
 				}
 			}
 			else {
+				expansion[length++] = -1;
+			}
+		}
+		return (length == expansion.length ? expansion : Arrays.copyOf(expansion, length));
+	}
+
+	/**
+	 * Build the actual SQL statement, substituting placeholders according to
+	 * the given layout.
+	 * @see #determineExpansion(ParsedSql, SqlParameterSource)
+	 */
+	static String expandSql(ParsedSql parsedSql, int[] expansion) {
+		String originalSql = parsedSql.getOriginalSql();
+		List<String> paramNames = parsedSql.getParameterNames();
+		StringBuilder actualSql = new StringBuilder(originalSql.length() + expansion.length * 3);
+		int lastIndex = 0;
+		int pos = 0;
+		for (int i = 0; i < paramNames.size(); i++) {
+			int[] indexes = parsedSql.getParameterIndexes(i);
+			int startIndex = indexes[0];
+			int endIndex = indexes[1];
+			actualSql.append(originalSql, lastIndex, startIndex);
+			int entryCount = expansion[pos++];
+			if (entryCount < 0) {
 				actualSql.append('?');
 			}
+			else {
+				for (int k = 0; k < entryCount; k++) {
+					if (k > 0) {
+						actualSql.append(", ");
+					}
+					int expressionListLength = expansion[pos++];
+					if (expressionListLength >= 0) {
+						actualSql.append('(');
+						for (int m = 0; m < expressionListLength; m++) {
+							if (m > 0) {
+								actualSql.append(", ");
+							}
+							actualSql.append('?');
+						}
+						actualSql.append(')');
+					}
+					else {
+						actualSql.append('?');
+					}
+				}
+			}
 			lastIndex = endIndex;
 		}
 		actualSql.append(originalSql, lastIndex, originalSql.length());
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -87,6 +87,18 @@ public abstract class AbstractJdbcInsert {
 	/** The SQL type information for the insert columns. */
 	private int[] insertTypes = new int[0];
 
+	/** The maximum number of rows per INSERT statement in batch executions. */
+	private int multiRowInsertSize = 1;
+
+	/** The maximum number of bind parameters per multi-row INSERT statement, if specified. */
+	private int maxInsertParameters = -1;
+
+	/** The number of rows per INSERT statement in batch executions, as determined on compilation. */
+	private int rowsPerInsertStatement = 1;
+
+	/** The generated string used for multi-row insert statements with the full number of rows. */
+	private String multiRowInsertString = "";
+
 
 	/**
 	 * Constructor to be used when initializing using a {@link DataSource}.
@@ -220,6 +232,52 @@ public abstract class AbstractJdbcInsert {
 		this.tableMetaDataContext.setOverrideIncludeSynonymsDefault(override);
 	}
 
+	/**
+	 * Specify the maximum number of rows to insert with a single INSERT statement
+	 * in batch executions, using a multi-row {@code VALUES} list.
+	 * <p>Default is 1, executing a JDBC batch of single-row INSERT statements.
+	 * A larger value rewrites batch inserts into chunks of multi-row INSERT
+	 * statements, provided that the database is known to support those or that a
+	 * {@link #setMaxInsertParameters parameter limit} has been specified. The chunk
+	 * size is further limited by the database's maximum number of bind parameters.
+	 * <p>Note that batch executions return one update count per executed
+	 * statement in that case, i.e. per chunk of rows instead of per row.
+	 * @since 5.2
+	 * @see TableMetaDataContext#getMultiRowInsertParameterLimit()
+	 */
+	public void setMultiRowInsertSize(int multiRowInsertSize) {
+		checkIfConfigurationModificationIsAllowed();
+		this.multiRowInsertSize = multiRowInsertSize;
+	}
+
+	/**
+	 * Get the maximum number of rows to insert with a single INSERT statement.
+	 * @since 5.2
+	 */
+	public int getMultiRowInsertSize() {
+		return this.multiRowInsertSize;
+	}
+
+	/**
+	 * Specify the maximum number of bind parameters for a single multi-row
+	 * INSERT statement, overriding or narrowing the limit derived from the
+	 * database meta-data. Default is none (-1), using the database limit.
+	 * @since 5.2
+	 * @see #setMultiRowInsertSize
+	 */
+	public void setMaxInsertParameters(int maxInsertParameters) {
+		checkIfConfigurationModificationIsAllowed();
+		this.maxInsertParameters = maxInsertParameters;
+	}
+
+	/**
+	 * Get the maximum number of bind parameters for a single multi-row INSERT statement.
+	 * @since 5.2
+	 */
+	public int getMaxInsertParameters() {
+		return this.maxInsertParameters;
+	}
+
 	/**
 	 * Get the insert string to be used.
 	 */
@@ -279,9 +337,43 @@ public abstract class AbstractJdbcInsert {
 		if (logger.isDebugEnabled()) {
 			logger.debug("Compiled insert object: insert string is [" + this.insertString + "]");
 		}
+		this.rowsPerInsertStatement = determineRowsPerInsertStatement();
+		if (this.rowsPerInsertStatement > 1) {
+			this.multiRowInsertString = this.tableMetaDataContext.createMultiRowInsertString(
+					this.rowsPerInsertStatement, getGeneratedKeyNames());
+			if (logger.isDebugEnabled()) {
+				logger.debug("Using multi-row inserts with up to " + this.rowsPerInsertStatement +
+						" rows per statement for batch executions");
+			}
+		}
 		onCompileInternal();
 	}
 
+	/**
+	 * Determine the number of rows per INSERT statement in batch executions,
+	 * based on the configured multi-row insert size and parameter limits.
+	 */
+	private int determineRowsPerInsertStatement() {
+		int columnCount = this.insertTypes.length;
+		if (this.multiRowInsertSize <= 1 || columnCount == 0) {
+			return 1;
+		}
+		int parameterLimit = this.tableMetaDataContext.getMultiRowInsertParameterLimit();
+		if (this.maxInsertParameters > 0) {
+			parameterLimit = (parameterLimit > 0 ?
+					Math.min(parameterLimit, this.maxInsertParameters) : this.maxInsertParameters);
+		}
+		if (parameterLimit <= 0) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Multi-row inserts not known to be supported by the database - " +
+						"using single-row statements for batch executions");
+			}
+			return 1;
+		}
+		int rowLimit = Math.min(this.multiRowInsertSize, this.tableMetaDataContext.getMultiRowInsertRowLimit());
+		return Math.max(1, Math.min(rowLimit, parameterLimit / columnCount));
+	}
+
 	/**
 	 * Hook method that subclasses may override to react to compilation.
 	 * <p>This implementation is empty.
@@ -432,7 +524,7 @@ public abstract class AbstractJdbcInsert {
 			getJdbcTemplate().update(
 					con -> {
 						PreparedStatement ps = prepareStatementForGeneratedKeys(con);
-						setParameterValues(ps, values, getInsertTypes());
+						setParameterValues(ps, 0, values, getInsertTypes());
 						return ps;
 					},
 					keyHolder);
@@ -475,7 +567,7 @@ public abstract class AbstractJdbcInsert {
 					PreparedStatement ps = null;
 					try {
 						ps = con.prepareStatement(getInsertString());
-						setParameterValues(ps, values, getInsertTypes());
+						setParameterValues(ps, 0, values, getInsertTypes());
 						ps.executeUpdate();
 					}
 					finally {
@@ -535,7 +627,7 @@ public abstract class AbstractJdbcInsert {
 	/**
 	 * Delegate method that executes a batch insert using the passed-in Maps of parameters.
 	 * @param batch array of Maps with parameter names and values to be used in batch insert
-	 * @return array of number of rows affected
+	 * @return array of number of rows affected (per statement in case of multi-row inserts)
 	 */
 	@SuppressWarnings("unchecked")
 	protected int[] doExecuteBatch(Map<String, ?>... batch) {
@@ -550,7 +642,7 @@ public abstract class AbstractJdbcInsert {
 	/**
 	 * Delegate method that executes a batch insert using the passed-in {@link SqlParameterSource SqlParameterSources}.
 	 * @param batch array of SqlParameterSource with parameter names and values to be used in insert
-	 * @return array of number of rows affected
+	 * @return array of number of rows affected (per statement in case of multi-row inserts)
 	 */
 	protected int[] doExecuteBatch(SqlParameterSource... batch) {
 		checkCompiled();
@@ -565,6 +657,9 @@ public abstract class AbstractJdbcInsert {
 	 * Delegate method to execute the batch insert.
 	 */
 	private int[] executeBatchInternal(final List<List<Object>> batchValues) {
+		if (this.rowsPerInsertStatement > 1 && batchValues.size() > 1) {
+			return executeMultiRowBatchInternal(batchValues, this.rowsPerInsertStatement);
+		}
 		if (logger.isDebugEnabled()) {
 			logger.debug("Executing statement " + getInsertString() + " with batch of size: " + batchValues.size());
 		}
@@ -572,7 +667,7 @@ public abstract class AbstractJdbcInsert {
 				new BatchPreparedStatementSetter() {
 					@Override
 					public void setValues(PreparedStatement ps, int i) throws SQLException {
-						setParameterValues(ps, batchValues.get(i), getInsertTypes());
+						setParameterValues(ps, 0, batchValues.get(i), getInsertTypes());
 					}
 					@Override
 					public int getBatchSize() {
@@ -581,22 +676,79 @@ public abstract class AbstractJdbcInsert {
 				});
 	}
 
+	/**
+	 * Delegate method to execute the batch insert in chunks of multi-row
+	 * insert statements: a JDBC batch for all full chunks, followed by
+	 * a single statement for the remaining rows (if any).
+	 * @return the array of update counts per chunk
+	 */
+	private int[] executeMultiRowBatchInternal(final List<List<Object>> batchValues, final int rowsPerStatement) {
+		final int fullChunks = batchValues.size() / rowsPerStatement;
+		int remainingRows = batchValues.size() % rowsPerStatement;
+		int[] updateCounts = new int[fullChunks + (remainingRows > 0 ? 1 : 0)];
+		if (logger.isDebugEnabled()) {
+			logger.debug("Executing batch of size " + batchValues.size() + " as " + updateCounts.length +
+					" multi-row insert statements with up to " + rowsPerStatement + " rows each");
+		}
+
+		if (fullChunks > 0) {
+			int[] chunkCounts = getJdbcTemplate().batchUpdate(this.multiRowInsertString,
+					new BatchPreparedStatementSetter() {
+						@Override
+						public void setValues(PreparedStatement ps, int i) throws SQLException {
+							setMultiRowParameterValues(ps, batchValues.subList(i * rowsPerStatement, (i + 1) * rowsPerStatement));
+						}
+						@Override
+						public int getBatchSize() {
+							return fullChunks;
+						}
+					});
+			System.arraycopy(chunkCounts, 0, updateCounts, 0, Math.min(chunkCounts.length, fullChunks));
+		}
+		if (remainingRows > 0) {
+			List<List<Object>> remainder = batchValues.subList(fullChunks * rowsPerStatement, batchValues.size());
+			String sql = (remainingRows > 1 ?
+					this.tableMetaDataContext.createMultiRowInsertString(remainingRows, getGeneratedKeyNames()) :
+					getInsertString());
+			updateCounts[fullChunks] = getJdbcTemplate().update(sql, ps -> setMultiRowParameterValues(ps, remainder));
+		}
+		return updateCounts;
+	}
+
+	/**
+	 * Internal implementation for setting the parameter values of multiple rows.
+	 * @param preparedStatement the PreparedStatement
+	 * @param rows the values to be set, per row
+	 */
+	private void setMultiRowParameterValues(PreparedStatement preparedStatement, List<List<Object>> rows)
+			throws SQLException {
+
+		int offset = 0;
+		for (List<Object> values : rows) {
+			setParameterValues(preparedStatement, offset, values, getInsertTypes());
+			offset += values.size();
+		}
+	}
+
 	/**
 	 * Internal implementation for setting parameter values.
 	 * @param preparedStatement the PreparedStatement
+	 * @param offset the number of parameters preceding the given values
 	 * @param values the values to be set
 	 */
-	private void setParameterValues(PreparedStatement preparedStatement, List<?> values, @Nullable int... columnTypes)
-			throws SQLException {
+	private void setParameterValues(PreparedStatement preparedStatement, int offset, List<?> values,
+			@Nullable int... columnTypes) throws SQLException {
 
 		int colIndex = 0;
 		for (Object value : values) {
 			colIndex++;
 			if (columnTypes == null || colIndex > columnTypes.length) {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
+				StatementCreatorUtils.setParameterValue(
+						preparedStatement, offset + colIndex, SqlTypeValue.TYPE_UNKNOWN, value);
 			}
 			else {
-				StatementCreatorUtils.setParameterValue(preparedStatement, colIndex, columnTypes[colIndex - 1], value);
+				StatementCreatorUtils.setParameterValue(
+						preparedStatement, offset + colIndex, columnTypes[colIndex - 1], value);
 			}
 		}
 	}
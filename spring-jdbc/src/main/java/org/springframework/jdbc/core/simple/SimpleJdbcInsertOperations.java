@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -80,6 +80,18 @@ public interface SimpleJdbcInsertOperations {
 	 */
 	SimpleJdbcInsertOperations includeSynonymsForTableColumnMetaData();
 
+	/**
+	 * Insert batches with multi-row INSERT statements of up to the given
+	 * number of rows each, as far as supported by the database.
+	 * <p>Note: Batch executions return one update count per statement then,
+	 * i.e. per chunk of rows instead of per row.
+	 * @param rowsPerStatement the maximum number of rows per INSERT statement
+	 * @return the instance of this SimpleJdbcInsert
+	 * @since 5.2
+	 * @see AbstractJdbcInsert#setMultiRowInsertSize
+	 */
+	SimpleJdbcInsertOperations usingMultiRowInserts(int rowsPerStatement);
+
 
 	/**
 	 * Execute the insert using the values passed in.
@@ -139,6 +151,7 @@ public interface SimpleJdbcInsertOperations {
 	 * Execute a batch insert using the batch of values passed in.
 	 * @param batch an array of Maps containing a batch of column names and corresponding value
 	 * @return the array of number of rows affected as returned by the JDBC driver
+	 * (per statement in case of {@link #usingMultiRowInserts multi-row inserts})
 	 */
 	@SuppressWarnings("unchecked")
 	int[] executeBatch(Map<String, ?>... batch);
@@ -147,6 +160,7 @@ public interface SimpleJdbcInsertOperations {
 	 * Execute a batch insert using the batch of values passed in.
 	 * @param batch an array of SqlParameterSource containing values for the batch
 	 * @return the array of number of rows affected as returned by the JDBC driver
+	 * (per statement in case of {@link #usingMultiRowInserts multi-row inserts})
 	 */
 	int[] executeBatch(SqlParameterSource... batch);
 
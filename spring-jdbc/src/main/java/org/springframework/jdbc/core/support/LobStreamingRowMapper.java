@@ -0,0 +1,121 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+import org.springframework.jdbc.LobRetrievalFailureException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.lob.DefaultLobHandler;
+import org.springframework.jdbc.support.lob.LobHandler;
+import org.springframework.jdbc.support.lob.LobStreamAccessor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link RowMapper} adapter that exposes the LOB content of each row as streams,
+ * through a {@link LobStreamAccessor} which stays valid for the duration of the
+ * {@link LobRowCallback}. All streams get closed once the row has been processed.
+ *
+ * <p>In contrast to {@link AbstractLobStreamingResultSetExtractor}, this works
+ * for any number of rows and with any query method taking a RowMapper, for
+ * example to stream documents straight to an HTTP response:
+ *
+ * <pre class="code">
+ * jdbcTemplate.query("SELECT name, content FROM document WHERE id = ?",
+ *     new LobStreamingRowMapper&lt;&gt;((rs, rowNum, lobs) -&gt;
+ *         lobs.copyBinaryStream(2, response.getOutputStream())),
+ *     id);</pre>
+ *
+ * IOExceptions thrown by the callback get converted to a
+ * {@link LobRetrievalFailureException}.
+ *
+ * @author agent
+ * @since 5.2
+ * @param <T> the result type
+ * @see LobStreamAccessor
+ * @see org.springframework.jdbc.core.JdbcOperations#queryForStream
+ */
+public class LobStreamingRowMapper<T> implements RowMapper<T> {
+
+	private final LobHandler lobHandler;
+
+	private final LobRowCallback<T> callback;
+
+
+	/**
+	 * Create a new LobStreamingRowMapper for the given callback,
+	 * using a {@link DefaultLobHandler}.
+	 * @param callback the callback to process each row with
+	 */
+	public LobStreamingRowMapper(LobRowCallback<T> callback) {
+		this(new DefaultLobHandler(), callback);
+	}
+
+	/**
+	 * Create a new LobStreamingRowMapper for the given callback.
+	 * @param lobHandler the LobHandler to obtain the streams with
+	 * @param callback the callback to process each row with
+	 */
+	public LobStreamingRowMapper(LobHandler lobHandler, LobRowCallback<T> callback) {
+		Assert.notNull(lobHandler, "LobHandler must not be null");
+		Assert.notNull(callback, "LobRowCallback must not be null");
+		this.lobHandler = lobHandler;
+		this.callback = callback;
+	}
+
+
+	@Override
+	@Nullable
+	public T mapRow(ResultSet rs, int rowNum) throws SQLException {
+		LobStreamAccessor lobs = new LobStreamAccessor(rs, this.lobHandler);
+		try {
+			return this.callback.mapRow(rs, rowNum, lobs);
+		}
+		catch (IOException ex) {
+			throw new LobRetrievalFailureException("Could not stream LOB content", ex);
+		}
+		finally {
+			lobs.close();
+		}
+	}
+
+
+	/**
+	 * Callback for processing a row including its LOB content.
+	 * @param <T> the result type
+	 */
+	@FunctionalInterface
+	public interface LobRowCallback<T> {
+
+		/**
+		 * Process the current row of the given ResultSet.
+		 * @param rs the ResultSet, positioned at the current row
+		 * @param rowNum the number of the current row
+		 * @param lobs the accessor for the LOB content of the current row,
+		 * valid until this method returns
+		 * @return the result object for the current row (may be {@code null})
+		 * @throws SQLException if thrown by JDBC methods
+		 * @throws IOException if thrown by stream access methods
+		 */
+		@Nullable
+		T mapRow(ResultSet rs, int rowNum, LobStreamAccessor lobs) throws SQLException, IOException;
+	}
+
+}
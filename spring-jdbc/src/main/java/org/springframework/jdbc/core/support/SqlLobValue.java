@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -31,7 +31,8 @@ import org.springframework.lang.Nullable;
 /**
  * Object to represent an SQL BLOB/CLOB value parameter. BLOBs can either be an
  * InputStream or a byte array. CLOBs can be in the form of a Reader, InputStream
- * or String. Each CLOB/BLOB value will be stored together with its length.
+ * or String. Each CLOB/BLOB value will be stored together with its length,
+ * unless given as a stream of unknown length, which gets passed on as-is.
  * The type is based on which constructor is used. Objects of this class are
  * immutable except for the LobCreator reference. Use them and discard them.
  *
@@ -55,6 +56,17 @@ import org.springframework.lang.Nullable;
  *     new int[] {Types.VARCHAR, Types.BLOB, Types.CLOB});
  * </pre>
  *
+ * <p>Streams of unknown length do not get materialized, allowing to transfer
+ * large content straight from its source, also with a
+ * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate}:
+ *
+ * <pre class="code">
+ * MapSqlParameterSource params = new MapSqlParameterSource("id", id)
+ *     .addValue("content", new SqlLobValue(contentStream), Types.BLOB);
+ * namedParameterJdbcTemplate.update(
+ *     "INSERT INTO document (id, content) VALUES (:id, :content)", params);
+ * </pre>
+ *
  * @author Thomas Risberg
  * @author Juergen Hoeller
  * @since 1.1
@@ -120,11 +132,32 @@ public class SqlLobValue implements DisposableSqlTypeValue {
 		this.lobCreator = lobHandler.getLobCreator();
 	}
 
+	/**
+	 * Create a new BLOB/CLOB value with the given stream of unknown length,
+	 * using a DefaultLobHandler.
+	 * @param stream the stream containing the LOB value
+	 * @since 5.2
+	 * @see org.springframework.jdbc.support.lob.DefaultLobHandler
+	 */
+	public SqlLobValue(InputStream stream) {
+		this(stream, -1, new DefaultLobHandler());
+	}
+
+	/**
+	 * Create a new BLOB/CLOB value with the given stream of unknown length.
+	 * @param stream the stream containing the LOB value
+	 * @param lobHandler the LobHandler to be used
+	 * @since 5.2
+	 */
+	public SqlLobValue(InputStream stream, LobHandler lobHandler) {
+		this(stream, -1, lobHandler);
+	}
+
 	/**
 	 * Create a new BLOB/CLOB value with the given stream,
 	 * using a DefaultLobHandler.
 	 * @param stream the stream containing the LOB value
-	 * @param length the length of the LOB value
+	 * @param length the length of the LOB value (or -1 if unknown)
 	 * @see org.springframework.jdbc.support.lob.DefaultLobHandler
 	 */
 	public SqlLobValue(InputStream stream, int length) {
@@ -134,7 +167,7 @@ public class SqlLobValue implements DisposableSqlTypeValue {
 	/**
 	 * Create a new BLOB/CLOB value with the given stream.
 	 * @param stream the stream containing the LOB value
-	 * @param length the length of the LOB value
+	 * @param length the length of the LOB value (or -1 if unknown)
 	 * @param lobHandler the LobHandler to be used
 	 */
 	public SqlLobValue(InputStream stream, int length, LobHandler lobHandler) {
@@ -143,11 +176,32 @@ public class SqlLobValue implements DisposableSqlTypeValue {
 		this.lobCreator = lobHandler.getLobCreator();
 	}
 
+	/**
+	 * Create a new CLOB value with the given character stream of unknown length,
+	 * using a DefaultLobHandler.
+	 * @param reader the character stream containing the CLOB value
+	 * @since 5.2
+	 * @see org.springframework.jdbc.support.lob.DefaultLobHandler
+	 */
+	public SqlLobValue(Reader reader) {
+		this(reader, -1, new DefaultLobHandler());
+	}
+
+	/**
+	 * Create a new CLOB value with the given character stream of unknown length.
+	 * @param reader the character stream containing the CLOB value
+	 * @param lobHandler the LobHandler to be used
+	 * @since 5.2
+	 */
+	public SqlLobValue(Reader reader, LobHandler lobHandler) {
+		this(reader, -1, lobHandler);
+	}
+
 	/**
 	 * Create a new CLOB value with the given character stream,
 	 * using a DefaultLobHandler.
 	 * @param reader the character stream containing the CLOB value
-	 * @param length the length of the CLOB value
+	 * @param length the length of the CLOB value (or -1 if unknown)
 	 * @see org.springframework.jdbc.support.lob.DefaultLobHandler
 	 */
 	public SqlLobValue(Reader reader, int length) {
@@ -157,7 +211,7 @@ public class SqlLobValue implements DisposableSqlTypeValue {
 	/**
 	 * Create a new CLOB value with the given character stream.
 	 * @param reader the character stream containing the CLOB value
-	 * @param length the length of the CLOB value
+	 * @param length the length of the CLOB value (or -1 if unknown)
 	 * @param lobHandler the LobHandler to be used
 	 */
 	public SqlLobValue(Reader reader, int length, LobHandler lobHandler) {
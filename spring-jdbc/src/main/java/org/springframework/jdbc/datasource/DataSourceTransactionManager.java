@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -77,6 +77,9 @@ import org.springframework.util.Assert;
  * without any JDBC statements executed. A LazyConnectionDataSourceProxy will not fetch
  * an actual JDBC Connection from the target DataSource until a Statement gets executed,
  * lazily applying the specified transaction settings to the target Connection.
+ * Alternatively, switch on the {@link #setLazyTransactionBegin "lazyTransactionBegin"}
+ * flag for the same effect without a proxy, for data access code going through
+ * {@link DataSourceUtils} (such as {@link org.springframework.jdbc.core.JdbcTemplate}).
  *
  * <p>This transaction manager supports nested transactions via the JDBC 3.0
  * {@link java.sql.Savepoint} mechanism. The
@@ -117,6 +120,8 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 
 	private boolean enforceReadOnly = false;
 
+	private boolean lazyTransactionBegin = false;
+
 
 	/**
 	 * Create a new DataSourceTransactionManager instance.
@@ -219,6 +224,39 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		return this.enforceReadOnly;
 	}
 
+	/**
+	 * Specify whether to defer the physical begin of a new transaction until
+	 * its JDBC Connection is first requested through {@link DataSourceUtils}.
+	 * <p>Default is "false", acquiring a Connection from the DataSource and
+	 * preparing it for the transaction right away. Switch this flag to "true"
+	 * in order to avoid any Connection acquisition for transactions which
+	 * never access the database: commit and rollback are simply skipped then.
+	 * This is a built-in alternative to a {@link LazyConnectionDataSourceProxy}
+	 * in front of the target DataSource.
+	 * <p>Note that a failure to obtain or prepare the Connection will only be
+	 * thrown on first access, as a {@link CannotCreateTransactionException}.
+	 * Also, data access code needs to go through {@link DataSourceUtils} (e.g.
+	 * through {@link org.springframework.jdbc.core.JdbcTemplate} or a
+	 * {@link TransactionAwareDataSourceProxy}) in order to trigger the begin;
+	 * Connections fetched from the target DataSource directly will not
+	 * participate in the transaction.
+	 * @since 5.2
+	 * @see DataSourceUtils#getConnection(DataSource)
+	 */
+	public void setLazyTransactionBegin(boolean lazyTransactionBegin) {
+		this.lazyTransactionBegin = lazyTransactionBegin;
+	}
+
+	/**
+	 * Return whether to defer the physical begin of a new transaction until
+	 * its JDBC Connection is first requested.
+	 * @since 5.2
+	 * @see #setLazyTransactionBegin
+	 */
+	public boolean isLazyTransactionBegin() {
+		return this.lazyTransactionBegin;
+	}
+
 	@Override
 	public void afterPropertiesSet() {
 		if (getDataSource() == null) {
@@ -257,33 +295,31 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		Connection con = null;
 
 		try {
+			boolean lazyBegin = false;
 			if (!txObject.hasConnectionHolder() ||
 					txObject.getConnectionHolder().isSynchronizedWithTransaction()) {
-				Connection newCon = obtainDataSource().getConnection();
-				if (logger.isDebugEnabled()) {
-					logger.debug("Acquired Connection [" + newCon + "] for JDBC transaction");
+				if (isLazyTransactionBegin()) {
+					if (logger.isDebugEnabled()) {
+						logger.debug("Deferring Connection acquisition for JDBC transaction until first access");
+					}
+					txObject.setConnectionHolder(
+							new ConnectionHolder(new LazyBeginConnectionHandle(txObject, definition)), true);
+					lazyBegin = true;
+				}
+				else {
+					Connection newCon = obtainConnection(definition);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Acquired Connection [" + newCon + "] for JDBC transaction");
+					}
+					txObject.setConnectionHolder(new ConnectionHolder(newCon), true);
 				}
-				txObject.setConnectionHolder(new ConnectionHolder(newCon), true);
 			}
 
 			txObject.getConnectionHolder().setSynchronizedWithTransaction(true);
-			con = txObject.getConnectionHolder().getConnection();
-
-			Integer previousIsolationLevel = DataSourceUtils.prepareConnectionForTransaction(con, definition);
-			txObject.setPreviousIsolationLevel(previousIsolationLevel);
-
-			// Switch to manual commit if necessary. This is very expensive in some JDBC drivers,
-			// so we don't want to do it unnecessarily (for example if we've explicitly
-			// configured the connection pool to set it already).
-			if (con.getAutoCommit()) {
-				txObject.setMustRestoreAutoCommit(true);
-				if (logger.isDebugEnabled()) {
-					logger.debug("Switching JDBC Connection [" + con + "] to manual commit");
-				}
-				con.setAutoCommit(false);
+			if (!lazyBegin) {
+				con = txObject.getConnectionHolder().getConnection();
+				prepareTransaction(txObject, con, definition);
 			}
-
-			prepareTransactionalConnection(con, definition);
 			txObject.getConnectionHolder().setTransactionActive(true);
 
 			int timeout = determineTimeout(definition);
@@ -306,6 +342,53 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		}
 	}
 
+	/**
+	 * Prepare the given Connection for the given transaction: applying the
+	 * isolation level and read-only flag, switching to manual commit and
+	 * calling {@link #prepareTransactionalConnection}.
+	 */
+	private void prepareTransaction(DataSourceTransactionObject txObject, Connection con,
+			TransactionDefinition definition) throws SQLException {
+
+		Integer previousIsolationLevel = DataSourceUtils.prepareConnectionForTransaction(con, definition);
+		txObject.setPreviousIsolationLevel(previousIsolationLevel);
+
+		// Switch to manual commit if necessary. This is very expensive in some JDBC drivers,
+		// so we don't want to do it unnecessarily (for example if we've explicitly
+		// configured the connection pool to set it already).
+		if (con.getAutoCommit()) {
+			txObject.setMustRestoreAutoCommit(true);
+			if (logger.isDebugEnabled()) {
+				logger.debug("Switching JDBC Connection [" + con + "] to manual commit");
+			}
+			con.setAutoCommit(false);
+		}
+
+		prepareTransactionalConnection(con, definition);
+	}
+
+	/**
+	 * Obtain a new Connection for the given transaction, exposing the read-only
+	 * flag of the transaction to routing DataSources while fetching it.
+	 * @see TransactionSynchronizationManager#isCurrentTransactionReadOnly()
+	 * @see org.springframework.jdbc.datasource.lookup.ReadWriteDataSourceRouter
+	 */
+	private Connection obtainConnection(TransactionDefinition definition) throws SQLException {
+		boolean exposeReadOnly = (definition.isReadOnly() &&
+				!TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		if (exposeReadOnly) {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		}
+		try {
+			return obtainDataSource().getConnection();
+		}
+		finally {
+			if (exposeReadOnly) {
+				TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+			}
+		}
+	}
+
 	@Override
 	protected Object doSuspend(Object transaction) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) transaction;
@@ -321,6 +404,12 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	@Override
 	protected void doCommit(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
+		if (!isTransactionBegun(txObject)) {
+			if (status.isDebug()) {
+				logger.debug("Skipping commit of JDBC transaction without Connection access");
+			}
+			return;
+		}
 		Connection con = txObject.getConnectionHolder().getConnection();
 		if (status.isDebug()) {
 			logger.debug("Committing JDBC transaction on Connection [" + con + "]");
@@ -336,6 +425,12 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	@Override
 	protected void doRollback(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
+		if (!isTransactionBegun(txObject)) {
+			if (status.isDebug()) {
+				logger.debug("Skipping rollback of JDBC transaction without Connection access");
+			}
+			return;
+		}
 		Connection con = txObject.getConnectionHolder().getConnection();
 		if (status.isDebug()) {
 			logger.debug("Rolling back JDBC transaction on Connection [" + con + "]");
@@ -352,8 +447,8 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 	protected void doSetRollbackOnly(DefaultTransactionStatus status) {
 		DataSourceTransactionObject txObject = (DataSourceTransactionObject) status.getTransaction();
 		if (status.isDebug()) {
-			logger.debug("Setting JDBC transaction [" + txObject.getConnectionHolder().getConnection() +
-					"] rollback-only");
+			logger.debug("Setting JDBC transaction [" + (isTransactionBegun(txObject) ?
+					txObject.getConnectionHolder().getConnection() : "not begun yet") + "] rollback-only");
 		}
 		txObject.setRollbackOnly();
 	}
@@ -367,6 +462,12 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 			TransactionSynchronizationManager.unbindResource(obtainDataSource());
 		}
 
+		if (!isTransactionBegun(txObject)) {
+			// Lazy begin without any Connection access: nothing to reset or release.
+			txObject.getConnectionHolder().clear();
+			return;
+		}
+
 		// Reset connection.
 		Connection con = txObject.getConnectionHolder().getConnection();
 		try {
@@ -389,6 +490,17 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		txObject.getConnectionHolder().clear();
 	}
 
+	/**
+	 * Determine whether the physical transaction has been begun on a Connection,
+	 * i.e. whether it does not await a lazy begin on first access anymore.
+	 * @see #setLazyTransactionBegin
+	 */
+	private boolean isTransactionBegun(DataSourceTransactionObject txObject) {
+		ConnectionHandle handle = txObject.getConnectionHolder().getConnectionHandle();
+		return !(handle instanceof LazyBeginConnectionHandle) ||
+				((LazyBeginConnectionHandle) handle).isConnectionAcquired();
+	}
+
 
 	/**
 	 * Prepare the transactional {@code Connection} right after transaction begin.
@@ -463,4 +575,57 @@ public class DataSourceTransactionManager extends AbstractPlatformTransactionMan
 		}
 	}
 
+
+	/**
+	 * ConnectionHandle for a lazily begun transaction, acquiring and preparing
+	 * the transactional Connection on first access.
+	 * @see #setLazyTransactionBegin
+	 */
+	class LazyBeginConnectionHandle implements ConnectionHandle {
+
+		private final DataSourceTransactionObject txObject;
+
+		private final TransactionDefinition definition;
+
+		@Nullable
+		private Connection connection;
+
+		LazyBeginConnectionHandle(DataSourceTransactionObject txObject, TransactionDefinition definition) {
+			this.txObject = txObject;
+			this.definition = definition;
+		}
+
+		@Override
+		public Connection getConnection() {
+			if (this.connection == null) {
+				Connection con = null;
+				try {
+					con = obtainConnection(this.definition);
+					if (logger.isDebugEnabled()) {
+						logger.debug("Acquired Connection [" + con + "] for lazily begun JDBC transaction");
+					}
+					prepareTransaction(this.txObject, con, this.definition);
+				}
+				catch (Throwable ex) {
+					DataSourceUtils.releaseConnection(con, obtainDataSource());
+					throw new CannotCreateTransactionException("Could not open JDBC Connection for transaction", ex);
+				}
+				this.connection = con;
+			}
+			return this.connection;
+		}
+
+		/**
+		 * Return whether the Connection has been acquired already.
+		 */
+		boolean isConnectionAcquired() {
+			return (this.connection != null);
+		}
+
+		@Override
+		public String toString() {
+			return "LazyBeginConnectionHandle: " + (this.connection != null ? this.connection : "not acquired yet");
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -374,6 +374,12 @@ public abstract class DataSourceUtils {
 		if (!conHolder.hasConnection()) {
 			return false;
 		}
+		ConnectionHandle handle = conHolder.getConnectionHandle();
+		if (handle instanceof DataSourceTransactionManager.LazyBeginConnectionHandle &&
+				!((DataSourceTransactionManager.LazyBeginConnectionHandle) handle).isConnectionAcquired()) {
+			// Transaction not begun yet: no need to trigger it just for comparison.
+			return false;
+		}
 		Connection heldCon = conHolder.getConnection();
 		// Explicitly check for identity too: for Connection handles that do not implement
 		// "equals" properly, such as the ones Commons DBCP exposes).
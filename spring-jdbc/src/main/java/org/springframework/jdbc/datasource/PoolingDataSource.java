@@ -0,0 +1,783 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Deque;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Simple implementation of {@link SmartDataSource} that keeps a pool of physical
+ * JDBC Connections obtained via the {@link java.sql.DriverManager}.
+ *
+ * <p>Connections handed out by {@link #getConnection()} are proxies which return
+ * the physical Connection to the pool on {@code close()}, rolling back pending
+ * work and restoring the original auto-commit state as well as the read-only
+ * flag, isolation level, catalog, schema and holdability, if changed. Statements
+ * and metadata obtained from such a proxy expose the proxy rather than the
+ * physical Connection through {@code getConnection()}. Borrowing and returning a
+ * Connection does not involve any locks: idle Connections are kept in a concurrent
+ * deque (reusing the most recently returned Connection first), and the number of
+ * Connections in use is bounded through the non-blocking fast path of a
+ * {@link Semaphore}, only waiting up to {@link #setMaxWait "maxWait"} when all of
+ * the {@link #setMaxPoolSize "maxPoolSize"} Connections are in use.
+ *
+ * <p>Idle Connections are validated through {@link Connection#isValid} before
+ * being handed out, with a configurable {@link #setValidationTimeout timeout}.
+ * {@link #setMinIdle "minIdle"} Connections get established on initialization,
+ * and at most {@link #setMaxIdle "maxIdle"} Connections are kept once returned.
+ * When a {@link #setLeakDetectionThreshold leak detection threshold} is set, the
+ * pool logs a warning including the stack trace of the borrowing code for every
+ * Connection that has not been returned within that time.
+ *
+ * <p>This is intended for testing and for small stand-alone applications which
+ * would otherwise pay the full connection setup cost on every access. It is not
+ * meant to replace a full-featured connection pool: there is no background
+ * housekeeping, so idle Connections are only checked when being borrowed and
+ * leaks are only detected when another Connection is requested.
+ *
+ * <p>All settings need to be applied before the DataSource is first used.
+ * Custom username and password arguments are not pooled but rather result
+ * in a new physical Connection, as with {@link DriverManagerDataSource}.
+ *
+ * @author agent
+ * @since 5.2
+ * @see #getConnection()
+ * @see #destroy()
+ */
+public class PoolingDataSource extends DriverManagerDataSource
+		implements SmartDataSource, InitializingBean, DisposableBean {
+
+	/** The default maximum number of Connections: 10. */
+	public static final int DEFAULT_MAX_POOL_SIZE = 10;
+
+	/** The default maximum time to wait for a Connection: 30 seconds. */
+	public static final long DEFAULT_MAX_WAIT = 30000;
+
+	/** The default validation timeout: 5 seconds. */
+	public static final int DEFAULT_VALIDATION_TIMEOUT = 5;
+
+
+	private int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+
+	private int minIdle = 0;
+
+	private int maxIdle = -1;
+
+	private long maxWait = DEFAULT_MAX_WAIT;
+
+	private boolean validateOnBorrow = true;
+
+	private int validationTimeout = DEFAULT_VALIDATION_TIMEOUT;
+
+	private long leakDetectionThreshold = 0;
+
+	/** Idle Connections, most recently returned first. */
+	private final Deque<PooledConnection> idleConnections = new ConcurrentLinkedDeque<>();
+
+	/** Connections in use, only tracked for leak detection. */
+	private final Set<PooledConnection> activeConnections = ConcurrentHashMap.newKeySet();
+
+	/** Permits for Connections in use. */
+	private volatile Semaphore permits = new Semaphore(DEFAULT_MAX_POOL_SIZE);
+
+	private final AtomicInteger idleCount = new AtomicInteger();
+
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	private final AtomicInteger totalCount = new AtomicInteger();
+
+	private final LongAdder borrowCount = new LongAdder();
+
+	private final LongAdder createdCount = new LongAdder();
+
+	private final LongAdder validationFailureCount = new LongAdder();
+
+	private final LongAdder waitTimeoutCount = new LongAdder();
+
+	private final LongAdder leakCount = new LongAdder();
+
+	private volatile boolean closed;
+
+
+	/**
+	 * Constructor for bean-style configuration.
+	 */
+	public PoolingDataSource() {
+	}
+
+	/**
+	 * Create a new PoolingDataSource with the given standard DriverManager parameters.
+	 * @param url the JDBC URL to use for accessing the DriverManager
+	 * @see java.sql.DriverManager#getConnection(String)
+	 */
+	public PoolingDataSource(String url) {
+		super(url);
+	}
+
+	/**
+	 * Create a new PoolingDataSource with the given standard DriverManager parameters.
+	 * @param url the JDBC URL to use for accessing the DriverManager
+	 * @param username the JDBC username to use for accessing the DriverManager
+	 * @param password the JDBC password to use for accessing the DriverManager
+	 * @see java.sql.DriverManager#getConnection(String, String, String)
+	 */
+	public PoolingDataSource(String url, String username, String password) {
+		super(url, username, password);
+	}
+
+
+	/**
+	 * Set the maximum number of Connections in use at the same time.
+	 * Default is {@value #DEFAULT_MAX_POOL_SIZE}.
+	 */
+	public void setMaxPoolSize(int maxPoolSize) {
+		Assert.isTrue(maxPoolSize > 0, "'maxPoolSize' must be greater than 0");
+		this.maxPoolSize = maxPoolSize;
+		this.permits = new Semaphore(maxPoolSize);
+	}
+
+	/**
+	 * Return the maximum number of Connections in use at the same time.
+	 */
+	public int getMaxPoolSize() {
+		return this.maxPoolSize;
+	}
+
+	/**
+	 * Set the number of Connections to establish on initialization,
+	 * not getting closed when returned to a pool which exceeds "maxIdle".
+	 * Default is 0.
+	 * @see #afterPropertiesSet()
+	 */
+	public void setMinIdle(int minIdle) {
+		Assert.isTrue(minIdle >= 0, "'minIdle' must not be negative");
+		this.minIdle = minIdle;
+	}
+
+	/**
+	 * Return the number of Connections to establish on initialization.
+	 */
+	public int getMinIdle() {
+		return this.minIdle;
+	}
+
+	/**
+	 * Set the maximum number of idle Connections to keep in the pool.
+	 * Connections returned beyond that number get closed.
+	 * <p>Default is -1, keeping up to "maxPoolSize" idle Connections.
+	 */
+	public void setMaxIdle(int maxIdle) {
+		this.maxIdle = maxIdle;
+	}
+
+	/**
+	 * Return the maximum number of idle Connections to keep in the pool.
+	 */
+	public int getMaxIdle() {
+		return (this.maxIdle >= 0 ? Math.max(this.maxIdle, this.minIdle) : this.maxPoolSize);
+	}
+
+	/**
+	 * Set the maximum time (in milliseconds) to wait for a Connection when
+	 * all Connections are in use, or -1 to wait indefinitely.
+	 * Default is {@value #DEFAULT_MAX_WAIT}.
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Return the maximum time (in milliseconds) to wait for a Connection.
+	 */
+	public long getMaxWait() {
+		return this.maxWait;
+	}
+
+	/**
+	 * Set whether idle Connections should be validated before being handed out.
+	 * Default is "true".
+	 * @see #setValidationTimeout
+	 */
+	public void setValidateOnBorrow(boolean validateOnBorrow) {
+		this.validateOnBorrow = validateOnBorrow;
+	}
+
+	/**
+	 * Return whether idle Connections get validated before being handed out.
+	 */
+	public boolean isValidateOnBorrow() {
+		return this.validateOnBorrow;
+	}
+
+	/**
+	 * Set the timeout (in seconds) for validating an idle Connection,
+	 * or 0 for no timeout. Default is {@value #DEFAULT_VALIDATION_TIMEOUT}.
+	 * @see Connection#isValid(int)
+	 */
+	public void setValidationTimeout(int validationTimeout) {
+		Assert.isTrue(validationTimeout >= 0, "'validationTimeout' must not be negative");
+		this.validationTimeout = validationTimeout;
+	}
+
+	/**
+	 * Return the timeout (in seconds) for validating an idle Connection.
+	 */
+	public int getValidationTimeout() {
+		return this.validationTimeout;
+	}
+
+	/**
+	 * Set the time (in milliseconds) after which a Connection that has not been
+	 * returned is reported as a possible leak, or 0 to disable leak detection.
+	 * <p>Note that leak detection captures the stack trace of the borrowing code
+	 * for every Connection, so should rather be used during development only.
+	 * Default is 0.
+	 */
+	public void setLeakDetectionThreshold(long leakDetectionThreshold) {
+		this.leakDetectionThreshold = leakDetectionThreshold;
+	}
+
+	/**
+	 * Return the time (in milliseconds) after which a Connection that has not
+	 * been returned is reported as a possible leak.
+	 */
+	public long getLeakDetectionThreshold() {
+		return this.leakDetectionThreshold;
+	}
+
+
+	/**
+	 * Establish "minIdle" Connections, if a URL has been set.
+	 */
+	@Override
+	public void afterPropertiesSet() throws SQLException {
+		if (getUrl() != null) {
+			int count = Math.min(this.minIdle, this.maxPoolSize);
+			for (int i = this.totalCount.get(); i < count; i++) {
+				PooledConnection pooled = createPooledConnection();
+				this.idleCount.incrementAndGet();
+				this.idleConnections.offerLast(pooled);
+			}
+		}
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		PooledConnection pooled = borrowConnection();
+		return (Connection) Proxy.newProxyInstance(
+				ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] {ConnectionProxy.class},
+				new PooledConnectionInvocationHandler(pooled));
+	}
+
+	/**
+	 * Return a pooled Connection if given the same username and password
+	 * as configured, or a new physical Connection else.
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		if (ObjectUtils.nullSafeEquals(username, getUsername()) &&
+				ObjectUtils.nullSafeEquals(password, getPassword())) {
+			return getConnection();
+		}
+		return super.getConnection(username, password);
+	}
+
+	/**
+	 * Closing a pooled Connection returns it to the pool: always "true".
+	 */
+	@Override
+	public boolean shouldClose(Connection con) {
+		return true;
+	}
+
+	/**
+	 * Close all idle Connections and reject further requests.
+	 * Connections currently in use get closed once they are returned.
+	 * <p>As this bean implements DisposableBean, a bean factory will
+	 * automatically invoke this on destruction of its cached singletons.
+	 */
+	@Override
+	public void destroy() {
+		this.closed = true;
+		closeIdleConnections();
+	}
+
+
+	/**
+	 * Return the number of physical Connections currently held by the pool.
+	 */
+	public int getTotalConnectionCount() {
+		return this.totalCount.get();
+	}
+
+	/**
+	 * Return the number of Connections currently in use.
+	 */
+	public int getActiveConnectionCount() {
+		return this.activeCount.get();
+	}
+
+	/**
+	 * Return the number of idle Connections currently kept in the pool.
+	 */
+	public int getIdleConnectionCount() {
+		return this.idleCount.get();
+	}
+
+	/**
+	 * Return the number of Connections handed out so far.
+	 */
+	public long getBorrowCount() {
+		return this.borrowCount.sum();
+	}
+
+	/**
+	 * Return the number of physical Connections established so far.
+	 */
+	public long getCreatedConnectionCount() {
+		return this.createdCount.sum();
+	}
+
+	/**
+	 * Return the number of idle Connections which failed validation so far.
+	 */
+	public long getValidationFailureCount() {
+		return this.validationFailureCount.sum();
+	}
+
+	/**
+	 * Return the number of requests that timed out waiting for a Connection so far.
+	 */
+	public long getWaitTimeoutCount() {
+		return this.waitTimeoutCount.sum();
+	}
+
+	/**
+	 * Return the number of Connections reported as possible leaks so far.
+	 */
+	public long getLeakCount() {
+		return this.leakCount.sum();
+	}
+
+
+	private PooledConnection borrowConnection() throws SQLException {
+		if (this.closed) {
+			throw new SQLException("PoolingDataSource has been closed");
+		}
+		long leakDetectionThreshold = this.leakDetectionThreshold;
+		if (leakDetectionThreshold > 0) {
+			detectLeaks(leakDetectionThreshold);
+		}
+		Semaphore permits = this.permits;
+		acquirePermit(permits);
+		try {
+			PooledConnection pooled = null;
+			while (pooled == null) {
+				PooledConnection candidate = this.idleConnections.pollFirst();
+				if (candidate == null) {
+					pooled = createPooledConnection();
+				}
+				else {
+					this.idleCount.decrementAndGet();
+					if (isValid(candidate)) {
+						pooled = candidate;
+					}
+					else {
+						this.validationFailureCount.increment();
+						closePooledConnection(candidate);
+					}
+				}
+			}
+			pooled.permits = permits;
+			if (leakDetectionThreshold > 0) {
+				pooled.borrowTime = System.currentTimeMillis();
+				pooled.borrowStackTrace = new Throwable("JDBC Connection borrowed at");
+				pooled.leakReported = false;
+				this.activeConnections.add(pooled);
+			}
+			this.activeCount.incrementAndGet();
+			this.borrowCount.increment();
+			return pooled;
+		}
+		catch (SQLException | RuntimeException | Error ex) {
+			permits.release();
+			throw ex;
+		}
+	}
+
+	private void acquirePermit(Semaphore permits) throws SQLException {
+		if (permits.tryAcquire()) {
+			return;
+		}
+		try {
+			if (this.maxWait < 0) {
+				permits.acquire();
+			}
+			else if (!permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS)) {
+				this.waitTimeoutCount.increment();
+				throw new SQLException("Timed out after " + this.maxWait + " ms waiting for a JDBC Connection: " +
+						"all " + this.maxPoolSize + " Connections in use");
+			}
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while waiting for a JDBC Connection", ex);
+		}
+	}
+
+	private boolean isValid(PooledConnection pooled) {
+		if (!this.validateOnBorrow) {
+			return true;
+		}
+		try {
+			return pooled.target.isValid(this.validationTimeout);
+		}
+		catch (SQLException ex) {
+			logger.debug("Could not validate pooled JDBC Connection", ex);
+			return false;
+		}
+	}
+
+	private void returnConnection(PooledConnection pooled) {
+		if (pooled.borrowStackTrace != null) {
+			this.activeConnections.remove(pooled);
+			pooled.borrowStackTrace = null;
+		}
+		this.activeCount.decrementAndGet();
+		Semaphore permits = pooled.permits;
+		try {
+			if (!this.closed && this.totalCount.get() <= this.maxPoolSize &&
+					this.idleCount.get() < getMaxIdle() && resetConnection(pooled)) {
+				this.idleCount.incrementAndGet();
+				this.idleConnections.offerFirst(pooled);
+				if (this.closed) {
+					// Concurrently destroyed: make sure not to leave the Connection open.
+					closeIdleConnections();
+				}
+			}
+			else {
+				closePooledConnection(pooled);
+			}
+		}
+		finally {
+			if (permits != null) {
+				permits.release();
+			}
+		}
+	}
+
+	private boolean resetConnection(PooledConnection pooled) {
+		Connection con = pooled.target;
+		try {
+			if (con.getAutoCommit() != pooled.autoCommit) {
+				if (!con.getAutoCommit()) {
+					con.rollback();
+				}
+				con.setAutoCommit(pooled.autoCommit);
+			}
+			else if (!pooled.autoCommit) {
+				con.rollback();
+			}
+			if (pooled.stateModified) {
+				restoreConnectionState(pooled);
+				pooled.stateModified = false;
+			}
+			con.clearWarnings();
+			return true;
+		}
+		catch (SQLException ex) {
+			logger.debug("Could not reset pooled JDBC Connection - discarding it", ex);
+			return false;
+		}
+	}
+
+	/**
+	 * Restore the settings that the given Connection had on creation,
+	 * after a borrower potentially changed them.
+	 */
+	private void restoreConnectionState(PooledConnection pooled) throws SQLException {
+		Connection con = pooled.target;
+		if (con.isReadOnly() != pooled.readOnly) {
+			con.setReadOnly(pooled.readOnly);
+		}
+		if (con.getTransactionIsolation() != pooled.transactionIsolation) {
+			con.setTransactionIsolation(pooled.transactionIsolation);
+		}
+		if (pooled.catalog != null && !pooled.catalog.equals(con.getCatalog())) {
+			con.setCatalog(pooled.catalog);
+		}
+		if (pooled.schema != null && !pooled.schema.equals(con.getSchema())) {
+			con.setSchema(pooled.schema);
+		}
+		if (pooled.holdability != -1 && con.getHoldability() != pooled.holdability) {
+			con.setHoldability(pooled.holdability);
+		}
+	}
+
+	private void detectLeaks(long leakDetectionThreshold) {
+		long now = System.currentTimeMillis();
+		for (PooledConnection pooled : this.activeConnections) {
+			Throwable borrowStackTrace = pooled.borrowStackTrace;
+			if (!pooled.leakReported && borrowStackTrace != null && now - pooled.borrowTime > leakDetectionThreshold) {
+				pooled.leakReported = true;
+				this.leakCount.increment();
+				logger.warn("Possible JDBC Connection leak: Connection " + pooled.target +
+						" has not been returned for " + (now - pooled.borrowTime) + " ms", borrowStackTrace);
+			}
+		}
+	}
+
+	private PooledConnection createPooledConnection() throws SQLException {
+		Connection con = getConnectionFromDriver(getUsername(), getPassword());
+		try {
+			PooledConnection pooled = new PooledConnection(con);
+			this.totalCount.incrementAndGet();
+			this.createdCount.increment();
+			return pooled;
+		}
+		catch (SQLException | RuntimeException | Error ex) {
+			closeConnection(con);
+			throw ex;
+		}
+	}
+
+	private void closeIdleConnections() {
+		PooledConnection pooled;
+		while ((pooled = this.idleConnections.pollFirst()) != null) {
+			this.idleCount.decrementAndGet();
+			closePooledConnection(pooled);
+		}
+	}
+
+	private void closePooledConnection(PooledConnection pooled) {
+		this.totalCount.decrementAndGet();
+		closeConnection(pooled.target);
+	}
+
+	private void closeConnection(Connection con) {
+		try {
+			con.close();
+		}
+		catch (Throwable ex) {
+			logger.debug("Could not close pooled JDBC Connection", ex);
+		}
+	}
+
+
+	/**
+	 * Holder for a physical Connection in the pool.
+	 */
+	private static class PooledConnection {
+
+		final Connection target;
+
+		final boolean autoCommit;
+
+		final boolean readOnly;
+
+		final int transactionIsolation;
+
+		@Nullable
+		final String catalog;
+
+		@Nullable
+		final String schema;
+
+		final int holdability;
+
+		/** Whether the borrower may have changed settings other than auto-commit. */
+		volatile boolean stateModified;
+
+		@Nullable
+		volatile Semaphore permits;
+
+		volatile long borrowTime;
+
+		@Nullable
+		volatile Throwable borrowStackTrace;
+
+		volatile boolean leakReported;
+
+		PooledConnection(Connection target) throws SQLException {
+			this.target = target;
+			this.autoCommit = target.getAutoCommit();
+			this.readOnly = target.isReadOnly();
+			this.transactionIsolation = target.getTransactionIsolation();
+			this.catalog = target.getCatalog();
+			String schema = null;
+			try {
+				schema = target.getSchema();
+			}
+			catch (SQLException | AbstractMethodError ex) {
+				// Pre-JDBC 4.1 driver or schemas not supported: not restored.
+			}
+			this.schema = schema;
+			int holdability = -1;
+			try {
+				holdability = target.getHoldability();
+			}
+			catch (SQLException ex) {
+				// Holdability not supported: not restored.
+			}
+			this.holdability = holdability;
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a Connection handed out by the pool, returning
+	 * the physical Connection to the pool on close.
+	 */
+	private class PooledConnectionInvocationHandler implements InvocationHandler {
+
+		private final PooledConnection pooled;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		public PooledConnectionInvocationHandler(PooledConnection pooled) {
+			this.pooled = pooled;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Connection proxy.
+					return System.identityHashCode(proxy);
+				case "toString":
+					return "Pooled JDBC Connection [" + this.pooled.target + "]";
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "close":
+					// Handle close method: return the physical Connection to the pool.
+					if (this.closed.compareAndSet(false, true)) {
+						returnConnection(this.pooled);
+					}
+					return null;
+				case "isClosed":
+					return (this.closed.get() || this.pooled.target.isClosed());
+				case "getTargetConnection":
+					// Handle getTargetConnection method: return underlying Connection,
+					// which the caller may modify directly.
+					this.pooled.stateModified = true;
+					return this.pooled.target;
+				case "setReadOnly":
+				case "setTransactionIsolation":
+				case "setCatalog":
+				case "setSchema":
+				case "setHoldability":
+					this.pooled.stateModified = true;
+					break;
+			}
+
+			if (this.closed.get()) {
+				throw new SQLException("Connection handle already closed");
+			}
+
+			// Invoke method on target Connection.
+			Object result;
+			try {
+				result = method.invoke(this.pooled.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+
+			if (result instanceof Statement || result instanceof DatabaseMetaData) {
+				// Make sure that getConnection() does not expose the physical Connection,
+				// which would bypass the pool when getting closed.
+				return Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+						new Class<?>[] {method.getReturnType()}, new ConnectionExposingInvocationHandler(result, proxy));
+			}
+			return result;
+		}
+	}
+
+
+	/**
+	 * Invocation handler for a Statement or DatabaseMetaData object obtained
+	 * from a pooled Connection, exposing the Connection proxy instead of the
+	 * physical Connection.
+	 */
+	private static class ConnectionExposingInvocationHandler implements InvocationHandler {
+
+		private final Object target;
+
+		private final Object connectionProxy;
+
+		public ConnectionExposingInvocationHandler(Object target, Object connectionProxy) {
+			this.target = target;
+			this.connectionProxy = connectionProxy;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			switch (method.getName()) {
+				case "equals":
+					return (proxy == args[0]);
+				case "hashCode":
+					return System.identityHashCode(proxy);
+				case "getConnection":
+					return this.connectionProxy;
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+}
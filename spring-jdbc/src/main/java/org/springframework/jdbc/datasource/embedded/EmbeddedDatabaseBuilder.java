@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,12 @@
 
 package org.springframework.jdbc.datasource.embedded;
 
+import java.util.ArrayList;
+import java.util.List;
 import javax.sql.DataSource;
 
 import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
@@ -58,6 +61,8 @@ public class EmbeddedDatabaseBuilder {
 
 	private final ResourceDatabasePopulator databasePopulator;
 
+	private final List<Resource> scripts = new ArrayList<>();
+
 	private final ResourceLoader resourceLoader;
 
 
@@ -111,6 +116,31 @@ public class EmbeddedDatabaseBuilder {
 		return this;
 	}
 
+	/**
+	 * Create the embedded database as a copy of the named template database.
+	 * <p>The template database gets populated with the configured scripts only
+	 * once per JVM; every database built for the same template name afterwards
+	 * starts from a snapshot of it, which makes repeated initialization of the
+	 * same schema and data in large test suites near-instant.
+	 * <p>The template name identifies the content of the template database:
+	 * all builders sharing a template name (and database type) must add the
+	 * same scripts, in the same order. Building a database for a template name
+	 * that has been populated with different scripts fails with an
+	 * {@link IllegalStateException}; use a distinct template name per set of
+	 * scripts instead. Builders sharing a template name should typically
+	 * {@linkplain #generateUniqueName generate a unique name} as well.
+	 * <p>Supported for H2, HSQL and Derby.
+	 * @param templateName the name of the template database
+	 * @return {@code this}, to facilitate method chaining
+	 * @since 5.2
+	 * @see EmbeddedDatabaseFactory#setTemplateDatabaseName
+	 */
+	public EmbeddedDatabaseBuilder setTemplateName(String templateName) {
+		Assert.hasText(templateName, "Template name is required");
+		this.databaseFactory.setTemplateDatabaseName(templateName);
+		return this;
+	}
+
 	/**
 	 * Set the type of embedded database.
 	 * <p>Defaults to HSQL if not called.
@@ -152,7 +182,9 @@ public class EmbeddedDatabaseBuilder {
 	 * @return {@code this}, to facilitate method chaining
 	 */
 	public EmbeddedDatabaseBuilder addScript(String script) {
-		this.databasePopulator.addScript(this.resourceLoader.getResource(script));
+		Resource resource = this.resourceLoader.getResource(script);
+		this.databasePopulator.addScript(resource);
+		this.scripts.add(resource);
 		return this;
 	}
 
@@ -267,6 +299,7 @@ public class EmbeddedDatabaseBuilder {
 	 * @return the embedded database
 	 */
 	public EmbeddedDatabase build() {
+		this.databaseFactory.setTemplateScripts(this.scripts);
 		return this.databaseFactory.getDatabase();
 	}
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.jdbc.datasource.embedded;
 import java.io.PrintWriter;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
 import java.util.UUID;
 import java.util.logging.Logger;
 import javax.sql.DataSource;
@@ -26,6 +27,8 @@ import javax.sql.DataSource;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.datasource.SimpleDriverDataSource;
 import org.springframework.jdbc.datasource.init.DatabasePopulator;
 import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
@@ -49,6 +52,8 @@ import org.springframework.util.Assert;
  * embedded database type.
  * <li>Call {@link #setDatabasePopulator} to change the algorithm used to
  * populate the database.
+ * <li>Call {@link #setTemplateDatabaseName} to populate a template database
+ * once per JVM and create the database as a copy of it.
  * <li>Call {@link #setDataSourceFactory} to change the type of
  * {@link DataSource} used to connect to the database.
  * </ul>
@@ -82,9 +87,21 @@ public class EmbeddedDatabaseFactory {
 	@Nullable
 	private DatabasePopulator databasePopulator;
 
+	@Nullable
+	private String templateDatabaseName;
+
+	@Nullable
+	private List<Resource> templateScripts;
+
 	@Nullable
 	private DataSource dataSource;
 
+	@Nullable
+	private EmbeddedDatabaseSnapshot snapshot;
+
+	@Nullable
+	private String snapshotDatabaseName;
+
 
 	/**
 	 * Set the {@code generateUniqueDatabaseName} flag to enable or disable
@@ -148,6 +165,40 @@ public class EmbeddedDatabaseFactory {
 		this.databasePopulator = populator;
 	}
 
+	/**
+	 * Set the name of a template database to create this database from.
+	 * <p>The first database created for a given template name (and database type)
+	 * within the JVM populates a separate template database through the
+	 * {@linkplain #setDatabasePopulator database populator} and takes a snapshot
+	 * of it; this and all subsequent databases for the same template name get
+	 * created as a copy of that snapshot, without running the populator again.
+	 * <p>The template name therefore identifies the content of the template
+	 * database: all factories sharing a template name (and database type) must
+	 * use an equivalent populator. A factory whose populator is of a different
+	 * type than the one the template has been populated with fails with an
+	 * {@link IllegalStateException}, as does an
+	 * {@link EmbeddedDatabaseBuilder} with different scripts. Each database
+	 * created from a template is a separate copy, even for factories that use
+	 * the same database name.
+	 * <p>Supported for H2, HSQL and Derby; other database types are populated
+	 * individually as usual.
+	 * <p>Defaults to {@code null}, populating each database individually.
+	 * @param templateDatabaseName the name of the template database
+	 * @since 5.2
+	 */
+	public void setTemplateDatabaseName(@Nullable String templateDatabaseName) {
+		this.templateDatabaseName = templateDatabaseName;
+	}
+
+	/**
+	 * Set the scripts run by the database populator, identifying the content
+	 * of the {@linkplain #setTemplateDatabaseName template database} more
+	 * precisely than the type of the populator.
+	 */
+	void setTemplateScripts(@Nullable List<Resource> templateScripts) {
+		this.templateScripts = templateScripts;
+	}
+
 	/**
 	 * Factory method that returns the {@linkplain EmbeddedDatabase embedded database}
 	 * instance, which is also a {@link DataSource}.
@@ -179,8 +230,25 @@ public class EmbeddedDatabaseFactory {
 		if (this.databaseConfigurer == null) {
 			this.databaseConfigurer = EmbeddedDatabaseConfigurerFactory.getConfigurer(EmbeddedDatabaseType.HSQL);
 		}
-		this.databaseConfigurer.configureConnectionProperties(
-				this.dataSourceFactory.getConnectionProperties(), this.databaseName);
+		if (this.templateDatabaseName != null) {
+			if (EmbeddedDatabaseSnapshot.isSupported(this.databaseConfigurer)) {
+				this.snapshot = EmbeddedDatabaseSnapshot.obtain(
+						this.templateDatabaseName, this.databaseConfigurer, this.databasePopulator, this.templateScripts);
+			}
+			else if (logger.isDebugEnabled()) {
+				logger.debug("Template databases not supported for " + this.databaseConfigurer +
+						" - populating embedded database '" + this.databaseName + "' individually");
+			}
+		}
+		if (this.snapshot != null) {
+			this.snapshotDatabaseName = this.snapshot.newDatabaseName(this.databaseName);
+			this.snapshot.configureConnectionProperties(
+					this.dataSourceFactory.getConnectionProperties(), this.snapshotDatabaseName);
+		}
+		else {
+			this.databaseConfigurer.configureConnectionProperties(
+					this.dataSourceFactory.getConnectionProperties(), this.databaseName);
+		}
 		this.dataSource = this.dataSourceFactory.getDataSource();
 
 		if (logger.isInfoEnabled()) {
@@ -195,7 +263,17 @@ public class EmbeddedDatabaseFactory {
 		}
 
 		// Now populate the database
-		if (this.databasePopulator != null) {
+		if (this.snapshot != null) {
+			try {
+				this.snapshot.restore(this.dataSource);
+			}
+			catch (SQLException ex) {
+				shutdownDatabase();
+				throw new DataAccessResourceFailureException(
+						"Failed to restore embedded database '" + this.databaseName + "' from template", ex);
+			}
+		}
+		else if (this.databasePopulator != null) {
 			try {
 				DatabasePopulatorUtils.execute(this.databasePopulator, this.dataSource);
 			}
@@ -224,10 +302,15 @@ public class EmbeddedDatabaseFactory {
 					logger.info(String.format("Shutting down embedded database '%s'", this.databaseName));
 				}
 			}
-			if (this.databaseConfigurer != null) {
+			if (this.snapshot != null && this.snapshotDatabaseName != null) {
+				this.snapshot.shutdown(this.dataSource, this.snapshotDatabaseName);
+			}
+			else if (this.databaseConfigurer != null) {
 				this.databaseConfigurer.shutdown(this.dataSource, this.databaseName);
 			}
 			this.dataSource = null;
+			this.snapshot = null;
+			this.snapshotDatabaseName = null;
 		}
 	}
 
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.embedded;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.datasource.init.DatabasePopulator;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Snapshot of a populated template database, from which new embedded databases
+ * of the same type can be created without running the populator again.
+ *
+ * <p>Snapshots are taken once per template name and database type and kept for
+ * the lifetime of the JVM, using the cheapest copy mechanism of each database.
+ * The template name identifies the content: obtaining a snapshot with a different
+ * populator than the one it has been taken with fails.
+ * Each copy gets a name of its own, see {@link #newDatabaseName}:
+ * <ul>
+ * <li>H2: the output of the {@code SCRIPT} command, replayed in memory
+ * <li>HSQL: a {@code SCRIPT} file, opened as a read-only file database whose
+ * changes are only kept in memory
+ * <li>Derby: an online backup, restored through the {@code createFrom}
+ * connection attribute
+ * </ul>
+ *
+ * @author agent
+ * @since 5.2
+ * @see EmbeddedDatabaseFactory#setTemplateDatabaseName
+ */
+abstract class EmbeddedDatabaseSnapshot {
+
+	private static final Log logger = LogFactory.getLog(EmbeddedDatabaseSnapshot.class);
+
+	private static final Map<String, FutureTask<EmbeddedDatabaseSnapshot>> snapshots = new ConcurrentHashMap<>();
+
+	private static final AtomicInteger databaseCounter = new AtomicInteger();
+
+
+	protected final EmbeddedDatabaseConfigurer configurer;
+
+	@Nullable
+	private Object content;
+
+
+	protected EmbeddedDatabaseSnapshot(EmbeddedDatabaseConfigurer configurer) {
+		this.configurer = configurer;
+	}
+
+
+	/**
+	 * Determine a name for a new database created from this snapshot, based on
+	 * the given name but unique within the JVM, so that copies made for factories
+	 * with the same database name do not end up in the same database.
+	 */
+	public String newDatabaseName(String databaseName) {
+		return databaseName + "_" + databaseCounter.incrementAndGet();
+	}
+
+	/**
+	 * Configure the connection properties for a new database with the given name,
+	 * starting from the content of this snapshot.
+	 */
+	public void configureConnectionProperties(ConnectionProperties properties, String databaseName) {
+		this.configurer.configureConnectionProperties(properties, databaseName);
+	}
+
+	/**
+	 * Restore the content of this snapshot into the given new database,
+	 * if not already done through its connection properties.
+	 * @throws SQLException if the content could not be restored
+	 */
+	public void restore(DataSource dataSource) throws SQLException {
+	}
+
+	/**
+	 * Shut down a database created from this snapshot.
+	 */
+	public void shutdown(DataSource dataSource, String databaseName) {
+		this.configurer.shutdown(dataSource, databaseName);
+	}
+
+
+	/**
+	 * Determine whether snapshots are supported for the given database type.
+	 */
+	public static boolean isSupported(EmbeddedDatabaseConfigurer configurer) {
+		return (configurer instanceof H2EmbeddedDatabaseConfigurer ||
+				configurer instanceof HsqlEmbeddedDatabaseConfigurer ||
+				configurer instanceof DerbyEmbeddedDatabaseConfigurer);
+	}
+
+	/**
+	 * Obtain the snapshot of the template database with the given name,
+	 * creating and populating the template database on first access.
+	 * @param templateName the name of the template database
+	 * @param configurer the configurer for the database type
+	 * (must be {@linkplain #isSupported supported})
+	 * @param populator the populator for the template database
+	 * @param scripts the scripts run by the populator, if known
+	 * @return the snapshot, shared within the JVM
+	 * @throws IllegalStateException if the template database has been populated
+	 * with a different type of populator or with different scripts
+	 */
+	public static EmbeddedDatabaseSnapshot obtain(String templateName, EmbeddedDatabaseConfigurer configurer,
+			@Nullable DatabasePopulator populator, @Nullable List<Resource> scripts) {
+
+		String key = configurer.getClass().getName() + ":" + templateName;
+		FutureTask<EmbeddedDatabaseSnapshot> task = snapshots.get(key);
+		if (task == null) {
+			// Populate outside of the map, only blocking callers for the same template.
+			FutureTask<EmbeddedDatabaseSnapshot> newTask =
+					new FutureTask<>(() -> createSnapshot(templateName, configurer, populator, scripts));
+			task = snapshots.putIfAbsent(key, newTask);
+			if (task == null) {
+				task = newTask;
+				task.run();
+			}
+		}
+		EmbeddedDatabaseSnapshot snapshot;
+		try {
+			snapshot = task.get();
+		}
+		catch (ExecutionException ex) {
+			// Let the next caller try again
+			snapshots.remove(key, task);
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new DataAccessResourceFailureException(
+					"Failed to create snapshot of embedded template database '" + templateName + "'", cause);
+		}
+		catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new DataAccessResourceFailureException(
+					"Interrupted while waiting for snapshot of embedded template database '" + templateName + "'", ex);
+		}
+		Object content = determineContent(populator, scripts);
+		if (!ObjectUtils.nullSafeEquals(snapshot.content, content)) {
+			throw new IllegalStateException("Embedded template database '" + templateName +
+					"' has been populated with " + snapshot.content + " instead of " + content +
+					": use a distinct template name for different content");
+		}
+		return snapshot;
+	}
+
+	/**
+	 * Determine what identifies the content populated by the given populator:
+	 * its scripts if known, or its type otherwise.
+	 */
+	@Nullable
+	private static Object determineContent(@Nullable DatabasePopulator populator, @Nullable List<Resource> scripts) {
+		if (scripts != null) {
+			return new ArrayList<>(scripts);
+		}
+		return (populator != null ? populator.getClass().getName() : null);
+	}
+
+	private static EmbeddedDatabaseSnapshot createSnapshot(String templateName, EmbeddedDatabaseConfigurer configurer,
+			@Nullable DatabasePopulator populator, @Nullable List<Resource> scripts) {
+
+		String databaseName = templateName + "_template_" + databaseCounter.incrementAndGet();
+		if (logger.isInfoEnabled()) {
+			logger.info("Creating embedded template database '" + databaseName + "'");
+		}
+		SimpleDriverDataSourceFactory dataSourceFactory = new SimpleDriverDataSourceFactory();
+		configurer.configureConnectionProperties(dataSourceFactory.getConnectionProperties(), databaseName);
+		DataSource dataSource = dataSourceFactory.getDataSource();
+		try {
+			if (populator != null) {
+				DatabasePopulatorUtils.execute(populator, dataSource);
+			}
+			EmbeddedDatabaseSnapshot snapshot;
+			try (Connection con = dataSource.getConnection()) {
+				if (configurer instanceof H2EmbeddedDatabaseConfigurer) {
+					snapshot = new H2Snapshot(configurer, con);
+				}
+				else if (configurer instanceof HsqlEmbeddedDatabaseConfigurer) {
+					snapshot = new HsqlSnapshot(configurer, con);
+				}
+				else {
+					snapshot = new DerbySnapshot(configurer, con, databaseName);
+				}
+			}
+			snapshot.content = determineContent(populator, scripts);
+			return snapshot;
+		}
+		catch (SQLException | IOException ex) {
+			throw new DataAccessResourceFailureException(
+					"Failed to create snapshot of embedded template database '" + databaseName + "'", ex);
+		}
+		finally {
+			configurer.shutdown(dataSource, databaseName);
+		}
+	}
+
+	/**
+	 * Register the given file or directory for deletion when the JVM exits.
+	 */
+	static void deleteOnExit(Path path) throws IOException {
+		try (Stream<Path> paths = Files.walk(path)) {
+			// Registered parents first, so that children get deleted first
+			for (Path file : paths.collect(Collectors.toList())) {
+				file.toFile().deleteOnExit();
+			}
+		}
+	}
+
+
+	/**
+	 * H2 snapshot: the statements produced by the {@code SCRIPT} command.
+	 */
+	private static class H2Snapshot extends EmbeddedDatabaseSnapshot {
+
+		private final List<String> statements = new ArrayList<>();
+
+		H2Snapshot(EmbeddedDatabaseConfigurer configurer, Connection con) throws SQLException {
+			super(configurer);
+			try (Statement stmt = con.createStatement();
+					ResultSet rs = stmt.executeQuery("SCRIPT NOPASSWORDS NOSETTINGS")) {
+				while (rs.next()) {
+					String statement = rs.getString(1);
+					if (!statement.startsWith("--")) {
+						this.statements.add(statement);
+					}
+				}
+			}
+		}
+
+		@Override
+		public void restore(DataSource dataSource) throws SQLException {
+			try (Connection con = dataSource.getConnection(); Statement stmt = con.createStatement()) {
+				for (String statement : this.statements) {
+					stmt.execute(statement);
+				}
+			}
+		}
+	}
+
+
+	/**
+	 * HSQL snapshot: a script file, copied for each new database and opened
+	 * with {@code files_readonly=true}, so that changes stay in memory.
+	 */
+	private static class HsqlSnapshot extends EmbeddedDatabaseSnapshot {
+
+		private final Path directory;
+
+		private final Path script;
+
+		HsqlSnapshot(EmbeddedDatabaseConfigurer configurer, Connection con) throws SQLException, IOException {
+			super(configurer);
+			this.directory = Files.createTempDirectory("hsqldb-template");
+			deleteOnExit(this.directory);
+			this.script = this.directory.resolve("template.script");
+			try (Statement stmt = con.createStatement()) {
+				stmt.execute("SCRIPT '" + this.script.toAbsolutePath().toString().replace('\\', '/') + "'");
+			}
+			this.script.toFile().deleteOnExit();
+		}
+
+		@Override
+		public void configureConnectionProperties(ConnectionProperties properties, String databaseName) {
+			super.configureConnectionProperties(properties, databaseName);
+			Path database = this.directory.resolve(databaseName);
+			try {
+				Files.copy(this.script, database.resolveSibling(databaseName + ".script"),
+						StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (IOException ex) {
+				throw new DataAccessResourceFailureException(
+						"Failed to copy embedded template database script to " + database, ex);
+			}
+			properties.setUrl("jdbc:hsqldb:file:" + database.toAbsolutePath().toString().replace('\\', '/') +
+					";files_readonly=true");
+		}
+
+		@Override
+		public void shutdown(DataSource dataSource, String databaseName) {
+			super.shutdown(dataSource, databaseName);
+			try (Stream<Path> files = Files.list(this.directory)) {
+				for (Path file : files.filter(file -> isDatabaseFile(file, databaseName)).collect(Collectors.toList())) {
+					Files.deleteIfExists(file);
+				}
+			}
+			catch (IOException ex) {
+				logger.debug("Could not delete files of embedded database '" + databaseName + "'", ex);
+			}
+		}
+
+		private static boolean isDatabaseFile(Path file, String databaseName) {
+			String fileName = file.getFileName().toString();
+			return (fileName.startsWith(databaseName + ".") &&
+					fileName.indexOf('.', databaseName.length() + 1) == -1);
+		}
+	}
+
+
+	/**
+	 * Derby snapshot: an online backup of the template database, restored
+	 * through the {@code createFrom} attribute.
+	 */
+	private static class DerbySnapshot extends EmbeddedDatabaseSnapshot {
+
+		private final File backup;
+
+		DerbySnapshot(EmbeddedDatabaseConfigurer configurer, Connection con, String databaseName)
+				throws SQLException, IOException {
+
+			super(configurer);
+			Path directory = Files.createTempDirectory("derby-template");
+			try (CallableStatement stmt = con.prepareCall("CALL SYSCS_UTIL.SYSCS_BACKUP_DATABASE(?)")) {
+				stmt.setString(1, directory.toAbsolutePath().toString());
+				stmt.execute();
+			}
+			deleteOnExit(directory);
+			this.backup = directory.resolve(databaseName).toFile();
+		}
+
+		@Override
+		public void configureConnectionProperties(ConnectionProperties properties, String databaseName) {
+			super.configureConnectionProperties(properties, databaseName);
+			properties.setUrl(String.format("jdbc:derby:memory:%s;createFrom=%s",
+					databaseName, this.backup.getAbsolutePath()));
+		}
+	}
+
+}
@@ -70,6 +70,11 @@ public class ResourceDatabasePopulator implements DatabasePopulator {
 
 	private boolean ignoreFailedDrops = false;
 
+	private int dmlBatchSize = 0;
+
+	@Nullable
+	private ScriptExecutionListener scriptExecutionListener;
+
 
 	/**
 	 * Construct a new {@code ResourceDatabasePopulator} with default settings.
@@ -225,6 +230,29 @@ public class ResourceDatabasePopulator implements DatabasePopulator {
 		this.ignoreFailedDrops = ignoreFailedDrops;
 	}
 
+	/**
+	 * Specify the maximum number of consecutive DML statements ({@code INSERT},
+	 * {@code UPDATE}, {@code DELETE}, {@code MERGE}) to send to the database
+	 * as a single JDBC batch, typically speeding up scripts with lots of data.
+	 * <p>Defaults to 0, executing each statement individually.
+	 * @param dmlBatchSize the maximum batch size; 0 or 1 to disable batching
+	 * @since 5.2
+	 * @see java.sql.Statement#executeBatch()
+	 */
+	public void setDmlBatchSize(int dmlBatchSize) {
+		this.dmlBatchSize = dmlBatchSize;
+	}
+
+	/**
+	 * Set a listener to be notified about each executed script, including the
+	 * number of statements and the time it took.
+	 * @param scriptExecutionListener the listener (may be {@code null})
+	 * @since 5.2
+	 */
+	public void setScriptExecutionListener(@Nullable ScriptExecutionListener scriptExecutionListener) {
+		this.scriptExecutionListener = scriptExecutionListener;
+	}
+
 
 	/**
 	 * {@inheritDoc}
@@ -236,7 +264,8 @@ public class ResourceDatabasePopulator implements DatabasePopulator {
 		for (Resource script : this.scripts) {
 			EncodedResource encodedScript = new EncodedResource(script, this.sqlScriptEncoding);
 			ScriptUtils.executeSqlScript(connection, encodedScript, this.continueOnError, this.ignoreFailedDrops,
-					this.commentPrefix, this.separator, this.blockCommentStartDelimiter, this.blockCommentEndDelimiter);
+					this.commentPrefix, this.separator, this.blockCommentStartDelimiter, this.blockCommentEndDelimiter,
+					this.dmlBatchSize, this.scriptExecutionListener);
 		}
 	}
 
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.init;
+
+import org.springframework.core.io.support.EncodedResource;
+
+/**
+ * Callback interface for getting notified about the execution of SQL scripts,
+ * e.g. for collecting timing statistics during database population.
+ *
+ * @author agent
+ * @since 5.2
+ * @see ResourceDatabasePopulator#setScriptExecutionListener
+ * @see ScriptUtils#executeSqlScript(java.sql.Connection, EncodedResource, boolean, boolean, String, String, String, String, int, ScriptExecutionListener)
+ */
+@FunctionalInterface
+public interface ScriptExecutionListener {
+
+	/**
+	 * Called after the given script has been executed successfully.
+	 * @param resource the script that has been executed
+	 * @param statementCount the number of statements in the script
+	 * (including failed statements that have been ignored)
+	 * @param elapsedTime the time it took to read and execute the script,
+	 * in milliseconds
+	 */
+	void scriptExecuted(EncodedResource resource, int statementCount, long elapsedTime);
+
+}
@@ -0,0 +1,380 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.init;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.lang.Nullable;
+import org.springframework.util.StringUtils;
+
+/**
+ * Splits an SQL script into individual statements while reading it, holding
+ * only the unprocessed part of the script in memory.
+ *
+ * <p>Applies the same rules as {@link ScriptUtils#splitSqlScript(EncodedResource,
+ * String, String, String, String, String, java.util.List)}, i.e. quotes, escapes,
+ * line comments and block comments are honored and adjacent whitespace gets
+ * collapsed into a single space.
+ *
+ * @author agent
+ * @since 5.2
+ * @see ScriptUtils#splitSqlScript(EncodedResource, String, String, String, String, Consumer)
+ */
+final class ScriptStatementSplitter {
+
+	private static final int INITIAL_BUFFER_SIZE = 8192;
+
+	@Nullable
+	private final Reader reader;
+
+	@Nullable
+	private final EncodedResource resource;
+
+	private final String commentPrefix;
+
+	private final String blockCommentStartDelimiter;
+
+	private final String blockCommentEndDelimiter;
+
+	private char[] buffer;
+
+	private int pos;
+
+	private int limit;
+
+	private boolean eof;
+
+	/** Whether the buffer may be compacted, i.e. whether processed content may be dropped. */
+	private boolean settled = true;
+
+	private boolean hasText;
+
+	// State for detecting the statement separator the same way as
+	// ScriptUtils.containsSqlScriptDelimiters does
+
+	@Nullable
+	private String delimiterToDetect;
+
+	private boolean delimiterDetected;
+
+	private int detectPos;
+
+	private boolean detectInLiteral;
+
+	private boolean detectInEscape;
+
+
+	/**
+	 * Create a new splitter for a script that is read from the given {@code Reader}.
+	 */
+	ScriptStatementSplitter(Reader reader, @Nullable EncodedResource resource, String commentPrefix,
+			String blockCommentStartDelimiter, String blockCommentEndDelimiter) {
+
+		this.reader = reader;
+		this.resource = resource;
+		this.commentPrefix = commentPrefix;
+		this.blockCommentStartDelimiter = blockCommentStartDelimiter;
+		this.blockCommentEndDelimiter = blockCommentEndDelimiter;
+		this.buffer = new char[INITIAL_BUFFER_SIZE];
+	}
+
+	/**
+	 * Create a new splitter for a script that is available in its entirety.
+	 */
+	ScriptStatementSplitter(String script, @Nullable EncodedResource resource, String commentPrefix,
+			String blockCommentStartDelimiter, String blockCommentEndDelimiter) {
+
+		this.reader = null;
+		this.resource = resource;
+		this.commentPrefix = commentPrefix;
+		this.blockCommentStartDelimiter = blockCommentStartDelimiter;
+		this.blockCommentEndDelimiter = blockCommentEndDelimiter;
+		this.buffer = script.toCharArray();
+		this.limit = this.buffer.length;
+		this.eof = true;
+		this.hasText = StringUtils.hasText(script);
+	}
+
+
+	/**
+	 * Split the script into statements, using the given separator.
+	 * @param separator text separating each statement
+	 * @param statementHandler the callback for each statement, in script order
+	 * @throws ScriptParseException if a block comment is not terminated
+	 * @throws IOException in case of I/O errors while reading the script
+	 */
+	void split(String separator, Consumer<String> statementHandler) throws IOException {
+		doSplit(separator, statementHandler);
+	}
+
+	/**
+	 * Split the script into statements, using the given separator if the script
+	 * contains it (as determined by {@link ScriptUtils#containsSqlScriptDelimiters})
+	 * or the fallback separator otherwise.
+	 * <p>Statements are held back until the separator has been detected in the
+	 * script, which usually happens within the first statement already; the
+	 * entire script is only retained for scripts without the separator.
+	 * @param separator text separating each statement
+	 * @param fallbackSeparator the separator to use if the script does not
+	 * contain the primary separator
+	 * @param statementHandler the callback for each statement, in script order
+	 * @throws IllegalArgumentException if the script does not contain any text
+	 * @throws ScriptParseException if a block comment is not terminated
+	 * @throws IOException in case of I/O errors while reading the script
+	 */
+	void split(String separator, String fallbackSeparator, Consumer<String> statementHandler) throws IOException {
+		this.delimiterToDetect = separator;
+		this.settled = false;
+		detectDelimiter();
+
+		List<String> pending = new ArrayList<>();
+		doSplit(separator, statement -> {
+			if (this.settled) {
+				flush(pending, statementHandler);
+				statementHandler.accept(statement);
+			}
+			else {
+				pending.add(statement);
+			}
+		});
+
+		if (!this.hasText) {
+			throw new IllegalArgumentException("'script' must not be null or empty");
+		}
+		if (this.delimiterDetected) {
+			flush(pending, statementHandler);
+		}
+		else {
+			// The buffer still holds the entire script: split it again.
+			this.pos = 0;
+			doSplit(fallbackSeparator, statementHandler);
+		}
+	}
+
+	private void flush(List<String> pending, Consumer<String> statementHandler) {
+		if (!pending.isEmpty()) {
+			for (String statement : pending) {
+				statementHandler.accept(statement);
+			}
+			pending.clear();
+		}
+	}
+
+	private void doSplit(String separator, Consumer<String> statementHandler) throws IOException {
+		StringBuilder sb = new StringBuilder();
+		boolean inSingleQuote = false;
+		boolean inDoubleQuote = false;
+		boolean inEscape = false;
+
+		while (available(1)) {
+			char c = this.buffer[this.pos];
+			if (inEscape) {
+				inEscape = false;
+				sb.append(c);
+				this.pos++;
+				continue;
+			}
+			// MySQL style escapes
+			if (c == '\\') {
+				inEscape = true;
+				sb.append(c);
+				this.pos++;
+				continue;
+			}
+			if (!inDoubleQuote && (c == '\'')) {
+				inSingleQuote = !inSingleQuote;
+			}
+			else if (!inSingleQuote && (c == '"')) {
+				inDoubleQuote = !inDoubleQuote;
+			}
+			if (!inSingleQuote && !inDoubleQuote) {
+				if (startsWith(separator)) {
+					// We've reached the end of the current statement
+					if (sb.length() > 0) {
+						statementHandler.accept(sb.toString());
+						sb.setLength(0);
+					}
+					this.pos += separator.length();
+					continue;
+				}
+				else if (startsWith(this.commentPrefix)) {
+					// Skip over any content from the start of the comment to the EOL
+					int offsetOfNextNewline = indexOf("\n");
+					if (offsetOfNextNewline > 0) {
+						this.pos += offsetOfNextNewline + 1;
+						continue;
+					}
+					else {
+						// If there's no EOL, we must be at the end of the script, so stop here.
+						this.pos = this.limit;
+						break;
+					}
+				}
+				else if (startsWith(this.blockCommentStartDelimiter)) {
+					// Skip over any block comments
+					int offsetOfCommentEnd = indexOf(this.blockCommentEndDelimiter);
+					if (offsetOfCommentEnd > 0) {
+						this.pos += offsetOfCommentEnd + this.blockCommentEndDelimiter.length();
+						continue;
+					}
+					else {
+						throw new ScriptParseException(
+								"Missing block comment end delimiter: " + this.blockCommentEndDelimiter, this.resource);
+					}
+				}
+				else if (c == ' ' || c == '\n' || c == '\t') {
+					// Avoid multiple adjacent whitespace characters
+					if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
+						c = ' ';
+					}
+					else {
+						this.pos++;
+						continue;
+					}
+				}
+			}
+			sb.append(c);
+			this.pos++;
+		}
+
+		if (StringUtils.hasText(sb)) {
+			statementHandler.accept(sb.toString());
+		}
+	}
+
+	/**
+	 * Make sure that at least the given number of characters is available
+	 * from the current position, unless the end of the script is reached.
+	 */
+	private boolean available(int count) throws IOException {
+		while (this.limit - this.pos < count) {
+			if (!fill()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean startsWith(String str) throws IOException {
+		return (available(str.length()) && regionMatches(this.pos, str));
+	}
+
+	/**
+	 * Find the given string, reading ahead as far as necessary.
+	 * @return the offset from the current position, or -1 if not found
+	 */
+	private int indexOf(String str) throws IOException {
+		int from = 0;
+		while (true) {
+			int last = this.limit - this.pos - str.length();
+			for (int offset = from; offset <= last; offset++) {
+				if (regionMatches(this.pos + offset, str)) {
+					return offset;
+				}
+			}
+			from = Math.max(from, last + 1);
+			if (!fill()) {
+				return -1;
+			}
+		}
+	}
+
+	private boolean regionMatches(int index, String str) {
+		for (int i = 0; i < str.length(); i++) {
+			if (this.buffer[index + i] != str.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Read the next chunk of the script into the buffer, compacting or
+	 * growing the buffer if it is full.
+	 * @return {@code false} if the end of the script has been reached
+	 */
+	private boolean fill() throws IOException {
+		if (this.eof || this.reader == null) {
+			return false;
+		}
+		if (this.limit == this.buffer.length) {
+			if (this.settled && this.pos > 0) {
+				System.arraycopy(this.buffer, this.pos, this.buffer, 0, this.limit - this.pos);
+				this.limit -= this.pos;
+				this.pos = 0;
+			}
+			if (this.limit == this.buffer.length) {
+				this.buffer = Arrays.copyOf(this.buffer, this.buffer.length * 2);
+			}
+		}
+		int read = this.reader.read(this.buffer, this.limit, this.buffer.length - this.limit);
+		if (read == -1) {
+			this.eof = true;
+		}
+		else {
+			if (!this.hasText) {
+				for (int i = this.limit; i < this.limit + read; i++) {
+					if (!Character.isWhitespace(this.buffer[i])) {
+						this.hasText = true;
+						break;
+					}
+				}
+			}
+			this.limit += read;
+		}
+		detectDelimiter();
+		return !this.eof;
+	}
+
+	private void detectDelimiter() {
+		String delim = this.delimiterToDetect;
+		if (delim == null || this.settled) {
+			return;
+		}
+		while (!this.delimiterDetected && this.detectPos < this.limit) {
+			if (!this.eof && this.detectPos + delim.length() > this.limit) {
+				// Not enough lookahead yet
+				break;
+			}
+			char c = this.buffer[this.detectPos];
+			if (this.detectInEscape) {
+				this.detectInEscape = false;
+			}
+			else if (c == '\\') {
+				this.detectInEscape = true;
+			}
+			else {
+				if (c == '\'') {
+					this.detectInLiteral = !this.detectInLiteral;
+				}
+				if (!this.detectInLiteral && this.detectPos + delim.length() <= this.limit &&
+						regionMatches(this.detectPos, delim)) {
+					this.delimiterDetected = true;
+				}
+			}
+			this.detectPos++;
+		}
+		this.settled = (this.delimiterDetected && this.hasText);
+	}
+
+}
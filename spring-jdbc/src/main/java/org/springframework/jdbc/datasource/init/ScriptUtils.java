@@ -18,12 +18,16 @@ package org.springframework.jdbc.datasource.init;
 
 import java.io.IOException;
 import java.io.LineNumberReader;
+import java.io.Reader;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -176,79 +180,67 @@ public abstract class ScriptUtils {
 		Assert.hasText(blockCommentStartDelimiter, "'blockCommentStartDelimiter' must not be null or empty");
 		Assert.hasText(blockCommentEndDelimiter, "'blockCommentEndDelimiter' must not be null or empty");
 
-		StringBuilder sb = new StringBuilder();
-		boolean inSingleQuote = false;
-		boolean inDoubleQuote = false;
-		boolean inEscape = false;
+		ScriptStatementSplitter splitter = new ScriptStatementSplitter(script, resource, commentPrefix,
+				blockCommentStartDelimiter, blockCommentEndDelimiter);
+		try {
+			splitter.split(separator, statements::add);
+		}
+		catch (IOException ex) {
+			// Cannot happen for a script held in memory
+			throw new IllegalStateException(ex);
+		}
+	}
 
-		for (int i = 0; i < script.length(); i++) {
-			char c = script.charAt(i);
-			if (inEscape) {
-				inEscape = false;
-				sb.append(c);
-				continue;
-			}
-			// MySQL style escapes
-			if (c == '\\') {
-				inEscape = true;
-				sb.append(c);
-				continue;
-			}
-			if (!inDoubleQuote && (c == '\'')) {
-				inSingleQuote = !inSingleQuote;
-			}
-			else if (!inSingleQuote && (c == '"')) {
-				inDoubleQuote = !inDoubleQuote;
+	/**
+	 * Split the SQL script from the given resource into separate statements,
+	 * reading the script incrementally instead of loading it into memory upfront.
+	 * <p>Lines <em>beginning</em> with the comment prefix are skipped, as with
+	 * {@link #readScript(LineNumberReader, String, String, String)}; the remaining
+	 * content is split according to the rules of
+	 * {@link #splitSqlScript(EncodedResource, String, String, String, String, String, List)}.
+	 * The statement handler gets invoked for each statement as soon as it has been
+	 * read, so a parse error further down in the script will only be detected after
+	 * the preceding statements have been handled.
+	 * @param resource the resource (potentially associated with a specific encoding)
+	 * to load the SQL script from
+	 * @param separator the script statement separator; defaults to
+	 * {@value #DEFAULT_STATEMENT_SEPARATOR} if not specified and falls back to
+	 * {@value #FALLBACK_STATEMENT_SEPARATOR} if the script does not contain it;
+	 * may be set to {@value #EOF_STATEMENT_SEPARATOR} to signal that the script
+	 * contains a single statement without a separator
+	 * @param commentPrefix the prefix that identifies SQL line comments
+	 * (typically "--")
+	 * @param blockCommentStartDelimiter the <em>start</em> block comment delimiter;
+	 * never {@code null} or empty
+	 * @param blockCommentEndDelimiter the <em>end</em> block comment delimiter;
+	 * never {@code null} or empty
+	 * @param statementHandler the callback for each individual statement
+	 * @throws ScriptException if an error occurred while reading or splitting the SQL script
+	 * @since 5.2
+	 */
+	public static void splitSqlScript(EncodedResource resource, @Nullable String separator, String commentPrefix,
+			String blockCommentStartDelimiter, String blockCommentEndDelimiter, Consumer<String> statementHandler)
+			throws ScriptException {
+
+		Assert.notNull(resource, "EncodedResource must not be null");
+		Assert.hasText(commentPrefix, "'commentPrefix' must not be null or empty");
+		Assert.hasText(blockCommentStartDelimiter, "'blockCommentStartDelimiter' must not be null or empty");
+		Assert.hasText(blockCommentEndDelimiter, "'blockCommentEndDelimiter' must not be null or empty");
+
+		String separatorToUse = (separator != null ? separator : DEFAULT_STATEMENT_SEPARATOR);
+		try (Reader reader = new ScriptLineReader(
+				resource.getReader(), commentPrefix, separator, blockCommentEndDelimiter)) {
+			ScriptStatementSplitter splitter = new ScriptStatementSplitter(reader, resource,
+					commentPrefix, blockCommentStartDelimiter, blockCommentEndDelimiter);
+			if (EOF_STATEMENT_SEPARATOR.equals(separatorToUse)) {
+				splitter.split(separatorToUse, statementHandler);
 			}
-			if (!inSingleQuote && !inDoubleQuote) {
-				if (script.startsWith(separator, i)) {
-					// We've reached the end of the current statement
-					if (sb.length() > 0) {
-						statements.add(sb.toString());
-						sb = new StringBuilder();
-					}
-					i += separator.length() - 1;
-					continue;
-				}
-				else if (script.startsWith(commentPrefix, i)) {
-					// Skip over any content from the start of the comment to the EOL
-					int indexOfNextNewline = script.indexOf('\n', i);
-					if (indexOfNextNewline > i) {
-						i = indexOfNextNewline;
-						continue;
-					}
-					else {
-						// If there's no EOL, we must be at the end of the script, so stop here.
-						break;
-					}
-				}
-				else if (script.startsWith(blockCommentStartDelimiter, i)) {
-					// Skip over any block comments
-					int indexOfCommentEnd = script.indexOf(blockCommentEndDelimiter, i);
-					if (indexOfCommentEnd > i) {
-						i = indexOfCommentEnd + blockCommentEndDelimiter.length() - 1;
-						continue;
-					}
-					else {
-						throw new ScriptParseException(
-								"Missing block comment end delimiter: " + blockCommentEndDelimiter, resource);
-					}
-				}
-				else if (c == ' ' || c == '\n' || c == '\t') {
-					// Avoid multiple adjacent whitespace characters
-					if (sb.length() > 0 && sb.charAt(sb.length() - 1) != ' ') {
-						c = ' ';
-					}
-					else {
-						continue;
-					}
-				}
+			else {
+				splitter.split(separatorToUse, FALLBACK_STATEMENT_SEPARATOR, statementHandler);
 			}
-			sb.append(c);
 		}
-
-		if (StringUtils.hasText(sb)) {
-			statements.add(sb.toString());
+		catch (IOException ex) {
+			throw new CannotReadScriptException(resource, ex);
 		}
 	}
 
@@ -454,83 +446,400 @@ public abstract class ScriptUtils {
 			boolean ignoreFailedDrops, String commentPrefix, @Nullable String separator,
 			String blockCommentStartDelimiter, String blockCommentEndDelimiter) throws ScriptException {
 
+		executeSqlScript(connection, resource, continueOnError, ignoreFailedDrops, commentPrefix, separator,
+				blockCommentStartDelimiter, blockCommentEndDelimiter, 0, null);
+	}
+
+	/**
+	 * Execute the given SQL script, optionally grouping consecutive DML statements
+	 * into JDBC batches.
+	 * <p>The script is read incrementally, with each statement getting executed
+	 * as soon as it has been read (see
+	 * {@link #splitSqlScript(EncodedResource, String, String, String, String, Consumer)}).
+	 * Statement separators and comments will be removed before executing
+	 * individual statements within the supplied script.
+	 * <p>If a DML batch size greater than 1 is specified and the driver supports
+	 * batch updates, consecutive {@code INSERT}, {@code UPDATE}, {@code DELETE}
+	 * and {@code MERGE} statements are sent to the database in batches of up to
+	 * that size. Failed statements within a batch are subject to the same error
+	 * handling as individually executed statements; statements that the driver
+	 * skipped after a failure get executed individually if the script continues.
+	 * <p><strong>Warning</strong>: this method does <em>not</em> release the
+	 * provided {@link Connection}.
+	 * @param connection the JDBC connection to use to execute the script; already
+	 * configured and ready to use
+	 * @param resource the resource (potentially associated with a specific encoding)
+	 * to load the SQL script from
+	 * @param continueOnError whether or not to continue without throwing an exception
+	 * in the event of an error
+	 * @param ignoreFailedDrops whether or not to continue in the event of specifically
+	 * an error on a {@code DROP} statement
+	 * @param commentPrefix the prefix that identifies single-line comments in the
+	 * SQL script (typically "--")
+	 * @param separator the script statement separator; defaults to
+	 * {@value #DEFAULT_STATEMENT_SEPARATOR} if not specified and falls back to
+	 * {@value #FALLBACK_STATEMENT_SEPARATOR} as a last resort; may be set to
+	 * {@value #EOF_STATEMENT_SEPARATOR} to signal that the script contains a
+	 * single statement without a separator
+	 * @param blockCommentStartDelimiter the <em>start</em> block comment delimiter
+	 * @param blockCommentEndDelimiter the <em>end</em> block comment delimiter
+	 * @param dmlBatchSize the maximum number of consecutive DML statements to
+	 * execute as a single batch; 0 or 1 to execute each statement individually
+	 * @param listener a listener to notify once the script has been executed
+	 * (may be {@code null})
+	 * @throws ScriptException if an error occurred while executing the SQL script
+	 * @since 5.2
+	 * @see java.sql.Statement#executeBatch()
+	 */
+	public static void executeSqlScript(Connection connection, EncodedResource resource, boolean continueOnError,
+			boolean ignoreFailedDrops, String commentPrefix, @Nullable String separator,
+			String blockCommentStartDelimiter, String blockCommentEndDelimiter, int dmlBatchSize,
+			@Nullable ScriptExecutionListener listener) throws ScriptException {
+
 		try {
 			if (logger.isDebugEnabled()) {
 				logger.debug("Executing SQL script from " + resource);
 			}
 			long startTime = System.currentTimeMillis();
 
-			String script;
+			if (dmlBatchSize > 1 && !connection.getMetaData().supportsBatchUpdates()) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("JDBC driver does not support batch updates - executing DML statements individually");
+				}
+				dmlBatchSize = 0;
+			}
+
+			ScriptStatementExecutor executor = new ScriptStatementExecutor(
+					connection.createStatement(), resource, continueOnError, ignoreFailedDrops, dmlBatchSize);
 			try {
-				script = readScript(resource, commentPrefix, separator, blockCommentEndDelimiter);
+				splitSqlScript(resource, separator, commentPrefix, blockCommentStartDelimiter,
+						blockCommentEndDelimiter, executor);
+				executor.executeBatch();
+			}
+			finally {
+				executor.close();
+			}
+
+			long elapsedTime = System.currentTimeMillis() - startTime;
+			if (logger.isDebugEnabled()) {
+				logger.debug("Executed SQL script from " + resource + " in " + elapsedTime + " ms.");
+			}
+			if (listener != null) {
+				listener.scriptExecuted(resource, executor.getStatementCount(), elapsedTime);
+			}
+		}
+		catch (Exception ex) {
+			if (ex instanceof ScriptException) {
+				throw (ScriptException) ex;
+			}
+			throw new UncategorizedScriptException(
+				"Failed to execute database script from resource [" + resource + "]", ex);
+		}
+	}
+
+
+	/**
+	 * {@code Reader} that skips lines beginning with the comment prefix, with the
+	 * same result as {@link #readScript(LineNumberReader, String, String, String)}
+	 * but without holding more than the current line in memory.
+	 */
+	private static class ScriptLineReader extends Reader {
+
+		private final LineNumberReader lineNumberReader;
+
+		@Nullable
+		private final String lineCommentPrefix;
+
+		@Nullable
+		private final String blockCommentEndDelimiter;
+
+		/** The trimmed separator, if the separator ends with whitespace. */
+		@Nullable
+		private final String trimmedSeparator;
+
+		@Nullable
+		private final String separatorSuffix;
+
+		private final StringBuilder tail = new StringBuilder();
+
+		private long length;
+
+		private String currentLine = "";
+
+		private int currentPos;
+
+		private boolean newlinePending;
+
+		private boolean done;
+
+		public ScriptLineReader(Reader reader, @Nullable String lineCommentPrefix, @Nullable String separator,
+				@Nullable String blockCommentEndDelimiter) {
+
+			this.lineNumberReader = new LineNumberReader(reader);
+			this.lineCommentPrefix = lineCommentPrefix;
+			this.blockCommentEndDelimiter = blockCommentEndDelimiter;
+			String trimmed = (separator != null ? separator.trim() : null);
+			if (separator != null && trimmed.length() != separator.length()) {
+				this.trimmedSeparator = trimmed;
+				this.separatorSuffix = separator.substring(trimmed.length());
+			}
+			else {
+				this.trimmedSeparator = null;
+				this.separatorSuffix = null;
+			}
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int count = 0;
+			while (count < len) {
+				if (this.newlinePending) {
+					cbuf[off + count++] = '\n';
+					this.newlinePending = false;
+				}
+				else if (this.currentPos < this.currentLine.length()) {
+					int chunk = Math.min(len - count, this.currentLine.length() - this.currentPos);
+					this.currentLine.getChars(this.currentPos, this.currentPos + chunk, cbuf, off + count);
+					this.currentPos += chunk;
+					count += chunk;
+				}
+				else if (!nextLine()) {
+					break;
+				}
+			}
+			return (count == 0 && len > 0 ? -1 : count);
+		}
+
+		private boolean nextLine() throws IOException {
+			if (this.done) {
+				return false;
+			}
+			String line = this.lineNumberReader.readLine();
+			while (line != null) {
+				if ((this.blockCommentEndDelimiter != null && line.contains(this.blockCommentEndDelimiter)) ||
+						(this.lineCommentPrefix != null && !line.startsWith(this.lineCommentPrefix))) {
+					this.newlinePending = (this.length > 0);
+					this.currentLine = line;
+					this.currentPos = 0;
+					trackTail(line);
+					return true;
+				}
+				line = this.lineNumberReader.readLine();
 			}
-			catch (IOException ex) {
-				throw new CannotReadScriptException(resource, ex);
+			this.done = true;
+			if (this.separatorSuffix != null && endsWithTrimmedSeparator()) {
+				// See appendSeparatorToScriptIfNecessary
+				this.currentLine = this.separatorSuffix;
+				this.currentPos = 0;
+				return true;
 			}
+			return false;
+		}
 
-			if (separator == null) {
-				separator = DEFAULT_STATEMENT_SEPARATOR;
+		private void trackTail(String line) {
+			this.length += (this.newlinePending ? line.length() + 1 : line.length());
+			if (this.trimmedSeparator == null) {
+				return;
 			}
-			if (!EOF_STATEMENT_SEPARATOR.equals(separator) && !containsSqlScriptDelimiters(script, separator)) {
-				separator = FALLBACK_STATEMENT_SEPARATOR;
+			if (this.newlinePending) {
+				this.tail.append('\n');
 			}
+			int tailLength = this.trimmedSeparator.length();
+			this.tail.append(line, Math.max(0, line.length() - tailLength), line.length());
+			if (this.tail.length() > tailLength) {
+				this.tail.delete(0, this.tail.length() - tailLength);
+			}
+		}
+
+		private boolean endsWithTrimmedSeparator() {
+			String trimmed = this.trimmedSeparator;
+			Assert.state(trimmed != null, "No trimmed separator");
+			if (this.length >= trimmed.length()) {
+				return this.tail.toString().equals(trimmed);
+			}
+			// Same outcome as the lastIndexOf check for a script shorter than the separator
+			return (this.length == trimmed.length() - 1);
+		}
 
-			List<String> statements = new ArrayList<>();
-			splitSqlScript(resource, script, separator, commentPrefix, blockCommentStartDelimiter,
-					blockCommentEndDelimiter, statements);
+		@Override
+		public void close() throws IOException {
+			this.lineNumberReader.close();
+		}
+	}
+
+
+	/**
+	 * Statement handler which executes each statement as it gets read,
+	 * grouping consecutive DML statements into batches if requested.
+	 */
+	private static class ScriptStatementExecutor implements Consumer<String> {
+
+		private static final String[] DML_KEYWORDS = {"insert", "update", "delete", "merge"};
+
+		private final Statement statement;
+
+		private final EncodedResource resource;
+
+		private final boolean continueOnError;
+
+		private final boolean ignoreFailedDrops;
+
+		private final int dmlBatchSize;
+
+		private final List<String> batch;
+
+		private int batchStartNumber;
+
+		private int stmtNumber;
+
+		public ScriptStatementExecutor(Statement statement, EncodedResource resource,
+				boolean continueOnError, boolean ignoreFailedDrops, int dmlBatchSize) {
+
+			this.statement = statement;
+			this.resource = resource;
+			this.continueOnError = continueOnError;
+			this.ignoreFailedDrops = ignoreFailedDrops;
+			this.dmlBatchSize = dmlBatchSize;
+			this.batch = (dmlBatchSize > 1 ? new ArrayList<>(dmlBatchSize) : Collections.emptyList());
+		}
 
-			int stmtNumber = 0;
-			Statement stmt = connection.createStatement();
+		@Override
+		public void accept(String sql) {
+			this.stmtNumber++;
+			if (this.dmlBatchSize > 1 && isDmlStatement(sql)) {
+				if (this.batch.isEmpty()) {
+					this.batchStartNumber = this.stmtNumber;
+				}
+				this.batch.add(sql);
+				if (this.batch.size() >= this.dmlBatchSize) {
+					executeBatch();
+				}
+			}
+			else {
+				executeBatch();
+				execute(sql, this.stmtNumber);
+			}
+		}
+
+		public int getStatementCount() {
+			return this.stmtNumber;
+		}
+
+		private void execute(String sql, int number) {
 			try {
-				for (String statement : statements) {
-					stmtNumber++;
-					try {
-						stmt.execute(statement);
-						int rowsAffected = stmt.getUpdateCount();
-						if (logger.isDebugEnabled()) {
-							logger.debug(rowsAffected + " returned as update count for SQL: " + statement);
-							SQLWarning warningToLog = stmt.getWarnings();
-							while (warningToLog != null) {
-								logger.debug("SQLWarning ignored: SQL state '" + warningToLog.getSQLState() +
-										"', error code '" + warningToLog.getErrorCode() +
-										"', message [" + warningToLog.getMessage() + "]");
-								warningToLog = warningToLog.getNextWarning();
-							}
-						}
+				this.statement.execute(sql);
+				int rowsAffected = this.statement.getUpdateCount();
+				if (logger.isDebugEnabled()) {
+					logger.debug(rowsAffected + " returned as update count for SQL: " + sql);
+					logWarnings();
+				}
+			}
+			catch (SQLException ex) {
+				handleFailure(sql, number, ex);
+			}
+		}
+
+		/**
+		 * Execute the pending DML batch, if any.
+		 */
+		public void executeBatch() {
+			if (this.batch.isEmpty()) {
+				return;
+			}
+			try {
+				for (String sql : this.batch) {
+					this.statement.addBatch(sql);
+				}
+				int[] rowsAffected = this.statement.executeBatch();
+				if (logger.isDebugEnabled()) {
+					for (int i = 0; i < this.batch.size() && i < rowsAffected.length; i++) {
+						logger.debug(rowsAffected[i] + " returned as update count for batched SQL: " + this.batch.get(i));
+					}
+					logWarnings();
+				}
+			}
+			catch (BatchUpdateException ex) {
+				int[] rowsAffected = ex.getUpdateCounts();
+				int processed = (rowsAffected != null ? Math.min(rowsAffected.length, this.batch.size()) : 0);
+				boolean failureFound = false;
+				for (int i = 0; i < processed; i++) {
+					if (rowsAffected[i] == Statement.EXECUTE_FAILED) {
+						handleFailure(this.batch.get(i), this.batchStartNumber + i, ex);
+						failureFound = true;
 					}
-					catch (SQLException ex) {
-						boolean dropStatement = StringUtils.startsWithIgnoreCase(statement.trim(), "drop");
-						if (continueOnError || (dropStatement && ignoreFailedDrops)) {
-							if (logger.isDebugEnabled()) {
-								logger.debug(ScriptStatementFailedException.buildErrorMessage(statement, stmtNumber, resource), ex);
-							}
-						}
-						else {
-							throw new ScriptStatementFailedException(statement, stmtNumber, resource, ex);
-						}
+				}
+				if (processed == this.batch.size()) {
+					if (!failureFound) {
+						handleFailure(this.batch.get(0), this.batchStartNumber, ex);
+					}
+				}
+				else {
+					// The driver stopped at the first failure: execute the rest individually.
+					handleFailure(this.batch.get(processed), this.batchStartNumber + processed, ex);
+					clearBatch();
+					for (int i = processed + 1; i < this.batch.size(); i++) {
+						execute(this.batch.get(i), this.batchStartNumber + i);
 					}
 				}
 			}
+			catch (SQLException ex) {
+				handleFailure(this.batch.get(0), this.batchStartNumber, ex);
+			}
 			finally {
-				try {
-					stmt.close();
-				}
-				catch (Throwable ex) {
-					logger.trace("Could not close JDBC Statement", ex);
+				this.batch.clear();
+				clearBatch();
+			}
+		}
+
+		private void clearBatch() {
+			try {
+				this.statement.clearBatch();
+			}
+			catch (SQLException ex) {
+				logger.trace("Could not clear JDBC Statement batch", ex);
+			}
+		}
+
+		private void handleFailure(String sql, int number, SQLException ex) {
+			boolean dropStatement = StringUtils.startsWithIgnoreCase(sql.trim(), "drop");
+			if (this.continueOnError || (dropStatement && this.ignoreFailedDrops)) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(ScriptStatementFailedException.buildErrorMessage(sql, number, this.resource), ex);
 				}
 			}
+			else {
+				throw new ScriptStatementFailedException(sql, number, this.resource, ex);
+			}
+		}
 
-			long elapsedTime = System.currentTimeMillis() - startTime;
-			if (logger.isDebugEnabled()) {
-				logger.debug("Executed SQL script from " + resource + " in " + elapsedTime + " ms.");
+		private void logWarnings() throws SQLException {
+			SQLWarning warningToLog = this.statement.getWarnings();
+			while (warningToLog != null) {
+				logger.debug("SQLWarning ignored: SQL state '" + warningToLog.getSQLState() +
+						"', error code '" + warningToLog.getErrorCode() +
+						"', message [" + warningToLog.getMessage() + "]");
+				warningToLog = warningToLog.getNextWarning();
 			}
 		}
-		catch (Exception ex) {
-			if (ex instanceof ScriptException) {
-				throw (ScriptException) ex;
+
+		public void close() {
+			try {
+				this.statement.close();
 			}
-			throw new UncategorizedScriptException(
-				"Failed to execute database script from resource [" + resource + "]", ex);
+			catch (Throwable ex) {
+				logger.trace("Could not close JDBC Statement", ex);
+			}
+		}
+
+		private static boolean isDmlStatement(String sql) {
+			String trimmed = sql.trim();
+			for (String keyword : DML_KEYWORDS) {
+				if (StringUtils.startsWithIgnoreCase(trimmed, keyword) && trimmed.length() > keyword.length() &&
+						!Character.isLetterOrDigit(trimmed.charAt(keyword.length()))) {
+					return true;
+				}
+			}
+			return false;
 		}
 	}
 
@@ -0,0 +1,393 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.Assert;
+
+/**
+ * DataSource that routes read-only work to one of several replica DataSources,
+ * and everything else to a primary DataSource, based on the
+ * {@link TransactionSynchronizationManager#isCurrentTransactionReadOnly()
+ * read-only flag} of the current transaction.
+ *
+ * <p>Replicas are selected according to the configured {@link Selection} strategy:
+ * round-robin by default, or the replica with the least Connections currently in
+ * use. A replica that fails to provide a Connection is considered unhealthy and
+ * skipped for the {@link #setReplicaRetryInterval "replicaRetryInterval"}; if no
+ * healthy replica is left, read-only work falls back to the primary DataSource.
+ *
+ * <p>This router can be used with
+ * {@link org.springframework.jdbc.datasource.DataSourceTransactionManager}
+ * directly, which exposes the read-only flag of a new transaction while
+ * obtaining its Connection. With other transaction managers, point both the
+ * transaction manager and the data access code to a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}
+ * for this router, so that the Connection is only fetched once the transaction
+ * has been fully set up. Outside of a transaction, all work goes to the primary.
+ *
+ * <pre class="code">
+ * &lt;bean id="dataSourceRouter" class="org.springframework.jdbc.datasource.lookup.ReadWriteDataSourceRouter"&gt;
+ *   &lt;property name="primaryDataSource" ref="myPrimaryDataSource"/&gt;
+ *   &lt;property name="replicaDataSources"&gt;
+ *     &lt;list&gt;
+ *       &lt;ref bean="myReplicaDataSource1"/&gt;
+ *       &lt;ref bean="myReplicaDataSource2"/&gt;
+ *     &lt;/list&gt;
+ *   &lt;/property&gt;
+ *   &lt;property name="selection" value="LEAST_ACTIVE"/&gt;
+ * &lt;/bean&gt;</pre>
+ *
+ * @author agent
+ * @since 5.2
+ * @see #setPrimaryDataSource
+ * @see #setReplicaDataSources
+ * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
+ */
+public class ReadWriteDataSourceRouter extends AbstractDataSource implements InitializingBean {
+
+	/** The default retry interval for unhealthy replicas: 30 seconds. */
+	public static final long DEFAULT_REPLICA_RETRY_INTERVAL = 30000;
+
+
+	@Nullable
+	private DataSource primaryDataSource;
+
+	private List<DataSource> replicaDataSources = new ArrayList<>();
+
+	private Selection selection = Selection.ROUND_ROBIN;
+
+	private long replicaRetryInterval = DEFAULT_REPLICA_RETRY_INTERVAL;
+
+	@Nullable
+	private volatile Replica[] replicas;
+
+	private final AtomicInteger counter = new AtomicInteger();
+
+
+	/**
+	 * Specify the primary DataSource to use for all work that is not read-only,
+	 * and as a fallback for read-only work if no replica is available.
+	 */
+	public void setPrimaryDataSource(DataSource primaryDataSource) {
+		this.primaryDataSource = primaryDataSource;
+	}
+
+	/**
+	 * Return the primary DataSource.
+	 */
+	@Nullable
+	public DataSource getPrimaryDataSource() {
+		return this.primaryDataSource;
+	}
+
+	/**
+	 * Specify the replica DataSources to use for read-only work.
+	 */
+	public void setReplicaDataSources(List<DataSource> replicaDataSources) {
+		this.replicaDataSources = new ArrayList<>(replicaDataSources);
+		this.replicas = null;
+	}
+
+	/**
+	 * Return the replica DataSources.
+	 */
+	public List<DataSource> getReplicaDataSources() {
+		return this.replicaDataSources;
+	}
+
+	/**
+	 * Specify the strategy for selecting a replica.
+	 * Default is {@link Selection#ROUND_ROBIN}.
+	 */
+	public void setSelection(Selection selection) {
+		Assert.notNull(selection, "Selection must not be null");
+		this.selection = selection;
+	}
+
+	/**
+	 * Return the strategy for selecting a replica.
+	 */
+	public Selection getSelection() {
+		return this.selection;
+	}
+
+	/**
+	 * Specify the time (in milliseconds) to skip a replica for after it failed
+	 * to provide a Connection. Default is {@value #DEFAULT_REPLICA_RETRY_INTERVAL}.
+	 */
+	public void setReplicaRetryInterval(long replicaRetryInterval) {
+		this.replicaRetryInterval = replicaRetryInterval;
+	}
+
+	/**
+	 * Return the time (in milliseconds) to skip an unhealthy replica for.
+	 */
+	public long getReplicaRetryInterval() {
+		return this.replicaRetryInterval;
+	}
+
+
+	@Override
+	public void afterPropertiesSet() {
+		if (this.primaryDataSource == null) {
+			throw new IllegalArgumentException("Property 'primaryDataSource' is required");
+		}
+		obtainReplicas();
+	}
+
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		return getConnection(null, null);
+	}
+
+	@Override
+	public Connection getConnection(@Nullable String username, @Nullable String password) throws SQLException {
+		Replica[] replicas = obtainReplicas();
+		if (replicas.length > 0 && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			Connection con = getReplicaConnection(replicas, username, password);
+			if (con != null) {
+				return con;
+			}
+			if (logger.isDebugEnabled()) {
+				logger.debug("No healthy replica DataSource available - using primary DataSource for read-only work");
+			}
+		}
+		return doGetConnection(obtainPrimaryDataSource(), username, password);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return (T) this;
+		}
+		return obtainPrimaryDataSource().unwrap(iface);
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) throws SQLException {
+		return (iface.isInstance(this) || obtainPrimaryDataSource().isWrapperFor(iface));
+	}
+
+
+	/**
+	 * Obtain a Connection from a healthy replica, in the order determined
+	 * by the selection strategy.
+	 * @return the Connection, or {@code null} if no replica is available
+	 */
+	@Nullable
+	private Connection getReplicaConnection(Replica[] replicas, @Nullable String username, @Nullable String password) {
+		int start = Math.floorMod(this.counter.getAndIncrement(), replicas.length);
+		boolean leastActive = (this.selection == Selection.LEAST_ACTIVE);
+		long now = System.currentTimeMillis();
+		boolean[] tried = new boolean[replicas.length];
+		for (int attempt = 0; attempt < replicas.length; attempt++) {
+			int index = -1;
+			for (int i = 0; i < replicas.length; i++) {
+				int candidate = (start + i) % replicas.length;
+				if (!tried[candidate] && replicas[candidate].isHealthy(now)) {
+					if (!leastActive) {
+						index = candidate;
+						break;
+					}
+					if (index == -1 || replicas[candidate].active.get() < replicas[index].active.get()) {
+						index = candidate;
+					}
+				}
+			}
+			if (index == -1) {
+				return null;
+			}
+			tried[index] = true;
+			Replica replica = replicas[index];
+			try {
+				Connection con = doGetConnection(replica.dataSource, username, password);
+				replica.unhealthyUntil = 0;
+				return (leastActive ? getActiveCountingConnectionProxy(con, replica) : con);
+			}
+			catch (SQLException | RuntimeException ex) {
+				replica.unhealthyUntil = now + this.replicaRetryInterval;
+				if (logger.isWarnEnabled()) {
+					logger.warn("Could not obtain Connection from replica DataSource [" + replica.dataSource +
+							"] - skipping it for " + this.replicaRetryInterval + " ms", ex);
+				}
+			}
+		}
+		return null;
+	}
+
+	private Connection doGetConnection(DataSource dataSource, @Nullable String username, @Nullable String password)
+			throws SQLException {
+
+		return (username != null || password != null ?
+				dataSource.getConnection(username, password) : dataSource.getConnection());
+	}
+
+	/**
+	 * Return the runtime state for the configured replica DataSources,
+	 * building it on first access if not initialized through
+	 * {@link #afterPropertiesSet()} or after a change of replicas.
+	 */
+	private Replica[] obtainReplicas() {
+		Replica[] replicas = this.replicas;
+		if (replicas == null) {
+			List<DataSource> replicaDataSources = this.replicaDataSources;
+			replicas = new Replica[replicaDataSources.size()];
+			for (int i = 0; i < replicas.length; i++) {
+				replicas[i] = new Replica(replicaDataSources.get(i));
+			}
+			this.replicas = replicas;
+		}
+		return replicas;
+	}
+
+	private DataSource obtainPrimaryDataSource() {
+		DataSource primaryDataSource = this.primaryDataSource;
+		Assert.state(primaryDataSource != null, "No primary DataSource set");
+		return primaryDataSource;
+	}
+
+	/**
+	 * Wrap the given Connection with a proxy that keeps track of the
+	 * number of Connections in use for the given replica.
+	 */
+	private Connection getActiveCountingConnectionProxy(Connection target, Replica replica) {
+		replica.active.incrementAndGet();
+		return (Connection) Proxy.newProxyInstance(
+				ConnectionProxy.class.getClassLoader(),
+				new Class<?>[] {ConnectionProxy.class},
+				new ActiveCountingInvocationHandler(target, replica));
+	}
+
+
+	/**
+	 * Strategy for selecting one of the replica DataSources.
+	 */
+	public enum Selection {
+
+		/**
+		 * Use the replicas in turn.
+		 */
+		ROUND_ROBIN,
+
+		/**
+		 * Use the replica with the least Connections currently in use,
+		 * as obtained through this router.
+		 */
+		LEAST_ACTIVE
+	}
+
+
+	/**
+	 * Runtime state of a replica DataSource.
+	 */
+	private static class Replica {
+
+		final DataSource dataSource;
+
+		final AtomicInteger active = new AtomicInteger();
+
+		volatile long unhealthyUntil;
+
+		Replica(DataSource dataSource) {
+			this.dataSource = dataSource;
+		}
+
+		boolean isHealthy(long now) {
+			return (this.unhealthyUntil <= now);
+		}
+	}
+
+
+	/**
+	 * Invocation handler that decrements the active count of a replica
+	 * when the Connection gets closed.
+	 */
+	private static class ActiveCountingInvocationHandler implements InvocationHandler {
+
+		private final Connection target;
+
+		private final Replica replica;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		public ActiveCountingInvocationHandler(Connection target, Replica replica) {
+			this.target = target;
+			this.replica = replica;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			// Invocation on ConnectionProxy interface coming in...
+
+			switch (method.getName()) {
+				case "equals":
+					// Only consider equal when proxies are identical.
+					return (proxy == args[0]);
+				case "hashCode":
+					// Use hashCode of Connection proxy.
+					return System.identityHashCode(proxy);
+				case "unwrap":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return proxy;
+					}
+					break;
+				case "isWrapperFor":
+					if (((Class<?>) args[0]).isInstance(proxy)) {
+						return true;
+					}
+					break;
+				case "close":
+					if (this.closed.compareAndSet(false, true)) {
+						this.replica.active.decrementAndGet();
+					}
+					break;
+				case "getTargetConnection":
+					// Handle getTargetConnection method: return underlying Connection.
+					return this.target;
+			}
+
+			// Invoke method on target Connection.
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,6 @@ package org.springframework.jdbc.support;
 import java.lang.reflect.Constructor;
 import java.sql.BatchUpdateException;
 import java.sql.SQLException;
-import java.util.Arrays;
 import javax.sql.DataSource;
 
 import org.springframework.dao.CannotAcquireLockException;
@@ -213,61 +212,22 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 			}
 
 			if (errorCode != null) {
-				// Look for defined custom translations first.
-				CustomSQLErrorCodesTranslation[] customTranslations = this.sqlErrorCodes.getCustomTranslations();
-				if (customTranslations != null) {
-					for (CustomSQLErrorCodesTranslation customTranslation : customTranslations) {
-						if (Arrays.binarySearch(customTranslation.getErrorCodes(), errorCode) >= 0 &&
-								customTranslation.getExceptionClass() != null) {
-							DataAccessException customException = createCustomException(
-									task, sql, sqlEx, customTranslation.getExceptionClass());
-							if (customException != null) {
-								logTranslation(task, sql, sqlEx, true);
-								return customException;
-							}
+				SQLErrorCodeTranslationTable.Entry entry = this.sqlErrorCodes.getTranslationTable().getEntry(errorCode);
+				if (entry != null) {
+					// Look for defined custom translations first.
+					for (Class<?> exceptionClass : entry.getCustomExceptionClasses()) {
+						DataAccessException customException = createCustomException(task, sql, sqlEx, exceptionClass);
+						if (customException != null) {
+							logTranslation(task, sql, sqlEx, true);
+							return customException;
 						}
 					}
-				}
-				// Next, look for grouped error codes.
-				if (Arrays.binarySearch(this.sqlErrorCodes.getBadSqlGrammarCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new BadSqlGrammarException(task, (sql != null ? sql : ""), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getInvalidResultSetAccessCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new InvalidResultSetAccessException(task, (sql != null ? sql : ""), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDuplicateKeyCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DuplicateKeyException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDataIntegrityViolationCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DataIntegrityViolationException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getPermissionDeniedCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new PermissionDeniedDataAccessException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDataAccessResourceFailureCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DataAccessResourceFailureException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getTransientDataAccessResourceCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new TransientDataAccessResourceException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getCannotAcquireLockCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new CannotAcquireLockException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getDeadlockLoserCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new DeadlockLoserDataAccessException(buildMessage(task, sql, sqlEx), sqlEx);
-				}
-				else if (Arrays.binarySearch(this.sqlErrorCodes.getCannotSerializeTransactionCodes(), errorCode) >= 0) {
-					logTranslation(task, sql, sqlEx, false);
-					return new CannotSerializeTransactionException(buildMessage(task, sql, sqlEx), sqlEx);
+					// Next, look for grouped error codes.
+					SQLErrorCodeTranslationTable.Category category = entry.getCategory();
+					if (category != null) {
+						logTranslation(task, sql, sqlEx, false);
+						return createException(category, task, sql, sqlEx);
+					}
 				}
 			}
 		}
@@ -287,6 +247,36 @@ public class SQLErrorCodeSQLExceptionTranslator extends AbstractFallbackSQLExcep
 		return null;
 	}
 
+	/**
+	 * Create the exception for the given error code category.
+	 */
+	private DataAccessException createException(
+			SQLErrorCodeTranslationTable.Category category, String task, @Nullable String sql, SQLException sqlEx) {
+
+		switch (category) {
+			case BAD_SQL_GRAMMAR:
+				return new BadSqlGrammarException(task, (sql != null ? sql : ""), sqlEx);
+			case INVALID_RESULT_SET_ACCESS:
+				return new InvalidResultSetAccessException(task, (sql != null ? sql : ""), sqlEx);
+			case DUPLICATE_KEY:
+				return new DuplicateKeyException(buildMessage(task, sql, sqlEx), sqlEx);
+			case DATA_INTEGRITY_VIOLATION:
+				return new DataIntegrityViolationException(buildMessage(task, sql, sqlEx), sqlEx);
+			case PERMISSION_DENIED:
+				return new PermissionDeniedDataAccessException(buildMessage(task, sql, sqlEx), sqlEx);
+			case DATA_ACCESS_RESOURCE_FAILURE:
+				return new DataAccessResourceFailureException(buildMessage(task, sql, sqlEx), sqlEx);
+			case TRANSIENT_DATA_ACCESS_RESOURCE:
+				return new TransientDataAccessResourceException(buildMessage(task, sql, sqlEx), sqlEx);
+			case CANNOT_ACQUIRE_LOCK:
+				return new CannotAcquireLockException(buildMessage(task, sql, sqlEx), sqlEx);
+			case DEADLOCK_LOSER:
+				return new DeadlockLoserDataAccessException(buildMessage(task, sql, sqlEx), sqlEx);
+			default:
+				return new CannotSerializeTransactionException(buildMessage(task, sql, sqlEx), sqlEx);
+		}
+	}
+
 	/**
 	 * Subclasses can override this method to attempt a custom mapping from
 	 * {@link SQLException} to {@link DataAccessException}.
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Lookup table compiled from a {@link SQLErrorCodes} definition, mapping each
+ * error code (or SQL state) to its translation with a single hash lookup.
+ * Built once per {@code SQLErrorCodes} instance, i.e. once per database product,
+ * and shared by all translators (and therefore DataSources) using it.
+ *
+ * <p>Preserves the precedence of {@link SQLErrorCodeSQLExceptionTranslator}:
+ * custom translations in their declaration order first, then the error code
+ * categories in the order checked by the translator.
+ *
+ * @author agent
+ * @since 5.2
+ * @see SQLErrorCodes#getTranslationTable()
+ */
+final class SQLErrorCodeTranslationTable {
+
+	private static final Class<?>[] NO_CUSTOM_EXCEPTION_CLASSES = new Class<?>[0];
+
+
+	private final Map<String, Entry> entries;
+
+
+	SQLErrorCodeTranslationTable(SQLErrorCodes sqlErrorCodes) {
+		Map<String, List<Class<?>>> customExceptionClasses = new LinkedHashMap<>();
+		CustomSQLErrorCodesTranslation[] customTranslations = sqlErrorCodes.getCustomTranslations();
+		if (customTranslations != null) {
+			for (CustomSQLErrorCodesTranslation customTranslation : customTranslations) {
+				Class<?> exceptionClass = customTranslation.getExceptionClass();
+				if (exceptionClass != null) {
+					for (String errorCode : customTranslation.getErrorCodes()) {
+						customExceptionClasses.computeIfAbsent(errorCode, code -> new ArrayList<>(1)).add(exceptionClass);
+					}
+				}
+			}
+		}
+
+		Map<String, Category> categories = new HashMap<>();
+		addCategory(categories, sqlErrorCodes.getBadSqlGrammarCodes(), Category.BAD_SQL_GRAMMAR);
+		addCategory(categories, sqlErrorCodes.getInvalidResultSetAccessCodes(), Category.INVALID_RESULT_SET_ACCESS);
+		addCategory(categories, sqlErrorCodes.getDuplicateKeyCodes(), Category.DUPLICATE_KEY);
+		addCategory(categories, sqlErrorCodes.getDataIntegrityViolationCodes(), Category.DATA_INTEGRITY_VIOLATION);
+		addCategory(categories, sqlErrorCodes.getPermissionDeniedCodes(), Category.PERMISSION_DENIED);
+		addCategory(categories, sqlErrorCodes.getDataAccessResourceFailureCodes(),
+				Category.DATA_ACCESS_RESOURCE_FAILURE);
+		addCategory(categories, sqlErrorCodes.getTransientDataAccessResourceCodes(),
+				Category.TRANSIENT_DATA_ACCESS_RESOURCE);
+		addCategory(categories, sqlErrorCodes.getCannotAcquireLockCodes(), Category.CANNOT_ACQUIRE_LOCK);
+		addCategory(categories, sqlErrorCodes.getDeadlockLoserCodes(), Category.DEADLOCK_LOSER);
+		addCategory(categories, sqlErrorCodes.getCannotSerializeTransactionCodes(),
+				Category.CANNOT_SERIALIZE_TRANSACTION);
+
+		Map<String, Entry> entries = new HashMap<>(categories.size() + customExceptionClasses.size());
+		categories.forEach((errorCode, category) -> {
+			List<Class<?>> classes = customExceptionClasses.get(errorCode);
+			entries.put(errorCode, new Entry(classes != null ? classes.toArray(NO_CUSTOM_EXCEPTION_CLASSES) :
+					NO_CUSTOM_EXCEPTION_CLASSES, category));
+		});
+		customExceptionClasses.forEach((errorCode, classes) ->
+				entries.putIfAbsent(errorCode, new Entry(classes.toArray(NO_CUSTOM_EXCEPTION_CLASSES), null)));
+		this.entries = Collections.unmodifiableMap(entries);
+	}
+
+	private static void addCategory(Map<String, Category> categories, String[] errorCodes, Category category) {
+		for (String errorCode : errorCodes) {
+			categories.putIfAbsent(errorCode, category);
+		}
+	}
+
+
+	/**
+	 * Look up the translation for the given error code (or SQL state).
+	 * @param errorCode the error code to look up
+	 * @return the corresponding entry, or {@code null} if none
+	 */
+	@Nullable
+	public Entry getEntry(String errorCode) {
+		return this.entries.get(errorCode);
+	}
+
+	/**
+	 * Return the number of error codes in this table.
+	 */
+	public int size() {
+		return this.entries.size();
+	}
+
+
+	/**
+	 * The translation of a specific error code.
+	 */
+	static final class Entry {
+
+		private final Class<?>[] customExceptionClasses;
+
+		@Nullable
+		private final Category category;
+
+		Entry(Class<?>[] customExceptionClasses, @Nullable Category category) {
+			this.customExceptionClasses = customExceptionClasses;
+			this.category = category;
+		}
+
+		/**
+		 * Return the custom exception classes to try, in order (possibly empty).
+		 */
+		public Class<?>[] getCustomExceptionClasses() {
+			return this.customExceptionClasses;
+		}
+
+		/**
+		 * Return the category of the error code, if any.
+		 */
+		@Nullable
+		public Category getCategory() {
+			return this.category;
+		}
+	}
+
+
+	/**
+	 * The error code categories defined by {@link SQLErrorCodes}.
+	 */
+	enum Category {
+
+		BAD_SQL_GRAMMAR,
+
+		INVALID_RESULT_SET_ACCESS,
+
+		DUPLICATE_KEY,
+
+		DATA_INTEGRITY_VIOLATION,
+
+		PERMISSION_DENIED,
+
+		DATA_ACCESS_RESOURCE_FAILURE,
+
+		TRANSIENT_DATA_ACCESS_RESOURCE,
+
+		CANNOT_ACQUIRE_LOCK,
+
+		DEADLOCK_LOSER,
+
+		CANNOT_SERIALIZE_TRANSACTION
+	}
+
+}
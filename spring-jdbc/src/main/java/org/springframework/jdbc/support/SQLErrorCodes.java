@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -66,6 +66,9 @@ public class SQLErrorCodes {
 	@Nullable
 	private SQLExceptionTranslator customSqlExceptionTranslator;
 
+	@Nullable
+	private volatile SQLErrorCodeTranslationTable translationTable;
+
 
 	/**
 	 * Set this property if the database name contains spaces,
@@ -108,6 +111,7 @@ public class SQLErrorCodes {
 
 	public void setBadSqlGrammarCodes(String... badSqlGrammarCodes) {
 		this.badSqlGrammarCodes = StringUtils.sortStringArray(badSqlGrammarCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getBadSqlGrammarCodes() {
@@ -116,6 +120,7 @@ public class SQLErrorCodes {
 
 	public void setInvalidResultSetAccessCodes(String... invalidResultSetAccessCodes) {
 		this.invalidResultSetAccessCodes = StringUtils.sortStringArray(invalidResultSetAccessCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getInvalidResultSetAccessCodes() {
@@ -128,10 +133,12 @@ public class SQLErrorCodes {
 
 	public void setDuplicateKeyCodes(String... duplicateKeyCodes) {
 		this.duplicateKeyCodes = duplicateKeyCodes;
+		this.translationTable = null;
 	}
 
 	public void setDataIntegrityViolationCodes(String... dataIntegrityViolationCodes) {
 		this.dataIntegrityViolationCodes = StringUtils.sortStringArray(dataIntegrityViolationCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getDataIntegrityViolationCodes() {
@@ -140,6 +147,7 @@ public class SQLErrorCodes {
 
 	public void setPermissionDeniedCodes(String... permissionDeniedCodes) {
 		this.permissionDeniedCodes = StringUtils.sortStringArray(permissionDeniedCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getPermissionDeniedCodes() {
@@ -148,6 +156,7 @@ public class SQLErrorCodes {
 
 	public void setDataAccessResourceFailureCodes(String... dataAccessResourceFailureCodes) {
 		this.dataAccessResourceFailureCodes = StringUtils.sortStringArray(dataAccessResourceFailureCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getDataAccessResourceFailureCodes() {
@@ -156,6 +165,7 @@ public class SQLErrorCodes {
 
 	public void setTransientDataAccessResourceCodes(String... transientDataAccessResourceCodes) {
 		this.transientDataAccessResourceCodes = StringUtils.sortStringArray(transientDataAccessResourceCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getTransientDataAccessResourceCodes() {
@@ -164,6 +174,7 @@ public class SQLErrorCodes {
 
 	public void setCannotAcquireLockCodes(String... cannotAcquireLockCodes) {
 		this.cannotAcquireLockCodes = StringUtils.sortStringArray(cannotAcquireLockCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getCannotAcquireLockCodes() {
@@ -172,6 +183,7 @@ public class SQLErrorCodes {
 
 	public void setDeadlockLoserCodes(String... deadlockLoserCodes) {
 		this.deadlockLoserCodes = StringUtils.sortStringArray(deadlockLoserCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getDeadlockLoserCodes() {
@@ -180,6 +192,7 @@ public class SQLErrorCodes {
 
 	public void setCannotSerializeTransactionCodes(String... cannotSerializeTransactionCodes) {
 		this.cannotSerializeTransactionCodes = StringUtils.sortStringArray(cannotSerializeTransactionCodes);
+		this.translationTable = null;
 	}
 
 	public String[] getCannotSerializeTransactionCodes() {
@@ -188,6 +201,7 @@ public class SQLErrorCodes {
 
 	public void setCustomTranslations(CustomSQLErrorCodesTranslation... customTranslations) {
 		this.customTranslations = customTranslations;
+		this.translationTable = null;
 	}
 
 	@Nullable
@@ -219,4 +233,18 @@ public class SQLErrorCodes {
 		return this.customSqlExceptionTranslator;
 	}
 
+	/**
+	 * Return the lookup table compiled from the error codes and custom translations,
+	 * built on first access and rebuilt after a change of those properties.
+	 * @since 5.2
+	 */
+	SQLErrorCodeTranslationTable getTranslationTable() {
+		SQLErrorCodeTranslationTable translationTable = this.translationTable;
+		if (translationTable == null) {
+			translationTable = new SQLErrorCodeTranslationTable(this);
+			this.translationTable = translationTable;
+		}
+		return translationTable;
+	}
+
 }
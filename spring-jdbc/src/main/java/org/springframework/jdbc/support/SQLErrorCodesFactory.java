@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.jdbc.support;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import javax.sql.DataSource;
 
 import org.apache.commons.logging.Log;
@@ -62,6 +63,12 @@ public class SQLErrorCodesFactory {
 	public static final String SQL_ERROR_CODE_DEFAULT_PATH = "org/springframework/jdbc/support/sql-error-codes.xml";
 
 
+	/**
+	 * Time in milliseconds during which a failed database name lookup for a
+	 * {@link DataSource} is not retried.
+	 */
+	private static final long FAILED_LOOKUP_RETRY_INTERVAL = 5000;
+
 	private static final Log logger = LogFactory.getLog(SQLErrorCodesFactory.class);
 
 	/**
@@ -89,6 +96,13 @@ public class SQLErrorCodesFactory {
 	 */
 	private final Map<DataSource, SQLErrorCodes> dataSourceCache = new ConcurrentReferenceHashMap<>(16);
 
+	/**
+	 * Map to hold the lookup state per DataSource not cached yet,
+	 * serving as lock for concurrent lookups and remembering failures.
+	 */
+	private final ConcurrentMap<DataSource, DataSourceLookup> dataSourceLookups =
+			new ConcurrentReferenceHashMap<>(16);
+
 
 	/**
 	 * Create a new instance of the {@link SQLErrorCodesFactory} class.
@@ -202,13 +216,23 @@ public class SQLErrorCodesFactory {
 			logger.debug("Looking up default SQLErrorCodes for DataSource [" + identify(dataSource) + "]");
 		}
 
-		// Try efficient lock-free access for existing cache entry
+		// Lock-free access for existing cache entry
 		SQLErrorCodes sec = this.dataSourceCache.get(dataSource);
 		if (sec == null) {
-			synchronized (this.dataSourceCache) {
-				// Double-check within full dataSourceCache lock
+			// Locking per DataSource only, so that lookups for other DataSources
+			// are not blocked by a slow or unavailable database.
+			DataSourceLookup lookup = this.dataSourceLookups.computeIfAbsent(dataSource, key -> new DataSourceLookup());
+			synchronized (lookup) {
+				// Double-check within DataSource lock
 				sec = this.dataSourceCache.get(dataSource);
 				if (sec == null) {
+					if (lookup.hasFailedRecently()) {
+						if (logger.isDebugEnabled()) {
+							logger.debug("Database name lookup failed recently for DataSource [" +
+									identify(dataSource) + "] - falling back to empty error codes");
+						}
+						return new SQLErrorCodes();
+					}
 					// We could not find it - got to look it up.
 					try {
 						String name = JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
@@ -220,6 +244,7 @@ public class SQLErrorCodesFactory {
 						logger.warn("Error while extracting database name - falling back to empty error codes", ex);
 					}
 					// Fallback is to return an empty SQLErrorCodes instance.
+					lookup.failureTime = System.currentTimeMillis();
 					return new SQLErrorCodes();
 				}
 			}
@@ -247,6 +272,7 @@ public class SQLErrorCodesFactory {
 					"]: database product name is '" + databaseName + "'");
 		}
 		this.dataSourceCache.put(dataSource, sec);
+		this.dataSourceLookups.remove(dataSource);
 		return sec;
 	}
 
@@ -260,6 +286,7 @@ public class SQLErrorCodesFactory {
 	 */
 	@Nullable
 	public SQLErrorCodes unregisterDatabase(DataSource dataSource) {
+		this.dataSourceLookups.remove(dataSource);
 		return this.dataSourceCache.remove(dataSource);
 	}
 
@@ -294,4 +321,18 @@ public class SQLErrorCodesFactory {
 		}
 	}
 
+
+	/**
+	 * Lookup state for a DataSource whose error codes are not cached yet.
+	 */
+	private static class DataSourceLookup {
+
+		volatile long failureTime;
+
+		boolean hasFailedRecently() {
+			return (this.failureTime != 0 &&
+					System.currentTimeMillis() - this.failureTime < FAILED_LOOKUP_RETRY_INTERVAL);
+		}
+	}
+
 }
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.lob;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Accessor for streaming the LOB content of the current row of a ResultSet,
+ * without materializing it in memory.
+ *
+ * <p>Streams obtained through this accessor stay valid until the accessor gets
+ * {@link #close() closed}, which closes all of them. This is typically done by
+ * the framework after a row has been processed, for example by
+ * {@link org.springframework.jdbc.core.support.LobStreamingRowMapper}.
+ * Note that JDBC drivers generally invalidate LOB streams once the ResultSet
+ * moves to the next row, so the content must be consumed within the callback.
+ *
+ * @author agent
+ * @since 5.2
+ * @see LobHandler#getBlobAsBinaryStream
+ * @see LobHandler#getClobAsCharacterStream
+ * @see org.springframework.jdbc.core.support.LobStreamingRowMapper
+ */
+public class LobStreamAccessor implements Closeable {
+
+	private static final int BUFFER_SIZE = 8192;
+
+
+	private final ResultSet resultSet;
+
+	private final LobHandler lobHandler;
+
+	private final List<Closeable> openStreams = new ArrayList<>(2);
+
+	private boolean closed;
+
+
+	/**
+	 * Create a new LobStreamAccessor for the current row of the given ResultSet.
+	 * @param resultSet the ResultSet to access
+	 * @param lobHandler the LobHandler to obtain the streams with
+	 */
+	public LobStreamAccessor(ResultSet resultSet, LobHandler lobHandler) {
+		Assert.notNull(resultSet, "ResultSet must not be null");
+		Assert.notNull(lobHandler, "LobHandler must not be null");
+		this.resultSet = resultSet;
+		this.lobHandler = lobHandler;
+	}
+
+
+	/**
+	 * Return the given BLOB column as binary stream.
+	 * @param columnName the column name to use
+	 * @return the content as binary stream, or {@code null} in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @see LobHandler#getBlobAsBinaryStream(ResultSet, String)
+	 */
+	@Nullable
+	public InputStream getBinaryStream(String columnName) throws SQLException {
+		return getBinaryStream(this.resultSet.findColumn(columnName));
+	}
+
+	/**
+	 * Return the given BLOB column as binary stream.
+	 * @param columnIndex the column index to use
+	 * @return the content as binary stream, or {@code null} in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @see LobHandler#getBlobAsBinaryStream(ResultSet, int)
+	 */
+	@Nullable
+	public InputStream getBinaryStream(int columnIndex) throws SQLException {
+		assertOpen();
+		return register(this.lobHandler.getBlobAsBinaryStream(this.resultSet, columnIndex));
+	}
+
+	/**
+	 * Return the given CLOB column as ASCII stream.
+	 * @param columnName the column name to use
+	 * @return the content as ASCII stream, or {@code null} in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @see LobHandler#getClobAsAsciiStream(ResultSet, String)
+	 */
+	@Nullable
+	public InputStream getAsciiStream(String columnName) throws SQLException {
+		return getAsciiStream(this.resultSet.findColumn(columnName));
+	}
+
+	/**
+	 * Return the given CLOB column as ASCII stream.
+	 * @param columnIndex the column index to use
+	 * @return the content as ASCII stream, or {@code null} in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @see LobHandler#getClobAsAsciiStream(ResultSet, int)
+	 */
+	@Nullable
+	public InputStream getAsciiStream(int columnIndex) throws SQLException {
+		assertOpen();
+		return register(this.lobHandler.getClobAsAsciiStream(this.resultSet, columnIndex));
+	}
+
+	/**
+	 * Return the given CLOB column as character stream.
+	 * @param columnName the column name to use
+	 * @return the content as character stream, or {@code null} in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @see LobHandler#getClobAsCharacterStream(ResultSet, String)
+	 */
+	@Nullable
+	public Reader getCharacterStream(String columnName) throws SQLException {
+		return getCharacterStream(this.resultSet.findColumn(columnName));
+	}
+
+	/**
+	 * Return the given CLOB column as character stream.
+	 * @param columnIndex the column index to use
+	 * @return the content as character stream, or {@code null} in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @see LobHandler#getClobAsCharacterStream(ResultSet, int)
+	 */
+	@Nullable
+	public Reader getCharacterStream(int columnIndex) throws SQLException {
+		assertOpen();
+		return register(this.lobHandler.getClobAsCharacterStream(this.resultSet, columnIndex));
+	}
+
+	/**
+	 * Copy the content of the given BLOB column to the given OutputStream.
+	 * Leaves the OutputStream open.
+	 * @param columnIndex the column index to use
+	 * @param out the OutputStream to copy to
+	 * @return the number of bytes copied, or -1 in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @throws IOException in case of I/O errors
+	 */
+	public long copyBinaryStream(int columnIndex, OutputStream out) throws SQLException, IOException {
+		InputStream in = getBinaryStream(columnIndex);
+		if (in == null) {
+			return -1;
+		}
+		long byteCount = 0;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int bytesRead;
+		while ((bytesRead = in.read(buffer)) != -1) {
+			out.write(buffer, 0, bytesRead);
+			byteCount += bytesRead;
+		}
+		out.flush();
+		return byteCount;
+	}
+
+	/**
+	 * Copy the content of the given CLOB column to the given Writer.
+	 * Leaves the Writer open.
+	 * @param columnIndex the column index to use
+	 * @param out the Writer to copy to
+	 * @return the number of characters copied, or -1 in case of SQL NULL
+	 * @throws SQLException if thrown by JDBC methods
+	 * @throws IOException in case of I/O errors
+	 */
+	public long copyCharacterStream(int columnIndex, Writer out) throws SQLException, IOException {
+		Reader in = getCharacterStream(columnIndex);
+		if (in == null) {
+			return -1;
+		}
+		long charCount = 0;
+		char[] buffer = new char[BUFFER_SIZE];
+		int charsRead;
+		while ((charsRead = in.read(buffer)) != -1) {
+			out.write(buffer, 0, charsRead);
+			charCount += charsRead;
+		}
+		out.flush();
+		return charCount;
+	}
+
+	/**
+	 * Close all streams obtained through this accessor,
+	 * which cannot be used any further afterwards.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		for (Closeable stream : this.openStreams) {
+			try {
+				stream.close();
+			}
+			catch (IOException ex) {
+				// ignore - the row is done with either way
+			}
+		}
+		this.openStreams.clear();
+	}
+
+
+	private void assertOpen() {
+		Assert.state(!this.closed, "LobStreamAccessor has been closed - LOB streams are only " +
+				"available while the current row is being processed");
+	}
+
+	@Nullable
+	private <S extends Closeable> S register(@Nullable S stream) {
+		if (stream != null) {
+			this.openStreams.add(stream);
+		}
+		return stream;
+	}
+
+}
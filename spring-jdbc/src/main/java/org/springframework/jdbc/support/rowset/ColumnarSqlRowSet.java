@@ -0,0 +1,1126 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.rowset;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Map;
+import javax.sql.rowset.serial.SerialBlob;
+import javax.sql.rowset.serial.SerialClob;
+
+import org.springframework.jdbc.InvalidResultSetAccessException;
+import org.springframework.lang.Nullable;
+
+/**
+ * Memory-efficient implementation of Spring's {@link SqlRowSet} interface, holding
+ * the data of a {@link java.sql.ResultSet} in a column-oriented, disconnected fashion.
+ *
+ * <p>In contrast to a {@code javax.sql.rowset.CachedRowSet} as wrapped by a
+ * {@link ResultSetWrappingSqlRowSet}, which keeps every value as a separate object,
+ * this implementation stores {@code Integer}, {@code Long}, {@code Double} and
+ * {@code Boolean} columns in primitive arrays, with a bitmap tracking null values.
+ * String columns are kept in plain arrays, sharing a single instance for repeated
+ * values. All other values are stored as returned by {@link ResultSet#getObject},
+ * with BLOBs and CLOBs converted to their serializable counterparts.
+ *
+ * <p>The storage type of each column is determined by its
+ * {@link ResultSetMetaData#getColumnClassName class name}, falling back to its
+ * SQL type. Values can be retrieved through any of the getter methods, applying
+ * the same basic conversions as a {@code CachedRowSet} would.
+ *
+ * @author agent
+ * @since 5.2
+ * @see org.springframework.jdbc.core.ColumnarSqlRowSetResultSetExtractor
+ * @see ResultSetWrappingSqlRowSet
+ */
+public class ColumnarSqlRowSet implements SqlRowSet {
+
+	private static final long serialVersionUID = 2893718627453419265L;
+
+	/** Maximum number of distinct values to share per String column. */
+	private static final int MAX_SHARED_STRINGS = 4096;
+
+	private static final int INITIAL_CAPACITY = 16;
+
+
+	private final SqlRowSetMetaData rowSetMetaData;
+
+	private final Map<String, Integer> columnLabelMap;
+
+	private final Column[] columns;
+
+	private final int rowCount;
+
+	private int cursor;
+
+	private boolean wasNull;
+
+
+	/**
+	 * Create a new ColumnarSqlRowSet, reading all remaining rows of the
+	 * given ResultSet. The ResultSet is not closed by this constructor.
+	 * @param resultSet the ResultSet to read
+	 * @throws SQLException if thrown by JDBC methods
+	 */
+	public ColumnarSqlRowSet(ResultSet resultSet) throws SQLException {
+		ResultSetMetaData rsmd = resultSet.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		this.rowSetMetaData = new MetaData(rsmd);
+		this.columnLabelMap = new HashMap<>(columnCount);
+		this.columns = new Column[columnCount];
+		for (int i = 1; i <= columnCount; i++) {
+			// Make sure to preserve first matching column for any given name.
+			this.columnLabelMap.putIfAbsent(rsmd.getColumnLabel(i), i);
+			this.columns[i - 1] = createColumn(rsmd.getColumnClassName(i), rsmd.getColumnType(i));
+		}
+		int rowCount = 0;
+		while (resultSet.next()) {
+			for (int i = 0; i < columnCount; i++) {
+				this.columns[i].add(resultSet, i + 1, rowCount);
+			}
+			rowCount++;
+		}
+		for (Column column : this.columns) {
+			column.complete(rowCount);
+		}
+		this.rowCount = rowCount;
+	}
+
+	private static Column createColumn(@Nullable String className, int sqlType) {
+		if (className != null) {
+			switch (className) {
+				case "java.lang.Integer":
+					return new IntColumn();
+				case "java.lang.Long":
+					return new LongColumn();
+				case "java.lang.Double":
+					return new DoubleColumn();
+				case "java.lang.Boolean":
+					return new BooleanColumn();
+				case "java.lang.String":
+					return new StringColumn();
+				default:
+					return new ObjectColumn();
+			}
+		}
+		switch (sqlType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				return new IntColumn();
+			case Types.BIGINT:
+				return new LongColumn();
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return new DoubleColumn();
+			case Types.BIT:
+			case Types.BOOLEAN:
+				return new BooleanColumn();
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+				return new StringColumn();
+			default:
+				return new ObjectColumn();
+		}
+	}
+
+
+	/**
+	 * Return the number of rows held by this row set.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	@Override
+	public SqlRowSetMetaData getMetaData() {
+		return this.rowSetMetaData;
+	}
+
+	@Override
+	public int findColumn(String columnLabel) throws InvalidResultSetAccessException {
+		Integer columnIndex = this.columnLabelMap.get(columnLabel);
+		if (columnIndex != null) {
+			return columnIndex;
+		}
+		for (int i = 1; i <= this.columns.length; i++) {
+			if (this.rowSetMetaData.getColumnLabel(i).equalsIgnoreCase(columnLabel)) {
+				return i;
+			}
+		}
+		throw new InvalidResultSetAccessException(new SQLException("Invalid column label: " + columnLabel));
+	}
+
+
+	// RowSet methods for extracting data values
+
+	@Override
+	@Nullable
+	public BigDecimal getBigDecimal(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getObject(columnIndex);
+		if (value == null || value instanceof BigDecimal) {
+			return (BigDecimal) value;
+		}
+		try {
+			return new BigDecimal(value.toString().trim());
+		}
+		catch (NumberFormatException ex) {
+			throw conversionFailure(value, BigDecimal.class);
+		}
+	}
+
+	@Override
+	@Nullable
+	public BigDecimal getBigDecimal(String columnLabel) throws InvalidResultSetAccessException {
+		return getBigDecimal(findColumn(columnLabel));
+	}
+
+	@Override
+	public boolean getBoolean(int columnIndex) throws InvalidResultSetAccessException {
+		Column column = getColumn(columnIndex);
+		int row = getCurrentRow();
+		return (!checkNull(column, row) && column.getBoolean(row));
+	}
+
+	@Override
+	public boolean getBoolean(String columnLabel) throws InvalidResultSetAccessException {
+		return getBoolean(findColumn(columnLabel));
+	}
+
+	@Override
+	public byte getByte(int columnIndex) throws InvalidResultSetAccessException {
+		return (byte) getInt(columnIndex);
+	}
+
+	@Override
+	public byte getByte(String columnLabel) throws InvalidResultSetAccessException {
+		return getByte(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getObject(columnIndex);
+		if (value == null || value instanceof Date) {
+			return (Date) value;
+		}
+		if (value instanceof java.util.Date) {
+			return new Date(((java.util.Date) value).getTime());
+		}
+		try {
+			return Date.valueOf(value.toString().trim());
+		}
+		catch (IllegalArgumentException ex) {
+			throw conversionFailure(value, Date.class);
+		}
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(String columnLabel) throws InvalidResultSetAccessException {
+		return getDate(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(int columnIndex, Calendar cal) throws InvalidResultSetAccessException {
+		Date date = getDate(columnIndex);
+		return (date != null ? new Date(convertToCalendar(date, cal)) : null);
+	}
+
+	@Override
+	@Nullable
+	public Date getDate(String columnLabel, Calendar cal) throws InvalidResultSetAccessException {
+		return getDate(findColumn(columnLabel), cal);
+	}
+
+	@Override
+	public double getDouble(int columnIndex) throws InvalidResultSetAccessException {
+		Column column = getColumn(columnIndex);
+		int row = getCurrentRow();
+		return (checkNull(column, row) ? 0 : column.getDouble(row));
+	}
+
+	@Override
+	public double getDouble(String columnLabel) throws InvalidResultSetAccessException {
+		return getDouble(findColumn(columnLabel));
+	}
+
+	@Override
+	public float getFloat(int columnIndex) throws InvalidResultSetAccessException {
+		return (float) getDouble(columnIndex);
+	}
+
+	@Override
+	public float getFloat(String columnLabel) throws InvalidResultSetAccessException {
+		return getFloat(findColumn(columnLabel));
+	}
+
+	@Override
+	public int getInt(int columnIndex) throws InvalidResultSetAccessException {
+		Column column = getColumn(columnIndex);
+		int row = getCurrentRow();
+		return (checkNull(column, row) ? 0 : column.getInt(row));
+	}
+
+	@Override
+	public int getInt(String columnLabel) throws InvalidResultSetAccessException {
+		return getInt(findColumn(columnLabel));
+	}
+
+	@Override
+	public long getLong(int columnIndex) throws InvalidResultSetAccessException {
+		Column column = getColumn(columnIndex);
+		int row = getCurrentRow();
+		return (checkNull(column, row) ? 0 : column.getLong(row));
+	}
+
+	@Override
+	public long getLong(String columnLabel) throws InvalidResultSetAccessException {
+		return getLong(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public String getNString(int columnIndex) throws InvalidResultSetAccessException {
+		return getString(columnIndex);
+	}
+
+	@Override
+	@Nullable
+	public String getNString(String columnLabel) throws InvalidResultSetAccessException {
+		return getNString(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Object getObject(int columnIndex) throws InvalidResultSetAccessException {
+		Column column = getColumn(columnIndex);
+		int row = getCurrentRow();
+		return (checkNull(column, row) ? null : column.getObject(row));
+	}
+
+	@Override
+	@Nullable
+	public Object getObject(String columnLabel) throws InvalidResultSetAccessException {
+		return getObject(findColumn(columnLabel));
+	}
+
+	/**
+	 * Values are held in their disconnected form already:
+	 * the given type map does not get applied.
+	 */
+	@Override
+	@Nullable
+	public Object getObject(int columnIndex, Map<String, Class<?>> map) throws InvalidResultSetAccessException {
+		return getObject(columnIndex);
+	}
+
+	@Override
+	@Nullable
+	public Object getObject(String columnLabel, Map<String, Class<?>> map) throws InvalidResultSetAccessException {
+		return getObject(findColumn(columnLabel), map);
+	}
+
+	@Override
+	@Nullable
+	@SuppressWarnings("unchecked")
+	public <T> T getObject(int columnIndex, Class<T> type) throws InvalidResultSetAccessException {
+		Object value = getObject(columnIndex);
+		if (value == null || type.isInstance(value)) {
+			return (T) value;
+		}
+		Object result;
+		if (type == String.class) {
+			result = getString(columnIndex);
+		}
+		else if (type == Integer.class) {
+			result = getInt(columnIndex);
+		}
+		else if (type == Long.class) {
+			result = getLong(columnIndex);
+		}
+		else if (type == Double.class) {
+			result = getDouble(columnIndex);
+		}
+		else if (type == Float.class) {
+			result = getFloat(columnIndex);
+		}
+		else if (type == Short.class) {
+			result = getShort(columnIndex);
+		}
+		else if (type == Byte.class) {
+			result = getByte(columnIndex);
+		}
+		else if (type == Boolean.class) {
+			result = getBoolean(columnIndex);
+		}
+		else if (type == BigDecimal.class) {
+			result = getBigDecimal(columnIndex);
+		}
+		else if (type == Date.class) {
+			result = getDate(columnIndex);
+		}
+		else if (type == Time.class) {
+			result = getTime(columnIndex);
+		}
+		else if (type == Timestamp.class) {
+			result = getTimestamp(columnIndex);
+		}
+		else {
+			throw conversionFailure(value, type);
+		}
+		return (T) result;
+	}
+
+	@Override
+	@Nullable
+	public <T> T getObject(String columnLabel, Class<T> type) throws InvalidResultSetAccessException {
+		return getObject(findColumn(columnLabel), type);
+	}
+
+	@Override
+	public short getShort(int columnIndex) throws InvalidResultSetAccessException {
+		return (short) getInt(columnIndex);
+	}
+
+	@Override
+	public short getShort(String columnLabel) throws InvalidResultSetAccessException {
+		return getShort(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public String getString(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getObject(columnIndex);
+		return (value != null ? value.toString() : null);
+	}
+
+	@Override
+	@Nullable
+	public String getString(String columnLabel) throws InvalidResultSetAccessException {
+		return getString(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getObject(columnIndex);
+		if (value == null || value instanceof Time) {
+			return (Time) value;
+		}
+		if (value instanceof java.util.Date) {
+			return new Time(((java.util.Date) value).getTime());
+		}
+		try {
+			return Time.valueOf(value.toString().trim());
+		}
+		catch (IllegalArgumentException ex) {
+			throw conversionFailure(value, Time.class);
+		}
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(String columnLabel) throws InvalidResultSetAccessException {
+		return getTime(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(int columnIndex, Calendar cal) throws InvalidResultSetAccessException {
+		Time time = getTime(columnIndex);
+		return (time != null ? new Time(convertToCalendar(time, cal)) : null);
+	}
+
+	@Override
+	@Nullable
+	public Time getTime(String columnLabel, Calendar cal) throws InvalidResultSetAccessException {
+		return getTime(findColumn(columnLabel), cal);
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(int columnIndex) throws InvalidResultSetAccessException {
+		Object value = getObject(columnIndex);
+		if (value == null || value instanceof Timestamp) {
+			return (Timestamp) value;
+		}
+		if (value instanceof java.util.Date) {
+			return new Timestamp(((java.util.Date) value).getTime());
+		}
+		try {
+			return Timestamp.valueOf(value.toString().trim());
+		}
+		catch (IllegalArgumentException ex) {
+			throw conversionFailure(value, Timestamp.class);
+		}
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(String columnLabel) throws InvalidResultSetAccessException {
+		return getTimestamp(findColumn(columnLabel));
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(int columnIndex, Calendar cal) throws InvalidResultSetAccessException {
+		Timestamp timestamp = getTimestamp(columnIndex);
+		if (timestamp == null) {
+			return null;
+		}
+		Timestamp result = new Timestamp(convertToCalendar(timestamp, cal));
+		result.setNanos(timestamp.getNanos());
+		return result;
+	}
+
+	@Override
+	@Nullable
+	public Timestamp getTimestamp(String columnLabel, Calendar cal) throws InvalidResultSetAccessException {
+		return getTimestamp(findColumn(columnLabel), cal);
+	}
+
+
+	// RowSet navigation methods
+
+	@Override
+	public boolean absolute(int row) {
+		if (row >= 0) {
+			this.cursor = Math.min(row, this.rowCount + 1);
+		}
+		else {
+			this.cursor = Math.max(this.rowCount + 1 + row, 0);
+		}
+		return isOnRow();
+	}
+
+	@Override
+	public void afterLast() {
+		this.cursor = this.rowCount + 1;
+	}
+
+	@Override
+	public void beforeFirst() {
+		this.cursor = 0;
+	}
+
+	@Override
+	public boolean first() {
+		return absolute(1);
+	}
+
+	@Override
+	public int getRow() {
+		return (isOnRow() ? this.cursor : 0);
+	}
+
+	@Override
+	public boolean isAfterLast() {
+		return (this.rowCount > 0 && this.cursor > this.rowCount);
+	}
+
+	@Override
+	public boolean isBeforeFirst() {
+		return (this.rowCount > 0 && this.cursor == 0);
+	}
+
+	@Override
+	public boolean isFirst() {
+		return (this.rowCount > 0 && this.cursor == 1);
+	}
+
+	@Override
+	public boolean isLast() {
+		return (this.rowCount > 0 && this.cursor == this.rowCount);
+	}
+
+	@Override
+	public boolean last() {
+		return absolute(-1);
+	}
+
+	@Override
+	public boolean next() {
+		if (this.cursor <= this.rowCount) {
+			this.cursor++;
+		}
+		return isOnRow();
+	}
+
+	@Override
+	public boolean previous() {
+		if (this.cursor > 0) {
+			this.cursor--;
+		}
+		return isOnRow();
+	}
+
+	@Override
+	public boolean relative(int rows) {
+		this.cursor = (int) Math.max(0, Math.min((long) this.cursor + rows, this.rowCount + 1));
+		return isOnRow();
+	}
+
+	@Override
+	public boolean wasNull() {
+		return this.wasNull;
+	}
+
+
+	private boolean isOnRow() {
+		return (this.cursor > 0 && this.cursor <= this.rowCount);
+	}
+
+	private int getCurrentRow() {
+		if (!isOnRow()) {
+			throw new InvalidResultSetAccessException(new SQLException("Invalid cursor position"));
+		}
+		return this.cursor - 1;
+	}
+
+	private Column getColumn(int columnIndex) {
+		if (columnIndex < 1 || columnIndex > this.columns.length) {
+			throw new InvalidResultSetAccessException(new SQLException("Invalid column index: " + columnIndex));
+		}
+		return this.columns[columnIndex - 1];
+	}
+
+	private boolean checkNull(Column column, int row) {
+		this.wasNull = column.nulls.get(row);
+		return this.wasNull;
+	}
+
+	/**
+	 * Reinterpret the local date and time fields of the given value
+	 * in the time zone of the given Calendar.
+	 */
+	private static long convertToCalendar(java.util.Date value, Calendar cal) {
+		Calendar local = Calendar.getInstance();
+		local.setTime(value);
+		Calendar target = (Calendar) cal.clone();
+		target.clear();
+		target.set(local.get(Calendar.YEAR), local.get(Calendar.MONTH), local.get(Calendar.DAY_OF_MONTH),
+				local.get(Calendar.HOUR_OF_DAY), local.get(Calendar.MINUTE), local.get(Calendar.SECOND));
+		target.set(Calendar.MILLISECOND, local.get(Calendar.MILLISECOND));
+		return target.getTimeInMillis();
+	}
+
+	private static InvalidResultSetAccessException conversionFailure(Object value, Class<?> type) {
+		return new InvalidResultSetAccessException(new SQLException(
+				"Cannot convert value [" + value + "] of type [" + value.getClass().getName() +
+				"] to [" + type.getName() + "]"));
+	}
+
+	private static Number toNumber(Object value) {
+		if (value instanceof Number) {
+			return (Number) value;
+		}
+		if (value instanceof Boolean) {
+			return (((Boolean) value) ? 1 : 0);
+		}
+		try {
+			return new BigDecimal(value.toString().trim());
+		}
+		catch (NumberFormatException ex) {
+			throw conversionFailure(value, Number.class);
+		}
+	}
+
+
+	/**
+	 * Storage for the values of a single column. Subclasses keep specific
+	 * value types; the getters apply conversions for all other types.
+	 */
+	private abstract static class Column implements Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		final BitSet nulls = new BitSet();
+
+		abstract void add(ResultSet rs, int columnIndex, int row) throws SQLException;
+
+		abstract void complete(int rowCount);
+
+		abstract Object getObject(int row);
+
+		int getInt(int row) {
+			return toNumber(getObject(row)).intValue();
+		}
+
+		long getLong(int row) {
+			return toNumber(getObject(row)).longValue();
+		}
+
+		double getDouble(int row) {
+			return toNumber(getObject(row)).doubleValue();
+		}
+
+		boolean getBoolean(int row) {
+			Object value = getObject(row);
+			if (value instanceof Boolean) {
+				return (Boolean) value;
+			}
+			if (value instanceof Number) {
+				return (((Number) value).intValue() != 0);
+			}
+			String text = value.toString().trim();
+			return ("1".equals(text) || "true".equalsIgnoreCase(text));
+		}
+
+		static int newCapacity(int length, int row) {
+			return Math.max(row + 1, Math.max(INITIAL_CAPACITY, length + (length >> 1)));
+		}
+	}
+
+
+	private static final class IntColumn extends Column {
+
+		private static final long serialVersionUID = 1L;
+
+		private int[] values = new int[0];
+
+		@Override
+		void add(ResultSet rs, int columnIndex, int row) throws SQLException {
+			int value = rs.getInt(columnIndex);
+			if (rs.wasNull()) {
+				this.nulls.set(row);
+			}
+			if (row >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.values.length, row));
+			}
+			this.values[row] = value;
+		}
+
+		@Override
+		void complete(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		Object getObject(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		int getInt(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.values[row];
+		}
+	}
+
+
+	private static final class LongColumn extends Column {
+
+		private static final long serialVersionUID = 1L;
+
+		private long[] values = new long[0];
+
+		@Override
+		void add(ResultSet rs, int columnIndex, int row) throws SQLException {
+			long value = rs.getLong(columnIndex);
+			if (rs.wasNull()) {
+				this.nulls.set(row);
+			}
+			if (row >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.values.length, row));
+			}
+			this.values[row] = value;
+		}
+
+		@Override
+		void complete(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		Object getObject(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		int getInt(int row) {
+			return (int) this.values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.values[row];
+		}
+	}
+
+
+	private static final class DoubleColumn extends Column {
+
+		private static final long serialVersionUID = 1L;
+
+		private double[] values = new double[0];
+
+		@Override
+		void add(ResultSet rs, int columnIndex, int row) throws SQLException {
+			double value = rs.getDouble(columnIndex);
+			if (rs.wasNull()) {
+				this.nulls.set(row);
+			}
+			if (row >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.values.length, row));
+			}
+			this.values[row] = value;
+		}
+
+		@Override
+		void complete(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		Object getObject(int row) {
+			return this.values[row];
+		}
+
+		@Override
+		int getInt(int row) {
+			return (int) this.values[row];
+		}
+
+		@Override
+		long getLong(int row) {
+			return (long) this.values[row];
+		}
+
+		@Override
+		double getDouble(int row) {
+			return this.values[row];
+		}
+	}
+
+
+	private static final class BooleanColumn extends Column {
+
+		private static final long serialVersionUID = 1L;
+
+		private final BitSet values = new BitSet();
+
+		@Override
+		void add(ResultSet rs, int columnIndex, int row) throws SQLException {
+			boolean value = rs.getBoolean(columnIndex);
+			if (rs.wasNull()) {
+				this.nulls.set(row);
+			}
+			this.values.set(row, value);
+		}
+
+		@Override
+		void complete(int rowCount) {
+		}
+
+		@Override
+		Object getObject(int row) {
+			return this.values.get(row);
+		}
+
+		@Override
+		int getInt(int row) {
+			return (this.values.get(row) ? 1 : 0);
+		}
+
+		@Override
+		long getLong(int row) {
+			return getInt(row);
+		}
+
+		@Override
+		double getDouble(int row) {
+			return getInt(row);
+		}
+
+		@Override
+		boolean getBoolean(int row) {
+			return this.values.get(row);
+		}
+	}
+
+
+	private static final class StringColumn extends Column {
+
+		private static final long serialVersionUID = 1L;
+
+		private String[] values = new String[0];
+
+		@Nullable
+		private transient Map<String, String> sharedValues = new HashMap<>();
+
+		@Override
+		void add(ResultSet rs, int columnIndex, int row) throws SQLException {
+			String value = rs.getString(columnIndex);
+			if (value == null) {
+				this.nulls.set(row);
+			}
+			else if (this.sharedValues != null) {
+				String shared = this.sharedValues.get(value);
+				if (shared != null) {
+					value = shared;
+				}
+				else if (this.sharedValues.size() < MAX_SHARED_STRINGS) {
+					this.sharedValues.put(value, value);
+				}
+			}
+			if (row >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.values.length, row));
+			}
+			this.values[row] = value;
+		}
+
+		@Override
+		void complete(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+			this.sharedValues = null;
+		}
+
+		@Override
+		Object getObject(int row) {
+			return this.values[row];
+		}
+	}
+
+
+	private static final class ObjectColumn extends Column {
+
+		private static final long serialVersionUID = 1L;
+
+		private Object[] values = new Object[0];
+
+		@Override
+		void add(ResultSet rs, int columnIndex, int row) throws SQLException {
+			Object value = rs.getObject(columnIndex);
+			if (value == null) {
+				this.nulls.set(row);
+			}
+			else if (value instanceof Blob) {
+				value = new SerialBlob((Blob) value);
+			}
+			else if (value instanceof Clob) {
+				value = new SerialClob((Clob) value);
+			}
+			if (row >= this.values.length) {
+				this.values = Arrays.copyOf(this.values, newCapacity(this.values.length, row));
+			}
+			this.values[row] = value;
+		}
+
+		@Override
+		void complete(int rowCount) {
+			this.values = Arrays.copyOf(this.values, rowCount);
+		}
+
+		@Override
+		Object getObject(int row) {
+			return this.values[row];
+		}
+	}
+
+
+	/**
+	 * Disconnected copy of the ResultSetMetaData.
+	 */
+	private static final class MetaData implements SqlRowSetMetaData, Serializable {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String[] catalogNames;
+
+		private final String[] columnClassNames;
+
+		private final int[] columnDisplaySizes;
+
+		private final String[] columnLabels;
+
+		private final String[] columnNames;
+
+		private final int[] columnTypes;
+
+		private final String[] columnTypeNames;
+
+		private final int[] precisions;
+
+		private final int[] scales;
+
+		private final String[] schemaNames;
+
+		private final String[] tableNames;
+
+		private final boolean[] caseSensitive;
+
+		private final boolean[] currency;
+
+		private final boolean[] signed;
+
+		MetaData(ResultSetMetaData rsmd) throws SQLException {
+			int columnCount = rsmd.getColumnCount();
+			this.catalogNames = new String[columnCount];
+			this.columnClassNames = new String[columnCount];
+			this.columnDisplaySizes = new int[columnCount];
+			this.columnLabels = new String[columnCount];
+			this.columnNames = new String[columnCount];
+			this.columnTypes = new int[columnCount];
+			this.columnTypeNames = new String[columnCount];
+			this.precisions = new int[columnCount];
+			this.scales = new int[columnCount];
+			this.schemaNames = new String[columnCount];
+			this.tableNames = new String[columnCount];
+			this.caseSensitive = new boolean[columnCount];
+			this.currency = new boolean[columnCount];
+			this.signed = new boolean[columnCount];
+			for (int i = 0; i < columnCount; i++) {
+				int column = i + 1;
+				this.catalogNames[i] = rsmd.getCatalogName(column);
+				this.columnClassNames[i] = rsmd.getColumnClassName(column);
+				this.columnDisplaySizes[i] = rsmd.getColumnDisplaySize(column);
+				this.columnLabels[i] = rsmd.getColumnLabel(column);
+				this.columnNames[i] = rsmd.getColumnName(column);
+				this.columnTypes[i] = rsmd.getColumnType(column);
+				this.columnTypeNames[i] = rsmd.getColumnTypeName(column);
+				this.precisions[i] = rsmd.getPrecision(column);
+				this.scales[i] = rsmd.getScale(column);
+				this.schemaNames[i] = rsmd.getSchemaName(column);
+				this.tableNames[i] = rsmd.getTableName(column);
+				this.caseSensitive[i] = rsmd.isCaseSensitive(column);
+				this.currency[i] = rsmd.isCurrency(column);
+				this.signed[i] = rsmd.isSigned(column);
+			}
+		}
+
+		@Override
+		public String getCatalogName(int columnIndex) {
+			return this.catalogNames[index(columnIndex)];
+		}
+
+		@Override
+		public String getColumnClassName(int columnIndex) {
+			return this.columnClassNames[index(columnIndex)];
+		}
+
+		@Override
+		public int getColumnCount() {
+			return this.columnNames.length;
+		}
+
+		@Override
+		public String[] getColumnNames() {
+			return this.columnNames.clone();
+		}
+
+		@Override
+		public int getColumnDisplaySize(int columnIndex) {
+			return this.columnDisplaySizes[index(columnIndex)];
+		}
+
+		@Override
+		public String getColumnLabel(int columnIndex) {
+			return this.columnLabels[index(columnIndex)];
+		}
+
+		@Override
+		public String getColumnName(int columnIndex) {
+			return this.columnNames[index(columnIndex)];
+		}
+
+		@Override
+		public int getColumnType(int columnIndex) {
+			return this.columnTypes[index(columnIndex)];
+		}
+
+		@Override
+		public String getColumnTypeName(int columnIndex) {
+			return this.columnTypeNames[index(columnIndex)];
+		}
+
+		@Override
+		public int getPrecision(int columnIndex) {
+			return this.precisions[index(columnIndex)];
+		}
+
+		@Override
+		public int getScale(int columnIndex) {
+			return this.scales[index(columnIndex)];
+		}
+
+		@Override
+		public String getSchemaName(int columnIndex) {
+			return this.schemaNames[index(columnIndex)];
+		}
+
+		@Override
+		public String getTableName(int columnIndex) {
+			return this.tableNames[index(columnIndex)];
+		}
+
+		@Override
+		public boolean isCaseSensitive(int columnIndex) {
+			return this.caseSensitive[index(columnIndex)];
+		}
+
+		@Override
+		public boolean isCurrency(int columnIndex) {
+			return this.currency[index(columnIndex)];
+		}
+
+		@Override
+		public boolean isSigned(int columnIndex) {
+			return this.signed[index(columnIndex)];
+		}
+
+		private int index(int columnIndex) {
+			if (columnIndex < 1 || columnIndex > this.columnNames.length) {
+				throw new InvalidResultSetAccessException(new SQLException("Invalid column index: " + columnIndex));
+			}
+			return columnIndex - 1;
+		}
+	}
+
+}
@@ -25,6 +25,7 @@ import java.sql.Statement;
 import java.sql.Timestamp;
 
 import org.springframework.jdbc.core.test.ConcretePerson;
+import org.springframework.jdbc.core.test.ConstructorPerson;
 import org.springframework.jdbc.core.test.DatePerson;
 import org.springframework.jdbc.core.test.Person;
 import org.springframework.jdbc.core.test.SpacePerson;
@@ -56,6 +57,13 @@ public abstract class AbstractRowMapperTests {
 		assertEquals(new BigDecimal("1234.56"), bean.getBalance());
 	}
 
+	protected void verifyPerson(ConstructorPerson bean) {
+		assertEquals("Bubba", bean.name());
+		assertEquals(22L, bean.age());
+		assertEquals(new java.util.Date(1221222L), bean.birth_date());
+		assertEquals(new BigDecimal("1234.56"), bean.getBalance());
+	}
+
 	protected void verifyPerson(SpacePerson bean) {
 		assertEquals("Bubba", bean.getLastName());
 		assertEquals(22L, bean.getAge());
@@ -127,6 +135,14 @@ public abstract class AbstractRowMapperTests {
 			return jdbcTemplate;
 		}
 
+		public ResultSet getResultSet() {
+			return resultSet;
+		}
+
+		public ResultSetMetaData getResultSetMetaData() {
+			return resultSetMetaData;
+		}
+
 		public void verifyClosed() throws Exception {
 			verify(resultSet).close();
 			verify(statement).close();
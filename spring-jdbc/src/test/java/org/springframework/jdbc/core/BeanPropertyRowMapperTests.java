@@ -16,7 +16,9 @@
 
 package org.springframework.jdbc.core;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.junit.Rule;
 import org.junit.Test;
@@ -31,6 +33,7 @@ import org.springframework.jdbc.core.test.Person;
 import org.springframework.jdbc.core.test.SpacePerson;
 
 import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
 
 /**
  * @author Thomas Risberg
@@ -141,4 +144,125 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	public void testCompiledMapping() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", compiled(Person.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testCompiledMappingWithInheritance() throws Exception {
+		Mock mock = new Mock();
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people", compiled(ConcretePerson.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testCompiledMappingWithUnpopulatedFieldsNotAccepted() throws Exception {
+		Mock mock = new Mock();
+		BeanPropertyRowMapper<ExtendedPerson> mapper = compiled(ExtendedPerson.class);
+		mapper.setCheckFullyPopulated(true);
+		thrown.expect(InvalidDataAccessApiUsageException.class);
+		mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper);
+	}
+
+	@Test
+	public void testCompiledMappingNullValue() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		thrown.expect(TypeMismatchException.class);
+		mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", compiled(Person.class));
+	}
+
+	@Test
+	public void testCompiledMappingNullValueWithPrimitivesDefaulted() throws Exception {
+		Mock mock = new Mock(MockType.TWO);
+		BeanPropertyRowMapper<Person> mapper = compiled(Person.class);
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertEquals(1, result.size());
+		assertEquals(0L, result.get(0).getAge());
+	}
+
+	@Test
+	public void testCompiledMappingWithSpaceInColumnNameAndLocalDateTime() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				compiled(SpacePerson.class));
+		assertEquals(1, result.size());
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testCompiledMappingResolvesColumnsOncePerQuery() throws Exception {
+		Mock mock = new Mock();
+		given(mock.getResultSet().next()).willReturn(true, true, true, false, true, true, false);
+		BeanPropertyRowMapper<Person> mapper = compiled(Person.class);
+		List<Person> result = mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper);
+		assertEquals(3, result.size());
+		for (Person person : result) {
+			verifyPerson(person);
+		}
+		verify(mock.getResultSetMetaData(), times(1)).getColumnLabel(1);
+
+		result = mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper);
+		assertEquals(2, result.size());
+		verifyPerson(result.get(1));
+		verify(mock.getResultSetMetaData(), times(2)).getColumnLabel(1);
+	}
+
+	@Test
+	public void testCompiledMappingResolvesColumnsOncePerResultSetWhenInterleaved() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = compiled(Person.class);
+		Mock mock1 = new Mock();
+		given(mock1.getResultSet().next()).willReturn(true, true, true, false);
+		Mock mock2 = new Mock();
+		given(mock2.getResultSet().next()).willReturn(true, true, true, false);
+
+		try (Stream<Person> stream1 = mock1.getJdbcTemplate().queryForStream("select * from people", mapper);
+				Stream<Person> stream2 = mock2.getJdbcTemplate().queryForStream("select * from people", mapper)) {
+			Iterator<Person> it1 = stream1.iterator();
+			Iterator<Person> it2 = stream2.iterator();
+			for (int i = 0; i < 3; i++) {
+				verifyPerson(it1.next());
+				verifyPerson(it2.next());
+			}
+			assertFalse(it1.hasNext());
+			assertFalse(it2.hasNext());
+		}
+		verify(mock1.getResultSetMetaData(), times(1)).getColumnLabel(1);
+		verify(mock2.getResultSetMetaData(), times(1)).getColumnLabel(1);
+	}
+
+	@Test
+	public void testCompiledMappingWithDifferentColumnLayouts() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = compiled(Person.class);
+		Mock mock = new Mock();
+		verifyPerson(mock.getJdbcTemplate().query("select name, age, birth_date, balance from people", mapper).get(0));
+
+		mock = new Mock();
+		given(mock.getResultSetMetaData().getColumnCount()).willReturn(2);
+		Person person = mock.getJdbcTemplate().query("select name, age from people", mapper).get(0);
+		assertEquals("Bubba", person.getName());
+		assertEquals(22L, person.getAge());
+		assertNull(person.getBalance());
+	}
+
+
+	private static <T> BeanPropertyRowMapper<T> compiled(Class<T> mappedClass) {
+		BeanPropertyRowMapper<T> mapper = new BeanPropertyRowMapper<>(mappedClass);
+		mapper.setCompiledMapping(true);
+		return mapper;
+	}
+
 }
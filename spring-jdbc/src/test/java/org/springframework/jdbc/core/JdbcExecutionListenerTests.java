@@ -0,0 +1,221 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import javax.sql.DataSource;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Mock object based tests for {@link JdbcExecutionListener} support in {@link JdbcTemplate}.
+ *
+ * @author agent
+ */
+public class JdbcExecutionListenerTests {
+
+	private Connection connection;
+
+	private DataSource dataSource;
+
+	private Statement statement;
+
+	private PreparedStatement preparedStatement;
+
+	private ResultSet resultSet;
+
+	private JdbcTemplate template;
+
+	private final List<JdbcExecution> executions = new ArrayList<>();
+
+
+	@Before
+	public void setUp() throws Exception {
+		this.connection = mock(Connection.class);
+		this.dataSource = mock(DataSource.class);
+		this.statement = mock(Statement.class);
+		this.preparedStatement = mock(PreparedStatement.class);
+		this.resultSet = mock(ResultSet.class);
+		ResultSetMetaData resultSetMetaData = mock(ResultSetMetaData.class);
+		given(resultSetMetaData.getColumnCount()).willReturn(1);
+		given(this.resultSet.getMetaData()).willReturn(resultSetMetaData);
+		this.template = new JdbcTemplate(this.dataSource);
+		this.template.addExecutionListener(this.executions::add);
+		given(this.dataSource.getConnection()).willReturn(this.connection);
+		given(this.connection.createStatement()).willReturn(this.statement);
+		given(this.connection.prepareStatement(anyString())).willReturn(this.preparedStatement);
+		given(this.preparedStatement.executeQuery()).willReturn(this.resultSet);
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
+		given(this.statement.executeQuery(anyString())).willReturn(this.resultSet);
+	}
+
+
+	@Test
+	public void queryWithArguments() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID > ? AND NAME <> ?";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+
+		List<Integer> ages = this.template.queryForList(sql, Integer.class, 3, "Rod");
+
+		assertEquals(Arrays.asList(11, 12), ages);
+		JdbcExecution execution = getSingleExecution();
+		assertEquals(JdbcExecution.Operation.QUERY, execution.getOperation());
+		assertEquals(sql, execution.getSql());
+		assertEquals(2, execution.getParameterCount());
+		assertEquals(0, execution.getBatchSize());
+		assertEquals(2, execution.getRowCount());
+		assertTrue(execution.getConnectionAcquisitionTime() >= 0);
+		assertTrue(execution.getExecutionTime() >= 0);
+		assertNull(execution.getFailure());
+	}
+
+	@Test
+	public void staticQueryWithRowCallbackHandler() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR";
+		given(this.resultSet.next()).willReturn(true, true, true, false);
+
+		this.template.query(sql, (RowCallbackHandler) rs -> {});
+
+		JdbcExecution execution = getSingleExecution();
+		assertEquals(JdbcExecution.Operation.QUERY, execution.getOperation());
+		assertEquals(sql, execution.getSql());
+		assertEquals(0, execution.getParameterCount());
+		assertEquals(3, execution.getRowCount());
+	}
+
+	@Test
+	public void update() throws Exception {
+		String sql = "UPDATE CUSTMR SET NAME = 'Rod' WHERE ID = ?";
+		given(this.preparedStatement.executeUpdate()).willReturn(4);
+
+		assertEquals(4, this.template.update(sql, 1));
+
+		JdbcExecution execution = getSingleExecution();
+		assertEquals(JdbcExecution.Operation.UPDATE, execution.getOperation());
+		assertEquals(sql, execution.getSql());
+		assertEquals(1, execution.getParameterCount());
+		assertEquals(4, execution.getRowCount());
+	}
+
+	@Test
+	public void batchUpdate() throws Exception {
+		String sql = "UPDATE CUSTMR SET NAME = ? WHERE ID = ?";
+		DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
+		given(databaseMetaData.supportsBatchUpdates()).willReturn(true);
+		given(this.connection.getMetaData()).willReturn(databaseMetaData);
+		given(this.preparedStatement.executeBatch()).willReturn(new int[] {1, 2, Statement.SUCCESS_NO_INFO});
+
+		this.template.batchUpdate(sql, Arrays.asList(
+				new Object[] {"Rod", 1}, new Object[] {"Juergen", 2}, new Object[] {"Thomas", 3}));
+
+		JdbcExecution execution = getSingleExecution();
+		assertEquals(JdbcExecution.Operation.BATCH_UPDATE, execution.getOperation());
+		assertEquals(sql, execution.getSql());
+		assertEquals(3, execution.getBatchSize());
+		assertEquals(3, execution.getRowCount());
+	}
+
+	@Test
+	public void failedUpdate() throws Exception {
+		String sql = "UPDATE CUSTMR SET NAME = 'Rod'";
+		given(this.preparedStatement.executeUpdate()).willThrow(new SQLException("Bad update"));
+
+		try {
+			this.template.update(sql, (PreparedStatementSetter) null);
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			JdbcExecution execution = getSingleExecution();
+			assertEquals(JdbcExecution.Operation.UPDATE, execution.getOperation());
+			assertEquals(-1, execution.getRowCount());
+			assertSame(ex, execution.getFailure());
+		}
+	}
+
+	@Test
+	public void failedConnectionAcquisition() throws Exception {
+		SQLException sqlException = new SQLException("Connection refused");
+		given(this.dataSource.getConnection()).willThrow(sqlException);
+
+		try {
+			this.template.execute("DROP TABLE CUSTMR");
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			JdbcExecution execution = getSingleExecution();
+			assertEquals(JdbcExecution.Operation.EXECUTE, execution.getOperation());
+			assertSame(ex, execution.getFailure());
+			assertEquals(0, execution.getExecutionTime());
+		}
+	}
+
+	@Test
+	public void listenerExceptionNotPropagated() throws Exception {
+		String sql = "UPDATE CUSTMR SET NAME = 'Rod'";
+		given(this.statement.executeUpdate(sql)).willReturn(1);
+		this.template.setExecutionListeners(Collections.singletonList(execution -> {
+			throw new IllegalStateException("Listener failure");
+		}));
+
+		assertEquals(1, this.template.update(sql));
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void namedParameterQuery() throws Exception {
+		NamedParameterJdbcTemplate namedTemplate = new NamedParameterJdbcTemplate(this.dataSource);
+		namedTemplate.addExecutionListener(this.executions::add);
+		given(this.resultSet.next()).willReturn(true, false);
+		given(this.resultSet.getInt(1)).willReturn(11);
+
+		Integer age = namedTemplate.queryForObject("SELECT AGE FROM CUSTMR WHERE ID = :id AND NAME = :name",
+				new MapSqlParameterSource("id", 1).addValue("name", "Rod"), Integer.class);
+
+		assertEquals(Integer.valueOf(11), age);
+		JdbcExecution execution = getSingleExecution();
+		assertEquals(JdbcExecution.Operation.QUERY, execution.getOperation());
+		assertEquals("SELECT AGE FROM CUSTMR WHERE ID = ? AND NAME = ?", execution.getSql());
+		assertEquals(2, execution.getParameterCount());
+		assertEquals(1, execution.getRowCount());
+	}
+
+	private JdbcExecution getSingleExecution() {
+		assertEquals(1, this.executions.size());
+		return this.executions.get(0);
+	}
+
+}
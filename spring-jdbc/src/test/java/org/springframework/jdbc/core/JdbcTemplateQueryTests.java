@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,8 +24,11 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -33,6 +36,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.IncorrectResultSizeDataAccessException;
 
 import static org.junit.Assert.*;
@@ -81,6 +85,8 @@ public class JdbcTemplateQueryTests {
 		given(this.connection.prepareStatement(anyString())).willReturn(this.preparedStatement);
 		given(this.preparedStatement.executeQuery()).willReturn(this.resultSet);
 		given(this.statement.executeQuery(anyString())).willReturn(this.resultSet);
+		given(this.statement.getConnection()).willReturn(this.connection);
+		given(this.preparedStatement.getConnection()).willReturn(this.connection);
 	}
 
 
@@ -392,4 +398,99 @@ public class JdbcTemplateQueryTests {
 		verify(this.preparedStatement).close();
 	}
 
+	@Test
+	public void testQueryForStream() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID < 3";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1))) {
+			verify(this.resultSet, never()).next();
+			verify(this.statement, never()).close();
+			assertEquals(Arrays.asList(11, 12), stream.collect(Collectors.toList()));
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithArgs() throws Exception {
+		String sql = "SELECT AGE FROM CUSTMR WHERE ID = ?";
+		given(this.resultSet.next()).willReturn(true, true, false);
+		given(this.resultSet.getInt(1)).willReturn(11, 12);
+		try (Stream<Integer> stream = this.template.queryForStream(sql, (rs, rowNum) -> rs.getInt(1), 3)) {
+			assertEquals(Integer.valueOf(11), stream.findFirst().get());
+		}
+		verify(this.preparedStatement).setObject(1, 3);
+		verify(this.resultSet, times(1)).next();
+		verify(this.resultSet).close();
+		verify(this.preparedStatement).close();
+		verify(this.connection).close();
+	}
+
+	@Test
+	public void testQueryForStreamAppliesFetchSize() throws Exception {
+		this.template.setFetchSize(100);
+		given(this.resultSet.next()).willReturn(false);
+		try (Stream<Integer> stream = this.template.queryForStream(
+				"SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1), new Object[0])) {
+			assertEquals(0, stream.count());
+		}
+		verify(this.preparedStatement).setFetchSize(100);
+		verify(this.preparedStatement).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithSQLExceptionOnExecute() throws Exception {
+		SQLException sqlException = new SQLException("bad SQL");
+		given(this.statement.executeQuery(anyString())).willThrow(sqlException);
+		try {
+			this.template.queryForStream("SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1));
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			assertSame(sqlException, ex.getCause());
+		}
+		verify(this.statement).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testQueryForStreamWithSQLExceptionOnFetch() throws Exception {
+		SQLException sqlException = new SQLException("connection lost");
+		given(this.resultSet.next()).willReturn(true).willThrow(sqlException);
+		given(this.resultSet.getInt(1)).willReturn(11);
+		try (Stream<Integer> stream = this.template.queryForStream(
+				"SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1))) {
+			stream.forEach(age -> assertEquals(11, age.intValue()));
+			fail("Should have thrown DataAccessException");
+		}
+		catch (DataAccessException ex) {
+			assertSame(sqlException, ex.getCause());
+		}
+		verify(this.resultSet).close();
+		verify(this.statement).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testQueryForStreamReleasesConnectionFromWrappingDataSource() throws Exception {
+		Connection wrapper = mock(Connection.class);
+		given(this.dataSource.getConnection()).willReturn(wrapper);
+		given(wrapper.createStatement()).willReturn(this.statement);
+		given(wrapper.prepareStatement(anyString())).willReturn(this.preparedStatement);
+		given(this.resultSet.next()).willReturn(false);
+
+		try (Stream<Integer> stream = this.template.queryForStream(
+				"SELECT AGE FROM CUSTMR", (rs, rowNum) -> rs.getInt(1))) {
+			assertEquals(0, stream.count());
+		}
+		try (Stream<Integer> stream = this.template.queryForStream(
+				"SELECT AGE FROM CUSTMR WHERE ID = ?", (rs, rowNum) -> rs.getInt(1), 3)) {
+			assertEquals(0, stream.count());
+		}
+		verify(wrapper, times(2)).close();
+		verify(this.connection, never()).close();
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -28,6 +28,8 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import javax.sql.DataSource;
 
 import org.junit.Before;
@@ -127,6 +129,51 @@ public class NamedParameterJdbcTemplateTests {
 		assertSame(dataSource, namedParameterTemplate.getJdbcTemplate().getDataSource());
 	}
 
+	@Test
+	public void testParsedSqlCache() {
+		assertEquals(NamedParameterJdbcTemplate.DEFAULT_CACHE_LIMIT, namedParameterTemplate.getCacheLimit());
+		ParsedSql parsedSql = namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS);
+		assertSame(parsedSql, namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS));
+		assertNotSame(parsedSql, namedParameterTemplate.getParsedSql(SELECT_NO_PARAMETERS));
+		assertEquals(1, namedParameterTemplate.getCacheHitCount());
+		assertEquals(2, namedParameterTemplate.getCacheMissCount());
+
+		namedParameterTemplate.setCacheLimit(0);
+		assertEquals(0, namedParameterTemplate.getCacheLimit());
+		assertNotSame(parsedSql, namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS));
+		assertNotSame(parsedSql, namedParameterTemplate.getParsedSql(SELECT_NAMED_PARAMETERS));
+		assertEquals(0, namedParameterTemplate.getCacheHitCount());
+		assertEquals(2, namedParameterTemplate.getCacheMissCount());
+	}
+
+	@Test
+	public void testExpandedSqlCache() {
+		ParsedSql parsedSql = namedParameterTemplate.getParsedSql("select * from t where id in (:ids) and x = :x");
+		MapSqlParameterSource params = new MapSqlParameterSource("ids", Arrays.asList(1, 2)).addValue("x", 1);
+		String expected = "select * from t where id in (?, ?) and x = ?";
+		String sql = namedParameterTemplate.getPreparedStatementCreatorFactory(parsedSql, params).getSql();
+		assertEquals(expected, sql);
+		params.addValue("ids", Arrays.asList(3, 4));
+		assertSame(sql, namedParameterTemplate.getPreparedStatementCreatorFactory(parsedSql, params).getSql());
+		params.addValue("ids", Arrays.asList(3, 4, 5));
+		assertEquals("select * from t where id in (?, ?, ?) and x = ?",
+				namedParameterTemplate.getPreparedStatementCreatorFactory(parsedSql, params).getSql());
+		assertEquals(1, namedParameterTemplate.getExpandedSqlCacheHitCount());
+		assertEquals(2, namedParameterTemplate.getExpandedSqlCacheMissCount());
+
+		NamedParameterJdbcTemplate otherTemplate = new NamedParameterJdbcTemplate(dataSource);
+		assertEquals(expected, otherTemplate.getPreparedStatementCreatorFactory(parsedSql,
+				new MapSqlParameterSource("ids", Arrays.asList(1, 2)).addValue("x", 1)).getSql());
+		assertEquals(0, otherTemplate.getExpandedSqlCacheHitCount());
+		assertEquals(1, otherTemplate.getExpandedSqlCacheMissCount());
+
+		namedParameterTemplate.setCacheLimit(0);
+		assertEquals(expected, namedParameterTemplate.getPreparedStatementCreatorFactory(parsedSql,
+				new MapSqlParameterSource("ids", Arrays.asList(1, 2)).addValue("x", 1)).getSql());
+		assertEquals(0, namedParameterTemplate.getExpandedSqlCacheHitCount());
+		assertEquals(1, namedParameterTemplate.getExpandedSqlCacheMissCount());
+	}
+
 	@Test
 	public void testExecute() throws SQLException {
 		given(preparedStatement.executeUpdate()).willReturn(1);
@@ -354,6 +401,37 @@ public class NamedParameterJdbcTemplateTests {
 		verify(connection).close();
 	}
 
+	@Test
+	public void testQueryForStreamWithRowMapper() throws SQLException {
+		given(resultSet.next()).willReturn(true, false);
+		given(resultSet.getInt("id")).willReturn(1);
+		given(resultSet.getString("forename")).willReturn("rod");
+
+		params.put("id", new SqlParameterValue(Types.DECIMAL, 1));
+		given(preparedStatement.getConnection()).willReturn(connection);
+		params.put("country", "UK");
+		List<Customer> customers;
+		try (Stream<Customer> stream = namedParameterTemplate.queryForStream(SELECT_NAMED_PARAMETERS, params,
+				(rs, rownum) -> {
+					Customer cust = new Customer();
+					cust.setId(rs.getInt(COLUMN_NAMES[0]));
+					cust.setForename(rs.getString(COLUMN_NAMES[1]));
+					return cust;
+				})) {
+			verify(preparedStatement, never()).close();
+			customers = stream.collect(Collectors.toList());
+		}
+		assertEquals(1, customers.size());
+		assertTrue("Customer id was assigned correctly", customers.get(0).getId() == 1);
+		assertTrue("Customer forename was assigned correctly", customers.get(0).getForename().equals("rod"));
+		verify(connection).prepareStatement(SELECT_NAMED_PARAMETERS_PARSED);
+		verify(preparedStatement).setObject(1, 1, Types.DECIMAL);
+		verify(preparedStatement).setString(2, "UK");
+		verify(resultSet).close();
+		verify(preparedStatement).close();
+		verify(connection).close();
+	}
+
 	@Test
 	public void testQueryForObjectWithRowMapper() throws SQLException {
 		given(resultSet.next()).willReturn(true, false);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.jdbc.core.namedparam;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -68,6 +69,22 @@ public class NamedParameterUtilsTests {
 				NamedParameterUtils.substituteNamedParameters("xxx :a :b :c xx :a :a", namedParams));
 	}
 
+	@Test
+	public void substituteNamedParametersWithCollections() {
+		MapSqlParameterSource namedParams = new MapSqlParameterSource();
+		namedParams.addValue("a", Arrays.asList(1, 2, 3)).addValue("b", "b");
+		namedParams.addValue("c", Arrays.asList(new Object[] {1, "x"}, new Object[] {2, "y"}));
+		assertEquals("xxx ?, ?, ? ? (?, ?), (?, ?)",
+				NamedParameterUtils.substituteNamedParameters("xxx :a :b :c", namedParams));
+
+		namedParams.addValue("a", Arrays.asList(4, 5));
+		assertEquals("xxx ?, ? ? (?, ?), (?, ?)",
+				NamedParameterUtils.substituteNamedParameters("xxx :a :b :c", namedParams));
+		namedParams.addValue("a", Collections.emptyList());
+		namedParams.addValue("c", Collections.singletonList(new Object[0]));
+		assertEquals("xxx  ? ()", NamedParameterUtils.substituteNamedParameters("xxx :a :b :c", namedParams));
+	}
+
 	@Test
 	public void convertParamMapToArray() {
 		Map<String, String> paramMap = new HashMap<>();
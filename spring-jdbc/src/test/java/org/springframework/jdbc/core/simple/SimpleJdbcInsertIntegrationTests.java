@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.simple;
+
+import org.junit.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.junit.Assert.*;
+
+/**
+ * Multi-row insert tests for {@link SimpleJdbcInsert} against embedded databases.
+ *
+ * @author agent
+ */
+public class SimpleJdbcInsertIntegrationTests {
+
+	private static final int ROW_COUNT = 9000;
+
+
+	@Test
+	public void multiRowInsertWithH2() {
+		assertMultiRowInsert(EmbeddedDatabaseType.H2);
+	}
+
+	@Test
+	public void multiRowInsertWithHsql() {
+		assertMultiRowInsert(EmbeddedDatabaseType.HSQL);
+	}
+
+	@Test
+	public void multiRowInsertWithDerby() {
+		assertMultiRowInsert(EmbeddedDatabaseType.DERBY);
+	}
+
+
+	private void assertMultiRowInsert(EmbeddedDatabaseType type) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder().generateUniqueName(true).setType(type).build();
+		try {
+			JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+			jdbcTemplate.execute("create table item (id integer, code integer, name varchar(50), price double)");
+
+			SqlParameterSource[] batch = new SqlParameterSource[ROW_COUNT];
+			for (int i = 0; i < batch.length; i++) {
+				batch[i] = new MapSqlParameterSource()
+						.addValue("id", i).addValue("code", i * 10).addValue("name", "item" + i).addValue("price", 1.5);
+			}
+			SimpleJdbcInsert insert = new SimpleJdbcInsert(jdbcTemplate).withTableName("item")
+					.usingMultiRowInserts(ROW_COUNT);
+			insert.executeBatch(batch);
+
+			assertEquals(Integer.valueOf(ROW_COUNT), jdbcTemplate.queryForObject("select count(*) from item", Integer.class));
+			assertEquals(Integer.valueOf(ROW_COUNT * (ROW_COUNT - 1) / 2),
+					jdbcTemplate.queryForObject("select sum(id) from item", Integer.class));
+		}
+		finally {
+			database.shutdown();
+		}
+	}
+
+}
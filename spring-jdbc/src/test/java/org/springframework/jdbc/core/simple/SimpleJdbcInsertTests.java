@@ -18,8 +18,11 @@ package org.springframework.jdbc.core.simple;
 
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import javax.sql.DataSource;
 
 import org.junit.After;
@@ -27,9 +30,11 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.mockito.ArgumentCaptor;
 
 import org.springframework.dao.InvalidDataAccessApiUsageException;
 
+import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
 
 /**
@@ -45,6 +50,8 @@ public class SimpleJdbcInsertTests {
 
 	private DataSource dataSource;
 
+	private int expectedConnectionCloses = 1;
+
 	@Rule
 	public ExpectedException thrown = ExpectedException.none();
 
@@ -60,7 +67,7 @@ public class SimpleJdbcInsertTests {
 
 	@After
 	public void verifyClosed() throws Exception {
-		verify(connection).close();
+		verify(connection, times(this.expectedConnectionCloses)).close();
 	}
 
 
@@ -86,4 +93,125 @@ public class SimpleJdbcInsertTests {
 		}
 	}
 
+	@Test
+	public void testMultiRowBatchInsert() throws Exception {
+		PreparedStatement chunkStatement = mockPreparedStatement(
+				"INSERT INTO x (a, b) VALUES(?, ?), (?, ?)", new int[] {2, 2});
+		PreparedStatement remainderStatement = mockPreparedStatement("INSERT INTO x (a, b) VALUES(?, ?)", null);
+		given(remainderStatement.executeUpdate()).willReturn(1);
+		given(databaseMetaData.getDatabaseProductName()).willReturn("PostgreSQL");
+		given(databaseMetaData.supportsBatchUpdates()).willReturn(true);
+
+		SimpleJdbcInsertOperations insert = new SimpleJdbcInsert(dataSource).withTableName("x")
+				.usingColumns("a", "b").withoutTableColumnMetaDataAccess().usingMultiRowInserts(2);
+		int[] updateCounts = insert.executeBatch(row(1, "one"), row(2, "two"), row(3, "three"), row(4, "four"), row(5, "five"));
+
+		assertArrayEquals(new int[] {2, 2, 1}, updateCounts);
+		verify(chunkStatement).setObject(1, 1);
+		verify(chunkStatement).setString(2, "one");
+		verify(chunkStatement).setObject(3, 2);
+		verify(chunkStatement).setString(4, "two");
+		verify(chunkStatement).setObject(1, 3);
+		verify(chunkStatement).setString(4, "four");
+		verify(chunkStatement, times(2)).addBatch();
+		verify(remainderStatement).setObject(1, 5);
+		verify(remainderStatement).setString(2, "five");
+		verify(chunkStatement).close();
+		verify(remainderStatement).close();
+		this.expectedConnectionCloses = 3;
+	}
+
+	@Test
+	public void testMultiRowBatchInsertLimitedByMaxInsertParameters() throws Exception {
+		PreparedStatement chunkStatement = mockPreparedStatement(
+				"INSERT INTO x (a, b) VALUES(?, ?), (?, ?)", new int[] {2});
+		given(databaseMetaData.getDatabaseProductName()).willReturn("MyDB");
+		given(databaseMetaData.supportsBatchUpdates()).willReturn(true);
+
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(dataSource);
+		insert.withTableName("x").usingColumns("a", "b").withoutTableColumnMetaDataAccess();
+		insert.setMultiRowInsertSize(10);
+		insert.setMaxInsertParameters(5);
+		int[] updateCounts = insert.executeBatch(row(1, "one"), row(2, "two"));
+
+		assertArrayEquals(new int[] {2}, updateCounts);
+		verify(chunkStatement).setObject(3, 2);
+		verify(chunkStatement).close();
+		this.expectedConnectionCloses = 2;
+	}
+
+	@Test
+	public void testMultiRowBatchInsertNotSupportedByDatabase() throws Exception {
+		PreparedStatement statement = mockPreparedStatement("INSERT INTO x (a, b) VALUES(?, ?)", new int[] {1, 1});
+		given(databaseMetaData.getDatabaseProductName()).willReturn("MyDB");
+		given(databaseMetaData.supportsBatchUpdates()).willReturn(true);
+
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(dataSource);
+		insert.withTableName("x").usingColumns("a", "b").withoutTableColumnMetaDataAccess();
+		insert.setMultiRowInsertSize(10);
+		int[] updateCounts = insert.executeBatch(row(1, "one"), row(2, "two"));
+
+		assertArrayEquals(new int[] {1, 1}, updateCounts);
+		verify(statement, times(2)).addBatch();
+		verify(statement).close();
+		this.expectedConnectionCloses = 2;
+	}
+
+	@Test
+	public void testMultiRowBatchInsertBelowSqlServerParameterLimit() throws Exception {
+		PreparedStatement statement = mock(PreparedStatement.class);
+		given(statement.getConnection()).willReturn(connection);
+		given(statement.executeBatch()).willReturn(new int[] {699});
+		given(statement.executeUpdate()).willReturn(1);
+		given(connection.prepareStatement(anyString())).willReturn(statement);
+		given(databaseMetaData.getDatabaseProductName()).willReturn("Microsoft SQL Server");
+		given(databaseMetaData.supportsBatchUpdates()).willReturn(true);
+
+		SimpleJdbcInsert insert = new SimpleJdbcInsert(dataSource);
+		insert.withTableName("x").usingColumns("a", "b", "c").withoutTableColumnMetaDataAccess();
+		insert.setMultiRowInsertSize(1000);
+		@SuppressWarnings("unchecked")
+		Map<String, Object>[] rows = new Map[700];
+		for (int i = 0; i < rows.length; i++) {
+			rows[i] = new HashMap<>();
+			rows[i].put("a", i);
+			rows[i].put("b", i);
+			rows[i].put("c", i);
+		}
+		int[] updateCounts = insert.executeBatch(rows);
+
+		assertArrayEquals(new int[] {699, 1}, updateCounts);
+		ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+		verify(connection, times(2)).prepareStatement(sql.capture());
+		List<String> statements = sql.getAllValues();
+		assertEquals(699 * 3, countParameters(statements.get(0)));
+		assertEquals(3, countParameters(statements.get(1)));
+		this.expectedConnectionCloses = 3;
+	}
+
+	private PreparedStatement mockPreparedStatement(String sql, int[] batchUpdateCounts) throws Exception {
+		PreparedStatement preparedStatement = mock(PreparedStatement.class);
+		given(preparedStatement.getConnection()).willReturn(connection);
+		given(preparedStatement.executeBatch()).willReturn(batchUpdateCounts);
+		given(connection.prepareStatement(sql)).willReturn(preparedStatement);
+		return preparedStatement;
+	}
+
+	private static int countParameters(String sql) {
+		int count = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			if (sql.charAt(i) == '?') {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static Map<String, Object> row(int a, String b) {
+		Map<String, Object> row = new HashMap<>();
+		row.put("a", a);
+		row.put("b", b);
+		return row;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -21,6 +21,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import javax.sql.DataSource;
@@ -154,4 +155,19 @@ public class TableMetaDataContextTests  {
 		verify(columnsResultSet).close();
 	}
 
+	@Test
+	public void testMultiRowInsertString() throws Exception {
+		given(databaseMetaData.getDatabaseProductName()).willReturn("Microsoft SQL Server");
+
+		context.setTableName("customers");
+		context.setAccessTableColumnMetaData(false);
+		context.processMetaData(dataSource, Arrays.asList("id", "name"), new String[0]);
+
+		assertEquals(2098, context.getMultiRowInsertParameterLimit());
+		assertEquals(1000, context.getMultiRowInsertRowLimit());
+		assertEquals("INSERT INTO customers (id, name) VALUES(?, ?)", context.createInsertString());
+		assertEquals("INSERT INTO customers (id, name) VALUES(?, ?), (?, ?), (?, ?)",
+				context.createMultiRowInsertString(3));
+	}
+
 }
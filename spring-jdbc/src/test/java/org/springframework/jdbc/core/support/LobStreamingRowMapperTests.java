@@ -0,0 +1,145 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.sql.Types;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.LobRetrievalFailureException;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.support.lob.LobStreamAccessor;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link LobStreamingRowMapper} and streamed {@link SqlLobValue} parameters.
+ *
+ * @author agent
+ */
+public class LobStreamingRowMapperTests {
+
+	private EmbeddedDatabase database;
+
+	private NamedParameterJdbcTemplate template;
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		this.template = new NamedParameterJdbcTemplate(this.database);
+		this.template.getJdbcTemplate().execute(
+				"create table document (id integer, content blob, description clob)");
+		insert(1, "first", "first description");
+		insert(2, "second", null);
+	}
+
+	@After
+	public void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	public void copyStreams() {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StringWriter writer = new StringWriter();
+		List<Long> counts = this.template.query("select content, description from document order by id",
+				new LobStreamingRowMapper<>((rs, rowNum, lobs) -> {
+					out.write('[');
+					long count = lobs.copyBinaryStream(1, out);
+					out.write(']');
+					lobs.copyCharacterStream(2, writer);
+					return count;
+				}));
+
+		assertEquals("[first][second]", out.toString());
+		assertEquals("first description", writer.toString());
+		assertEquals(5L, counts.get(0).longValue());
+		assertEquals(6L, counts.get(1).longValue());
+	}
+
+	@Test
+	public void nullContent() {
+		List<Long> counts = this.template.getJdbcTemplate().query("select description from document where id = 2",
+				new LobStreamingRowMapper<>((rs, rowNum, lobs) -> lobs.copyCharacterStream(1, new StringWriter())));
+		assertEquals(-1L, counts.get(0).longValue());
+	}
+
+	@Test
+	public void streamsOnlyValidWithinCallback() {
+		LobStreamAccessor[] accessor = new LobStreamAccessor[1];
+		this.template.getJdbcTemplate().query("select content from document where id = 1",
+				new LobStreamingRowMapper<>((rs, rowNum, lobs) -> {
+					accessor[0] = lobs;
+					return lobs.getBinaryStream("content");
+				}));
+		try {
+			accessor[0].getBinaryStream(1);
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (Exception ex) {
+			assertTrue(ex instanceof IllegalStateException);
+		}
+	}
+
+	@Test
+	public void withQueryForStream() {
+		try (Stream<String> contents = this.template.getJdbcTemplate().queryForStream(
+				"select content from document order by id",
+				new LobStreamingRowMapper<>((rs, rowNum, lobs) -> {
+					ByteArrayOutputStream out = new ByteArrayOutputStream();
+					lobs.copyBinaryStream(1, out);
+					return out.toString();
+				}))) {
+			assertEquals("first,second", contents.collect(Collectors.joining(",")));
+		}
+	}
+
+	@Test(expected = LobRetrievalFailureException.class)
+	public void ioExceptionTranslated() {
+		this.template.getJdbcTemplate().query("select content from document",
+				new LobStreamingRowMapper<>((rs, rowNum, lobs) -> {
+					throw new IOException("broken pipe");
+				}));
+	}
+
+
+	private void insert(int id, String content, String description) {
+		InputStream contentStream = new ByteArrayInputStream(content.getBytes());
+		MapSqlParameterSource params = new MapSqlParameterSource("id", id)
+				.addValue("content", new SqlLobValue(contentStream), Types.BLOB)
+				.addValue("description", (description != null ?
+						new SqlLobValue(new StringReader(description)) : new SqlLobValue((String) null)), Types.CLOB);
+		this.template.update("insert into document values (:id, :content, :description)", params);
+	}
+
+}
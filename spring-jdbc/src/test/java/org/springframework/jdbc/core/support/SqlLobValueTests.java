@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,8 @@ package org.springframework.jdbc.core.support;
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Types;
@@ -30,6 +32,8 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.MockitoAnnotations;
 
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.core.StatementCreatorUtils;
 import org.springframework.jdbc.support.lob.LobCreator;
 import org.springframework.jdbc.support.lob.LobHandler;
 
@@ -187,6 +191,26 @@ public class SqlLobValueTests  {
 		verify(creator).close();
 	}
 
+	@Test
+	public void testStreamWithUnknownLength() throws SQLException {
+		InputStream stream = new ByteArrayInputStream("Bla".getBytes());
+		SqlLobValue lob = new SqlLobValue(stream, handler);
+		lob.setTypeValue(preparedStatement, 1, Types.BLOB, "test");
+		verify(creator).setBlobAsBinaryStream(preparedStatement, 1, stream, -1);
+
+		Reader reader = new StringReader("Bla");
+		lob = new SqlLobValue(reader, handler);
+		lob.setTypeValue(preparedStatement, 2, Types.CLOB, "test");
+		verify(creator).setClobAsCharacterStream(preparedStatement, 2, reader, -1);
+	}
+
+	@Test
+	public void testCleanupWithinSqlParameterValue() throws SQLException {
+		SqlLobValue lob = new SqlLobValue("Bla", handler);
+		StatementCreatorUtils.cleanupParameters(new SqlParameterValue(Types.CLOB, lob));
+		verify(creator).close();
+	}
+
 	@Test
 	public void testOtherSqlType() throws SQLException {
 		SqlLobValue lob = new SqlLobValue("Bla", handler);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,9 @@ import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import javax.sql.DataSource;
 
 import org.junit.After;
@@ -31,6 +34,7 @@ import org.mockito.InOrder;
 
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.lang.Nullable;
 import org.springframework.tests.Assume;
 import org.springframework.tests.TestGroup;
 import org.springframework.transaction.CannotCreateTransactionException;
@@ -42,7 +46,10 @@ import org.springframework.transaction.TransactionSystemException;
 import org.springframework.transaction.TransactionTimedOutException;
 import org.springframework.transaction.UnexpectedRollbackException;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.SlowestTransactionsRecorder;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionExecutionRecord;
 import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationAdapter;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
@@ -1585,6 +1592,167 @@ public class DataSourceTransactionManagerTests  {
 		verify(con).close();
 	}
 
+	@Test
+	public void testLazyTransactionBeginWithoutConnectionAccess() throws Exception {
+		tm.setLazyTransactionBegin(true);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) throws RuntimeException {
+				assertTrue("Has thread connection", TransactionSynchronizationManager.hasResource(ds));
+				assertTrue("Is new transaction", status.isNewTransaction());
+				assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+			}
+		});
+
+		assertTrue("Hasn't thread connection", !TransactionSynchronizationManager.hasResource(ds));
+		verifyZeroInteractions(ds, con);
+	}
+
+	@Test
+	public void testLazyTransactionBeginWithRollbackWithoutConnectionAccess() throws Exception {
+		tm.setLazyTransactionBegin(true);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) throws RuntimeException {
+				status.setRollbackOnly();
+			}
+		});
+
+		assertTrue("Hasn't thread connection", !TransactionSynchronizationManager.hasResource(ds));
+		verifyZeroInteractions(ds, con);
+	}
+
+	@Test
+	public void testLazyTransactionBeginWithConnectionAccess() throws Exception {
+		given(con.getAutoCommit()).willReturn(true);
+		tm.setLazyTransactionBegin(true);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+		tt.setReadOnly(true);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) throws RuntimeException {
+				verifyZeroInteractions(ds);
+				Connection con1 = DataSourceUtils.getConnection(ds);
+				Connection con2 = DataSourceUtils.getConnection(ds);
+				assertSame(con, con1);
+				assertSame(con, con2);
+				assertTrue(DataSourceUtils.isConnectionTransactional(con1, ds));
+				DataSourceUtils.releaseConnection(con1, ds);
+				DataSourceUtils.releaseConnection(con2, ds);
+				assertSame(con, DataSourceUtils.getConnection(ds));
+			}
+		});
+
+		assertTrue("Hasn't thread connection", !TransactionSynchronizationManager.hasResource(ds));
+		InOrder ordered = inOrder(ds, con);
+		ordered.verify(ds).getConnection();
+		ordered.verify(con).setReadOnly(true);
+		ordered.verify(con).setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		ordered.verify(con).setAutoCommit(false);
+		ordered.verify(con).commit();
+		ordered.verify(con).setAutoCommit(true);
+		ordered.verify(con).close();
+		verify(ds, times(1)).getConnection();
+	}
+
+	@Test
+	public void testLazyTransactionBeginWithRollbackAfterConnectionAccess() throws Exception {
+		tm.setLazyTransactionBegin(true);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) throws RuntimeException {
+				DataSourceUtils.getConnection(ds);
+				status.setRollbackOnly();
+			}
+		});
+
+		assertTrue("Hasn't thread connection", !TransactionSynchronizationManager.hasResource(ds));
+		verify(con).rollback();
+		verify(con, never()).commit();
+		verify(con).close();
+	}
+
+	@Test
+	public void testLazyTransactionBeginWithConnectionFailureOnAccess() throws Exception {
+		given(ds.getConnection()).willThrow(new SQLException("Cannot connect"));
+		tm.setLazyTransactionBegin(true);
+		TransactionTemplate tt = new TransactionTemplate(tm);
+		try {
+			tt.execute(new TransactionCallbackWithoutResult() {
+				@Override
+				protected void doInTransactionWithoutResult(TransactionStatus status) throws RuntimeException {
+					DataSourceUtils.getConnection(ds);
+				}
+			});
+			fail("Should have thrown CannotCreateTransactionException");
+		}
+		catch (CannotCreateTransactionException ex) {
+			assertTrue(ex.getCause() instanceof SQLException);
+		}
+
+		assertTrue("Hasn't thread connection", !TransactionSynchronizationManager.hasResource(ds));
+		verify(ds).getConnection();
+	}
+
+	@Test
+	public void testTransactionExecutionListenerWithPropagationRequiresNew() throws Exception {
+		List<String> events = new ArrayList<>();
+		SlowestTransactionsRecorder recorder = new SlowestTransactionsRecorder();
+		tm.setTransactionExecutionListeners(Arrays.asList(new TransactionExecutionListener() {
+			@Override
+			public void afterBegin(TransactionExecutionRecord record, @Nullable Throwable beginFailure) {
+				events.add("begin:" + record.getName());
+			}
+			@Override
+			public void afterSuspend(TransactionExecutionRecord record) {
+				events.add("suspend:" + record.getName());
+			}
+			@Override
+			public void afterResume(TransactionExecutionRecord record) {
+				events.add("resume:" + record.getName());
+			}
+			@Override
+			public void afterCompletion(TransactionExecutionRecord record) {
+				events.add("completion:" + record.getName());
+			}
+		}, recorder));
+
+		final TransactionTemplate tt = new TransactionTemplate(tm);
+		tt.setName("outer");
+		final TransactionTemplate tt2 = new TransactionTemplate(tm);
+		tt2.setName("inner");
+		tt2.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		tt.execute(new TransactionCallbackWithoutResult() {
+			@Override
+			protected void doInTransactionWithoutResult(TransactionStatus status) throws RuntimeException {
+				tt2.execute(new TransactionCallbackWithoutResult() {
+					@Override
+					protected void doInTransactionWithoutResult(TransactionStatus status) throws RuntimeException {
+						status.setRollbackOnly();
+					}
+				});
+			}
+		});
+
+		assertEquals(Arrays.asList("begin:outer", "suspend:inner", "begin:inner",
+				"resume:inner", "completion:inner", "completion:outer"), events);
+		List<TransactionExecutionRecord> slowest = recorder.getSlowestTransactions();
+		assertEquals(2, slowest.size());
+		assertEquals("outer", slowest.get(0).getName());
+		assertEquals(TransactionSynchronization.STATUS_COMMITTED, slowest.get(0).getCompletionStatus());
+		assertEquals("inner", slowest.get(1).getName());
+		assertEquals(TransactionDefinition.PROPAGATION_REQUIRES_NEW, slowest.get(1).getPropagationBehavior());
+		assertEquals(TransactionSynchronization.STATUS_ROLLED_BACK, slowest.get(1).getCompletionStatus());
+		assertTrue(slowest.get(1).isSuspending());
+		verify(con).rollback();
+		verify(con).commit();
+		verify(con, times(2)).close();
+	}
+
 
 	private static class TestTransactionSynchronization implements TransactionSynchronization {
 
@@ -0,0 +1,249 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link PoolingDataSource}.
+ *
+ * @author agent
+ */
+public class PoolingDataSourceTests {
+
+	private final List<Connection> connections = new ArrayList<>();
+
+	private final PoolingDataSource dataSource = new PoolingDataSource("url") {
+		@Override
+		protected Connection getConnectionFromDriverManager(String url, Properties props) throws SQLException {
+			Connection con = mock(Connection.class);
+			given(con.getAutoCommit()).willReturn(true);
+			given(con.isValid(anyInt())).willReturn(true);
+			connections.add(con);
+			return con;
+		}
+	};
+
+
+	@After
+	public void destroy() {
+		this.dataSource.destroy();
+	}
+
+
+	@Test
+	public void connectionReused() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		assertEquals(1, this.dataSource.getActiveConnectionCount());
+		Connection target = ((ConnectionProxy) con).getTargetConnection();
+		con.close();
+		assertTrue(con.isClosed());
+		assertEquals(0, this.dataSource.getActiveConnectionCount());
+		assertEquals(1, this.dataSource.getIdleConnectionCount());
+
+		Connection con2 = this.dataSource.getConnection();
+		assertNotSame(con, con2);
+		assertSame(target, ((ConnectionProxy) con2).getTargetConnection());
+		con2.close();
+
+		assertEquals(1, this.connections.size());
+		assertEquals(2, this.dataSource.getBorrowCount());
+		assertEquals(1, this.dataSource.getCreatedConnectionCount());
+		verify(target).isValid(PoolingDataSource.DEFAULT_VALIDATION_TIMEOUT);
+		verify(target, never()).close();
+	}
+
+	@Test
+	public void closedHandleRejectsCalls() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		con.close();
+		con.close();
+		assertEquals(1, this.dataSource.getIdleConnectionCount());
+		try {
+			con.createStatement();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void invalidConnectionDiscarded() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection target = ((ConnectionProxy) con).getTargetConnection();
+		con.close();
+		given(target.isValid(anyInt())).willReturn(false);
+		this.dataSource.setValidationTimeout(2);
+
+		Connection con2 = this.dataSource.getConnection();
+		assertNotSame(target, ((ConnectionProxy) con2).getTargetConnection());
+		con2.close();
+
+		verify(target).isValid(2);
+		verify(target).close();
+		assertEquals(1, this.dataSource.getValidationFailureCount());
+		assertEquals(1, this.dataSource.getTotalConnectionCount());
+	}
+
+	@Test
+	public void pendingTransactionRolledBackOnReturn() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection target = ((ConnectionProxy) con).getTargetConnection();
+		con.setAutoCommit(false);
+		given(target.getAutoCommit()).willReturn(false);
+		con.close();
+
+		verify(target).rollback();
+		verify(target).setAutoCommit(true);
+		assertEquals(1, this.dataSource.getIdleConnectionCount());
+	}
+
+	@Test
+	public void connectionStateRestoredOnReturn() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection target = ((ConnectionProxy) con).getTargetConnection();
+		con.setReadOnly(true);
+		con.setTransactionIsolation(Connection.TRANSACTION_SERIALIZABLE);
+		given(target.isReadOnly()).willReturn(true);
+		given(target.getTransactionIsolation()).willReturn(Connection.TRANSACTION_SERIALIZABLE);
+		con.close();
+
+		verify(target).setReadOnly(false);
+		verify(target).setTransactionIsolation(Connection.TRANSACTION_NONE);
+		assertEquals(1, this.dataSource.getIdleConnectionCount());
+	}
+
+	@Test
+	public void statementExposesPooledConnection() throws SQLException {
+		Connection con = this.dataSource.getConnection();
+		Connection target = ((ConnectionProxy) con).getTargetConnection();
+		Statement stmt = mock(Statement.class);
+		given(stmt.getConnection()).willReturn(target);
+		given(target.createStatement()).willReturn(stmt);
+		PreparedStatement ps = mock(PreparedStatement.class);
+		given(ps.getConnection()).willReturn(target);
+		given(target.prepareStatement("sql")).willReturn(ps);
+
+		assertSame(con, con.createStatement().getConnection());
+		assertSame(con, con.prepareStatement("sql").getConnection());
+		con.prepareStatement("sql").getConnection().close();
+
+		assertTrue(con.isClosed());
+		assertEquals(1, this.dataSource.getIdleConnectionCount());
+		verify(target, never()).close();
+	}
+
+	@Test
+	public void minAndMaxIdle() throws SQLException {
+		this.dataSource.setMinIdle(2);
+		this.dataSource.setMaxIdle(1);
+		this.dataSource.afterPropertiesSet();
+		assertEquals(2, this.dataSource.getIdleConnectionCount());
+		assertEquals(2, this.dataSource.getMaxIdle());
+
+		Connection con1 = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		Connection con3 = this.dataSource.getConnection();
+		assertEquals(3, this.dataSource.getTotalConnectionCount());
+		con1.close();
+		con2.close();
+		con3.close();
+
+		assertEquals(2, this.dataSource.getIdleConnectionCount());
+		assertEquals(2, this.dataSource.getTotalConnectionCount());
+		verify(((ConnectionProxy) con3).getTargetConnection()).close();
+	}
+
+	@Test
+	public void waitTimeoutWhenExhausted() throws SQLException {
+		this.dataSource.setMaxPoolSize(1);
+		this.dataSource.setMaxWait(10);
+		Connection con = this.dataSource.getConnection();
+		try {
+			this.dataSource.getConnection();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			assertEquals(1, this.dataSource.getWaitTimeoutCount());
+		}
+		con.close();
+
+		Connection con2 = this.dataSource.getConnection();
+		assertSame(((ConnectionProxy) con).getTargetConnection(), ((ConnectionProxy) con2).getTargetConnection());
+		con2.close();
+	}
+
+	@Test
+	public void leakDetection() throws Exception {
+		this.dataSource.setLeakDetectionThreshold(1);
+		Connection con = this.dataSource.getConnection();
+		Thread.sleep(20);
+		Connection con2 = this.dataSource.getConnection();
+		assertEquals(1, this.dataSource.getLeakCount());
+		con.close();
+		con2.close();
+
+		Connection con3 = this.dataSource.getConnection();
+		assertEquals(1, this.dataSource.getLeakCount());
+		con3.close();
+	}
+
+	@Test
+	public void destroyClosesConnections() throws SQLException {
+		Connection con1 = this.dataSource.getConnection();
+		Connection con2 = this.dataSource.getConnection();
+		con1.close();
+		this.dataSource.destroy();
+		verify(this.connections.get(0)).close();
+		verify(this.connections.get(1), never()).close();
+
+		con2.close();
+		verify(this.connections.get(1)).close();
+		assertEquals(0, this.dataSource.getTotalConnectionCount());
+		try {
+			this.dataSource.getConnection();
+			fail("Should have thrown SQLException");
+		}
+		catch (SQLException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void customCredentialsNotPooled() throws SQLException {
+		this.dataSource.setUsername("user");
+		this.dataSource.setPassword("pw");
+		Connection con = this.dataSource.getConnection("other", "pw");
+		assertFalse(con instanceof ConnectionProxy);
+		assertTrue(this.dataSource.getConnection("user", "pw") instanceof ConnectionProxy);
+		assertEquals(1, this.dataSource.getTotalConnectionCount());
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -201,6 +201,67 @@ public class EmbeddedDatabaseBuilderTests {
 		db2.shutdown();
 	}
 
+	@Test
+	public void templateDatabaseWithHsql() {
+		assertTemplateDatabasesCreated(HSQL, "db-schema.sql");
+	}
+
+	@Test
+	public void templateDatabaseWithH2() {
+		assertTemplateDatabasesCreated(H2, "db-schema.sql");
+	}
+
+	@Test
+	public void templateDatabaseWithDerby() {
+		assertTemplateDatabasesCreated(DERBY, "db-schema-without-dropping.sql");
+	}
+
+	@Test
+	public void templateDatabaseWithDifferentScripts() {
+		EmbeddedDatabase db = templateDatabase(H2, "db-schema.sql");
+		try {
+			new EmbeddedDatabaseBuilder(new ClassRelativeResourceLoader(getClass()))//
+			.setType(H2)//
+			.setTemplateName("builderTests")//
+			.generateUniqueName(true)//
+			.addScript("db-schema.sql")//
+			.build();
+			fail("Should have thrown an IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			assertTrue(ex.getMessage().contains("builderTests"));
+		}
+		finally {
+			db.shutdown();
+		}
+	}
+
+	private void assertTemplateDatabasesCreated(EmbeddedDatabaseType type, String schema) {
+		EmbeddedDatabase db1 = templateDatabase(type, schema);
+		EmbeddedDatabase db2 = templateDatabase(type, schema);
+		try {
+			JdbcTemplate template1 = new JdbcTemplate(db1);
+			assertNumRowsInTestTable(template1, 1);
+			template1.update("insert into T_TEST (NAME) values ('Sam')");
+			assertNumRowsInTestTable(template1, 2);
+			assertDatabaseCreated(db2);
+		}
+		finally {
+			db1.shutdown();
+			db2.shutdown();
+		}
+		assertDatabaseCreatedAndShutdown(templateDatabase(type, schema));
+	}
+
+	private EmbeddedDatabase templateDatabase(EmbeddedDatabaseType type, String schema) {
+		return new EmbeddedDatabaseBuilder(new ClassRelativeResourceLoader(getClass()))//
+		.setType(type)//
+		.setTemplateName("builderTests")//
+		.generateUniqueName(true)//
+		.addScripts(schema, "db-test-data.sql")//
+		.build();
+	}
+
 	private void doTwice(Runnable test) {
 		test.run();
 		test.run();
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2013 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,8 @@
 package org.springframework.jdbc.datasource.embedded;
 
 import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 
 import org.junit.Test;
 
@@ -41,6 +43,63 @@ public class EmbeddedDatabaseFactoryTests {
 		db.shutdown();
 	}
 
+	@Test
+	public void templateDatabasePopulatedOnce() throws Exception {
+		TablePopulator populator = new TablePopulator();
+		EmbeddedDatabase db1 = templateDatabase(populator);
+		EmbeddedDatabase db2 = templateDatabase(populator);
+		try {
+			assertEquals(1, populator.populateCount);
+			assertEquals(1, countRows(db1));
+			db1.getConnection().createStatement().execute("insert into T_TEST (NAME) values ('Dave')");
+			assertEquals(2, countRows(db1));
+			assertEquals(1, countRows(db2));
+		}
+		finally {
+			db1.shutdown();
+			db2.shutdown();
+		}
+	}
+
+	@Test
+	public void templateDatabaseCopiesSeparateForSameDatabaseName() throws Exception {
+		TablePopulator populator = new TablePopulator();
+		EmbeddedDatabaseFactory factory1 = new EmbeddedDatabaseFactory();
+		factory1.setTemplateDatabaseName("sameNameTests");
+		factory1.setDatabasePopulator(populator);
+		EmbeddedDatabase db1 = factory1.getDatabase();
+		EmbeddedDatabaseFactory factory2 = new EmbeddedDatabaseFactory();
+		factory2.setTemplateDatabaseName("sameNameTests");
+		factory2.setDatabasePopulator(populator);
+		EmbeddedDatabase db2 = factory2.getDatabase();
+		try {
+			db1.getConnection().createStatement().execute("insert into T_TEST (NAME) values ('Dave')");
+			assertEquals(2, countRows(db1));
+			assertEquals(1, countRows(db2));
+		}
+		finally {
+			db1.shutdown();
+		}
+		assertEquals(1, countRows(db2));
+		db2.shutdown();
+	}
+
+	private EmbeddedDatabase templateDatabase(DatabasePopulator populator) {
+		EmbeddedDatabaseFactory factory = new EmbeddedDatabaseFactory();
+		factory.setGenerateUniqueDatabaseName(true);
+		factory.setTemplateDatabaseName("factoryTests");
+		factory.setDatabasePopulator(populator);
+		return factory.getDatabase();
+	}
+
+	private int countRows(EmbeddedDatabase db) throws SQLException {
+		try (Connection con = db.getConnection();
+				ResultSet rs = con.createStatement().executeQuery("select count(*) from T_TEST")) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
 
 	private static class StubDatabasePopulator implements DatabasePopulator {
 
@@ -52,4 +111,17 @@ public class EmbeddedDatabaseFactoryTests {
 		}
 	}
 
+
+	private static class TablePopulator implements DatabasePopulator {
+
+		private int populateCount;
+
+		@Override
+		public void populate(Connection connection) throws SQLException {
+			this.populateCount++;
+			connection.createStatement().execute("create table T_TEST (NAME varchar(50) not null)");
+			connection.createStatement().execute("insert into T_TEST (NAME) values ('Keith')");
+		}
+	}
+
 }
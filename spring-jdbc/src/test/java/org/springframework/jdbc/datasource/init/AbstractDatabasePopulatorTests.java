@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,11 +16,17 @@
 
 package org.springframework.jdbc.datasource.init;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 
@@ -192,6 +198,54 @@ public abstract class AbstractDatabasePopulatorTests extends AbstractDatabaseIni
 		DatabasePopulatorUtils.execute(databasePopulator, db);
 	}
 
+	@Test
+	public void hugeScriptWithDmlBatches() throws SQLException {
+		List<String> executed = new ArrayList<>();
+		databasePopulator.addScript(defaultSchema());
+		databasePopulator.addScript(resource("db-test-data-huge.sql"));
+		databasePopulator.setDmlBatchSize(100);
+		databasePopulator.setScriptExecutionListener((resource, statementCount, elapsedTime) ->
+				executed.add(resource.getResource().getFilename() + ":" + statementCount));
+		DatabasePopulatorUtils.execute(databasePopulator, db);
+
+		assertEquals(Arrays.asList("db-schema.sql:2", "db-test-data-huge.sql:2013"), executed);
+		assertThat(jdbcTemplate.queryForObject("select COUNT(NAME) from T_TEST", Integer.class), equalTo(2013));
+	}
+
+	@Test
+	public void failedStatementInDmlBatch() throws SQLException {
+		databasePopulator.addScript(defaultSchema());
+		databasePopulator.addScript(script("insert into T_TEST (NAME) values ('Keith');\n" +
+				"insert into T_TEST (NAME) values (null);\ninsert into T_TEST (NAME) values ('Dave');"));
+		databasePopulator.setDmlBatchSize(10);
+		try {
+			DatabasePopulatorUtils.execute(databasePopulator, db);
+			fail("Should have thrown ScriptStatementFailedException");
+		}
+		catch (ScriptStatementFailedException ex) {
+			assertThat(ex.getMessage(), containsString("statement #2"));
+		}
+	}
+
+	@Test
+	public void failedStatementInDmlBatchWithContinueOnError() throws SQLException {
+		databasePopulator.addScript(defaultSchema());
+		databasePopulator.addScript(script("insert into T_TEST (NAME) values ('Keith');\n" +
+				"insert into T_TEST (NAME) values (null);\ninsert into T_TEST (NAME) values ('Dave');\n" +
+				"update T_TEST set NAME = 'Juergen' where NAME = 'Dave';"));
+		databasePopulator.setDmlBatchSize(10);
+		databasePopulator.setContinueOnError(true);
+		DatabasePopulatorUtils.execute(databasePopulator, db);
+
+		assertThat(jdbcTemplate.queryForObject("select COUNT(NAME) from T_TEST", Integer.class), equalTo(2));
+		assertThat(jdbcTemplate.queryForObject("select COUNT(NAME) from T_TEST where NAME='Juergen'", Integer.class),
+			equalTo(1));
+	}
+
+	private Resource script(String script) {
+		return new ByteArrayResource(script.getBytes(StandardCharsets.UTF_8));
+	}
+
 	private void assertTestDatabaseCreated() {
 		assertTestDatabaseCreated("Keith");
 	}
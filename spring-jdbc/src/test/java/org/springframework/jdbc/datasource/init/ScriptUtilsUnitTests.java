@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,13 +16,18 @@
 
 package org.springframework.jdbc.datasource.init;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.Test;
 
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.support.EncodedResource;
+import org.springframework.lang.Nullable;
 
 import static org.junit.Assert.*;
 import static org.springframework.jdbc.datasource.init.ScriptUtils.*;
@@ -192,6 +197,72 @@ public class ScriptUtilsUnitTests {
 		assertTrue(containsSqlScriptDelimiters("insert into users(first_name, last_name)\nvalues('Charles', 'd\\'Artagnan'); select 1;", ";"));
 	}
 
+	@Test
+	public void splitSqlScriptFromResourceMatchesInMemorySplit() throws Exception {
+		String[] paths = {"db-schema.sql", "db-test-data-endings.sql", "db-test-data-escaped-literal.sql",
+				"db-test-data-multi-newline.sql", "db-test-data-multiple.sql", "db-test-data-whitespace.sql",
+				"test-data-with-comments.sql", "test-data-with-comments-and-leading-tabs.sql",
+				"test-data-with-multi-line-comments.sql", "test-data-with-multi-line-nested-comments.sql",
+				"users-data-with-single-quotes-nested-in-double-quotes.sql", "users-data-without-separator.sql",
+				"users-schema-without-separator.sql"};
+		for (String path : paths) {
+			String script = readScript(path);
+			String separator = (containsSqlScriptDelimiters(script, ";") ? ";" : "\n");
+			List<String> expected = new ArrayList<>();
+			splitSqlScript(null, script, separator, DEFAULT_COMMENT_PREFIX, DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+					DEFAULT_BLOCK_COMMENT_END_DELIMITER, expected);
+			assertEquals(path, expected, splitFromResource(
+					new EncodedResource(new ClassPathResource(path, getClass())), null));
+		}
+	}
+
+	@Test
+	public void splitSqlScriptFromResourceLargerThanBuffer() {
+		StringBuilder script = new StringBuilder("/* ");
+		for (int i = 0; i < 3000; i++) {
+			script.append("comment ");
+		}
+		script.append("*/\n");
+		for (int i = 0; i < 2000; i++) {
+			script.append("insert into T_TEST (NAME) values ('name ").append(i).append("');\n");
+			script.append("-- line comment ").append(i).append("\n");
+		}
+		script.append("select count(*) from T_TEST");
+		List<String> statements = splitFromResource(resource(script.toString()), null);
+		assertEquals(2001, statements.size());
+		assertEquals("insert into T_TEST (NAME) values ('name 0')", statements.get(0));
+		assertEquals("insert into T_TEST (NAME) values ('name 1999')", statements.get(1999));
+		assertEquals("select count(*) from T_TEST", statements.get(2000));
+	}
+
+	@Test
+	public void splitSqlScriptFromResourceWithFallbackSeparator() {
+		List<String> statements = splitFromResource(resource("select 1\nselect ';'\n"), null);
+		assertEquals(Arrays.asList("select 1", "select ';'"), statements);
+	}
+
+	@Test
+	public void splitSqlScriptFromResourceWithEofSeparator() {
+		List<String> statements = splitFromResource(resource("select 1;\nselect 2\n"), EOF_STATEMENT_SEPARATOR);
+		assertEquals(Collections.singletonList("select 1; select 2"), statements);
+	}
+
+	@Test(expected = ScriptParseException.class)
+	public void splitSqlScriptFromResourceWithUnterminatedBlockComment() {
+		splitFromResource(resource("select 1; /* select 2;"), null);
+	}
+
+	private EncodedResource resource(String script) {
+		return new EncodedResource(new ByteArrayResource(script.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8);
+	}
+
+	private List<String> splitFromResource(EncodedResource resource, @Nullable String separator) {
+		List<String> statements = new ArrayList<>();
+		splitSqlScript(resource, separator, DEFAULT_COMMENT_PREFIX, DEFAULT_BLOCK_COMMENT_START_DELIMITER,
+				DEFAULT_BLOCK_COMMENT_END_DELIMITER, statements::add);
+		return statements;
+	}
+
 	private String readScript(String path) throws Exception {
 		EncodedResource resource = new EncodedResource(new ClassPathResource(path, getClass()));
 		return ScriptUtils.readScript(resource);
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource.lookup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import javax.sql.DataSource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link ReadWriteDataSourceRouter}.
+ *
+ * @author agent
+ */
+public class ReadWriteDataSourceRouterTests {
+
+	private final DataSource primary = mock(DataSource.class);
+
+	private final DataSource replica1 = mock(DataSource.class);
+
+	private final DataSource replica2 = mock(DataSource.class);
+
+	private final Connection primaryCon = mock(Connection.class);
+
+	private final Connection replicaCon1 = mock(Connection.class);
+
+	private final Connection replicaCon2 = mock(Connection.class);
+
+	private final ReadWriteDataSourceRouter router = new ReadWriteDataSourceRouter();
+
+
+	@Before
+	public void setup() throws SQLException {
+		given(this.primary.getConnection()).willReturn(this.primaryCon);
+		given(this.replica1.getConnection()).willReturn(this.replicaCon1);
+		given(this.replica2.getConnection()).willReturn(this.replicaCon2);
+		this.router.setPrimaryDataSource(this.primary);
+		this.router.setReplicaDataSources(Arrays.asList(this.replica1, this.replica2));
+	}
+
+	@After
+	public void clearReadOnly() {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+	}
+
+
+	@Test
+	public void primaryWhenNotReadOnly() throws SQLException {
+		this.router.afterPropertiesSet();
+		assertSame(this.primaryCon, this.router.getConnection());
+		assertSame(this.primaryCon, this.router.getConnection());
+		verifyZeroInteractions(this.replica1, this.replica2);
+	}
+
+	@Test
+	public void roundRobinWhenReadOnly() throws SQLException {
+		this.router.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertSame(this.replicaCon1, this.router.getConnection());
+		assertSame(this.replicaCon2, this.router.getConnection());
+		assertSame(this.replicaCon1, this.router.getConnection());
+		verifyZeroInteractions(this.primary);
+	}
+
+	@Test
+	public void roundRobinWhenReadOnlyWithoutInitialization() throws SQLException {
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		assertSame(this.replicaCon1, this.router.getConnection());
+		assertSame(this.replicaCon2, this.router.getConnection());
+		this.router.setReplicaDataSources(Arrays.asList(this.replica2));
+		assertSame(this.replicaCon2, this.router.getConnection());
+		verifyZeroInteractions(this.primary);
+	}
+
+	@Test
+	public void leastActiveWhenReadOnly() throws SQLException {
+		this.router.setSelection(ReadWriteDataSourceRouter.Selection.LEAST_ACTIVE);
+		this.router.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		Connection con1 = this.router.getConnection();
+		assertSame(this.replicaCon1, ((ConnectionProxy) con1).getTargetConnection());
+		Connection con2 = this.router.getConnection();
+		assertSame(this.replicaCon2, ((ConnectionProxy) con2).getTargetConnection());
+		Connection con3 = this.router.getConnection();
+		assertSame(this.replicaCon1, ((ConnectionProxy) con3).getTargetConnection());
+
+		con2.close();
+		con2.close();
+		Connection con4 = this.router.getConnection();
+		assertSame(this.replicaCon2, ((ConnectionProxy) con4).getTargetConnection());
+		verify(this.replicaCon2, times(2)).close();
+	}
+
+	@Test
+	public void unhealthyReplicaSkipped() throws SQLException {
+		given(this.replica1.getConnection()).willThrow(new SQLException("down"));
+		this.router.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertSame(this.replicaCon2, this.router.getConnection());
+		assertSame(this.replicaCon2, this.router.getConnection());
+		assertSame(this.replicaCon2, this.router.getConnection());
+		verify(this.replica1).getConnection();
+	}
+
+	@Test
+	public void unhealthyReplicaRetriedAfterInterval() throws Exception {
+		given(this.replica1.getConnection()).willThrow(new SQLException("down")).willReturn(this.replicaCon1);
+		this.router.setReplicaDataSources(Arrays.asList(this.replica1));
+		this.router.setReplicaRetryInterval(10);
+		this.router.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertSame(this.primaryCon, this.router.getConnection());
+		Thread.sleep(20);
+		assertSame(this.replicaCon1, this.router.getConnection());
+	}
+
+	@Test
+	public void primaryWhenAllReplicasUnhealthy() throws SQLException {
+		given(this.replica1.getConnection()).willThrow(new SQLException("down"));
+		given(this.replica2.getConnection()).willThrow(new SQLException("down"));
+		this.router.afterPropertiesSet();
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+		assertSame(this.primaryCon, this.router.getConnection());
+		assertSame(this.primaryCon, this.router.getConnection());
+		verify(this.replica1).getConnection();
+		verify(this.replica2).getConnection();
+	}
+
+	@Test
+	public void readOnlyTransactionWithDataSourceTransactionManager() throws SQLException {
+		this.router.afterPropertiesSet();
+		TransactionTemplate tt = new TransactionTemplate(new DataSourceTransactionManager(this.router));
+
+		tt.setReadOnly(true);
+		tt.execute(status -> {
+			assertSame(this.replicaCon1, DataSourceUtils.getConnection(this.router));
+			return null;
+		});
+		tt.setReadOnly(false);
+		tt.execute(status -> {
+			assertSame(this.primaryCon, DataSourceUtils.getConnection(this.router));
+			return null;
+		});
+
+		assertFalse(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		verify(this.replicaCon1).commit();
+		verify(this.replicaCon1).close();
+		verify(this.primaryCon).commit();
+		verify(this.primaryCon).close();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void primaryDataSourceRequired() {
+		new ReadWriteDataSourceRouter().afterPropertiesSet();
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2015 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -181,4 +181,52 @@ public class SQLErrorCodeSQLExceptionTranslatorTests {
 		customTranslation.setExceptionClass(String.class);
 	}
 
+	@Test
+	public void errorCodeInMultipleCategoriesTranslatedByFirstCategory() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		errorCodes.setDataIntegrityViolationCodes("1", "2");
+		errorCodes.setBadSqlGrammarCodes("2", "3");
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+
+		checkTranslation(sext, 1, DataIntegrityViolationException.class);
+		checkTranslation(sext, 2, BadSqlGrammarException.class);
+		checkTranslation(sext, 3, BadSqlGrammarException.class);
+	}
+
+	@Test
+	public void unsortedErrorCodesTranslation() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		errorCodes.setDuplicateKeyCodes("30", "10", "20");
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+
+		checkTranslation(sext, 10, DuplicateKeyException.class);
+		checkTranslation(sext, 20, DuplicateKeyException.class);
+		checkTranslation(sext, 30, DuplicateKeyException.class);
+	}
+
+	@Test
+	public void errorCodeTranslationAfterChangeOfErrorCodes() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		errorCodes.setCannotAcquireLockCodes("1");
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+		checkTranslation(sext, 1, CannotAcquireLockException.class);
+
+		errorCodes.setCannotAcquireLockCodes("2");
+		errorCodes.setDeadlockLoserCodes("1");
+		checkTranslation(sext, 1, DeadlockLoserDataAccessException.class);
+		checkTranslation(sext, 2, CannotAcquireLockException.class);
+	}
+
+	@Test
+	public void customExceptionTranslationWithoutErrorCodeCategory() {
+		SQLErrorCodes errorCodes = new SQLErrorCodes();
+		CustomSQLErrorCodesTranslation customTranslation = new CustomSQLErrorCodesTranslation();
+		customTranslation.setErrorCodes("99");
+		customTranslation.setExceptionClass(CustomErrorCodeException.class);
+		errorCodes.setCustomTranslations(customTranslation);
+		SQLExceptionTranslator sext = new SQLErrorCodeSQLExceptionTranslator(errorCodes);
+
+		checkTranslation(sext, 99, CustomErrorCodeException.class);
+	}
+
 }
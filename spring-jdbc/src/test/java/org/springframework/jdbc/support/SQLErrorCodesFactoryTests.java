@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,12 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.sql.DataSource;
 
 import org.junit.Test;
@@ -252,6 +258,63 @@ public class SQLErrorCodesFactoryTests {
 		assertIsEmpty(sec);
 	}
 
+	@Test
+	public void testFailedLookupNotRetriedImmediately() throws Exception {
+		DataSource dataSource = mock(DataSource.class);
+		given(dataSource.getConnection()).willThrow(new SQLException());
+		SQLErrorCodesFactory factory = new SQLErrorCodesFactory();
+
+		assertIsEmpty(factory.getErrorCodes(dataSource));
+		assertIsEmpty(factory.getErrorCodes(dataSource));
+		verify(dataSource, times(1)).getConnection();
+
+		factory.unregisterDatabase(dataSource);
+		assertIsEmpty(factory.getErrorCodes(dataSource));
+		verify(dataSource, times(2)).getConnection();
+	}
+
+	@Test
+	public void testConcurrentLookupsForSameDataSource() throws Exception {
+		CountDownLatch lookupStarted = new CountDownLatch(1);
+		CountDownLatch proceed = new CountDownLatch(1);
+		DatabaseMetaData databaseMetaData = mock(DatabaseMetaData.class);
+		given(databaseMetaData.getDatabaseProductName()).willAnswer(invocation -> {
+			lookupStarted.countDown();
+			proceed.await(10, TimeUnit.SECONDS);
+			return "Oracle";
+		});
+		Connection connection = mock(Connection.class);
+		given(connection.getMetaData()).willReturn(databaseMetaData);
+		DataSource dataSource = mock(DataSource.class);
+		given(dataSource.getConnection()).willReturn(connection);
+		SQLErrorCodesFactory factory = new SQLErrorCodesFactory();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			Future<SQLErrorCodes> first = executor.submit(() -> factory.getErrorCodes(dataSource));
+			assertTrue(lookupStarted.await(10, TimeUnit.SECONDS));
+			AtomicReference<Thread> secondThread = new AtomicReference<>();
+			Future<SQLErrorCodes> second = executor.submit(() -> {
+				secondThread.set(Thread.currentThread());
+				return factory.getErrorCodes(dataSource);
+			});
+			long deadline = System.currentTimeMillis() + 10000;
+			while ((secondThread.get() == null || secondThread.get().getState() != Thread.State.BLOCKED) &&
+					System.currentTimeMillis() < deadline) {
+				Thread.sleep(10);
+			}
+			proceed.countDown();
+
+			SQLErrorCodes sec = first.get(10, TimeUnit.SECONDS);
+			assertSame(sec, second.get(10, TimeUnit.SECONDS));
+			assertEquals(sec, factory.getErrorCodes("Oracle"));
+			verify(dataSource, times(1)).getConnection();
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
 	private void assertIsEmpty(SQLErrorCodes sec) {
 		// Codes should be empty
 		assertEquals(0, sec.getBadSqlGrammarCodes().length);
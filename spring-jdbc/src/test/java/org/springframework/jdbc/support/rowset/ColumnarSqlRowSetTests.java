@@ -0,0 +1,198 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.support.rowset;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.sql.Date;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import org.springframework.jdbc.InvalidResultSetAccessException;
+import org.springframework.jdbc.core.ColumnarSqlRowSetResultSetExtractor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ColumnarSqlRowSet}.
+ *
+ * @author agent
+ */
+public class ColumnarSqlRowSetTests {
+
+	private EmbeddedDatabase database;
+
+	private JdbcTemplate jdbcTemplate;
+
+
+	@Before
+	public void setup() {
+		this.database = new EmbeddedDatabaseBuilder().generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.database);
+		this.jdbcTemplate.execute("create table item (id integer, code bigint, price double, " +
+				"active boolean, name varchar(50), amount decimal(10,2), created date)");
+		this.jdbcTemplate.update("insert into item values (1, 100, 1.5, true, 'a', 10.25, '2019-01-01')");
+		this.jdbcTemplate.update("insert into item values (2, null, null, null, null, null, null)");
+		this.jdbcTemplate.update("insert into item values (3, 300, 3.5, false, 'a', 30.75, '2019-03-01')");
+	}
+
+	@After
+	public void shutdown() {
+		this.database.shutdown();
+	}
+
+
+	@Test
+	public void values() {
+		SqlRowSet rowSet = query();
+		assertTrue(rowSet.next());
+		assertEquals(1, rowSet.getInt("id"));
+		assertEquals(100L, rowSet.getLong("code"));
+		assertEquals(1.5, rowSet.getDouble("price"), 0);
+		assertTrue(rowSet.getBoolean("active"));
+		assertEquals("a", rowSet.getString("name"));
+		assertEquals(new BigDecimal("10.25"), rowSet.getBigDecimal("amount"));
+		assertEquals(Date.valueOf("2019-01-01"), rowSet.getDate("created"));
+		assertFalse(rowSet.wasNull());
+
+		assertEquals(Integer.valueOf(1), rowSet.getObject(1));
+		assertEquals(Long.valueOf(100), rowSet.getObject(2));
+		assertEquals(Double.valueOf(1.5), rowSet.getObject(3));
+		assertEquals(Boolean.TRUE, rowSet.getObject(4));
+		assertEquals("100", rowSet.getString("code"));
+		assertEquals(10, rowSet.getInt("amount"));
+		assertEquals(Long.valueOf(1), rowSet.getObject("id", Long.class));
+		assertEquals("1.5", rowSet.getObject("price", String.class));
+	}
+
+	@Test
+	public void nullValues() {
+		SqlRowSet rowSet = query();
+		assertTrue(rowSet.absolute(2));
+		assertEquals(2, rowSet.getInt("id"));
+		assertFalse(rowSet.wasNull());
+		assertEquals(0, rowSet.getLong("code"));
+		assertTrue(rowSet.wasNull());
+		assertEquals(0, rowSet.getDouble("price"), 0);
+		assertTrue(rowSet.wasNull());
+		assertFalse(rowSet.getBoolean("active"));
+		assertTrue(rowSet.wasNull());
+		assertNull(rowSet.getString("name"));
+		assertNull(rowSet.getBigDecimal("amount"));
+		assertNull(rowSet.getDate("created"));
+		assertNull(rowSet.getObject("code"));
+		assertTrue(rowSet.wasNull());
+	}
+
+	@Test
+	public void navigation() {
+		SqlRowSet rowSet = query();
+		assertTrue(rowSet.isBeforeFirst());
+		assertEquals(0, rowSet.getRow());
+		assertTrue(rowSet.last());
+		assertTrue(rowSet.isLast());
+		assertEquals(3, rowSet.getInt(1));
+		assertTrue(rowSet.previous());
+		assertEquals(2, rowSet.getRow());
+		assertTrue(rowSet.first());
+		assertTrue(rowSet.isFirst());
+		assertTrue(rowSet.relative(2));
+		assertEquals(3, rowSet.getInt(1));
+		assertFalse(rowSet.next());
+		assertTrue(rowSet.isAfterLast());
+		assertFalse(rowSet.next());
+		assertTrue(rowSet.absolute(-3));
+		assertEquals(1, rowSet.getInt(1));
+		rowSet.afterLast();
+		assertTrue(rowSet.previous());
+		assertEquals(3, rowSet.getInt(1));
+		rowSet.beforeFirst();
+		assertFalse(rowSet.previous());
+	}
+
+	@Test
+	public void metaData() {
+		SqlRowSet rowSet = query();
+		SqlRowSetMetaData metaData = rowSet.getMetaData();
+		assertEquals(7, metaData.getColumnCount());
+		assertEquals("ID", metaData.getColumnName(1));
+		assertEquals("NAME", metaData.getColumnLabel(5));
+		assertEquals("ITEM", metaData.getTableName(1));
+		assertEquals(2, metaData.getScale(6));
+		assertEquals(5, rowSet.findColumn("NAME"));
+		assertEquals(5, rowSet.findColumn("name"));
+	}
+
+	@Test
+	public void sharedStrings() {
+		SqlRowSet rowSet = query();
+		rowSet.first();
+		String first = rowSet.getString("name");
+		rowSet.last();
+		assertSame(first, rowSet.getString("name"));
+	}
+
+	@Test
+	public void serializable() throws Exception {
+		ColumnarSqlRowSet rowSet = query();
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+			oos.writeObject(rowSet);
+		}
+		ColumnarSqlRowSet copy;
+		try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+			copy = (ColumnarSqlRowSet) ois.readObject();
+		}
+		assertEquals(3, copy.getRowCount());
+		assertTrue(copy.last());
+		assertEquals("a", copy.getString("name"));
+		assertEquals(new BigDecimal("30.75"), copy.getBigDecimal("amount"));
+		assertFalse(copy.getBoolean("active"));
+	}
+
+	@Test(expected = InvalidResultSetAccessException.class)
+	public void invalidCursorPosition() {
+		query().getInt(1);
+	}
+
+	@Test(expected = InvalidResultSetAccessException.class)
+	public void invalidColumnLabel() {
+		query().findColumn("unknown");
+	}
+
+	@Test(expected = InvalidResultSetAccessException.class)
+	public void invalidConversion() {
+		SqlRowSet rowSet = query();
+		rowSet.first();
+		rowSet.getInt("name");
+	}
+
+
+	private ColumnarSqlRowSet query() {
+		return (ColumnarSqlRowSet) this.jdbcTemplate.query(
+				"select * from item order by id", new ColumnarSqlRowSetResultSetExtractor());
+	}
+
+}
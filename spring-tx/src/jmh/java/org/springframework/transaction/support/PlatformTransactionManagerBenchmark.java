@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * Benchmarks for the begin/commit path of {@link AbstractPlatformTransactionManager}
+ * and the underlying {@link TransactionSynchronizationManager} state, against a
+ * resource-binding transaction manager without any actual resource behind it.
+ * Best run with the "gc" profiler in order to compare allocation rates.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class PlatformTransactionManagerBenchmark {
+
+	@Benchmark
+	public void beginAndCommit(BenchmarkData data, Blackhole bh) {
+		TransactionStatus status = data.transactionManager.getTransaction(null);
+		bh.consume(TransactionSynchronizationManager.getResource(data.transactionManager));
+		data.transactionManager.commit(status);
+	}
+
+	@Benchmark
+	public void beginAndCommitWithSynchronizations(BenchmarkData data, Blackhole bh) {
+		TransactionStatus status = data.transactionManager.getTransaction(data.definition);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {});
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {});
+		bh.consume(TransactionSynchronizationManager.getResource(data.transactionManager));
+		data.transactionManager.commit(status);
+	}
+
+	@Benchmark
+	public void participateInExistingTransaction(BenchmarkData data, Blackhole bh) {
+		TransactionStatus outer = data.transactionManager.getTransaction(data.definition);
+		TransactionStatus inner = data.transactionManager.getTransaction(data.definition);
+		bh.consume(inner.isNewTransaction());
+		data.transactionManager.commit(inner);
+		data.transactionManager.commit(outer);
+	}
+
+	@Benchmark
+	public void suspendForNewTransaction(BenchmarkData data, Blackhole bh) {
+		TransactionStatus outer = data.transactionManager.getTransaction(data.definition);
+		TransactionStatus inner = data.transactionManager.getTransaction(data.requiresNewDefinition);
+		bh.consume(inner.isNewTransaction());
+		data.transactionManager.commit(inner);
+		data.transactionManager.commit(outer);
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkData {
+
+		public ResourceBindingTransactionManager transactionManager;
+
+		public TransactionDefinition definition;
+
+		public TransactionDefinition requiresNewDefinition;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.transactionManager = new ResourceBindingTransactionManager();
+			DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+			definition.setName("benchmark");
+			this.definition = definition;
+			this.requiresNewDefinition =
+					new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	public static class ResourceBindingTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new ResourceHolderTransaction(
+					(ResourceHolderSupport) TransactionSynchronizationManager.getResource(this));
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return (((ResourceHolderTransaction) transaction).holder != null);
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			ResourceHolderSupport holder = new ResourceHolderSupport() {};
+			holder.setSynchronizedWithTransaction(true);
+			((ResourceHolderTransaction) transaction).holder = holder;
+			TransactionSynchronizationManager.bindResource(this, holder);
+		}
+
+		@Override
+		protected Object doSuspend(Object transaction) {
+			((ResourceHolderTransaction) transaction).holder = null;
+			return TransactionSynchronizationManager.unbindResource(this);
+		}
+
+		@Override
+		protected void doResume(Object transaction, Object suspendedResources) {
+			TransactionSynchronizationManager.bindResource(this, suspendedResources);
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			TransactionSynchronizationManager.unbindResource(this);
+		}
+	}
+
+
+	private static class ResourceHolderTransaction {
+
+		ResourceHolderSupport holder;
+
+		ResourceHolderTransaction(ResourceHolderSupport holder) {
+			this.holder = holder;
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * This is the central interface in Spring's reactive transaction infrastructure:
+ * the non-blocking counterpart of {@link PlatformTransactionManager}, for use
+ * with Reactor pipelines where no thread affinity between the individual steps
+ * of a transaction can be assumed. Transaction state is therefore not bound to
+ * the current thread but carried in the subscriber
+ * {@link reactor.util.context.Context Context} of the transactional pipeline.
+ *
+ * <p>Applications typically work with a
+ * {@link org.springframework.transaction.reactive.TransactionalOperator} or with
+ * declarative transaction demarcation on methods returning a reactive type.
+ *
+ * <p>For implementors, it is recommended to derive from the provided
+ * {@link org.springframework.transaction.reactive.AbstractReactiveTransactionManager}
+ * class, which pre-implements the defined propagation behavior and takes care
+ * of reactive transaction synchronization handling.
+ *
+ * @author agent
+ * @since 5.2
+ * @see org.springframework.transaction.reactive.TransactionalOperator
+ * @see org.springframework.transaction.interceptor.TransactionInterceptor
+ */
+public interface ReactiveTransactionManager {
+
+	/**
+	 * Emit a currently active reactive transaction or create a new one, according to
+	 * the specified propagation behavior.
+	 * <p>Note that parameters like isolation level or timeout will only be applied
+	 * to new transactions, and thus be ignored when participating in active ones.
+	 * <p>Furthermore, not all transaction definition settings will be supported
+	 * by every transaction manager: A proper transaction manager implementation
+	 * should signal an error when unsupported settings are encountered.
+	 * @param definition the TransactionDefinition instance (can be {@code null} for defaults),
+	 * describing propagation behavior, isolation level, timeout etc.
+	 * @return transaction status object representing the new or current transaction,
+	 * signalling a {@link TransactionException} in case of lookup, creation, or system errors
+	 * or an {@link IllegalTransactionStateException} if the given transaction definition
+	 * cannot be executed (for example, if a currently active transaction is in
+	 * conflict with the specified propagation behavior)
+	 * @see TransactionDefinition#getPropagationBehavior
+	 * @see TransactionDefinition#getIsolationLevel
+	 * @see TransactionDefinition#getTimeout
+	 * @see TransactionDefinition#isReadOnly
+	 */
+	Mono<ReactiveTransaction> getReactiveTransaction(@Nullable TransactionDefinition definition);
+
+	/**
+	 * Commit the given transaction, with regard to its status. If the transaction
+	 * has been marked rollback-only programmatically, perform a rollback.
+	 * <p>If the transaction wasn't a new one, omit the commit for proper
+	 * participation in the surrounding transaction. If a previous transaction
+	 * has been suspended to be able to create a new one, resume the previous
+	 * transaction after committing the new one.
+	 * <p>Note that when the commit completes, no matter if normally or with an
+	 * error, the transaction must be fully completed and cleaned up.
+	 * @param transaction object returned by the {@code getReactiveTransaction} method
+	 * @return a completion signal, or a {@link TransactionException} error in case
+	 * of commit or system errors (typically caused by fundamental resource failures)
+	 * @see ReactiveTransaction#setRollbackOnly
+	 */
+	Mono<Void> commit(ReactiveTransaction transaction);
+
+	/**
+	 * Perform a rollback of the given transaction.
+	 * <p>If the transaction wasn't a new one, just set it rollback-only for proper
+	 * participation in the surrounding transaction. If a previous transaction
+	 * has been suspended to be able to create a new one, resume the previous
+	 * transaction after rolling back the new one.
+	 * <p><b>Do not call rollback on a transaction if commit signalled an error.</b>
+	 * The transaction will already have been completed and cleaned up when commit
+	 * returns, even in case of a commit error.
+	 * @param transaction object returned by the {@code getReactiveTransaction} method
+	 * @return a completion signal, or a {@link TransactionException} error in case
+	 * of system errors (typically caused by fundamental resource failures)
+	 */
+	Mono<Void> rollback(ReactiveTransaction transaction);
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,14 +17,16 @@
 package org.springframework.transaction.interceptor;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.lang.Nullable;
+import org.springframework.util.ConcurrentReferenceHashMap;
 
 /**
  * TransactionAttribute implementation that works out whether a given exception
@@ -55,6 +57,16 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 	@Nullable
 	private List<RollbackRuleAttribute> rollbackRules;
 
+	/** Modification-tracking view of the rules, as returned by {@link #getRollbackRules()}. */
+	@Nullable
+	private transient List<RollbackRuleAttribute> rollbackRulesView;
+
+	/** Incremented on every modification of the rules through the view. */
+	private transient volatile int rollbackRulesVersion;
+
+	@Nullable
+	private transient volatile RollbackRuleMatcher rollbackRuleMatcher;
+
 
 	/**
 	 * Create a new RuleBasedTransactionAttribute, with default settings.
@@ -96,29 +108,42 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 	 */
 	public RuleBasedTransactionAttribute(int propagationBehavior, List<RollbackRuleAttribute> rollbackRules) {
 		super(propagationBehavior);
-		this.rollbackRules = rollbackRules;
+		this.rollbackRules = new ArrayList<>(rollbackRules);
 	}
 
 
 	/**
 	 * Set the list of {@code RollbackRuleAttribute} objects
 	 * (and/or {@code NoRollbackRuleAttribute} objects) to apply.
+	 * <p>The given list is copied; later changes to it do not affect
+	 * this attribute.
 	 * @see RollbackRuleAttribute
 	 * @see NoRollbackRuleAttribute
 	 */
 	public void setRollbackRules(List<RollbackRuleAttribute> rollbackRules) {
-		this.rollbackRules = rollbackRules;
+		this.rollbackRules = new ArrayList<>(rollbackRules);
+		this.rollbackRulesView = null;
+		this.rollbackRuleMatcher = null;
 	}
 
 	/**
 	 * Return the list of {@code RollbackRuleAttribute} objects
 	 * (never {@code null}).
+	 * <p>The returned list may be modified at any time, with the rules
+	 * getting precompiled again on the next {@link #rollbackOn} call.
 	 */
 	public List<RollbackRuleAttribute> getRollbackRules() {
-		if (this.rollbackRules == null) {
-			this.rollbackRules = new LinkedList<>();
+		List<RollbackRuleAttribute> rules = this.rollbackRules;
+		if (rules == null) {
+			rules = new ArrayList<>();
+			this.rollbackRules = rules;
+		}
+		List<RollbackRuleAttribute> view = this.rollbackRulesView;
+		if (view == null) {
+			view = new RollbackRuleList(rules);
+			this.rollbackRulesView = view;
 		}
-		return this.rollbackRules;
+		return view;
 	}
 
 
@@ -126,6 +151,8 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 	 * Winning rule is the shallowest rule (that is, the closest in the
 	 * inheritance hierarchy to the exception). If no rule applies (-1),
 	 * return false.
+	 * <p>The rules get precompiled on first use, with the winning rule
+	 * being remembered per exception type.
 	 * @see TransactionAttribute#rollbackOn(java.lang.Throwable)
 	 */
 	@Override
@@ -135,16 +162,16 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 		}
 
 		RollbackRuleAttribute winner = null;
-		int deepest = Integer.MAX_VALUE;
 
-		if (this.rollbackRules != null) {
-			for (RollbackRuleAttribute rule : this.rollbackRules) {
-				int depth = rule.getDepth(ex);
-				if (depth >= 0 && depth < deepest) {
-					deepest = depth;
-					winner = rule;
-				}
+		List<RollbackRuleAttribute> rules = this.rollbackRules;
+		if (rules != null && !rules.isEmpty()) {
+			int version = this.rollbackRulesVersion;
+			RollbackRuleMatcher matcher = this.rollbackRuleMatcher;
+			if (matcher == null || !matcher.isCompiledFrom(rules, version)) {
+				matcher = new RollbackRuleMatcher(rules, version);
+				this.rollbackRuleMatcher = matcher;
 			}
+			winner = matcher.getWinningRule(ex);
 		}
 
 		if (logger.isTraceEnabled()) {
@@ -173,4 +200,97 @@ public class RuleBasedTransactionAttribute extends DefaultTransactionAttribute i
 		return result.toString();
 	}
 
+
+	/**
+	 * View of the rollback rules that keeps track of its modifications,
+	 * so that a precompiled form of the rules can tell whether it is stale.
+	 * All modifications of an {@link AbstractList} end up in {@link #set},
+	 * {@link #add(int, RollbackRuleAttribute)} or {@link #remove(int)}.
+	 */
+	private class RollbackRuleList extends AbstractList<RollbackRuleAttribute> {
+
+		private final List<RollbackRuleAttribute> rules;
+
+		RollbackRuleList(List<RollbackRuleAttribute> rules) {
+			this.rules = rules;
+		}
+
+		@Override
+		public RollbackRuleAttribute get(int index) {
+			return this.rules.get(index);
+		}
+
+		@Override
+		public int size() {
+			return this.rules.size();
+		}
+
+		@Override
+		public RollbackRuleAttribute set(int index, RollbackRuleAttribute rule) {
+			RollbackRuleAttribute previous = this.rules.set(index, rule);
+			rollbackRulesVersion++;
+			return previous;
+		}
+
+		@Override
+		public void add(int index, RollbackRuleAttribute rule) {
+			this.rules.add(index, rule);
+			this.modCount++;
+			rollbackRulesVersion++;
+		}
+
+		@Override
+		public RollbackRuleAttribute remove(int index) {
+			RollbackRuleAttribute removed = this.rules.remove(index);
+			this.modCount++;
+			rollbackRulesVersion++;
+			return removed;
+		}
+	}
+
+
+	/**
+	 * Precompiled form of a list of rollback rules, determining the winning
+	 * rule for a specific exception type only once.
+	 */
+	private static final class RollbackRuleMatcher {
+
+		private final List<RollbackRuleAttribute> source;
+
+		private final int version;
+
+		private final RollbackRuleAttribute[] rules;
+
+		/** Index of the winning rule per exception type. */
+		private final Map<Class<?>, Integer> winnerCache = new ConcurrentReferenceHashMap<>(4, 1);
+
+		RollbackRuleMatcher(List<RollbackRuleAttribute> source, int version) {
+			this.source = source;
+			this.version = version;
+			this.rules = source.toArray(new RollbackRuleAttribute[0]);
+		}
+
+		boolean isCompiledFrom(List<RollbackRuleAttribute> rules, int version) {
+			return (this.source == rules && this.version == version);
+		}
+
+		@Nullable
+		RollbackRuleAttribute getWinningRule(Throwable ex) {
+			Integer winner = this.winnerCache.get(ex.getClass());
+			if (winner == null) {
+				winner = -1;
+				int deepest = Integer.MAX_VALUE;
+				for (int i = 0; i < this.rules.length; i++) {
+					int depth = this.rules[i].getDepth(ex);
+					if (depth >= 0 && depth < deepest) {
+						deepest = depth;
+						winner = i;
+					}
+				}
+				this.winnerCache.put(ex.getClass(), winner);
+			}
+			return (winner >= 0 ? this.rules[winner] : null);
+		}
+	}
+
 }
@@ -17,27 +17,39 @@
 package org.springframework.transaction.interceptor;
 
 import java.lang.reflect.Method;
+import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.ConcurrentMap;
 
 import io.vavr.control.Try;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanNotOfRequiredTypeException;
 import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.beans.factory.annotation.BeanFactoryAnnotationUtils;
 import org.springframework.core.NamedThreadLocal;
+import org.springframework.core.ReactiveAdapter;
+import org.springframework.core.ReactiveAdapterRegistry;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.NoTransactionException;
 import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.reactive.TransactionContextManager;
 import org.springframework.transaction.support.CallbackPreferringPlatformTransactionManager;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
 import org.springframework.util.ConcurrentReferenceHashMap;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -57,6 +69,12 @@ import org.springframework.util.StringUtils;
  * implementation will perform the actual transaction management, and a
  * {@code TransactionAttributeSource} is used for determining transaction definitions.
  *
+ * <p>Methods with a reactive return type recognized by the {@link ReactiveAdapterRegistry}
+ * (e.g. Reactor's {@code Mono} and {@code Flux}) are demarcated by a
+ * {@link ReactiveTransactionManager} if one is available: a transaction gets started
+ * for every subscription to the returned publisher and completed according to its
+ * terminal signal, without blocking and independent of the executing threads.
+ *
  * <p>A transaction aspect is serializable if its {@code PlatformTransactionManager}
  * and {@code TransactionAttributeSource} are serializable.
  *
@@ -80,12 +98,24 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	private static final Object DEFAULT_TRANSACTION_MANAGER_KEY = new Object();
 
+	/**
+	 * Cache marker for the absence of a reactive transaction manager
+	 * or of a reactive adapter.
+	 */
+	private static final Object NOT_REACTIVE = new Object();
+
 	/**
 	 * Vavr library present on the classpath?
 	 */
 	private static final boolean vavrPresent = ClassUtils.isPresent(
 			"io.vavr.control.Try", TransactionAspectSupport.class.getClassLoader());
 
+	/**
+	 * Reactor library present on the classpath?
+	 */
+	private static final boolean reactorPresent = ClassUtils.isPresent(
+			"reactor.core.publisher.Flux", TransactionAspectSupport.class.getClassLoader());
+
 	/**
 	 * Holder to support the {@code currentTransactionStatus()} method,
 	 * and to support communication between different cooperating advices
@@ -142,6 +172,9 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Nullable
 	private PlatformTransactionManager transactionManager;
 
+	@Nullable
+	private ReactiveTransactionManager reactiveTransactionManager;
+
 	@Nullable
 	private TransactionAttributeSource transactionAttributeSource;
 
@@ -151,12 +184,25 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	private final ConcurrentMap<Object, PlatformTransactionManager> transactionManagerCache =
 			new ConcurrentReferenceHashMap<>(4);
 
+	private final ConcurrentMap<Object, Object> reactiveTransactionManagerCache =
+			new ConcurrentReferenceHashMap<>(4);
+
+	private final ConcurrentMap<Class<?>, Object> reactiveAdapterCache =
+			new ConcurrentReferenceHashMap<>(16);
+
+	private final ConcurrentMap<Method, MethodInvocationMetadata> invocationMetadataCache =
+			new ConcurrentReferenceHashMap<>(256);
+
+	private final boolean standardTransactionManagerResolution =
+			isStandardTransactionManagerResolution(getClass());
+
 
 	/**
 	 * Specify the name of the default transaction manager bean.
 	 */
 	public void setTransactionManagerBeanName(@Nullable String transactionManagerBeanName) {
 		this.transactionManagerBeanName = transactionManagerBeanName;
+		this.invocationMetadataCache.clear();
 	}
 
 	/**
@@ -176,6 +222,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionManager(@Nullable PlatformTransactionManager transactionManager) {
 		this.transactionManager = transactionManager;
+		this.invocationMetadataCache.clear();
 	}
 
 	/**
@@ -186,6 +233,28 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return this.transactionManager;
 	}
 
+	/**
+	 * Specify the <em>default</em> reactive transaction manager to use to drive
+	 * transactions for methods with a reactive return type.
+	 * <p>Within a BeanFactory, a unique {@link ReactiveTransactionManager} bean
+	 * gets detected by default; specifying one here is only necessary otherwise.
+	 * @since 5.2
+	 * @see #setTransactionManager
+	 */
+	public void setReactiveTransactionManager(@Nullable ReactiveTransactionManager reactiveTransactionManager) {
+		this.reactiveTransactionManager = reactiveTransactionManager;
+		this.invocationMetadataCache.clear();
+	}
+
+	/**
+	 * Return the default reactive transaction manager, or {@code null} if unknown.
+	 * @since 5.2
+	 */
+	@Nullable
+	public ReactiveTransactionManager getReactiveTransactionManager() {
+		return this.reactiveTransactionManager;
+	}
+
 	/**
 	 * Set properties with method names as keys and transaction attribute
 	 * descriptors (parsed via TransactionAttributeEditor) as values:
@@ -227,6 +296,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	public void setTransactionAttributeSource(@Nullable TransactionAttributeSource transactionAttributeSource) {
 		this.transactionAttributeSource = transactionAttributeSource;
+		this.invocationMetadataCache.clear();
 	}
 
 	/**
@@ -243,6 +313,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Override
 	public void setBeanFactory(@Nullable BeanFactory beanFactory) {
 		this.beanFactory = beanFactory;
+		this.invocationMetadataCache.clear();
 	}
 
 	/**
@@ -258,7 +329,7 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	 */
 	@Override
 	public void afterPropertiesSet() {
-		if (getTransactionManager() == null && this.beanFactory == null) {
+		if (getTransactionManager() == null && getReactiveTransactionManager() == null && this.beanFactory == null) {
 			throw new IllegalStateException(
 					"Set the 'transactionManager' property or make sure to run within a BeanFactory " +
 					"containing a PlatformTransactionManager bean!");
@@ -274,7 +345,8 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	/**
 	 * General delegate for around-advice-based subclasses, delegating to several other template
 	 * methods on this class. Able to handle {@link CallbackPreferringPlatformTransactionManager}
-	 * as well as regular {@link PlatformTransactionManager} implementations.
+	 * as well as regular {@link PlatformTransactionManager} implementations, and
+	 * {@link ReactiveTransactionManager} implementations for reactive return types.
 	 * @param method the Method being invoked
 	 * @param targetClass the target class that we're invoking the method on
 	 * @param invocation the callback to use for proceeding with the target invocation
@@ -286,14 +358,23 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			final InvocationCallback invocation) throws Throwable {
 
 		// If the transaction attribute is null, the method is non-transactional.
-		TransactionAttributeSource tas = getTransactionAttributeSource();
-		final TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
-		final PlatformTransactionManager tm = determineTransactionManager(txAttr);
-		final String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+		InvocationMetadata metadata = getInvocationMetadata(method, targetClass);
+		final TransactionAttribute txAttr = metadata.transactionAttribute;
+		final String joinpointIdentification = metadata.joinpointIdentification;
+
+		if (metadata.reactiveAdapter != null && metadata.reactiveTransactionManager != null) {
+			// Reactive return type: demarcate a transaction per subscription.
+			return new ReactiveTransactionSupport(metadata.reactiveAdapter).invokeWithinTransaction(
+					metadata.reactiveTransactionManager, metadata.namedTransactionAttribute,
+					joinpointIdentification, invocation);
+		}
+
+		final PlatformTransactionManager tm = metadata.transactionManager;
 
 		if (txAttr == null || !(tm instanceof CallbackPreferringPlatformTransactionManager)) {
 			// Standard transaction demarcation with getTransaction and commit/rollback calls.
-			TransactionInfo txInfo = createTransactionIfNecessary(tm, txAttr, joinpointIdentification);
+			TransactionInfo txInfo = createTransactionIfNecessary(
+					tm, metadata.namedTransactionAttribute, joinpointIdentification);
 
 			Object retVal;
 			try {
@@ -383,16 +464,67 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 	}
 
+	/**
+	 * Return the attribute, transaction manager and method identification for
+	 * the given method, resolved once per method and target class when the
+	 * transaction attribute source caches its attributes (as
+	 * {@link AbstractFallbackTransactionAttributeSource} and therefore
+	 * annotation-driven transactions do) and as long as the transaction
+	 * manager determination methods are not overridden.
+	 */
+	private InvocationMetadata getInvocationMetadata(Method method, @Nullable Class<?> targetClass) {
+		TransactionAttributeSource tas = getTransactionAttributeSource();
+		boolean cacheable = (this.standardTransactionManagerResolution &&
+				tas instanceof AbstractFallbackTransactionAttributeSource);
+		if (cacheable) {
+			// Keyed by Method identity: no key allocation for every invocation.
+			MethodInvocationMetadata cached = this.invocationMetadataCache.get(method);
+			if (cached != null) {
+				InvocationMetadata metadata = cached.get(targetClass);
+				if (metadata != null) {
+					return metadata;
+				}
+			}
+		}
+
+		TransactionAttribute txAttr = (tas != null ? tas.getTransactionAttribute(method, targetClass) : null);
+		String joinpointIdentification = methodIdentification(method, targetClass, txAttr);
+		InvocationMetadata metadata = new InvocationMetadata(txAttr, joinpointIdentification);
+		if (txAttr != null && reactorPresent) {
+			ReactiveAdapter adapter = getReactiveAdapter(method.getReturnType());
+			if (adapter != null) {
+				metadata.reactiveAdapter = adapter;
+				metadata.reactiveTransactionManager = determineReactiveTransactionManager(txAttr);
+			}
+		}
+		if (metadata.reactiveTransactionManager == null) {
+			metadata.transactionManager = determineTransactionManager(txAttr);
+		}
+		if (cacheable) {
+			MethodInvocationMetadata existing = this.invocationMetadataCache.putIfAbsent(
+					method, new MethodInvocationMetadata(targetClass, metadata));
+			if (existing != null) {
+				existing.add(targetClass, metadata);
+			}
+		}
+		return metadata;
+	}
+
 	/**
 	 * Clear the cache.
 	 */
 	protected void clearTransactionManagerCache() {
 		this.transactionManagerCache.clear();
+		this.reactiveTransactionManagerCache.clear();
+		this.invocationMetadataCache.clear();
 		this.beanFactory = null;
 	}
 
 	/**
 	 * Determine the specific transaction manager to use for the given transaction.
+	 * <p>The result gets cached per method, unless this method or
+	 * {@link #determineReactiveTransactionManager} is overridden, in which case
+	 * it is called for every invocation.
 	 */
 	@Nullable
 	protected PlatformTransactionManager determineTransactionManager(@Nullable TransactionAttribute txAttr) {
@@ -432,6 +564,70 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return txManager;
 	}
 
+	/**
+	 * Determine the specific reactive transaction manager to use for the given
+	 * transaction, if any. Only consulted for methods with a reactive return type.
+	 * <p>Returns {@code null} if no matching {@link ReactiveTransactionManager} is
+	 * available, in which case such methods keep being demarcated by the regular
+	 * {@link PlatformTransactionManager}, around the assembly of the returned publisher.
+	 * @since 5.2
+	 */
+	@Nullable
+	protected ReactiveTransactionManager determineReactiveTransactionManager(TransactionAttribute txAttr) {
+		String qualifier = txAttr.getQualifier();
+		if (!StringUtils.hasText(qualifier)) {
+			qualifier = this.transactionManagerBeanName;
+		}
+		if (this.beanFactory == null ||
+				(!StringUtils.hasText(qualifier) && getReactiveTransactionManager() != null)) {
+			return getReactiveTransactionManager();
+		}
+
+		Object key = (StringUtils.hasText(qualifier) ? qualifier : DEFAULT_TRANSACTION_MANAGER_KEY);
+		Object txManager = this.reactiveTransactionManagerCache.get(key);
+		if (txManager == null) {
+			txManager = lookupReactiveTransactionManager(this.beanFactory, qualifier);
+			this.reactiveTransactionManagerCache.putIfAbsent(key, (txManager != null ? txManager : NOT_REACTIVE));
+		}
+		return (txManager instanceof ReactiveTransactionManager ? (ReactiveTransactionManager) txManager : null);
+	}
+
+	@Nullable
+	private ReactiveTransactionManager lookupReactiveTransactionManager(
+			BeanFactory beanFactory, @Nullable String qualifier) {
+
+		if (StringUtils.hasText(qualifier)) {
+			try {
+				return BeanFactoryAnnotationUtils.qualifiedBeanOfType(
+						beanFactory, ReactiveTransactionManager.class, qualifier);
+			}
+			catch (NoSuchBeanDefinitionException | BeanNotOfRequiredTypeException ex) {
+				// Qualifier refers to a PlatformTransactionManager only.
+				return null;
+			}
+		}
+		return beanFactory.getBeanProvider(ReactiveTransactionManager.class).getIfUnique();
+	}
+
+	@Nullable
+	private ReactiveAdapter getReactiveAdapter(Class<?> returnType) {
+		Object adapter = this.reactiveAdapterCache.get(returnType);
+		if (adapter == null) {
+			adapter = ReactiveAdapterRegistry.getSharedInstance().getAdapter(returnType);
+			this.reactiveAdapterCache.putIfAbsent(returnType, (adapter != null ? adapter : NOT_REACTIVE));
+		}
+		return (adapter instanceof ReactiveAdapter ? (ReactiveAdapter) adapter : null);
+	}
+
+	private static boolean isStandardTransactionManagerResolution(Class<?> aspectClass) {
+		Method tmMethod = ReflectionUtils.findMethod(
+				aspectClass, "determineTransactionManager", TransactionAttribute.class);
+		Method rtmMethod = ReflectionUtils.findMethod(
+				aspectClass, "determineReactiveTransactionManager", TransactionAttribute.class);
+		return (tmMethod != null && tmMethod.getDeclaringClass() == TransactionAspectSupport.class &&
+				rtmMethod != null && rtmMethod.getDeclaringClass() == TransactionAspectSupport.class);
+	}
+
 	private String methodIdentification(Method method, @Nullable Class<?> targetClass,
 			@Nullable TransactionAttribute txAttr) {
 
@@ -753,4 +949,209 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 	}
 
+
+	/**
+	 * Transaction attribute and transaction manager for a specific method and
+	 * target class, along with the transaction attribute to start transactions
+	 * with: exposing the method identification as transaction name if no name
+	 * was specified.
+	 */
+	private static final class InvocationMetadata {
+
+		@Nullable
+		final TransactionAttribute transactionAttribute;
+
+		@Nullable
+		final TransactionAttribute namedTransactionAttribute;
+
+		final String joinpointIdentification;
+
+		@Nullable
+		PlatformTransactionManager transactionManager;
+
+		@Nullable
+		ReactiveAdapter reactiveAdapter;
+
+		@Nullable
+		ReactiveTransactionManager reactiveTransactionManager;
+
+		InvocationMetadata(@Nullable TransactionAttribute txAttr, String joinpointIdentification) {
+			this.transactionAttribute = txAttr;
+			this.namedTransactionAttribute = (txAttr == null || txAttr.getName() != null ? txAttr :
+					withName(txAttr, joinpointIdentification));
+			this.joinpointIdentification = joinpointIdentification;
+		}
+
+		/**
+		 * Created in a static context, not holding on to the metadata instance,
+		 * as the attribute may end up in serialized state of a transaction manager.
+		 */
+		@SuppressWarnings("serial")
+		private static TransactionAttribute withName(TransactionAttribute txAttr, String name) {
+			return new DelegatingTransactionAttribute(txAttr) {
+				@Override
+				public String getName() {
+					return name;
+				}
+			};
+		}
+	}
+
+
+	/**
+	 * Invocation metadata for a specific method, per target class: holding the
+	 * metadata for the first target class directly, as the common case, and
+	 * the metadata for any further target classes in a map.
+	 */
+	private static final class MethodInvocationMetadata {
+
+		@Nullable
+		private final Class<?> targetClass;
+
+		private final InvocationMetadata metadata;
+
+		@Nullable
+		private volatile Map<Class<?>, InvocationMetadata> otherTargetClasses;
+
+		MethodInvocationMetadata(@Nullable Class<?> targetClass, InvocationMetadata metadata) {
+			this.targetClass = targetClass;
+			this.metadata = metadata;
+		}
+
+		@Nullable
+		InvocationMetadata get(@Nullable Class<?> targetClass) {
+			if (targetClass == this.targetClass) {
+				return this.metadata;
+			}
+			Map<Class<?>, InvocationMetadata> others = this.otherTargetClasses;
+			return (others != null ? others.get(targetClass) : null);
+		}
+
+		void add(@Nullable Class<?> targetClass, InvocationMetadata metadata) {
+			if (targetClass == this.targetClass) {
+				return;
+			}
+			Map<Class<?>, InvocationMetadata> others = this.otherTargetClasses;
+			if (others == null) {
+				synchronized (this) {
+					others = this.otherTargetClasses;
+					if (others == null) {
+						others = new ConcurrentReferenceHashMap<>(4);
+						this.otherTargetClasses = others;
+					}
+				}
+			}
+			others.put(targetClass, metadata);
+		}
+	}
+
+
+	/**
+	 * Delegate for methods with a reactive return type, demarcating a transaction
+	 * per subscription through a {@link ReactiveTransactionManager}.
+	 * Inner class to avoid a hard dependency on Reactor at runtime.
+	 */
+	private class ReactiveTransactionSupport {
+
+		private final ReactiveAdapter adapter;
+
+		public ReactiveTransactionSupport(ReactiveAdapter adapter) {
+			this.adapter = adapter;
+		}
+
+		/**
+		 * Demarcate a transaction per subscription to the result of the given invocation.
+		 * @param attr the transaction attribute, already carrying the transaction name
+		 */
+		public Object invokeWithinTransaction(ReactiveTransactionManager rtm, TransactionAttribute attr,
+				String joinpointIdentification, InvocationCallback invocation) {
+
+			if (this.adapter.isMultiValue()) {
+				return this.adapter.fromPublisher(Flux.defer(() -> {
+					ThrowableHolder throwableHolder = new ThrowableHolder();
+					return Flux.usingWhen(rtm.getReactiveTransaction(attr),
+							status -> Flux.from(proceed(invocation))
+									.doOnError(ex -> throwableHolder.throwable = ex)
+									.concatWith(commitTransactionAfterReturning(rtm, joinpointIdentification, status)
+											.then(Mono.empty())),
+							status -> Mono.empty(),
+							status -> completeTransactionAfterThrowing(
+									rtm, attr, joinpointIdentification, status, throwableHolder.throwable),
+							status -> completeTransactionAfterThrowing(
+									rtm, attr, joinpointIdentification, status, null));
+				}).subscriberContext(TransactionContextManager.getOrCreateContext())
+						.subscriberContext(TransactionContextManager.getOrCreateContextHolder()));
+			}
+			else {
+				return this.adapter.fromPublisher(Mono.defer(() -> {
+					ThrowableHolder throwableHolder = new ThrowableHolder();
+					return Mono.usingWhen(rtm.getReactiveTransaction(attr),
+							status -> Mono.from(proceed(invocation))
+									.doOnError(ex -> throwableHolder.throwable = ex)
+									.flatMap(value -> commitTransactionAfterReturning(rtm, joinpointIdentification, status)
+											.thenReturn(value))
+									.switchIfEmpty(commitTransactionAfterReturning(rtm, joinpointIdentification, status)
+											.then(Mono.empty())),
+							status -> Mono.empty(),
+							status -> completeTransactionAfterThrowing(
+									rtm, attr, joinpointIdentification, status, throwableHolder.throwable),
+							status -> completeTransactionAfterThrowing(
+									rtm, attr, joinpointIdentification, status, null));
+				}).subscriberContext(TransactionContextManager.getOrCreateContext())
+						.subscriberContext(TransactionContextManager.getOrCreateContextHolder()));
+			}
+		}
+
+		private Publisher<Object> proceed(InvocationCallback invocation) {
+			try {
+				// Invoke the next interceptor in the chain for every subscription.
+				Object retVal = invocation.proceedWithInvocation();
+				return (retVal != null ? this.adapter.toPublisher(retVal) : Mono.empty());
+			}
+			catch (Throwable ex) {
+				return Mono.error(ex);
+			}
+		}
+
+		/**
+		 * Commit as part of the transactional sequence, so that a commit failure
+		 * gets signalled as-is and a single value only after a successful commit.
+		 */
+		private Mono<Void> commitTransactionAfterReturning(ReactiveTransactionManager rtm,
+				String joinpointIdentification, ReactiveTransaction status) {
+
+			return Mono.defer(() -> {
+				if (logger.isTraceEnabled()) {
+					logger.trace("Completing transaction for [" + joinpointIdentification + "]");
+				}
+				return rtm.commit(status);
+			});
+		}
+
+		/**
+		 * Complete the transaction after an error or a cancellation (no error given),
+		 * unless it has already been completed by a failed commit.
+		 */
+		private Mono<Void> completeTransactionAfterThrowing(ReactiveTransactionManager rtm,
+				TransactionAttribute txAttr, String joinpointIdentification, ReactiveTransaction status,
+				@Nullable Throwable ex) {
+
+			return Mono.defer(() -> {
+				if (status.isCompleted()) {
+					return Mono.empty();
+				}
+				if (logger.isTraceEnabled()) {
+					logger.trace("Completing transaction for [" + joinpointIdentification + "] after " +
+							(ex != null ? "exception: " + ex : "cancellation"));
+				}
+				if (ex != null && !txAttr.rollbackOn(ex)) {
+					// We don't roll back on this exception.
+					// Will still roll back if ReactiveTransaction.isRollbackOnly() is true.
+					return rtm.commit(status);
+				}
+				return rtm.rollback(status);
+			});
+		}
+	}
+
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import java.util.Deque;
+
+import org.springframework.transaction.NoTransactionException;
+
+/**
+ * Mutable holder for a stack of {@link TransactionContext} instances, stored
+ * once per subscription in the Reactor subscriber context. Nested transactional
+ * pipelines find the context of the enclosing pipeline through this holder.
+ *
+ * @author agent
+ * @since 5.2
+ * @see TransactionContextManager#getOrCreateContextHolder()
+ */
+final class TransactionContextHolder {
+
+	private final Deque<TransactionContext> transactionStack;
+
+
+	TransactionContextHolder(Deque<TransactionContext> transactionStack) {
+		this.transactionStack = transactionStack;
+	}
+
+
+	/**
+	 * Return the current {@link TransactionContext}.
+	 * @throws NoTransactionException if no transaction context has been created yet
+	 */
+	TransactionContext currentContext() {
+		TransactionContext context = this.transactionStack.peek();
+		if (context == null) {
+			throw new NoTransactionException("No transaction in context");
+		}
+		return context;
+	}
+
+	/**
+	 * Create a new {@link TransactionContext} and push it onto the stack.
+	 */
+	TransactionContext createContext() {
+		TransactionContext context = new TransactionContext();
+		this.transactionStack.push(context);
+		return context;
+	}
+
+	/**
+	 * Check whether the holder has a {@link TransactionContext}.
+	 */
+	boolean hasContext() {
+		return !this.transactionStack.isEmpty();
+	}
+
+}
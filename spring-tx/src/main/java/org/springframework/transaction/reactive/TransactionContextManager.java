@@ -0,0 +1,118 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import java.util.ArrayDeque;
+import java.util.function.Function;
+
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+
+import org.springframework.transaction.NoTransactionException;
+
+/**
+ * Delegate to register and obtain the transactional context of a reactive
+ * pipeline: the non-blocking counterpart of the {@code ThreadLocal} based
+ * state management in the blocking transaction infrastructure.
+ *
+ * <p>A {@link TransactionContext} is kept in the Reactor subscriber
+ * {@link Context}, so it travels with the subscription rather than with the
+ * thread and remains accessible across thread hops within the pipeline.
+ * Transactional pipelines need to be decorated with
+ * {@link #getOrCreateContext()} and {@link #getOrCreateContextHolder()},
+ * as done by {@link TransactionalOperator}.
+ *
+ * @author agent
+ * @since 5.2
+ * @see TransactionContext
+ */
+public abstract class TransactionContextManager {
+
+	private TransactionContextManager() {
+	}
+
+
+	/**
+	 * Obtain the current {@link TransactionContext} from the subscriber context
+	 * or the transactional context holder. Context retrieval fails with
+	 * {@link NoTransactionException} if no context or context holder is registered.
+	 * @return the current {@link TransactionContext}
+	 */
+	public static Mono<TransactionContext> currentContext() {
+		return Mono.subscriberContext().handle((context, sink) -> {
+			if (context.hasKey(TransactionContext.class)) {
+				sink.next(context.get(TransactionContext.class));
+				return;
+			}
+			if (context.hasKey(TransactionContextHolder.class)) {
+				TransactionContextHolder holder = context.get(TransactionContextHolder.class);
+				if (holder.hasContext()) {
+					sink.next(holder.currentContext());
+					return;
+				}
+			}
+			sink.error(new NoTransactionException("No transaction in context"));
+		});
+	}
+
+	/**
+	 * Create a {@link TransactionContext} and register it in the subscriber {@link Context}.
+	 * @return functional context registration
+	 * @throws IllegalStateException if a transaction context is already associated
+	 */
+	public static Function<Context, Context> createTransactionContext() {
+		return context -> {
+			if (context.hasKey(TransactionContext.class)) {
+				throw new IllegalStateException("Transaction context already associated with the subscriber context");
+			}
+			return context.put(TransactionContext.class, new TransactionContext());
+		};
+	}
+
+	/**
+	 * Return a {@link Function} to create or associate a new {@link TransactionContext}.
+	 * An existing context of an enclosing transactional pipeline is reused, so
+	 * that nested pipelines can participate in its transaction.
+	 * @return a function to create or associate a transaction context
+	 */
+	public static Function<Context, Context> getOrCreateContext() {
+		return context -> {
+			TransactionContextHolder holder = context.get(TransactionContextHolder.class);
+			if (holder.hasContext()) {
+				return context.put(TransactionContext.class, holder.currentContext());
+			}
+			return context.put(TransactionContext.class, holder.createContext());
+		};
+	}
+
+	/**
+	 * Return a {@link Function} to create or associate a new
+	 * {@link TransactionContextHolder}. Creation and release of transactions
+	 * within a reactive flow is a mutable operation, so a holder enables
+	 * consecutive and nested transactional pipelines to share state.
+	 * @return a function to create or associate a transaction context holder
+	 */
+	public static Function<Context, Context> getOrCreateContextHolder() {
+		return context -> {
+			if (!context.hasKey(TransactionContextHolder.class)) {
+				return context.put(TransactionContextHolder.class, new TransactionContextHolder(new ArrayDeque<>()));
+			}
+			return context;
+		};
+	}
+
+}
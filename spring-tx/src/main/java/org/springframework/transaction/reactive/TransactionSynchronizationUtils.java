@@ -0,0 +1,147 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import java.util.Collection;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.aop.scope.ScopedObject;
+import org.springframework.core.InfrastructureProxy;
+import org.springframework.util.Assert;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Utility methods for triggering specific {@link TransactionSynchronization}
+ * callback methods on a snapshot of registered synchronizations, one after
+ * the other in the order given.
+ *
+ * @author agent
+ * @since 5.2
+ * @see TransactionSynchronization
+ * @see TransactionSynchronizationManager#getSynchronizations()
+ */
+public abstract class TransactionSynchronizationUtils {
+
+	private static final Log logger = LogFactory.getLog(TransactionSynchronizationUtils.class);
+
+	private static final boolean aopAvailable = ClassUtils.isPresent(
+			"org.springframework.aop.scope.ScopedObject", TransactionSynchronizationUtils.class.getClassLoader());
+
+
+	/**
+	 * Unwrap the given resource handle if necessary; otherwise return
+	 * the given handle as-is.
+	 * @see org.springframework.core.InfrastructureProxy#getWrappedObject()
+	 */
+	static Object unwrapResourceIfNecessary(Object resource) {
+		Assert.notNull(resource, "Resource must not be null");
+		Object resourceRef = resource;
+		// unwrap infrastructure proxy
+		if (resourceRef instanceof InfrastructureProxy) {
+			resourceRef = ((InfrastructureProxy) resourceRef).getWrappedObject();
+		}
+		if (aopAvailable) {
+			// now unwrap scoped proxy
+			resourceRef = ScopedProxyUnwrapper.unwrapIfNecessary(resourceRef);
+		}
+		return resourceRef;
+	}
+
+
+	/**
+	 * Trigger {@code beforeCommit} callbacks on the given synchronizations.
+	 * @param synchronizations the synchronizations to trigger
+	 * @param readOnly whether the transaction is defined as read-only transaction
+	 * @return a completion signal, or the error of a failing callback
+	 * @see TransactionSynchronization#beforeCommit(boolean)
+	 */
+	public static Mono<Void> triggerBeforeCommit(Collection<TransactionSynchronization> synchronizations,
+			boolean readOnly) {
+
+		return Flux.fromIterable(synchronizations).concatMap(it -> it.beforeCommit(readOnly)).then();
+	}
+
+	/**
+	 * Trigger {@code beforeCompletion} callbacks on the given synchronizations,
+	 * logging and suppressing any errors.
+	 * @param synchronizations the synchronizations to trigger
+	 * @return a completion signal
+	 * @see TransactionSynchronization#beforeCompletion()
+	 */
+	public static Mono<Void> triggerBeforeCompletion(Collection<TransactionSynchronization> synchronizations) {
+		return Flux.fromIterable(synchronizations)
+				.concatMap(it -> Mono.defer(it::beforeCompletion).onErrorResume(ex -> {
+					logger.error("TransactionSynchronization.beforeCompletion threw exception", ex);
+					return Mono.empty();
+				}))
+				.then();
+	}
+
+	/**
+	 * Trigger {@code afterCommit} callbacks on the given synchronizations.
+	 * @param synchronizations the synchronizations to trigger
+	 * @return a completion signal, or the error of a failing callback
+	 * @see TransactionSynchronization#afterCommit()
+	 */
+	public static Mono<Void> invokeAfterCommit(Collection<TransactionSynchronization> synchronizations) {
+		return Flux.fromIterable(synchronizations).concatMap(TransactionSynchronization::afterCommit).then();
+	}
+
+	/**
+	 * Trigger {@code afterCompletion} callbacks on the given synchronizations,
+	 * logging and suppressing any errors.
+	 * @param synchronizations the synchronizations to trigger
+	 * @param completionStatus the completion status according to the
+	 * constants in the TransactionSynchronization interface
+	 * @return a completion signal
+	 * @see TransactionSynchronization#afterCompletion(int)
+	 * @see TransactionSynchronization#STATUS_COMMITTED
+	 * @see TransactionSynchronization#STATUS_ROLLED_BACK
+	 * @see TransactionSynchronization#STATUS_UNKNOWN
+	 */
+	public static Mono<Void> invokeAfterCompletion(Collection<TransactionSynchronization> synchronizations,
+			int completionStatus) {
+
+		return Flux.fromIterable(synchronizations)
+				.concatMap(it -> Mono.defer(() -> it.afterCompletion(completionStatus)).onErrorResume(ex -> {
+					logger.error("TransactionSynchronization.afterCompletion threw exception", ex);
+					return Mono.empty();
+				}))
+				.then();
+	}
+
+
+	/**
+	 * Inner class to avoid hard-coded dependency on AOP module.
+	 */
+	private static class ScopedProxyUnwrapper {
+
+		public static Object unwrapIfNecessary(Object resource) {
+			if (resource instanceof ScopedObject) {
+				return ((ScopedObject) resource).getTargetObject();
+			}
+			else {
+				return resource;
+			}
+		}
+	}
+
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import org.springframework.transaction.ReactiveTransaction;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.util.Assert;
+
+/**
+ * Default implementation of the {@link TransactionalOperator} interface,
+ * simplifying programmatic transaction demarcation and transaction exception handling.
+ *
+ * @author agent
+ * @since 5.2
+ * @see TransactionalOperator#create(ReactiveTransactionManager, TransactionDefinition)
+ */
+final class TransactionalOperatorImpl implements TransactionalOperator {
+
+	private final ReactiveTransactionManager transactionManager;
+
+	private final TransactionDefinition transactionDefinition;
+
+
+	/**
+	 * Construct a new TransactionalOperatorImpl using the given transaction manager.
+	 * @param transactionManager the transaction management strategy to be used
+	 * @param transactionDefinition the transaction definition to copy the
+	 * default settings from. Local properties can still be set to change values.
+	 */
+	TransactionalOperatorImpl(ReactiveTransactionManager transactionManager, TransactionDefinition transactionDefinition) {
+		Assert.notNull(transactionManager, "ReactiveTransactionManager must not be null");
+		Assert.notNull(transactionDefinition, "TransactionDefinition must not be null");
+		this.transactionManager = transactionManager;
+		this.transactionDefinition = transactionDefinition;
+	}
+
+
+	/**
+	 * Return the transaction management strategy to be used.
+	 */
+	public ReactiveTransactionManager getTransactionManager() {
+		return this.transactionManager;
+	}
+
+	@Override
+	public <T> Mono<T> transactional(Mono<T> mono) {
+		return Mono.usingWhen(this.transactionManager.getReactiveTransaction(this.transactionDefinition),
+				status -> mono.flatMap(value -> commit(status).thenReturn(value))
+						.switchIfEmpty(commit(status).then(Mono.empty())),
+				status -> Mono.empty(), this::rollbackIfNecessary, this::rollbackIfNecessary)
+				.subscriberContext(TransactionContextManager.getOrCreateContext())
+				.subscriberContext(TransactionContextManager.getOrCreateContextHolder());
+	}
+
+	@Override
+	public <T> Flux<T> execute(TransactionCallback<T> action) {
+		return Flux.usingWhen(this.transactionManager.getReactiveTransaction(this.transactionDefinition),
+				status -> Flux.from(action.doInTransaction(status)).concatWith(commit(status).then(Mono.empty())),
+				status -> Mono.empty(), this::rollbackIfNecessary, this::rollbackIfNecessary)
+				.subscriberContext(TransactionContextManager.getOrCreateContext())
+				.subscriberContext(TransactionContextManager.getOrCreateContextHolder());
+	}
+
+	/**
+	 * Commit the given transaction as part of the transactional sequence itself,
+	 * so that a commit failure is signalled to subscribers as-is and a single
+	 * value only gets emitted once the transaction has been committed.
+	 */
+	private Mono<Void> commit(ReactiveTransaction status) {
+		return Mono.defer(() -> this.transactionManager.commit(status));
+	}
+
+	/**
+	 * Roll back the given transaction on error or cancellation,
+	 * unless it has already been completed by a failed commit.
+	 */
+	private Mono<Void> rollbackIfNecessary(ReactiveTransaction status) {
+		return Mono.defer(() -> (status.isCompleted() ? Mono.empty() : this.transactionManager.rollback(status)));
+	}
+
+}
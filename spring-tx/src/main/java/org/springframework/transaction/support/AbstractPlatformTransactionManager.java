@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,7 +19,11 @@ package org.springframework.transaction.support;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -66,6 +70,10 @@ import org.springframework.transaction.UnexpectedRollbackException;
  * of the same Hibernate Session within the transaction. The same mechanism can
  * also be leveraged for custom synchronization needs in an application.
  *
+ * <p>{@link TransactionExecutionListener TransactionExecutionListeners} can be
+ * registered for timings and outcomes of the transactions executed, e.g. for
+ * tracking the slowest transactions through a {@link SlowestTransactionsRecorder}.
+ *
  * <p>The state of this class is serializable, to allow for serializing the
  * transaction strategy along with proxies that carry a transaction interceptor.
  * It is up to subclasses if they wish to make their state to be serializable too.
@@ -127,6 +135,9 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 
 	private boolean rollbackOnCommitFailure = false;
 
+	private transient List<TransactionExecutionListener> transactionExecutionListeners =
+			new CopyOnWriteArrayList<>();
+
 
 	/**
 	 * Set the transaction synchronization by the name of the corresponding constant
@@ -324,6 +335,38 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		return this.rollbackOnCommitFailure;
 	}
 
+	/**
+	 * Set the listeners to notify about the begin, suspension, resumption and
+	 * completion of transactions executed by this transaction manager,
+	 * replacing any listeners registered before.
+	 * <p>Transactions are only timed if at least one listener is registered.
+	 * Note that listeners do not get serialized along with the transaction manager.
+	 * @since 5.2
+	 * @see SlowestTransactionsRecorder
+	 */
+	public final void setTransactionExecutionListeners(Collection<? extends TransactionExecutionListener> listeners) {
+		this.transactionExecutionListeners.clear();
+		this.transactionExecutionListeners.addAll(listeners);
+	}
+
+	/**
+	 * Add a listener to notify about the begin, suspension, resumption and
+	 * completion of transactions executed by this transaction manager.
+	 * @since 5.2
+	 * @see #setTransactionExecutionListeners
+	 */
+	public final void addTransactionExecutionListener(TransactionExecutionListener listener) {
+		this.transactionExecutionListeners.add(listener);
+	}
+
+	/**
+	 * Return the listeners registered with this transaction manager.
+	 * @since 5.2
+	 */
+	public final List<TransactionExecutionListener> getTransactionExecutionListeners() {
+		return Collections.unmodifiableList(this.transactionExecutionListeners);
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of PlatformTransactionManager
@@ -339,16 +382,41 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	 */
 	@Override
 	public final TransactionStatus getTransaction(@Nullable TransactionDefinition definition) throws TransactionException {
+		// Use shared defaults if no transaction definition given.
+		TransactionDefinition def = (definition != null ? definition : StaticTransactionDefinition.INSTANCE);
+
+		if (this.transactionExecutionListeners.isEmpty()) {
+			return startTransaction(def);
+		}
+
+		TransactionExecutionRecord record = new TransactionExecutionRecord(def);
+		DefaultTransactionStatus status;
+		try {
+			status = startTransaction(def);
+		}
+		catch (RuntimeException | Error ex) {
+			record.beginFailed();
+			invokeTransactionExecutionListeners(listener -> listener.afterBegin(record, ex));
+			throw ex;
+		}
+		record.begun(status.isNewTransaction(), status.getSuspendedResources() != null);
+		status.setExecutionRecord(record);
+		if (record.isSuspending()) {
+			invokeTransactionExecutionListeners(listener -> listener.afterSuspend(record));
+		}
+		invokeTransactionExecutionListeners(listener -> listener.afterBegin(record, null));
+		return status;
+	}
+
+	/**
+	 * Begin or participate in a transaction according to the given definition.
+	 */
+	private DefaultTransactionStatus startTransaction(TransactionDefinition definition) throws TransactionException {
 		Object transaction = doGetTransaction();
 
 		// Cache debug flag to avoid repeated checks.
 		boolean debugEnabled = logger.isDebugEnabled();
 
-		if (definition == null) {
-			// Use defaults if no transaction definition given.
-			definition = new DefaultTransactionDefinition();
-		}
-
 		if (isExistingTransaction(transaction)) {
 			// Existing transaction found -> check propagation behavior to find out how to behave.
 			return handleExistingTransaction(definition, transaction, debugEnabled);
@@ -398,7 +466,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	/**
 	 * Create a TransactionStatus for an existing transaction.
 	 */
-	private TransactionStatus handleExistingTransaction(
+	private DefaultTransactionStatus handleExistingTransaction(
 			TransactionDefinition definition, Object transaction, boolean debugEnabled)
 			throws TransactionException {
 
@@ -955,6 +1023,10 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	 * @param completionStatus completion status according to TransactionSynchronization constants
 	 */
 	private void triggerAfterCompletion(DefaultTransactionStatus status, int completionStatus) {
+		TransactionExecutionRecord record = status.getExecutionRecord();
+		if (record != null) {
+			record.setCompletionStatus(completionStatus);
+		}
 		if (status.isNewSynchronization()) {
 			List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
 			TransactionSynchronizationManager.clearSynchronization();
@@ -1003,15 +1075,47 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		if (status.isNewSynchronization()) {
 			TransactionSynchronizationManager.clear();
 		}
-		if (status.isNewTransaction()) {
-			doCleanupAfterCompletion(status.getTransaction());
+		TransactionExecutionRecord record = status.getExecutionRecord();
+		try {
+			if (status.isNewTransaction()) {
+				doCleanupAfterCompletion(status.getTransaction());
+			}
+			if (record != null) {
+				// Transactional resources released: stop the clock before resuming.
+				record.completed();
+			}
+			if (status.getSuspendedResources() != null) {
+				if (status.isDebug()) {
+					logger.debug("Resuming suspended transaction after completion of inner transaction");
+				}
+				Object transaction = (status.hasTransaction() ? status.getTransaction() : null);
+				resume(transaction, (SuspendedResourcesHolder) status.getSuspendedResources());
+				if (record != null) {
+					invokeTransactionExecutionListeners(listener -> listener.afterResume(record));
+				}
+			}
 		}
-		if (status.getSuspendedResources() != null) {
-			if (status.isDebug()) {
-				logger.debug("Resuming suspended transaction after completion of inner transaction");
+		finally {
+			if (record != null) {
+				record.completed();
+				invokeTransactionExecutionListeners(listener -> listener.afterCompletion(record));
+			}
+		}
+	}
+
+	/**
+	 * Invoke the given callback on all registered {@link TransactionExecutionListener
+	 * TransactionExecutionListeners}, logging any exception thrown from a listener.
+	 * @param callback the callback to invoke on each listener
+	 */
+	private void invokeTransactionExecutionListeners(Consumer<TransactionExecutionListener> callback) {
+		for (TransactionExecutionListener listener : this.transactionExecutionListeners) {
+			try {
+				callback.accept(listener);
+			}
+			catch (Throwable ex) {
+				logger.error("TransactionExecutionListener threw exception", ex);
 			}
-			Object transaction = (status.hasTransaction() ? status.getTransaction() : null);
-			resume(transaction, (SuspendedResourcesHolder) status.getSuspendedResources());
 		}
 	}
 
@@ -1266,6 +1370,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 
 		// Initialize transient fields.
 		this.logger = LogFactory.getLog(getClass());
+		this.transactionExecutionListeners = new CopyOnWriteArrayList<>();
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -64,6 +64,9 @@ public class DefaultTransactionStatus extends AbstractTransactionStatus {
 	@Nullable
 	private final Object suspendedResources;
 
+	@Nullable
+	private TransactionExecutionRecord executionRecord;
+
 
 	/**
 	 * Create a new {@code DefaultTransactionStatus} instance.
@@ -147,6 +150,24 @@ public class DefaultTransactionStatus extends AbstractTransactionStatus {
 		return this.suspendedResources;
 	}
 
+	/**
+	 * Set the record of this transaction's execution, if tracked for
+	 * {@link TransactionExecutionListener TransactionExecutionListeners}.
+	 * @since 5.2
+	 */
+	void setExecutionRecord(@Nullable TransactionExecutionRecord executionRecord) {
+		this.executionRecord = executionRecord;
+	}
+
+	/**
+	 * Return the record of this transaction's execution, if tracked.
+	 * @since 5.2
+	 */
+	@Nullable
+	TransactionExecutionRecord getExecutionRecord() {
+		return this.executionRecord;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Enable functionality through underlying transaction object
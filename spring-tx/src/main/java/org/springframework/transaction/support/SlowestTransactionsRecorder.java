@@ -0,0 +1,143 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link TransactionExecutionListener} that keeps the slowest transactions
+ * seen so far in a fixed-capacity buffer, for example for exposure through
+ * a management endpoint when looking for long-held JDBC Connections.
+ *
+ * <p>Only actual new transactions are recorded, since participating
+ * transactions do not hold resources of their own. The
+ * {@linkplain TransactionExecutionRecord#getName() name} of each recorded
+ * transaction identifies the transactional method, as long as transactions
+ * are demarcated through a
+ * {@link org.springframework.transaction.interceptor.TransactionInterceptor}.
+ *
+ * <p>Transactions faster than the fastest one currently held are rejected
+ * without locking once the buffer is full.
+ *
+ * @author agent
+ * @since 5.2
+ * @see AbstractPlatformTransactionManager#addTransactionExecutionListener
+ */
+public class SlowestTransactionsRecorder implements TransactionExecutionListener {
+
+	/** The default number of transactions to keep: 10. */
+	public static final int DEFAULT_CAPACITY = 10;
+
+
+	private final TransactionExecutionRecord[] records;
+
+	private int size;
+
+	/** Duration of the fastest record held once the buffer is full, -1 before. */
+	private volatile long threshold = -1;
+
+
+	/**
+	 * Create a new SlowestTransactionsRecorder for the
+	 * {@linkplain #DEFAULT_CAPACITY default number} of transactions.
+	 */
+	public SlowestTransactionsRecorder() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a new SlowestTransactionsRecorder for the given number of transactions.
+	 * @param capacity the number of slowest transactions to keep
+	 */
+	public SlowestTransactionsRecorder(int capacity) {
+		Assert.isTrue(capacity > 0, "Capacity must be greater than 0");
+		this.records = new TransactionExecutionRecord[capacity];
+	}
+
+
+	@Override
+	public void afterCompletion(TransactionExecutionRecord record) {
+		if (!record.isNewTransaction()) {
+			return;
+		}
+		long duration = record.getDurationNanos();
+		if (duration <= this.threshold) {
+			return;
+		}
+		synchronized (this.records) {
+			if (this.size < this.records.length) {
+				this.records[this.size++] = record;
+				if (this.size == this.records.length) {
+					this.threshold = this.records[indexOfFastest()].getDurationNanos();
+				}
+			}
+			else {
+				int fastest = indexOfFastest();
+				if (duration > this.records[fastest].getDurationNanos()) {
+					this.records[fastest] = record;
+					this.threshold = this.records[indexOfFastest()].getDurationNanos();
+				}
+			}
+		}
+	}
+
+	private int indexOfFastest() {
+		int fastest = 0;
+		for (int i = 1; i < this.size; i++) {
+			if (this.records[i].getDurationNanos() < this.records[fastest].getDurationNanos()) {
+				fastest = i;
+			}
+		}
+		return fastest;
+	}
+
+	/**
+	 * Return the number of slowest transactions kept by this recorder.
+	 */
+	public int getCapacity() {
+		return this.records.length;
+	}
+
+	/**
+	 * Return the slowest transactions recorded so far, slowest first.
+	 */
+	public List<TransactionExecutionRecord> getSlowestTransactions() {
+		List<TransactionExecutionRecord> result;
+		synchronized (this.records) {
+			result = new ArrayList<>(Arrays.asList(this.records).subList(0, this.size));
+		}
+		result.sort(Comparator.comparingLong(TransactionExecutionRecord::getDurationNanos).reversed());
+		return result;
+	}
+
+	/**
+	 * Discard all transactions recorded so far.
+	 */
+	public void clear() {
+		synchronized (this.records) {
+			Arrays.fill(this.records, null);
+			this.size = 0;
+			this.threshold = -1;
+		}
+	}
+
+}
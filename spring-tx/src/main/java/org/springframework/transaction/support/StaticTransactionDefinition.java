@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Immutable {@link TransactionDefinition} with default settings, shared for
+ * all transactions that get started without an explicit definition.
+ *
+ * @author agent
+ * @since 5.2
+ * @see AbstractPlatformTransactionManager#getTransaction
+ */
+final class StaticTransactionDefinition implements TransactionDefinition {
+
+	/** The shared default instance. */
+	static final StaticTransactionDefinition INSTANCE = new StaticTransactionDefinition();
+
+
+	private StaticTransactionDefinition() {
+	}
+
+
+	@Override
+	public int getPropagationBehavior() {
+		return PROPAGATION_REQUIRED;
+	}
+
+	@Override
+	public int getIsolationLevel() {
+		return ISOLATION_DEFAULT;
+	}
+
+	@Override
+	public int getTimeout() {
+		return TIMEOUT_DEFAULT;
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return false;
+	}
+
+	@Override
+	@Nullable
+	public String getName() {
+		return null;
+	}
+
+
+	/**
+	 * This implementation compares the {@code toString()} results,
+	 * consistent with {@link DefaultTransactionDefinition#equals}.
+	 */
+	@Override
+	public boolean equals(Object other) {
+		return (this == other || (other instanceof TransactionDefinition && toString().equals(other.toString())));
+	}
+
+	@Override
+	public int hashCode() {
+		return toString().hashCode();
+	}
+
+	/**
+	 * Return the same description as a {@link DefaultTransactionDefinition}
+	 * with default settings.
+	 */
+	@Override
+	public String toString() {
+		return "PROPAGATION_REQUIRED,ISOLATION_DEFAULT";
+	}
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Callback interface for observing the transactions executed by an
+ * {@link AbstractPlatformTransactionManager}: their begin, the suspension
+ * and resumption of outer transactions, and their completion. Each callback
+ * receives the {@link TransactionExecutionRecord} with the timings and the
+ * outcome of the transaction so far.
+ *
+ * <p>Callbacks are invoked on the thread executing the transaction, so
+ * implementations should be fast and thread-safe. Exceptions thrown from
+ * a callback are logged and do not affect the transaction.
+ *
+ * @author agent
+ * @since 5.2
+ * @see AbstractPlatformTransactionManager#setTransactionExecutionListeners
+ * @see SlowestTransactionsRecorder
+ */
+public interface TransactionExecutionListener {
+
+	/**
+	 * Invoked after {@code getTransaction} has begun a new transaction,
+	 * participated in an existing one, or failed to do so.
+	 * @param record the record of the transaction execution
+	 * @param beginFailure the exception thrown from {@code getTransaction},
+	 * or {@code null} if the transaction has been begun successfully
+	 */
+	default void afterBegin(TransactionExecutionRecord record, @Nullable Throwable beginFailure) {
+	}
+
+	/**
+	 * Invoked after an outer transaction (or its synchronization) has been
+	 * suspended for the given transaction. Called right before
+	 * {@link #afterBegin} for the same transaction.
+	 * @param record the record of the transaction that caused the suspension
+	 * @see TransactionExecutionRecord#isSuspending()
+	 */
+	default void afterSuspend(TransactionExecutionRecord record) {
+	}
+
+	/**
+	 * Invoked after a previously suspended outer transaction has been resumed
+	 * on completion of the given transaction. Called right before
+	 * {@link #afterCompletion} for the same transaction.
+	 * @param record the record of the transaction that caused the suspension
+	 */
+	default void afterResume(TransactionExecutionRecord record) {
+	}
+
+	/**
+	 * Invoked after the given transaction has been completed through
+	 * {@code commit} or {@code rollback}, including the release of its
+	 * resources and the resumption of a suspended outer transaction.
+	 * @param record the record of the completed transaction
+	 * @see TransactionExecutionRecord#getDurationNanos()
+	 * @see TransactionExecutionRecord#getCompletionStatus()
+	 */
+	default void afterCompletion(TransactionExecutionRecord record) {
+	}
+
+}
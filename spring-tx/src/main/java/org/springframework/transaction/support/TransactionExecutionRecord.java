@@ -0,0 +1,225 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Timing and outcome of a single transaction execution, as seen by an
+ * {@link AbstractPlatformTransactionManager} from the begin of
+ * {@code getTransaction} until the completion of the transaction.
+ * Exposed to {@link TransactionExecutionListener TransactionExecutionListeners}.
+ *
+ * <p>For transactions demarcated through a
+ * {@link org.springframework.transaction.interceptor.TransactionInterceptor}
+ * (e.g. for {@code @Transactional} methods), the {@linkplain #getName() name}
+ * is the joinpoint identification unless specified otherwise, i.e. the
+ * fully-qualified name of the transactional method.
+ *
+ * <p>A record gets updated by the thread executing the transaction. Listeners
+ * that hold on to it beyond the callback should only do so once it has been
+ * {@linkplain #isCompleted() completed}.
+ *
+ * @author agent
+ * @since 5.2
+ * @see TransactionExecutionListener
+ * @see AbstractPlatformTransactionManager#setTransactionExecutionListeners
+ */
+public class TransactionExecutionRecord {
+
+	@Nullable
+	private final String name;
+
+	private final int propagationBehavior;
+
+	private final int isolationLevel;
+
+	private final boolean readOnly;
+
+	private final long startTimestamp;
+
+	private final long startNanos;
+
+	private boolean newTransaction;
+
+	private boolean suspending;
+
+	private long beginNanos = -1;
+
+	private long durationNanos = -1;
+
+	private int completionStatus = TransactionSynchronization.STATUS_UNKNOWN;
+
+
+	/**
+	 * Create a new TransactionExecutionRecord for the given definition,
+	 * starting the clock right away.
+	 * @param definition the definition of the transaction to be begun
+	 */
+	TransactionExecutionRecord(TransactionDefinition definition) {
+		this.name = definition.getName();
+		this.propagationBehavior = definition.getPropagationBehavior();
+		this.isolationLevel = definition.getIsolationLevel();
+		this.readOnly = definition.isReadOnly();
+		this.startTimestamp = System.currentTimeMillis();
+		this.startNanos = System.nanoTime();
+	}
+
+
+	/**
+	 * Return the name of the transaction, typically the fully-qualified name
+	 * of the transactional method (or {@code null} if none specified).
+	 * @see TransactionDefinition#getName()
+	 */
+	@Nullable
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * Return the propagation behavior of the transaction.
+	 * @see TransactionDefinition#getPropagationBehavior()
+	 */
+	public int getPropagationBehavior() {
+		return this.propagationBehavior;
+	}
+
+	/**
+	 * Return the isolation level of the transaction.
+	 * @see TransactionDefinition#getIsolationLevel()
+	 */
+	public int getIsolationLevel() {
+		return this.isolationLevel;
+	}
+
+	/**
+	 * Return whether the transaction is read-only.
+	 * @see TransactionDefinition#isReadOnly()
+	 */
+	public boolean isReadOnly() {
+		return this.readOnly;
+	}
+
+	/**
+	 * Return the wall-clock time when {@code getTransaction} has been called,
+	 * in milliseconds since the epoch.
+	 */
+	public long getStartTimestamp() {
+		return this.startTimestamp;
+	}
+
+	/**
+	 * Return whether an actual new transaction has been begun, as opposed to
+	 * participating in an existing transaction or running without transaction.
+	 * @see org.springframework.transaction.TransactionStatus#isNewTransaction()
+	 */
+	public boolean isNewTransaction() {
+		return this.newTransaction;
+	}
+
+	/**
+	 * Return whether an outer transaction (or its synchronization) has been
+	 * suspended for this transaction, getting resumed after its completion.
+	 */
+	public boolean isSuspending() {
+		return this.suspending;
+	}
+
+	/**
+	 * Return the time waited for the transaction to begin in nanoseconds,
+	 * i.e. the time spent in {@code getTransaction}: including the suspension
+	 * of an outer transaction and the acquisition of transactional resources
+	 * such as a JDBC Connection. Returns -1 if the begin is still in progress.
+	 */
+	public long getBeginNanos() {
+		return this.beginNanos;
+	}
+
+	/**
+	 * Return the total duration of the transaction in nanoseconds, from the
+	 * call to {@code getTransaction} until transactional resources have been
+	 * released after completion. For a new transaction, this is the time that
+	 * a resource such as a JDBC Connection has been held for it.
+	 * Returns -1 if the transaction has not completed yet.
+	 */
+	public long getDurationNanos() {
+		return this.durationNanos;
+	}
+
+	/**
+	 * Return whether the transaction has completed.
+	 */
+	public boolean isCompleted() {
+		return (this.durationNanos >= 0);
+	}
+
+	/**
+	 * Return the outcome of the transaction, according to the
+	 * {@link TransactionSynchronization} status constants. Rollbacks of
+	 * participating transactions refer to the rollback-only marker set on the
+	 * outer transaction. Returns {@link TransactionSynchronization#STATUS_UNKNOWN}
+	 * unless the transaction has been completed with a definite outcome.
+	 * @see TransactionSynchronization#STATUS_COMMITTED
+	 * @see TransactionSynchronization#STATUS_ROLLED_BACK
+	 * @see TransactionSynchronization#STATUS_UNKNOWN
+	 */
+	public int getCompletionStatus() {
+		return this.completionStatus;
+	}
+
+
+	void begun(boolean newTransaction, boolean suspending) {
+		this.beginNanos = System.nanoTime() - this.startNanos;
+		this.newTransaction = newTransaction;
+		this.suspending = suspending;
+	}
+
+	void beginFailed() {
+		this.beginNanos = System.nanoTime() - this.startNanos;
+	}
+
+	void setCompletionStatus(int completionStatus) {
+		this.completionStatus = completionStatus;
+	}
+
+	void completed() {
+		if (this.durationNanos < 0) {
+			this.durationNanos = System.nanoTime() - this.startNanos;
+		}
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("TransactionExecutionRecord: name [").append(this.name).append("]; ");
+		sb.append(DefaultTransactionDefinition.constants.toCode(
+				this.propagationBehavior, DefaultTransactionDefinition.PREFIX_PROPAGATION));
+		sb.append("; new transaction: ").append(this.newTransaction);
+		sb.append("; begin time [").append(TimeUnit.NANOSECONDS.toMillis(this.beginNanos)).append(" ms]");
+		if (isCompleted()) {
+			sb.append("; duration [").append(TimeUnit.NANOSECONDS.toMillis(this.durationNanos)).append(" ms]; ");
+			sb.append(this.completionStatus == TransactionSynchronization.STATUS_COMMITTED ? "committed" :
+					(this.completionStatus == TransactionSynchronization.STATUS_ROLLED_BACK ?
+							"rolled back" : "unknown outcome"));
+		}
+		return sb.toString();
+	}
+
+}
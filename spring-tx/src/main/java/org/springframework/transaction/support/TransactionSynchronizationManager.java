@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2017 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -64,6 +64,11 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>All state for the current thread is kept in a single holder object, with
+ * resource and synchronization collections only created when actually needed.
+ * The holder is released from the thread as soon as no state is left, not leaving
+ * any references to it behind in pooled threads.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -78,23 +83,8 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
-
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
-
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
-
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
-
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
-
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	private static final ThreadLocal<TransactionState> transactionState =
+			new NamedThreadLocal<>("Transaction state");
 
 
 	//-------------------------------------------------------------------------
@@ -111,8 +101,9 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
-		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
+		TransactionState state = transactionState.get();
+		return (state != null && state.resources != null ?
+				Collections.unmodifiableMap(state.resources) : Collections.emptyMap());
 	}
 
 	/**
@@ -150,18 +141,15 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionState state = transactionState.get();
+		if (state == null || state.resources == null) {
 			return null;
 		}
-		Object value = map.get(actualKey);
+		Object value = state.resources.get(actualKey);
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
-			map.remove(actualKey);
-			// Remove entire ThreadLocal if empty...
-			if (map.isEmpty()) {
-				resources.remove();
-			}
+			state.resources.remove(actualKey);
+			releaseIfEmpty(state);
 			value = null;
 		}
 		return value;
@@ -177,13 +165,12 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
-		if (map == null) {
-			map = new HashMap<>();
-			resources.set(map);
+		TransactionState state = obtainState();
+		// create resource Map if none found
+		if (state.resources == null) {
+			state.resources = new HashMap<>(4);
 		}
-		Object oldValue = map.put(actualKey, value);
+		Object oldValue = state.resources.put(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (oldValue instanceof ResourceHolder && ((ResourceHolder) oldValue).isVoid()) {
 			oldValue = null;
@@ -231,15 +218,12 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionState state = transactionState.get();
+		if (state == null || state.resources == null) {
 			return null;
 		}
-		Object value = map.remove(actualKey);
-		// Remove entire ThreadLocal if empty...
-		if (map.isEmpty()) {
-			resources.remove();
-		}
+		Object value = state.resources.remove(actualKey);
+		releaseIfEmpty(state);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			value = null;
@@ -262,7 +246,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		TransactionState state = transactionState.get();
+		return (state != null && state.synchronizationActive);
 	}
 
 	/**
@@ -275,7 +260,8 @@ public abstract class TransactionSynchronizationManager {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		// The Set of synchronizations gets created on first registration.
+		obtainState().synchronizationActive = true;
 	}
 
 	/**
@@ -292,10 +278,16 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		if (!isSynchronizationActive()) {
+		TransactionState state = transactionState.get();
+		if (state == null || !state.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
-		synchronizations.get().add(synchronization);
+		if (state.synchronizations == null) {
+			state.synchronizations = new LinkedHashSet<>(4);
+		}
+		if (state.synchronizations.add(synchronization)) {
+			state.sortedSynchronizations = null;
+		}
 	}
 
 	/**
@@ -306,22 +298,27 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionState state = transactionState.get();
+		if (state == null || !state.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
 		// Return unmodifiable snapshot, to avoid ConcurrentModificationExceptions
 		// while iterating and invoking synchronization callbacks that in turn
 		// might register further synchronizations.
-		if (synchs.isEmpty()) {
+		Set<TransactionSynchronization> synchs = state.synchronizations;
+		if (synchs == null || synchs.isEmpty()) {
 			return Collections.emptyList();
 		}
-		else {
-			// Sort lazily here, not in registerSynchronization.
-			List<TransactionSynchronization> sortedSynchs = new ArrayList<>(synchs);
-			AnnotationAwareOrderComparator.sort(sortedSynchs);
-			return Collections.unmodifiableList(sortedSynchs);
+		List<TransactionSynchronization> sortedSynchs = state.sortedSynchronizations;
+		if (sortedSynchs == null) {
+			// Sort lazily here, not in registerSynchronization, and keep the
+			// snapshot until the next registration.
+			List<TransactionSynchronization> snapshot = new ArrayList<>(synchs);
+			AnnotationAwareOrderComparator.sort(snapshot);
+			sortedSynchs = Collections.unmodifiableList(snapshot);
+			state.sortedSynchronizations = sortedSynchs;
 		}
+		return sortedSynchs;
 	}
 
 	/**
@@ -334,7 +331,9 @@ public abstract class TransactionSynchronizationManager {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		TransactionState state = obtainState();
+		state.clearSynchronization();
+		releaseIfEmpty(state);
 	}
 
 
@@ -349,7 +348,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		TransactionState state = (name != null ? obtainState() : transactionState.get());
+		if (state != null) {
+			state.name = name;
+			releaseIfEmpty(state);
+		}
 	}
 
 	/**
@@ -360,7 +363,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		TransactionState state = transactionState.get();
+		return (state != null ? state.name : null);
 	}
 
 	/**
@@ -371,7 +375,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		TransactionState state = (readOnly ? obtainState() : transactionState.get());
+		if (state != null) {
+			state.readOnly = readOnly;
+			releaseIfEmpty(state);
+		}
 	}
 
 	/**
@@ -387,7 +395,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		TransactionState state = transactionState.get();
+		return (state != null && state.readOnly);
 	}
 
 	/**
@@ -407,7 +416,11 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		TransactionState state = (isolationLevel != null ? obtainState() : transactionState.get());
+		if (state != null) {
+			state.isolationLevel = isolationLevel;
+			releaseIfEmpty(state);
+		}
 	}
 
 	/**
@@ -429,7 +442,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		TransactionState state = transactionState.get();
+		return (state != null ? state.isolationLevel : null);
 	}
 
 	/**
@@ -439,7 +453,11 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		TransactionState state = (active ? obtainState() : transactionState.get());
+		if (state != null) {
+			state.actualTransactionActive = active;
+			releaseIfEmpty(state);
+		}
 	}
 
 	/**
@@ -454,7 +472,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		TransactionState state = transactionState.get();
+		return (state != null && state.actualTransactionActive);
 	}
 
 
@@ -468,11 +487,79 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		TransactionState state = transactionState.get();
+		if (state != null) {
+			state.clearSynchronization();
+			state.name = null;
+			state.readOnly = false;
+			state.isolationLevel = null;
+			state.actualTransactionActive = false;
+			releaseIfEmpty(state);
+		}
+	}
+
+
+	/**
+	 * Return the state holder for the current thread, creating it if necessary.
+	 */
+	private static TransactionState obtainState() {
+		TransactionState state = transactionState.get();
+		if (state == null) {
+			state = new TransactionState();
+			transactionState.set(state);
+		}
+		return state;
+	}
+
+	/**
+	 * Remove the given state holder from the current thread if it does not
+	 * hold any resources, synchronizations or transaction characteristics anymore.
+	 */
+	private static void releaseIfEmpty(TransactionState state) {
+		if (state.isEmpty()) {
+			transactionState.remove();
+		}
+	}
+
+
+	/**
+	 * Holder for all transactional state of a thread, replacing separate
+	 * ThreadLocals for each part of the state.
+	 */
+	private static final class TransactionState {
+
+		@Nullable
+		Map<Object, Object> resources;
+
+		boolean synchronizationActive;
+
+		@Nullable
+		Set<TransactionSynchronization> synchronizations;
+
+		@Nullable
+		List<TransactionSynchronization> sortedSynchronizations;
+
+		@Nullable
+		String name;
+
+		boolean readOnly;
+
+		@Nullable
+		Integer isolationLevel;
+
+		boolean actualTransactionActive;
+
+		void clearSynchronization() {
+			this.synchronizationActive = false;
+			this.synchronizations = null;
+			this.sortedSynchronizations = null;
+		}
+
+		boolean isEmpty() {
+			return ((this.resources == null || this.resources.isEmpty()) && !this.synchronizationActive &&
+					this.name == null && !this.readOnly && this.isolationLevel == null &&
+					!this.actualTransactionActive);
+		}
 	}
 
 }
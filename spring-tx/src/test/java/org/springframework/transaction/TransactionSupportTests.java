@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,20 @@
 
 package org.springframework.transaction;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import org.junit.After;
 import org.junit.Test;
 
+import org.springframework.lang.Nullable;
 import org.springframework.transaction.support.DefaultTransactionDefinition;
 import org.springframework.transaction.support.DefaultTransactionStatus;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionExecutionRecord;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
@@ -321,6 +329,83 @@ public class TransactionSupportTests {
 		assertEquals(template2, template3);
 	}
 
+	@Test
+	public void transactionExecutionListenerWithCommit() {
+		TestTransactionManager tm = new TestTransactionManager(false, true);
+		RecordingTransactionExecutionListener listener = new RecordingTransactionExecutionListener();
+		tm.addTransactionExecutionListener(listener);
+		TransactionTemplate template = new TransactionTemplate(tm);
+		template.setName("myMethod");
+		template.execute(status -> null);
+
+		assertTrue("triggered commit", tm.commit);
+		assertEquals(Arrays.asList("begin:myMethod", "completion:myMethod"), listener.events);
+		TransactionExecutionRecord record = listener.records.get(0);
+		assertTrue(record.isCompleted());
+		assertTrue(record.isNewTransaction());
+		assertFalse(record.isSuspending());
+		assertEquals(TransactionDefinition.PROPAGATION_REQUIRED, record.getPropagationBehavior());
+		assertEquals(TransactionSynchronization.STATUS_COMMITTED, record.getCompletionStatus());
+		assertTrue(record.getBeginNanos() >= 0);
+		assertTrue(record.getDurationNanos() >= record.getBeginNanos());
+	}
+
+	@Test
+	public void transactionExecutionListenerWithRollback() {
+		TestTransactionManager tm = new TestTransactionManager(false, true);
+		RecordingTransactionExecutionListener listener = new RecordingTransactionExecutionListener();
+		tm.setTransactionExecutionListeners(Arrays.asList(new TransactionExecutionListener() {
+			@Override
+			public void afterBegin(TransactionExecutionRecord record, @Nullable Throwable beginFailure) {
+				throw new IllegalStateException("Listener failure");
+			}
+		}, listener));
+		TransactionTemplate template = new TransactionTemplate(tm);
+		template.setName("myMethod");
+		template.execute(status -> {
+			status.setRollbackOnly();
+			return null;
+		});
+
+		assertTrue("triggered rollback", tm.rollback);
+		assertEquals(Arrays.asList("begin:myMethod", "completion:myMethod"), listener.events);
+		assertEquals(TransactionSynchronization.STATUS_ROLLED_BACK, listener.records.get(0).getCompletionStatus());
+	}
+
+	@Test
+	public void transactionExecutionListenerWithBeginFailure() {
+		TestTransactionManager tm = new TestTransactionManager(false, false);
+		RecordingTransactionExecutionListener listener = new RecordingTransactionExecutionListener();
+		tm.addTransactionExecutionListener(listener);
+		try {
+			tm.getTransaction(new DefaultTransactionDefinition());
+			fail("Should have thrown CannotCreateTransactionException");
+		}
+		catch (CannotCreateTransactionException ex) {
+			assertSame(ex, listener.beginFailure);
+		}
+
+		assertEquals(Arrays.asList("begin:null"), listener.events);
+		assertFalse(listener.records.get(0).isCompleted());
+		assertTrue(listener.records.get(0).getBeginNanos() >= 0);
+	}
+
+	@Test
+	public void transactionExecutionListenerWithParticipatingTransaction() {
+		TestTransactionManager tm = new TestTransactionManager(true, true);
+		RecordingTransactionExecutionListener listener = new RecordingTransactionExecutionListener();
+		tm.addTransactionExecutionListener(listener);
+		TransactionStatus status = tm.getTransaction(
+				new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_MANDATORY));
+		tm.rollback(status);
+
+		assertTrue("triggered rollbackOnly", tm.rollbackOnly);
+		TransactionExecutionRecord record = listener.records.get(0);
+		assertFalse(record.isNewTransaction());
+		assertEquals(TransactionDefinition.PROPAGATION_MANDATORY, record.getPropagationBehavior());
+		assertEquals(TransactionSynchronization.STATUS_ROLLED_BACK, record.getCompletionStatus());
+	}
+
 
 	@After
 	public void clear() {
@@ -328,4 +413,36 @@ public class TransactionSupportTests {
 		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
 	}
 
+
+	private static class RecordingTransactionExecutionListener implements TransactionExecutionListener {
+
+		final List<String> events = new ArrayList<>();
+
+		final List<TransactionExecutionRecord> records = new ArrayList<>();
+
+		Throwable beginFailure;
+
+		@Override
+		public void afterBegin(TransactionExecutionRecord record, @Nullable Throwable beginFailure) {
+			this.events.add("begin:" + record.getName());
+			this.records.add(record);
+			this.beginFailure = beginFailure;
+		}
+
+		@Override
+		public void afterSuspend(TransactionExecutionRecord record) {
+			this.events.add("suspend:" + record.getName());
+		}
+
+		@Override
+		public void afterResume(TransactionExecutionRecord record) {
+			this.events.add("resume:" + record.getName());
+		}
+
+		@Override
+		public void afterCompletion(TransactionExecutionRecord record) {
+			this.events.add("completion:" + record.getName());
+		}
+	}
+
 }
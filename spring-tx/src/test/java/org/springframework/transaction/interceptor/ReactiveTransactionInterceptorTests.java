@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.interceptor;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.reactive.ReactiveTestTransactionManager;
+import org.springframework.transaction.reactive.TransactionSynchronizationManager;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+/**
+ * Tests for {@link TransactionInterceptor} on methods with a reactive return type.
+ *
+ * @author agent
+ */
+public class ReactiveTransactionInterceptorTests {
+
+	private final ReactiveTestTransactionManager rtm = new ReactiveTestTransactionManager();
+
+	private final DefaultReactiveService target = new DefaultReactiveService();
+
+
+	@Test
+	public void monoCommitsPerSubscription() {
+		ReactiveService service = advised(this.rtm, null);
+		Mono<Boolean> result = service.transactionActive();
+		assertEquals(0, this.target.invocations.get());
+
+		StepVerifier.create(result).expectNext(true).verifyComplete();
+		StepVerifier.create(result).expectNext(true).verifyComplete();
+		assertEquals(2, this.target.invocations.get());
+		assertEquals(Arrays.asList("begin", "commit", "begin", "commit"), this.rtm.events);
+	}
+
+	@Test
+	public void fluxCommits() {
+		ReactiveService service = advised(this.rtm, null);
+		StepVerifier.create(service.names()).expectNext("a", "b").verifyComplete();
+		assertEquals(Arrays.asList("begin", "commit"), this.rtm.events);
+	}
+
+	@Test
+	public void runtimeExceptionRollsBack() {
+		ReactiveService service = advised(this.rtm, null);
+		StepVerifier.create(service.fail(new IllegalStateException()))
+				.verifyError(IllegalStateException.class);
+		assertEquals(Arrays.asList("begin", "rollback"), this.rtm.events);
+	}
+
+	@Test
+	public void checkedExceptionCommits() {
+		ReactiveService service = advised(this.rtm, null);
+		StepVerifier.create(service.fail(new Exception()))
+				.verifyError(Exception.class);
+		assertEquals(Arrays.asList("begin", "commit"), this.rtm.events);
+	}
+
+	@Test
+	public void cancellationRollsBack() {
+		ReactiveService service = advised(this.rtm, null);
+		StepVerifier.create(service.names(), 1).expectNext("a").thenCancel().verify();
+		assertEquals(Arrays.asList("begin", "rollback"), this.rtm.events);
+	}
+
+	@Test
+	public void reactiveTransactionManagerFromBeanFactory() {
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("rtm", this.rtm);
+		ReactiveService service = advised(null, beanFactory);
+		StepVerifier.create(service.transactionActive()).expectNext(true).verifyComplete();
+		assertEquals(Arrays.asList("begin", "commit"), this.rtm.events);
+	}
+
+	@Test
+	public void platformTransactionManagerWithoutReactiveTransactionManager() {
+		PlatformTransactionManager ptm = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(ptm.getTransaction(any())).willReturn(status);
+		DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("ptm", ptm);
+		ReactiveService service = advised(null, beanFactory);
+
+		Flux<String> result = service.names();
+		verify(ptm).commit(status);
+		StepVerifier.create(result).expectNext("a", "b").verifyComplete();
+		assertEquals(Collections.emptyList(), this.rtm.events);
+	}
+
+
+	private ReactiveService advised(ReactiveTestTransactionManager rtm, DefaultListableBeanFactory beanFactory) {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(DefaultReactiveService.class, new RuleBasedTransactionAttribute());
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setReactiveTransactionManager(rtm);
+		ti.setTransactionAttributeSource(tas);
+		ti.setBeanFactory(beanFactory);
+
+		ProxyFactory pf = new ProxyFactory(this.target);
+		pf.addAdvice(ti);
+		return (ReactiveService) pf.getProxy();
+	}
+
+
+	public interface ReactiveService {
+
+		Mono<Boolean> transactionActive();
+
+		Flux<String> names();
+
+		Mono<Void> fail(Throwable ex);
+	}
+
+
+	public static class DefaultReactiveService implements ReactiveService {
+
+		final AtomicInteger invocations = new AtomicInteger();
+
+		@Override
+		public Mono<Boolean> transactionActive() {
+			this.invocations.incrementAndGet();
+			return TransactionSynchronizationManager.forCurrentTransaction()
+					.map(TransactionSynchronizationManager::isActualTransactionActive);
+		}
+
+		@Override
+		public Flux<String> names() {
+			return Flux.just("a", "b");
+		}
+
+		@Override
+		public Mono<Void> fail(Throwable ex) {
+			return Mono.error(ex);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,7 @@
 
 package org.springframework.transaction.interceptor;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.rmi.RemoteException;
 import java.util.Collections;
@@ -25,6 +26,7 @@ import java.util.List;
 import org.junit.Test;
 
 import org.springframework.transaction.TransactionDefinition;
+import org.springframework.util.SerializationTestUtils;
 
 import static org.junit.Assert.*;
 
@@ -163,6 +165,66 @@ public class RuleBasedTransactionAttributeTests {
 		assertFalse(rta.rollbackOn(new MyBusinessWarningException()));
 	}
 
+	@Test
+	public void testRulesModifiedAfterFirstUse() {
+		RuleBasedTransactionAttribute rta = new RuleBasedTransactionAttribute();
+		rta.getRollbackRules().add(new RollbackRuleAttribute(IOException.class));
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+		assertFalse(rta.rollbackOn(new Exception()));
+
+		rta.getRollbackRules().add(new NoRollbackRuleAttribute(FileNotFoundException.class));
+		assertFalse(rta.rollbackOn(new FileNotFoundException()));
+		assertTrue(rta.rollbackOn(new IOException()));
+
+		rta.setRollbackRules(Collections.singletonList(new RollbackRuleAttribute(Exception.class)));
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+		assertTrue(rta.rollbackOn(new Exception()));
+	}
+
+	@Test
+	public void testRetainedRulesListModifiedAfterFirstUse() {
+		RuleBasedTransactionAttribute rta = new RuleBasedTransactionAttribute();
+		List<RollbackRuleAttribute> rules = rta.getRollbackRules();
+		rules.add(new RollbackRuleAttribute(IOException.class));
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+
+		rules.add(0, new NoRollbackRuleAttribute(FileNotFoundException.class));
+		assertFalse(rta.rollbackOn(new FileNotFoundException()));
+		rules.set(0, new NoRollbackRuleAttribute(IOException.class));
+		assertFalse(rta.rollbackOn(new FileNotFoundException()));
+		rules.removeIf(rule -> rule instanceof NoRollbackRuleAttribute);
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+		rules.clear();
+		assertFalse(rta.rollbackOn(new FileNotFoundException()));
+	}
+
+	@Test
+	public void testGivenRulesListCopied() {
+		List<RollbackRuleAttribute> rules = new LinkedList<>();
+		rules.add(new RollbackRuleAttribute(IOException.class));
+		RuleBasedTransactionAttribute rta = new RuleBasedTransactionAttribute();
+		rta.setRollbackRules(rules);
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+
+		rules.add(new NoRollbackRuleAttribute(FileNotFoundException.class));
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+		assertEquals(1, rta.getRollbackRules().size());
+	}
+
+	@Test
+	public void testRulesModifiedAfterDeserialization() throws Exception {
+		RuleBasedTransactionAttribute rta = new RuleBasedTransactionAttribute();
+		rta.getRollbackRules().add(new RollbackRuleAttribute(IOException.class));
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+
+		rta = (RuleBasedTransactionAttribute) SerializationTestUtils.serializeAndDeserialize(rta);
+		assertTrue(rta.rollbackOn(new FileNotFoundException()));
+		rta.getRollbackRules().add(0, new NoRollbackRuleAttribute(FileNotFoundException.class));
+		assertFalse(rta.rollbackOn(new FileNotFoundException()));
+		assertTrue(rta.rollbackOn(new IOException()));
+	}
+
 
 	@SuppressWarnings("serial")
 	private static class MyBusinessException extends Exception {}
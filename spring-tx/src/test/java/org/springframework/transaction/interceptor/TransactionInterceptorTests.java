@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2019 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.transaction.interceptor;
 
 import java.io.Serializable;
+import java.lang.reflect.Method;
 import java.util.Properties;
 
 import org.junit.Rule;
@@ -27,6 +28,9 @@ import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.lang.Nullable;
+import org.springframework.tests.sample.beans.DerivedTestBean;
+import org.springframework.tests.sample.beans.ITestBean;
+import org.springframework.tests.sample.beans.TestBean;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
@@ -257,6 +261,94 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		verify(beanFactory, times(1)).getBean(PlatformTransactionManager.class);
 	}
 
+	@Test
+	public void transactionAttributeAndManagerResolvedOncePerMethod() throws Exception {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+		given(beanFactory.getBean(PlatformTransactionManager.class)).willReturn(txManager);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(txManager.getTransaction(any())).willReturn(status);
+
+		Method getName = ITestBean.class.getMethod("getName");
+		MapTransactionAttributeSource tas = spy(new MapTransactionAttributeSource());
+		tas.register(getName, new DefaultTransactionAttribute());
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setBeanFactory(beanFactory);
+		ti.setTransactionAttributeSource(tas);
+		ITestBean proxy = (ITestBean) advised(new TestBean("name"), ti);
+
+		assertEquals("name", proxy.getName());
+		assertEquals("name", proxy.getName());
+		verify(tas, times(1)).getTransactionAttribute(eq(getName), any());
+		verify(beanFactory, times(1)).getBean(PlatformTransactionManager.class);
+		verify(txManager, times(2)).getTransaction(argThat(definition ->
+				TestBean.class.getName().concat(".getName").equals(definition.getName())));
+		verify(txManager, times(2)).commit(status);
+	}
+
+	@Test
+	public void transactionAttributeResolvedOncePerMethodAndTargetClass() throws Exception {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+		given(beanFactory.getBean(PlatformTransactionManager.class)).willReturn(txManager);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(txManager.getTransaction(any())).willReturn(status);
+
+		Method getName = ITestBean.class.getMethod("getName");
+		MapTransactionAttributeSource tas = spy(new MapTransactionAttributeSource());
+		tas.register(getName, new DefaultTransactionAttribute());
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setBeanFactory(beanFactory);
+		ti.setTransactionAttributeSource(tas);
+		TestBean derivedTarget = new DerivedTestBean();
+		derivedTarget.setName("derived");
+		ITestBean proxy = (ITestBean) advised(new TestBean("name"), ti);
+		ITestBean derivedProxy = (ITestBean) advised(derivedTarget, ti);
+
+		for (int i = 0; i < 2; i++) {
+			assertEquals("name", proxy.getName());
+			assertEquals("derived", derivedProxy.getName());
+		}
+		verify(tas, times(1)).getTransactionAttribute(getName, TestBean.class);
+		verify(tas, times(1)).getTransactionAttribute(getName, DerivedTestBean.class);
+		verify(txManager, times(2)).getTransaction(argThat(definition ->
+				TestBean.class.getName().concat(".getName").equals(definition.getName())));
+		verify(txManager, times(2)).getTransaction(argThat(definition ->
+				DerivedTestBean.class.getName().concat(".getName").equals(definition.getName())));
+	}
+
+	@Test
+	public void transactionManagerDeterminedPerInvocationIfOverridden() throws Exception {
+		PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+		TransactionStatus status = mock(TransactionStatus.class);
+		given(txManager.getTransaction(any())).willReturn(status);
+
+		Method getName = ITestBean.class.getMethod("getName");
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		tas.register(getName, new DefaultTransactionAttribute());
+		int[] determined = new int[1];
+		TransactionInterceptor ti = new TransactionInterceptor() {
+			@Override
+			protected PlatformTransactionManager determineTransactionManager(@Nullable TransactionAttribute txAttr) {
+				determined[0]++;
+				return txManager;
+			}
+		};
+		ti.setTransactionAttributeSource(tas);
+		ITestBean proxy = (ITestBean) advised(new TestBean("name"), ti);
+
+		assertEquals("name", proxy.getName());
+		assertEquals("name", proxy.getName());
+		assertEquals(2, determined[0]);
+		verify(txManager, times(2)).commit(status);
+	}
+
+
+	private Object advised(Object target, TransactionInterceptor ti) {
+		ProxyFactory pf = new ProxyFactory(target);
+		pf.addAdvice(ti);
+		return pf.getProxy();
+	}
 
 	private TransactionInterceptor createTransactionInterceptor(BeanFactory beanFactory,
 			String transactionManagerName, PlatformTransactionManager transactionManager) {
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SmartTransactionObject;
+
+/**
+ * Reactive transaction manager for tests, binding a simple resource to the
+ * transaction context and recording all transaction lifecycle events.
+ *
+ * @author agent
+ */
+@SuppressWarnings("serial")
+public class ReactiveTestTransactionManager extends AbstractReactiveTransactionManager {
+
+	public final List<String> events = new CopyOnWriteArrayList<>();
+
+	private final boolean canCreateTransaction;
+
+
+	public ReactiveTestTransactionManager() {
+		this(true);
+	}
+
+	public ReactiveTestTransactionManager(boolean canCreateTransaction) {
+		this.canCreateTransaction = canCreateTransaction;
+	}
+
+
+	@Override
+	protected Object doGetTransaction(TransactionSynchronizationManager synchronizationManager) {
+		return new TestTransactionObject((TestResource) synchronizationManager.getResource(this));
+	}
+
+	@Override
+	protected boolean isExistingTransaction(Object transaction) {
+		return (((TestTransactionObject) transaction).resource != null);
+	}
+
+	@Override
+	protected Mono<Void> doBegin(TransactionSynchronizationManager synchronizationManager,
+			Object transaction, TransactionDefinition definition) {
+
+		return Mono.fromRunnable(() -> {
+			if (!this.canCreateTransaction) {
+				throw new CannotCreateTransactionException("Cannot create transaction");
+			}
+			TestResource resource = new TestResource();
+			((TestTransactionObject) transaction).resource = resource;
+			synchronizationManager.bindResource(this, resource);
+			this.events.add("begin");
+		});
+	}
+
+	@Override
+	protected Mono<Object> doSuspend(TransactionSynchronizationManager synchronizationManager, Object transaction) {
+		return Mono.fromSupplier(() -> {
+			((TestTransactionObject) transaction).resource = null;
+			this.events.add("suspend");
+			return synchronizationManager.unbindResource(this);
+		});
+	}
+
+	@Override
+	protected Mono<Void> doResume(TransactionSynchronizationManager synchronizationManager,
+			Object transaction, Object suspendedResources) {
+
+		return Mono.fromRunnable(() -> {
+			synchronizationManager.bindResource(this, suspendedResources);
+			this.events.add("resume");
+		});
+	}
+
+	@Override
+	protected Mono<Void> doCommit(TransactionSynchronizationManager synchronizationManager,
+			GenericReactiveTransaction status) {
+
+		return Mono.fromRunnable(() -> this.events.add("commit"));
+	}
+
+	@Override
+	protected Mono<Void> doRollback(TransactionSynchronizationManager synchronizationManager,
+			GenericReactiveTransaction status) {
+
+		return Mono.fromRunnable(() -> this.events.add("rollback"));
+	}
+
+	@Override
+	protected Mono<Void> doSetRollbackOnly(TransactionSynchronizationManager synchronizationManager,
+			GenericReactiveTransaction status) {
+
+		return Mono.fromRunnable(() -> {
+			((TestTransactionObject) status.getTransaction()).resource.rollbackOnly = true;
+			this.events.add("rollbackOnly");
+		});
+	}
+
+	@Override
+	protected Mono<Void> doCleanupAfterCompletion(TransactionSynchronizationManager synchronizationManager,
+			Object transaction) {
+
+		return Mono.fromRunnable(() -> synchronizationManager.unbindResource(this));
+	}
+
+
+	private static class TestResource {
+
+		boolean rollbackOnly;
+	}
+
+
+	private static class TestTransactionObject implements SmartTransactionObject {
+
+		TestResource resource;
+
+		TestTransactionObject(TestResource resource) {
+			this.resource = resource;
+		}
+
+		@Override
+		public boolean isRollbackOnly() {
+			return (this.resource != null && this.resource.rollbackOnly);
+		}
+
+		@Override
+		public void flush() {
+		}
+	}
+
+}
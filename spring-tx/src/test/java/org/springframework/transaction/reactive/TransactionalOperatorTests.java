@@ -0,0 +1,254 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.reactive;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.NestedTransactionNotSupportedException;
+import org.springframework.transaction.NoTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionalOperator} and the propagation handling in
+ * {@link AbstractReactiveTransactionManager}.
+ *
+ * @author agent
+ */
+public class TransactionalOperatorTests {
+
+	private final ReactiveTestTransactionManager tm = new ReactiveTestTransactionManager();
+
+	private final TransactionalOperator operator = TransactionalOperator.create(this.tm);
+
+
+	@Test
+	public void commitWithMono() {
+		StepVerifier.create(this.operator.transactional(Mono.just("foo")))
+				.expectNext("foo")
+				.verifyComplete();
+		assertEquals(Arrays.asList("begin", "commit"), this.tm.events);
+	}
+
+	@Test
+	public void rollbackWithMono() {
+		StepVerifier.create(this.operator.transactional(Mono.error(new IllegalStateException())))
+				.verifyError(IllegalStateException.class);
+		assertEquals(Arrays.asList("begin", "rollback"), this.tm.events);
+	}
+
+	@Test
+	public void commitWithFlux() {
+		StepVerifier.create(this.operator.transactional(Flux.just(1, 2, 3)))
+				.expectNext(1, 2, 3)
+				.verifyComplete();
+		assertEquals(Arrays.asList("begin", "commit"), this.tm.events);
+	}
+
+	@Test
+	public void rollbackWithFlux() {
+		StepVerifier.create(this.operator.transactional(Flux.concat(Flux.just(1), Flux.error(new IllegalStateException()))))
+				.expectNext(1)
+				.verifyError(IllegalStateException.class);
+		assertEquals(Arrays.asList("begin", "rollback"), this.tm.events);
+	}
+
+	@Test
+	public void rollbackOnCancel() {
+		StepVerifier.create(this.operator.transactional(Flux.just(1, 2, 3)), 1)
+				.expectNext(1)
+				.thenCancel()
+				.verify();
+		assertEquals(Arrays.asList("begin", "rollback"), this.tm.events);
+	}
+
+	@Test
+	public void executeWithRollbackOnly() {
+		Flux<String> result = this.operator.execute(status -> {
+			status.setRollbackOnly();
+			return Mono.just("foo");
+		});
+		StepVerifier.create(result).expectNext("foo").verifyComplete();
+		assertEquals(Arrays.asList("begin", "rollback"), this.tm.events);
+	}
+
+	@Test
+	public void transactionContextAcrossThreads() {
+		Mono<Boolean> active = TransactionSynchronizationManager.forCurrentTransaction()
+				.publishOn(Schedulers.parallel())
+				.flatMap(synchronizationManager -> TransactionSynchronizationManager.forCurrentTransaction())
+				.map(TransactionSynchronizationManager::isActualTransactionActive);
+		StepVerifier.create(this.operator.transactional(active))
+				.expectNext(true)
+				.verifyComplete();
+		assertEquals(Arrays.asList("begin", "commit"), this.tm.events);
+	}
+
+	@Test
+	public void noTransactionContextOutsideOfPipeline() {
+		StepVerifier.create(TransactionSynchronizationManager.forCurrentTransaction())
+				.verifyError(NoTransactionException.class);
+	}
+
+	@Test
+	public void participatingTransaction() {
+		Mono<String> inner = this.operator.transactional(Mono.just("foo"));
+		StepVerifier.create(this.operator.transactional(inner))
+				.expectNext("foo")
+				.verifyComplete();
+		assertEquals(Arrays.asList("begin", "commit"), this.tm.events);
+	}
+
+	@Test
+	public void participatingTransactionWithRollbackOnly() {
+		Mono<String> inner = this.operator.transactional(Mono.error(new IllegalStateException()));
+		Mono<String> outer = inner.onErrorResume(IllegalStateException.class, ex -> Mono.just("recovered"));
+		StepVerifier.create(this.operator.transactional(outer))
+				.verifyError(UnexpectedRollbackException.class);
+		assertEquals(Arrays.asList("begin", "rollbackOnly", "rollback"), this.tm.events);
+	}
+
+	@Test
+	public void requiresNewTransaction() {
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		Mono<String> inner = TransactionalOperator.create(this.tm, definition).transactional(Mono.just("foo"));
+		StepVerifier.create(this.operator.transactional(inner))
+				.expectNext("foo")
+				.verifyComplete();
+		assertEquals(Arrays.asList("begin", "suspend", "begin", "commit", "resume", "commit"), this.tm.events);
+	}
+
+	@Test
+	public void requiresNewTransactionWithFailedBegin() {
+		ReactiveTestTransactionManager failingTm = new ReactiveTestTransactionManager(false);
+		StepVerifier.create(TransactionalOperator.create(failingTm).transactional(Mono.just("foo")))
+				.verifyError(CannotCreateTransactionException.class);
+		assertEquals(Collections.emptyList(), failingTm.events);
+	}
+
+	@Test
+	public void notSupportedSuspendsTransaction() {
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_NOT_SUPPORTED);
+		Mono<Boolean> inner = TransactionalOperator.create(this.tm, definition).transactional(
+				TransactionSynchronizationManager.forCurrentTransaction()
+						.map(TransactionSynchronizationManager::isActualTransactionActive));
+		StepVerifier.create(this.operator.transactional(inner))
+				.expectNext(false)
+				.verifyComplete();
+		assertEquals(Arrays.asList("begin", "suspend", "resume", "commit"), this.tm.events);
+	}
+
+	@Test
+	public void mandatoryWithoutTransaction() {
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_MANDATORY);
+		StepVerifier.create(TransactionalOperator.create(this.tm, definition).transactional(Mono.just("foo")))
+				.verifyError(IllegalTransactionStateException.class);
+		assertEquals(Collections.emptyList(), this.tm.events);
+	}
+
+	@Test
+	public void neverWithTransaction() {
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_NEVER);
+		Mono<String> inner = TransactionalOperator.create(this.tm, definition).transactional(Mono.just("foo"));
+		StepVerifier.create(this.operator.transactional(inner))
+				.verifyError(IllegalTransactionStateException.class);
+		assertEquals(Arrays.asList("begin", "rollback"), this.tm.events);
+	}
+
+	@Test
+	public void nestedWithTransaction() {
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_NESTED);
+		Mono<String> inner = TransactionalOperator.create(this.tm, definition).transactional(Mono.just("foo"));
+		StepVerifier.create(this.operator.transactional(inner))
+				.verifyError(NestedTransactionNotSupportedException.class);
+		assertEquals(Arrays.asList("begin", "rollback"), this.tm.events);
+	}
+
+	@Test
+	public void synchronizationCallbacks() {
+		List<String> callbacks = new CopyOnWriteArrayList<>();
+		TransactionSynchronization synchronization = new TransactionSynchronization() {
+			@Override
+			public Mono<Void> beforeCommit(boolean readOnly) {
+				return Mono.fromRunnable(() -> callbacks.add("beforeCommit"));
+			}
+			@Override
+			public Mono<Void> beforeCompletion() {
+				return Mono.fromRunnable(() -> callbacks.add("beforeCompletion"));
+			}
+			@Override
+			public Mono<Void> afterCommit() {
+				return Mono.fromRunnable(() -> callbacks.add("afterCommit"));
+			}
+			@Override
+			public Mono<Void> afterCompletion(int status) {
+				return Mono.fromRunnable(() -> callbacks.add("afterCompletion:" + status));
+			}
+		};
+		Mono<String> register = TransactionSynchronizationManager.forCurrentTransaction()
+				.doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(synchronization))
+				.thenReturn("foo");
+		StepVerifier.create(this.operator.transactional(register))
+				.expectNext("foo")
+				.verifyComplete();
+		assertEquals(Arrays.asList("beforeCommit", "beforeCompletion", "afterCommit",
+				"afterCompletion:" + TransactionSynchronization.STATUS_COMMITTED), callbacks);
+	}
+
+	@Test
+	public void synchronizationRollbackOnBeforeCommitError() {
+		List<String> callbacks = new CopyOnWriteArrayList<>();
+		TransactionSynchronization synchronization = new TransactionSynchronization() {
+			@Override
+			public Mono<Void> beforeCommit(boolean readOnly) {
+				return Mono.error(new IllegalStateException());
+			}
+			@Override
+			public Mono<Void> afterCompletion(int status) {
+				return Mono.fromRunnable(() -> callbacks.add("afterCompletion:" + status));
+			}
+		};
+		Mono<String> register = TransactionSynchronizationManager.forCurrentTransaction()
+				.doOnNext(synchronizationManager -> synchronizationManager.registerSynchronization(synchronization))
+				.thenReturn("foo");
+		StepVerifier.create(this.operator.transactional(register))
+				.verifyError(IllegalStateException.class);
+		assertEquals(Arrays.asList("begin", "rollback"), this.tm.events);
+		assertEquals(Collections.singletonList("afterCompletion:" + TransactionSynchronization.STATUS_ROLLED_BACK),
+				callbacks);
+	}
+
+}
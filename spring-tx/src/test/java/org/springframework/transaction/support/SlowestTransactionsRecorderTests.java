@@ -0,0 +1,107 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import org.springframework.transaction.TransactionDefinition;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link SlowestTransactionsRecorder}.
+ *
+ * @author agent
+ */
+public class SlowestTransactionsRecorderTests {
+
+	private final SlowestTransactionsRecorder recorder = new SlowestTransactionsRecorder(5);
+
+
+	@Test
+	public void keepsSlowestTransactions() {
+		List<TransactionExecutionRecord> all = new ArrayList<>();
+		for (int i = 0; i < 50; i++) {
+			TransactionExecutionRecord record = completedRecord("tx" + i, true);
+			all.add(record);
+			this.recorder.afterCompletion(record);
+		}
+
+		List<Long> expected = all.stream().map(TransactionExecutionRecord::getDurationNanos)
+				.sorted(Comparator.reverseOrder()).limit(5).collect(Collectors.toList());
+		List<Long> actual = this.recorder.getSlowestTransactions().stream()
+				.map(TransactionExecutionRecord::getDurationNanos).collect(Collectors.toList());
+		assertEquals(expected, actual);
+	}
+
+	@Test
+	public void keepsAllTransactionsBelowCapacity() {
+		TransactionExecutionRecord record1 = completedRecord("tx1", true);
+		TransactionExecutionRecord record2 = completedRecord("tx2", true);
+		this.recorder.afterCompletion(record1);
+		this.recorder.afterCompletion(record2);
+
+		List<TransactionExecutionRecord> slowest = this.recorder.getSlowestTransactions();
+		assertEquals(2, slowest.size());
+		assertTrue(slowest.contains(record1));
+		assertTrue(slowest.contains(record2));
+		assertTrue(slowest.get(0).getDurationNanos() >= slowest.get(1).getDurationNanos());
+	}
+
+	@Test
+	public void ignoresParticipatingTransactions() {
+		this.recorder.afterCompletion(completedRecord("tx", false));
+		assertTrue(this.recorder.getSlowestTransactions().isEmpty());
+	}
+
+	@Test
+	public void clear() {
+		for (int i = 0; i < 10; i++) {
+			this.recorder.afterCompletion(completedRecord("tx" + i, true));
+		}
+		this.recorder.clear();
+		assertTrue(this.recorder.getSlowestTransactions().isEmpty());
+
+		TransactionExecutionRecord record = completedRecord("tx", true);
+		this.recorder.afterCompletion(record);
+		assertEquals(1, this.recorder.getSlowestTransactions().size());
+		assertSame(record, this.recorder.getSlowestTransactions().get(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidCapacity() {
+		new SlowestTransactionsRecorder(0);
+	}
+
+
+	private static TransactionExecutionRecord completedRecord(String name, boolean newTransaction) {
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+		definition.setName(name);
+		definition.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		TransactionExecutionRecord record = new TransactionExecutionRecord(definition);
+		record.begun(newTransaction, false);
+		record.setCompletionStatus(TransactionSynchronization.STATUS_COMMITTED);
+		record.completed();
+		return record;
+	}
+
+}
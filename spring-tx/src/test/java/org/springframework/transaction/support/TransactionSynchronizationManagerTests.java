@@ -0,0 +1,216 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link TransactionSynchronizationManager}.
+ *
+ * @author agent
+ */
+public class TransactionSynchronizationManagerTests {
+
+	@After
+	public void verifyCleanState() throws Exception {
+		assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+		assertFalse(TransactionSynchronizationManager.isSynchronizationActive());
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionName());
+		assertFalse(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertNull(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+		assertNull("Transaction state not released from thread", getTransactionState().get());
+	}
+
+
+	@Test
+	public void bindAndUnbindResource() {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		assertTrue(TransactionSynchronizationManager.hasResource("key"));
+		assertEquals("value", TransactionSynchronizationManager.getResource("key"));
+		assertEquals(1, TransactionSynchronizationManager.getResourceMap().size());
+		try {
+			TransactionSynchronizationManager.bindResource("key", "other");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+		assertNotNull(TransactionSynchronizationManager.unbindResource("key"));
+		assertNull(TransactionSynchronizationManager.unbindResourceIfPossible("key"));
+		try {
+			TransactionSynchronizationManager.unbindResource("key");
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void voidResourceHolderTransparentlyRemoved() {
+		ResourceHolderSupport holder = new ResourceHolderSupport() {};
+		TransactionSynchronizationManager.bindResource("key", holder);
+		holder.unbound();
+		assertNull(TransactionSynchronizationManager.getResource("key"));
+		assertFalse(TransactionSynchronizationManager.hasResource("key"));
+	}
+
+	@Test
+	public void transactionCharacteristicsSurviveResourceUnbinding() {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.unbindResource("key");
+
+		assertEquals("tx", TransactionSynchronizationManager.getCurrentTransactionName());
+		assertTrue(TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+		assertEquals(Integer.valueOf(TransactionDefinition.ISOLATION_SERIALIZABLE),
+				TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+		assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+		TransactionSynchronizationManager.clear();
+	}
+
+	@Test
+	public void synchronizationSnapshotsSortedAndRefreshedOnRegistration() {
+		try {
+			TransactionSynchronizationManager.registerSynchronization(new OrderedSynchronization(1));
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+
+		TransactionSynchronizationManager.initSynchronization();
+		assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+		OrderedSynchronization second = new OrderedSynchronization(2);
+		OrderedSynchronization first = new OrderedSynchronization(1);
+		TransactionSynchronizationManager.registerSynchronization(second);
+		TransactionSynchronizationManager.registerSynchronization(first);
+		List<TransactionSynchronization> snapshot = TransactionSynchronizationManager.getSynchronizations();
+		assertEquals(2, snapshot.size());
+		assertSame(first, snapshot.get(0));
+		assertSame(second, snapshot.get(1));
+		assertSame(snapshot, TransactionSynchronizationManager.getSynchronizations());
+
+		OrderedSynchronization third = new OrderedSynchronization(3);
+		TransactionSynchronizationManager.registerSynchronization(third);
+		assertEquals(2, snapshot.size());
+		assertEquals(3, TransactionSynchronizationManager.getSynchronizations().size());
+		assertSame(third, TransactionSynchronizationManager.getSynchronizations().get(2));
+
+		TransactionSynchronizationManager.clearSynchronization();
+		try {
+			TransactionSynchronizationManager.getSynchronizations();
+			fail("Should have thrown IllegalStateException");
+		}
+		catch (IllegalStateException ex) {
+			// expected
+		}
+	}
+
+	@Test
+	public void stateClearedAfterTransaction() {
+		TestResourceTransactionManager tm = new TestResourceTransactionManager();
+		TransactionStatus status = tm.getTransaction(null);
+		assertTrue(TransactionSynchronizationManager.isSynchronizationActive());
+		assertTrue(TransactionSynchronizationManager.isActualTransactionActive());
+		assertTrue(TransactionSynchronizationManager.hasResource(tm));
+		tm.commit(status);
+	}
+
+	@Test
+	public void stateNotCarriedOverToNextTransaction() {
+		TestResourceTransactionManager tm = new TestResourceTransactionManager();
+		TransactionStatus status = tm.getTransaction(null);
+		OrderedSynchronization synchronization = new OrderedSynchronization(1);
+		TransactionSynchronizationManager.registerSynchronization(synchronization);
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.unbindResource("key");
+		tm.commit(status);
+
+		status = tm.getTransaction(null);
+		assertTrue(TransactionSynchronizationManager.getSynchronizations().isEmpty());
+		assertEquals(1, TransactionSynchronizationManager.getResourceMap().size());
+		assertFalse(TransactionSynchronizationManager.hasResource("key"));
+		TransactionSynchronizationManager.registerSynchronization(synchronization);
+		assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+		tm.rollback(status);
+	}
+
+
+	private static ThreadLocal<?> getTransactionState() throws Exception {
+		Field field = TransactionSynchronizationManager.class.getDeclaredField("transactionState");
+		field.setAccessible(true);
+		return (ThreadLocal<?>) field.get(null);
+	}
+
+
+	private static class OrderedSynchronization extends TransactionSynchronizationAdapter {
+
+		private final int order;
+
+		OrderedSynchronization(int order) {
+			this.order = order;
+		}
+
+		@Override
+		public int getOrder() {
+			return this.order;
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class TestResourceTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			TransactionSynchronizationManager.bindResource(this, transaction);
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			TransactionSynchronizationManager.unbindResource(this);
+		}
+	}
+
+}
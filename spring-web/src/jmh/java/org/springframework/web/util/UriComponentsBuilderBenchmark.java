@@ -0,0 +1,98 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.mock.web.test.MockHttpServletRequest;
+
+/**
+ * Benchmarks for URI parsing, expansion and encoding through
+ * {@link UriComponentsBuilder}, and for lookup path resolution through
+ * {@link UrlPathHelper}.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class UriComponentsBuilderBenchmark {
+
+	@Benchmark
+	public void parseUriString(UriData data, Blackhole bh) {
+		bh.consume(UriComponentsBuilder.fromUriString(data.uri).build());
+	}
+
+	@Benchmark
+	public void parseHttpUrl(UriData data, Blackhole bh) {
+		bh.consume(UriComponentsBuilder.fromHttpUrl(data.uri).build());
+	}
+
+	@Benchmark
+	public void expandAndEncodeTemplate(UriData data, Blackhole bh) {
+		bh.consume(UriComponentsBuilder.fromUriString(data.template).encode().buildAndExpand(data.variables).toUriString());
+	}
+
+	@Benchmark
+	public void defaultUriBuilderFactory(UriData data, Blackhole bh) {
+		bh.consume(data.uriBuilderFactory.expand(data.template, data.variables));
+	}
+
+	@Benchmark
+	public void lookupPathForRequest(UriData data, Blackhole bh) {
+		bh.consume(data.urlPathHelper.getLookupPathForRequest(data.request));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class UriData {
+
+		public String uri;
+
+		public String template;
+
+		public Map<String, Object> variables;
+
+		public DefaultUriBuilderFactory uriBuilderFactory;
+
+		public UrlPathHelper urlPathHelper;
+
+		public MockHttpServletRequest request;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.uri = "https://user@example.org:8443/api/hotels/42/bookings;matrix=a?sort=date&order=desc#top";
+			this.template = "https://example.org/api/hotels/{hotel}/bookings?q={query}";
+			this.variables = new HashMap<>();
+			this.variables.put("hotel", "Grand Hotel & Spa");
+			this.variables.put("query", "a&b=c");
+			this.uriBuilderFactory = new DefaultUriBuilderFactory();
+			this.urlPathHelper = new UrlPathHelper();
+			this.request = new MockHttpServletRequest("GET", "/app/api/hotels/42/bookings;jsessionid=123");
+			this.request.setContextPath("/app");
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2002-2019 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import org.springframework.mock.web.test.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * Benchmarks for handler lookups through {@link RequestMappingHandlerMapping}
+ * with a configurable number of registered request mappings.
+ *
+ * @author agent
+ */
+@BenchmarkMode(Mode.Throughput)
+public class RequestMappingHandlerMappingBenchmark {
+
+	@Benchmark
+	public void getHandlerDirectPath(HandlerMappingData data, Blackhole bh) throws Exception {
+		bh.consume(data.handlerMapping.getHandler(data.directPathRequest));
+	}
+
+	@Benchmark
+	public void getHandlerPatternPath(HandlerMappingData data, Blackhole bh) throws Exception {
+		for (MockHttpServletRequest request : data.patternPathRequests) {
+			bh.consume(data.handlerMapping.getHandler(request));
+		}
+	}
+
+	@Benchmark
+	public void getHandlerNoMatch(HandlerMappingData data, Blackhole bh) throws Exception {
+		bh.consume(data.handlerMapping.getHandler(data.noMatchRequest));
+	}
+
+
+	@State(Scope.Benchmark)
+	public static class HandlerMappingData {
+
+		@Param({"100", "1000"})
+		public int mappingCount;
+
+		public RequestMappingHandlerMapping handlerMapping;
+
+		public MockHttpServletRequest directPathRequest;
+
+		public List<MockHttpServletRequest> patternPathRequests;
+
+		public MockHttpServletRequest noMatchRequest;
+
+		@Setup(Level.Trial)
+		public void setup() throws NoSuchMethodException {
+			this.handlerMapping = new RequestMappingHandlerMapping();
+			Handler handler = new Handler();
+			Method method = Handler.class.getMethod("handle");
+			for (int i = 0; i < this.mappingCount; i++) {
+				this.handlerMapping.registerMapping(RequestMappingInfo.paths("/api/resources" + i)
+						.methods(RequestMethod.GET).build(), handler, method);
+				this.handlerMapping.registerMapping(RequestMappingInfo.paths("/api/resources" + i + "/{id}")
+						.methods(RequestMethod.GET, RequestMethod.PUT).build(), handler, method);
+				this.handlerMapping.registerMapping(RequestMappingInfo.paths("/api/resources" + i + "/{id}/**")
+						.methods(RequestMethod.GET).produces("application/json").build(), handler, method);
+			}
+			this.directPathRequest = new MockHttpServletRequest("GET", "/api/resources" + (this.mappingCount / 2));
+			this.patternPathRequests = new ArrayList<>();
+			this.patternPathRequests.add(new MockHttpServletRequest("GET", "/api/resources0/42"));
+			this.patternPathRequests.add(new MockHttpServletRequest("PUT", "/api/resources1/42"));
+			MockHttpServletRequest jsonRequest = new MockHttpServletRequest("GET", "/api/resources2/42/items/spring");
+			jsonRequest.addHeader("Accept", "application/json");
+			this.patternPathRequests.add(jsonRequest);
+			this.noMatchRequest = new MockHttpServletRequest("GET", "/static/unknown");
+		}
+	}
+
+
+	public static class Handler {
+
+		public String handle() {
+			return "handled";
+		}
+	}
+
+}